@@ -0,0 +1,74 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Instrumentation test for the SQLite backed {@link NewsStore}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NewsStoreTest {
+
+    private NewsStore mStore;
+
+    @Before
+    public void setUp() {
+        Context appContext = InstrumentationRegistry.getTargetContext();
+        appContext.deleteDatabase("news.db");
+        mStore = NewsStore.getInstance(appContext);
+    }
+
+    @Test
+    public void query_returnsUpsertedArticlesInRangeOldestFirst() {
+        mStore.upsert(Arrays.asList(
+                news("b", "Business", "2017-01-03T06:00:00Z"),
+                news("a", "World news", "2017-01-02T06:00:00Z"),
+                news("old", "World news", "2016-12-31T06:00:00Z")));
+        // Upserting the same article again replaces it
+        mStore.upsert(Arrays.asList(news("a", "World news", "2017-01-02T06:00:00Z")));
+
+        long from = NewsDates.parseIsoDate("2017-01-01T00:00:00Z");
+        List<News> all = mStore.query(from, null, 10);
+        assertEquals(2, all.size());
+        assertEquals("a", all.get(0).getTitle());
+        assertEquals("b", all.get(1).getTitle());
+
+        List<News> world = mStore.query(from, "World news", 10);
+        assertEquals(1, world.size());
+        assertEquals("https://www.theguardian.com/a", world.get(0).getArticleUrl());
+    }
+
+    @Test
+    public void prune_dropsArticlesOlderThanTheRetentionPeriod() {
+        mStore.upsert(Arrays.asList(
+                news("kept", "World news", "2017-02-01T06:00:00Z"),
+                news("dropped", "World news", "2016-12-01T06:00:00Z")));
+        long now = NewsDates.parseIsoDate("2017-02-02T00:00:00Z");
+        mStore.getSyncState().markSynced("world", NewsDates.parseIsoDate(
+                "2016-11-01T00:00:00Z"), now);
+
+        assertEquals(1, mStore.prune(now));
+
+        List<News> all = mStore.query(0, null, 10);
+        assertEquals(1, all.size());
+        assertEquals("kept", all.get(0).getTitle());
+        assertEquals(0, mStore.getSearchIndex().search("dropped", 10).size());
+        assertEquals(1, mStore.getSearchIndex().search("kept", 10).size());
+        assertEquals(0, mStore.getSyncState().getGaps("world",
+                NewsStore.getRetentionStartMillis(now)).size());
+    }
+
+    private static News news(String title, String section, String publicationDate) {
+        return new News(title, section, publicationDate, "https://www.theguardian.com/" + title);
+    }
+}
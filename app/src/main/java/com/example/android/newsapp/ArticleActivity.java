@@ -0,0 +1,100 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.text.Html;
+import android.text.method.LinkMovementMethod;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * In-app reader for a single article. The title, section and date come from the list, only
+ * the body is loaded, see {@link ArticleBodyLoader}, so articles whose body was prefetched
+ * open without waiting for the network.
+ */
+public class ArticleActivity extends AppCompatActivity implements ArticleBodyLoader.Callback {
+
+    /**
+     * Keys of the article shown in the intent extras
+     */
+    private static final String EXTRA_ARTICLE_ID = "article_id";
+    private static final String EXTRA_ARTICLE_URL = "article_url";
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_BYLINE = "byline";
+
+    private String mArticleUrl;
+    private TextView mBodyView;
+    private View mLoadingIndicator;
+
+    /**
+     * Return an intent opening the given article in the reader.
+     */
+    public static Intent newIntent(Context context, News news) {
+        return new Intent(context, ArticleActivity.class)
+                .putExtra(EXTRA_ARTICLE_ID, news.getArticleId())
+                .putExtra(EXTRA_ARTICLE_URL, news.getArticleUrl())
+                .putExtra(EXTRA_TITLE, news.getTitle())
+                .putExtra(EXTRA_BYLINE, news.getSection() + " · " + news.getFormattedDate());
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+
+        Intent intent = getIntent();
+        mArticleUrl = intent.getStringExtra(EXTRA_ARTICLE_URL);
+        ((TextView) findViewById(R.id.article_title))
+                .setText(intent.getStringExtra(EXTRA_TITLE));
+        ((TextView) findViewById(R.id.article_byline))
+                .setText(intent.getStringExtra(EXTRA_BYLINE));
+
+        mBodyView = (TextView) findViewById(R.id.article_body);
+        mBodyView.setMovementMethod(LinkMovementMethod.getInstance());
+        mLoadingIndicator = findViewById(R.id.article_loading_indicator);
+
+        String articleId = intent.getStringExtra(EXTRA_ARTICLE_ID);
+        if (articleId == null) {
+            onBodyLoaded(null);
+            return;
+        }
+        // Called right away if the body was prefetched
+        ArticleBodyLoader.getInstance(this).load(articleId, this);
+    }
+
+    @Override
+    protected void onDestroy() {
+        ArticleBodyLoader.getInstance(this).cancel(this);
+        super.onDestroy();
+    }
+
+    @Override
+    public void onBodyLoaded(String body) {
+        mLoadingIndicator.setVisibility(View.GONE);
+        if (body == null) {
+            mBodyView.setText(R.string.article_unavailable);
+            return;
+        }
+        mBodyView.setText(Html.fromHtml(body));
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.article, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mArticleUrl)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
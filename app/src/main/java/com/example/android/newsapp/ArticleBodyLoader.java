@@ -0,0 +1,201 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads article bodies for the reader, off the main thread.
+ * <p>
+ * The list only receives the fields it shows, bodies are fetched by article ID when an
+ * article is opened, or when its row stayed on screen long enough that it's likely to be
+ * opened. Bodies are kept in an {@link ArticleBodyCache}, so prefetched articles open right
+ * away. Opening an article runs before prefetches, see {@link PriorityExecutor}, and joins the
+ * prefetch of the same article if there is one. Requests go through the same
+ * {@link RetryingFetcher} as the news, so they back off together, and loaded bodies are added
+ * to the search index. All methods must be called on the main thread.
+ */
+public class ArticleBodyLoader {
+
+    /**
+     * Start of the web URL of every article, followed by its ID
+     */
+    private static final String WEB_URL = "https://www.theguardian.com/";
+
+    /**
+     * Number of bodies downloaded at the same time
+     */
+    private static final int THREAD_COUNT = 2;
+
+    /**
+     * Total length of the bodies kept in memory, about 2 MB. An article body is typically
+     * 5 to 30 thousand characters.
+     */
+    private static final long MAX_CACHE_CHARS = 1024 * 1024;
+
+    /**
+     * Receives the body of an article. Called on the main thread.
+     */
+    public interface Callback {
+        /**
+         * @param body is the HTML body of the article, or null if it couldn't be loaded.
+         */
+        void onBodyLoaded(String body);
+    }
+
+    private static ArticleBodyLoader sInstance;
+
+    /**
+     * Return the application wide loader, creating it on first use.
+     */
+    public static synchronized ArticleBodyLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodyLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private final Context mContext;
+
+    private final ArticleBodyCache mCache = new ArticleBodyCache(MAX_CACHE_CHARS);
+    private final PriorityExecutor mExecutor =
+            new PriorityExecutor(THREAD_COUNT, "ArticleBodyLoader");
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Loads in progress, by article ID
+     */
+    private final Map<String, Load> mLoads = new HashMap<String, Load>();
+
+    private ArticleBodyLoader(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Return the URL of the body of the article with the given ID. Only the body field is
+     * asked for, the reader has the rest from the list.
+     */
+    static String bodyUrl(String articleId) {
+        return new GuardianQuery.Builder()
+                .baseUrl(GuardianQuery.ITEM_URL + articleId)
+                .apiKey(NewsActivity.API_KEY)
+                .addShowFields("body")
+                .build()
+                .toUrl();
+    }
+
+    /**
+     * Load the body of the given article and pass it to the given callback, unless the
+     * callback is cancelled first. A cached body is passed on right away, before this returns.
+     */
+    public void load(String articleId, Callback callback) {
+        String body = mCache.get(articleId);
+        if (body != null) {
+            callback.onBodyLoaded(body);
+            return;
+        }
+        Load load = start(articleId, PriorityExecutor.PRIORITY_VISIBLE);
+        load.mCallbacks.add(callback);
+    }
+
+    /**
+     * Load the body of the given article into the cache at a low priority, so it opens right
+     * away if the user opens it.
+     */
+    public void prefetch(String articleId) {
+        if (!mCache.contains(articleId) && !mLoads.containsKey(articleId)) {
+            Metrics.increment("body.prefetches");
+            start(articleId, PriorityExecutor.PRIORITY_PREFETCH);
+        }
+    }
+
+    /**
+     * Stop waiting for a body with the given callback, e.g. when the reader is closed. The
+     * load goes on in the background, its body is cached for the next time.
+     */
+    public void cancel(Callback callback) {
+        for (Load load : mLoads.values()) {
+            if (load.mCallbacks.remove(callback) && load.mCallbacks.isEmpty()) {
+                mExecutor.setPriority(load.mTask, PriorityExecutor.PRIORITY_PREFETCH);
+            }
+        }
+    }
+
+    /**
+     * Start loading the given body, or join the load already in progress.
+     */
+    private Load start(final String articleId, int priority) {
+        Load existing = mLoads.get(articleId);
+        if (existing != null) {
+            if (priority == PriorityExecutor.PRIORITY_VISIBLE) {
+                // A prefetch the user is now waiting for moves up the queue
+                mExecutor.setPriority(existing.mTask, priority);
+            }
+            return existing;
+        }
+
+        final Load load = new Load(articleId);
+        load.mTask = mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final String body = fetch(articleId);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(load, body);
+                    }
+                });
+            }
+        }, priority);
+        mLoads.put(articleId, load);
+        return load;
+    }
+
+    /**
+     * Cache the result of a load and pass it to the callbacks still waiting for it.
+     */
+    private void deliver(Load load, String body) {
+        mLoads.remove(load.mArticleId);
+        if (body != null) {
+            mCache.put(load.mArticleId, body);
+        }
+        // A callback may cancel other callbacks while it runs
+        for (Callback callback : new ArrayList<Callback>(load.mCallbacks)) {
+            callback.onBodyLoaded(body);
+        }
+    }
+
+    /**
+     * Return the body of the given article, or null if it couldn't be fetched, and add it to
+     * the search index. Runs on a background thread.
+     */
+    private String fetch(String articleId) {
+        String body = NewsLoader.getFetcher()
+                .fetchBody(bodyUrl(articleId), new CancellationToken())
+                .getBody();
+        if (body != null) {
+            // Saved with the next articles received, see NewsStore#saveSearchIndex()
+            NewsStore.getInstance(mContext).getSearchIndex()
+                    .addBody(WEB_URL + articleId, body);
+        }
+        return body;
+    }
+
+    /**
+     * A body being loaded, and the callbacks waiting for it.
+     */
+    private static class Load {
+        final String mArticleId;
+        final List<Callback> mCallbacks = new ArrayList<Callback>(1);
+        PriorityExecutor.Task mTask;
+
+        Load(String articleId) {
+            mArticleId = articleId;
+        }
+    }
+}
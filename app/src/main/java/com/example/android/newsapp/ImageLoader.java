@@ -0,0 +1,253 @@
+package com.example.android.newsapp;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads article thumbnails into {@link ImageView}s, off the main thread.
+ * <p>
+ * Images go through three tiers: an in-memory LRU of decoded bitmaps bounded by their size in
+ * bytes, the {@link ImageDiskCache}, and the network through the pooled {@link NewsHttpClient}.
+ * They're decoded at the size they're shown at, see {@link ImageSizing}.
+ * <p>
+ * Loads for views on screen run before prefetches, see {@link PriorityExecutor}. When a view is
+ * recycled or bound to another image, its pending load is cancelled, unless another view is
+ * waiting for the same image. All methods must be called on the main thread.
+ */
+public class ImageLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(ImageLoader.class.getName());
+
+    /**
+     * Number of images downloaded and decoded at the same time
+     */
+    private static final int THREAD_COUNT = 3;
+
+    /**
+     * Share of the app's memory class used by the bitmaps kept in memory
+     */
+    private static final int MEMORY_CACHE_FRACTION = 8;
+
+    private static ImageLoader sInstance;
+
+    /**
+     * Return the application wide loader, creating it on first use.
+     */
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (sInstance == null) {
+            Context appContext = context.getApplicationContext();
+            ActivityManager activityManager =
+                    (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+            int memoryCacheBytes =
+                    activityManager.getMemoryClass() * 1024 * 1024 / MEMORY_CACHE_FRACTION;
+            sInstance = new ImageLoader(
+                    ImageDiskCache.getInstance(appContext.getCacheDir()), memoryCacheBytes);
+        }
+        return sInstance;
+    }
+
+    private final ImageDiskCache mDiskCache;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final PriorityExecutor mExecutor = new PriorityExecutor(THREAD_COUNT, "ImageLoader");
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Loads in progress, by cache key
+     */
+    private final Map<String, Load> mLoads = new HashMap<String, Load>();
+
+    /**
+     * Load each view is waiting for. Weak, so views of destroyed activities can go away
+     */
+    private final Map<ImageView, Load> mViewLoads = new WeakHashMap<ImageView, Load>();
+
+    private ImageLoader(ImageDiskCache diskCache, int memoryCacheBytes) {
+        mDiskCache = diskCache;
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Show the image with the given URL in the given view, decoded at the given size. The view
+     * is cleared until the image is ready.
+     */
+    public void load(String url, ImageView view, int width, int height) {
+        String key = keyFor(url, width, height);
+        Load previous = mViewLoads.get(view);
+        if (previous != null && previous.mKey.equals(key)) {
+            return;
+        }
+        cancel(view);
+
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            Metrics.increment("image.memory_hits");
+            view.setImageBitmap(bitmap);
+            return;
+        }
+
+        view.setImageDrawable(null);
+        Load load = start(url, key, width, height, PriorityExecutor.PRIORITY_VISIBLE);
+        load.mViews.add(view);
+        mViewLoads.put(view, load);
+    }
+
+    /**
+     * Load the image with the given URL into memory at a low priority, so it's ready when a
+     * view asks for it.
+     */
+    public void prefetch(String url, int width, int height) {
+        String key = keyFor(url, width, height);
+        if (mMemoryCache.get(key) == null && !mLoads.containsKey(key)) {
+            start(url, key, width, height, PriorityExecutor.PRIORITY_PREFETCH);
+        }
+    }
+
+    /**
+     * Stop waiting for an image for the given view, e.g. when it is recycled. The load itself
+     * is cancelled once no view is waiting for it any more, unless it is a prefetch.
+     */
+    public void cancel(ImageView view) {
+        Load load = mViewLoads.remove(view);
+        if (load == null) {
+            return;
+        }
+        load.mViews.remove(view);
+        if (!load.mViews.isEmpty()) {
+            return;
+        }
+        if (load.mPrefetch) {
+            mExecutor.setPriority(load.mTask, PriorityExecutor.PRIORITY_PREFETCH);
+        } else {
+            mLoads.remove(load.mKey);
+            load.mCancellation.cancel();
+            mExecutor.cancel(load.mTask);
+        }
+    }
+
+    /**
+     * Start loading the given image, or join the load already in progress.
+     */
+    private Load start(final String url, final String key, final int width, final int height,
+                       int priority) {
+        boolean prefetch = priority == PriorityExecutor.PRIORITY_PREFETCH;
+        Load existing = mLoads.get(key);
+        if (existing != null) {
+            existing.mPrefetch |= prefetch;
+            if (!prefetch) {
+                // A prefetch that became visible moves up the queue
+                mExecutor.setPriority(existing.mTask, priority);
+            }
+            return existing;
+        }
+
+        final Load load = new Load(key);
+        load.mPrefetch = prefetch;
+        final long loadStart = Metrics.start();
+        load.mTask = mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = fetchAndDecode(url, width, height, load.mCancellation);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(load, bitmap);
+                        Metrics.IMAGE.recordSince(loadStart);
+                    }
+                });
+            }
+        }, priority);
+        mLoads.put(key, load);
+        return load;
+    }
+
+    /**
+     * Cache the result of a load and show it in the views still waiting for it.
+     */
+    private void deliver(Load load, Bitmap bitmap) {
+        if (mLoads.get(load.mKey) != load) {
+            // Cancelled in the meantime
+            return;
+        }
+        mLoads.remove(load.mKey);
+        if (bitmap != null) {
+            mMemoryCache.put(load.mKey, bitmap);
+        }
+        for (ImageView view : load.mViews) {
+            mViewLoads.remove(view);
+            if (bitmap != null) {
+                view.setImageBitmap(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Return the decoded image, or null if it couldn't be fetched. Runs on a background thread.
+     */
+    private Bitmap fetchAndDecode(String url, int width, int height,
+                                 CancellationToken cancellation) {
+        try {
+            File file = QueryUtils.fetchImage(url, mDiskCache, cancellation);
+            cancellation.throwIfCanceled();
+
+            // Read the dimensions first, to decode no more pixels than are shown
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getPath(), options);
+            options.inSampleSize = ImageSizing.calculateInSampleSize(
+                    options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+            // Photos look the same without alpha, at half the memory
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IOException e) {
+            if (!cancellation.isCanceled()) {
+                LOGGER.log(Level.WARNING, "Problem loading image " + url, e);
+            }
+            return null;
+        }
+    }
+
+    private static String keyFor(String url, int width, int height) {
+        return url + '#' + width + 'x' + height;
+    }
+
+    /**
+     * An image being loaded, and the views waiting for it.
+     */
+    private static class Load {
+        final String mKey;
+        final CancellationToken mCancellation = new CancellationToken();
+        final List<ImageView> mViews = new ArrayList<ImageView>(1);
+        PriorityExecutor.Task mTask;
+
+        /**
+         * Whether the image was prefetched, so the load goes on without a view waiting for it
+         */
+        boolean mPrefetch;
+
+        Load(String key) {
+            mKey = key;
+        }
+    }
+}
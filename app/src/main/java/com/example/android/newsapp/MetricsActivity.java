@@ -0,0 +1,107 @@
+package com.example.android.newsapp;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Debug screen showing the report of {@link Metrics}, with options to save it to a file or to
+ * start over. Only linked from the menu of debug builds, where metrics are enabled.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    /**
+     * Tag for log messages
+     */
+    private static final String LOG_TAG = MetricsActivity.class.getName();
+
+    private TextView mReportView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        mReportView = (TextView) findViewById(R.id.metrics_report);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.action_refresh_metrics:
+                showReport();
+                return true;
+            case R.id.action_save_metrics:
+                saveReport();
+                return true;
+            case R.id.action_reset_metrics:
+                Metrics.reset();
+                showReport();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    private void showReport() {
+        StringWriter report = new StringWriter();
+        try {
+            Metrics.dump(report);
+        } catch (IOException e) {
+            // A StringWriter doesn't throw
+        }
+        mReportView.setText(report.toString());
+    }
+
+    /**
+     * Save the report to the app's external files directory, which can be pulled with adb
+     * without root.
+     */
+    private void saveReport() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        File file = new File(directory, "metrics-" + System.currentTimeMillis() + ".txt");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            Metrics.dump(writer);
+            Toast.makeText(this, getString(R.string.metrics_saved, file.getPath()),
+                    Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem saving the metrics.", e);
+            Toast.makeText(this, R.string.metrics_not_saved, Toast.LENGTH_SHORT).show();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Problem closing the metrics file.", e);
+                }
+            }
+        }
+    }
+}
@@ -1,34 +1,39 @@
 package com.example.android.newsapp;
 
 import android.app.LoaderManager;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.Loader;
 import android.graphics.Color;
 import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.format.DateUtils;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
-import android.widget.ListView;
 import android.widget.TextView;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 import static android.view.View.GONE;
 
 
 public class NewsActivity extends AppCompatActivity
-        implements LoaderManager.LoaderCallbacks<List<News>> {
+        implements LoaderManager.LoaderCallbacks<List<News>>,
+        NewsLoader.OnPartialResultListener {
 
     /**
      * Tag for log messages
@@ -46,30 +51,244 @@ public class NewsActivity extends AppCompatActivity
      */
     private static final int NEWS_LOADER_ID = 1;
 
+    /**
+     * ID of the loader fetching the pages after (or before) the first one as the user scrolls.
+     */
+    private static final int NEWS_PAGE_LOADER_ID = 2;
+
+    /**
+     * ID of the loader reading the selected date range from the local article store.
+     */
+    private static final int STORED_NEWS_LOADER_ID = 3;
+
+    /**
+     * Key of the page number in the page loader's arguments
+     */
+    private static final String PAGE_ARGUMENT = "page";
+
+    /**
+     * Number of pages kept in the list at once. The number of articles per page depends on
+     * the network, see {@link NetworkPolicy#getPageSize()}.
+     */
+    private static final int MAX_RESIDENT_PAGES = 5;
+
+    /**
+     * Number of stored articles shown while (or instead of) loading from the network, as many
+     * as the resident pages hold on an unmetered network
+     */
+    private static final int STORED_NEWS_LIMIT = 100;
+
+    /**
+     * Keys of the fetches waiting for a network: the first page of the selected date range,
+     * and the page that failed to load while scrolling
+     */
+    private static final String FIRST_PAGE_FETCH = "first_page";
+    private static final String NEXT_PAGE_FETCH = "next_page";
+
+    /**
+     * Time to wait after a date range button is tapped before loading, so tapping through
+     * several ranges quickly only loads the last one
+     */
+    private static final long LOAD_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Starts the loaders for the selected date range once the debounce time has passed
+     */
+    private final Handler mHandler = new Handler();
+    private final Runnable mRunLoaders = new Runnable() {
+        @Override
+        public void run() {
+            runLoaderIfNetworkAvailable();
+        }
+    };
+
+    /**
+     * Starts loading the first page of the selected date range, once there is a network
+     */
+    private final Runnable mStartNetworkLoads = new Runnable() {
+        @Override
+        public void run() {
+            startNetworkLoads();
+        }
+    };
+
+    /**
+     * Picks up paging where it stopped when a page failed to load, once there is a network
+     */
+    private final Runnable mResumePaging = new Runnable() {
+        @Override
+        public void run() {
+            mPager.resume();
+            loadPageIfNeeded();
+        }
+    };
+
+    /**
+     * Follows the network connection, to run the fetches asked for while offline once it's
+     * back and to adapt requests to metered networks
+     */
+    private ConnectivityMonitor mConnectivity;
+
+    /**
+     * Tells the monitor about connectivity changes while the screen is started
+     */
+    private final BroadcastReceiver mConnectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mConnectivity.update();
+        }
+    };
+
+    /**
+     * Records the first frame of a start, and runs the setup deferred until then
+     */
+    private final Runnable mOnFirstFrame = new Runnable() {
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            mStartupTimer.mark(StartupTimer.PHASE_FIRST_FRAME, now);
+            if (mAdapter.getItemCount() > 0) {
+                mStartupTimer.mark(StartupTimer.PHASE_CONTENT, now);
+            }
+            runDeferredSetup();
+        }
+    };
+
+    /**
+     * Keeps the freshness indicator's relative time current
+     */
+    private final Runnable mUpdateFreshness = new Runnable() {
+        @Override
+        public void run() {
+            updateFreshnessView();
+        }
+    };
+
+    /**
+     * Longest time the first frame of a start waits for stored articles, or the last result,
+     * to be shown. A first frame with articles is worth a few frames' delay, but not more.
+     */
+    private static final long FIRST_FRAME_CONTENT_BUDGET_MILLIS = 200;
+
+    /**
+     * Whether the background prefetch was scheduled since the process started
+     */
+    private static boolean sPrefetchScheduled;
+
+    /**
+     * Times the phases of each start of this screen
+     */
+    private final StartupTimer mStartupTimer = NewsApplication.getStartupTimer();
+
+    /**
+     * Tracks the pages of the current query shown in the list. Replaced when a new query
+     * starts with a different page size.
+     */
+    private NewsPager mPager =
+            new NewsPager(NetworkPolicy.UNMETERED.getPageSize(), MAX_RESIDENT_PAGES);
+
     /**
      * Stores the user-selected date range option.
      */
     private String mSelectedStartDateOption = "Today";
 
     /**
-     * Segments of the URL for retrieving news data from the server
-     * LIMIT = 10 results because of the "test" API key
+     * Key of the Content API. The "test" key is rate limited
+     */
+    static final String API_KEY = "test";
+
+    /**
+     * Return the query for news data from the server published since the given date.
+     * Only the thumbnail is asked for on top of the default fields, the body is loaded when
+     * an article is opened, see {@link ArticleBodyLoader}.
      * Sorting by "oldest" to show difference in selected date
+     * The page is added by {@link NewsPager}, the section per followed section, see
+     * {@link #mFollowedSections}
      */
-    private static final String NEWS_REQUEST_URL_START =
-            "https://content.guardianapis.com/search?section=world&&order-by=oldest&format=json&api-key=test&from-date=";
+    static GuardianQuery newsQuery(String fromDate) {
+        return new GuardianQuery.Builder()
+                .apiKey(API_KEY)
+                .orderBy(GuardianQuery.ORDER_BY_OLDEST)
+                .addShowFields("thumbnail")
+                .fromDate(fromDate)
+                .build();
+    }
+
+    /**
+     * Guardian section IDs fetched in parallel and merged into the list
+     */
+    private String[] mFollowedSections;
     private String mDateForUrl = null;
 
     /**
-     * URL for the news query based on user selected start date button
+     * Start of the selected date range, in milliseconds since the epoch
+     */
+    private long mRangeStartMillis;
+
+    /**
+     * Whether the list shows articles from the local store, or from the network, for the
+     * selected date range
+     */
+    private boolean mStoredNewsShown;
+    private boolean mNetworkNewsShown;
+
+    /**
+     * Whether the stored articles for the selected date range are still being read
+     */
+    private boolean mStoredNewsPending;
+
+    /**
+     * Whether the pages in the list are read from the local store, because the selected date
+     * range is synced, see {@link NewsLoader#setSyncedRange}
+     */
+    private boolean mPagesFromStore;
+
+    /**
+     * News query based on user selected start date button
      */
-    private String mNewsRequestUrl = null;
+    private GuardianQuery mNewsQuery = null;
+
+    /**
+     * Last complete first page of each date range, shown as soon as the range is selected
+     * while it is refreshed in the background
+     */
+    private LastResultCache mLastResults;
+
+    /**
+     * Time the first page shown was received from the network, or 0 if the list doesn't show
+     * a complete network result
+     */
+    private long mShownResultReceivedAtMillis;
+
+    /**
+     * Whether the first page shown is being refreshed, or failed to refresh
+     */
+    private boolean mRefreshing;
+    private boolean mRefreshFailed;
+
+    /**
+     * TextView showing how old the list is
+     */
+    private TextView mFreshnessView;
 
     /**
      * Adapter for the list of news articles
      */
     private NewsAdapter mAdapter;
 
+    /**
+     * Layout manager of the list showing the news articles
+     */
+    private LinearLayoutManager mLayoutManager;
+
+    /**
+     * Buttons selecting the date range
+     */
+    private Button mTodayButton;
+    private Button mWeekButton;
+    private Button mMonthButton;
+    private Button mYearButton;
+
     /**
      * Color values for button background based on their selection status
      */
@@ -109,26 +328,77 @@ public class NewsActivity extends AppCompatActivity
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        mStartupTimer.onCreate(System.nanoTime());
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_news);
 
-        // Find a reference to the {@link ListView} in the layout
-        ListView newsListView = (ListView) findViewById(R.id.list);
+        mFollowedSections = getResources().getStringArray(R.array.followed_sections);
+
+        // Find a reference to the {@link RecyclerView} in the layout
+        RecyclerView newsListView = (RecyclerView) findViewById(R.id.list);
+        mLayoutManager = new LinearLayoutManager(this);
+        newsListView.setLayoutManager(mLayoutManager);
+        // All list items have the same height, so changes don't require a full layout
+        newsListView.setHasFixedSize(true);
 
-        // Set the empty view
         mEmptyStateTextView = (TextView) findViewById(R.id.empty_view);
-        newsListView.setEmptyView(mEmptyStateTextView);
+        mFreshnessView = (TextView) findViewById(R.id.freshness);
+
+        mLastResults = LastResultCache.getInstance(TimeUnit.MINUTES.toMillis(
+                getResources().getInteger(R.integer.max_staleness_minutes)));
+
+        // Create a new adapter, which opens the clicked news article in the reader
+        mAdapter = new NewsAdapter(NewsActivity.this, new NewsAdapter.OnNewsClickListener() {
+            @Override
+            public void onNewsClick(News currentNews) {
+                startActivity(ArticleActivity.newIntent(NewsActivity.this, currentNews));
+            }
+        });
+
+        // Only show the empty view when the list has no items
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                updateEmptyView();
+                markContentShown();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                updateEmptyView();
+                markContentShown();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                updateEmptyView();
+            }
+        });
 
-        // Create a new adapter that takes an empty list of news as input
-        mAdapter = new NewsAdapter(NewsActivity.this, new ArrayList<News>());
+        // Keep the list in the order of the query as pages come and go, and show articles
+        // published in several of the followed sections once. Each page is sorted on its
+        // own so the rows on screen stay put when a page is added or dropped.
+        mAdapter.setPipeline(new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .sortWithinSegments(true)
+                .dedupeTitles(true)
+                .build());
+
+        // Load less over metered networks. The page size changes with the next query, the
+        // thumbnails and prefetching right away.
+        mConnectivity = new ConnectivityMonitor(new SystemConnectivitySource(this));
+        mAdapter.setNetworkPolicy(mConnectivity.getPolicy());
+        mConnectivity.addListener(new ConnectivityMonitor.Listener() {
+            @Override
+            public void onNetworkPolicyChanged(NetworkPolicy policy) {
+                mAdapter.setNetworkPolicy(policy);
+            }
+        });
 
-        // Set the adapter on the {@link ListView}
+        // Set the adapter on the {@link RecyclerView}
         // so the list can be populated in the user interface
         newsListView.setAdapter(mAdapter);
 
-        // Restore default color for all buttons
-        setButtonDefaultColor();
-
         // Check whether we're recreating a previously destroyed instance
         if (savedInstanceState != null) {
             // Restore value of members from saved state
@@ -142,29 +412,29 @@ public class NewsActivity extends AppCompatActivity
             mFirstStart = true;
         }
 
-        // Change selected button's color to active
-        findViewById(mSelectedButtonResourceIdValue).setBackgroundColor(SELECTED_BUTTON_COLOR);
+        // Find a reference to the date range {@link Button}s in the layout, once
+        mTodayButton = (Button) findViewById(R.id.button_today);
+        mWeekButton = (Button) findViewById(R.id.button_week);
+        mMonthButton = (Button) findViewById(R.id.button_month);
+        mYearButton = (Button) findViewById(R.id.button_year);
+
+        // Change selected button's color to active, and the others' to inactive
+        updateButtonColors();
 
         // Generate the request URL for application startup query using "Today" as default
         // date option
         makeServerRequestUrl();
 
+        // Show the last result of the range while it loads, e.g. after a rotation
+        showLastResult();
+
         // Method call to perform background network tasks using Loader
         runLoaderIfNetworkAvailable();
 
-        // Find a reference to the Today {@link Button} in the layout
-        Button todayButton = (Button) findViewById(R.id.button_today);
-        // Find a reference to the Week {@link Button} in the layout
-        Button weekButton = (Button) findViewById(R.id.button_week);
-        // Find a reference to the Month {@link Button} in the layout
-        Button monthButton = (Button) findViewById(R.id.button_month);
-        // Find a reference to the Year {@link Button} in the layout
-        Button yearButton = (Button) findViewById(R.id.button_year);
-
         // Find reference to the loading indicator
         final View loadingIndicator = findViewById(R.id.loading_indicator);
 
-        todayButton.setOnClickListener(new View.OnClickListener() {
+        mTodayButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 loadingIndicator.setVisibility(View.VISIBLE);
@@ -172,7 +442,7 @@ public class NewsActivity extends AppCompatActivity
             }
         });
 
-        weekButton.setOnClickListener(new View.OnClickListener() {
+        mWeekButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 loadingIndicator.setVisibility(View.VISIBLE);
@@ -180,7 +450,7 @@ public class NewsActivity extends AppCompatActivity
             }
         });
 
-        monthButton.setOnClickListener(new View.OnClickListener() {
+        mMonthButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 loadingIndicator.setVisibility(View.VISIBLE);
@@ -188,7 +458,7 @@ public class NewsActivity extends AppCompatActivity
             }
         });
 
-        yearButton.setOnClickListener(new View.OnClickListener() {
+        mYearButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 loadingIndicator.setVisibility(View.VISIBLE);
@@ -196,26 +466,113 @@ public class NewsActivity extends AppCompatActivity
             }
         });
 
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with more information about the selected news article.
-        newsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Load the next (or previous) page once the user scrolls close to the end of the list.
+        // The RecyclerView also reports a scroll after each layout, so this runs when pages
+        // are added too.
+        newsListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
-                // Find the current news article that was clicked on
-                News currentNews = mAdapter.getItem(position);
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                loadPageIfNeeded();
+            }
+        });
+
+        mStartupTimer.mark(StartupTimer.PHASE_CREATE, System.nanoTime());
+        waitForFirstFrame();
+    }
 
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri newsUri = Uri.parse(currentNews.getArticleUrl());
+    /**
+     * Start loading the next (or previous) page if the list is scrolled close enough to its
+     * end (or top).
+     */
+    private void loadPageIfNeeded() {
+        int totalItemCount = mAdapter.getItemCount();
+        int firstVisibleItem = mLayoutManager.findFirstVisibleItemPosition();
+        if (totalItemCount == 0 || firstVisibleItem == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int page = mPager.nextPageToLoad(mLayoutManager.findLastVisibleItemPosition(),
+                totalItemCount);
+        if (page == NewsPager.NO_PAGE) {
+            page = mPager.previousPageToLoad(firstVisibleItem);
+        }
+        if (page != NewsPager.NO_PAGE) {
+            Bundle args = new Bundle();
+            args.putInt(PAGE_ARGUMENT, page);
+            getLoaderManager().restartLoader(NEWS_PAGE_LOADER_ID, args, NewsActivity.this);
+        }
+    }
 
-                // Create a new intent to view the news article URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, newsUri);
+    @Override
+    protected void onRestart() {
+        mStartupTimer.onRestart(System.nanoTime());
+        super.onRestart();
+        waitForFirstFrame();
+    }
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
+    /**
+     * Record the first frame of this start, then run the setup that can wait until it's
+     * drawn. Unless the list already has articles, the first frame is held while the stored
+     * articles or the last result are on their way, up to
+     * {@link #FIRST_FRAME_CONTENT_BUDGET_MILLIS}, so it shows them instead of an empty screen
+     * that is replaced right after.
+     */
+    private void waitForFirstFrame() {
+        final View content = findViewById(android.R.id.content);
+        final long deadline = SystemClock.uptimeMillis() + FIRST_FRAME_CONTENT_BUDGET_MILLIS;
+        ViewTreeObserver observer = content.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                if (mAdapter.getItemCount() == 0
+                        && (mStoredNewsPending || mAdapter.hasPendingUpdate())
+                        && SystemClock.uptimeMillis() < deadline) {
+                    // Skip this frame, the next one is scheduled right away
+                    return false;
+                }
+                // The observer the listener was added to before the view was attached to the
+                // window is no longer alive, the window's own is
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (mStartupTimer.getStartType() != StartupTimer.HOT) {
+                    Metrics.increment(mAdapter.getItemCount() > 0
+                            ? "startup.content_at_first_frame" : "startup.empty_first_frame");
+                }
+                // Runs once the frame is drawn
+                mHandler.post(mOnFirstFrame);
+                return true;
             }
         });
     }
 
+    /**
+     * Record that articles are shown, if this start already drew its first frame. Articles
+     * that arrive before are recorded with the first frame.
+     */
+    private void markContentShown() {
+        if (mAdapter.getItemCount() > 0
+                && mStartupTimer.isMarked(StartupTimer.PHASE_FIRST_FRAME)) {
+            mStartupTimer.mark(StartupTimer.PHASE_CONTENT, System.nanoTime());
+        }
+    }
+
+    /**
+     * Setup that isn't needed for the first frame. Runs after each first frame, but only does
+     * its work once per process.
+     */
+    private void runDeferredSetup() {
+        if (!sPrefetchScheduled) {
+            sPrefetchScheduled = true;
+            // Make sure the background prefetch is scheduled, e.g. after the app was updated.
+            // Reads the prefetch state from disk, so it runs off the main thread.
+            final Context context = getApplicationContext();
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    PrefetchService.schedule(context);
+                }
+            });
+        }
+    }
+
     private void functionsOnButtonClick(String selectedStartDateOption) {
         // Update relevant variables
         mSelectedStartDateOption = selectedStartDateOption;
@@ -234,39 +591,119 @@ public class NewsActivity extends AppCompatActivity
                 break;
         }
 
-        setButtonDefaultColor();
-        // Set button color to selected button's color value
-        findViewById(mSelectedButtonResourceIdValue).setBackgroundColor(SELECTED_BUTTON_COLOR);
+        updateButtonColors();
 
         makeServerRequestUrl();
 
-        runLoaderIfNetworkAvailable();
+        // Stop the requests for the previous range right away, but wait a moment before
+        // starting new ones in case the user keeps switching
+        cancelNetworkLoads();
+        // The last result of the new range doesn't have to wait for anything
+        showLastResult();
+        mHandler.removeCallbacks(mRunLoaders);
+        mHandler.postDelayed(mRunLoaders, LOAD_DEBOUNCE_MILLIS);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        updateFreshnessView();
+        // The connectivity broadcast is sticky, so registering also delivers the current
+        // state, which runs the fetches queued while offline if the network came back while
+        // the screen was stopped
+        registerReceiver(mConnectivityReceiver,
+                new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    @Override
+    protected void onStop() {
+        mHandler.removeCallbacks(mUpdateFreshness);
+        unregisterReceiver(mConnectivityReceiver);
+        // Loads save the search index at most once a minute, save the rest before the app
+        // goes to the background, where its process may be killed
+        final Context context = getApplicationContext();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                NewsStore.getInstance(context).saveSearchIndex();
+            }
+        });
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mHandler.removeCallbacks(mRunLoaders);
+        mHandler.removeCallbacks(mOnFirstFrame);
+        super.onDestroy();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.news, menu);
+        // The metrics screen is only useful where metrics are recorded
+        menu.findItem(R.id.action_metrics).setVisible(Metrics.isEnabled());
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.action_search:
+                startActivity(new Intent(this, SearchActivity.class));
+                return true;
+            case R.id.action_metrics:
+                startActivity(new Intent(this, MetricsActivity.class));
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    /**
+     * Cancel the network loads in progress. Their connections are closed unless another load
+     * is waiting for the same request, and their results are dropped.
+     */
+    private void cancelNetworkLoads() {
+        LoaderManager loaderManager = getLoaderManager();
+        Loader<List<News>> loader = loaderManager.getLoader(NEWS_LOADER_ID);
+        if (loader != null) {
+            loader.cancelLoad();
+        }
+        loader = loaderManager.getLoader(NEWS_PAGE_LOADER_ID);
+        if (loader != null) {
+            loader.cancelLoad();
+        }
     }
 
     private void runLoaderIfNetworkAvailable() {
 
-        // Get a reference to the ConnectivityManager to check state of network connectivity
-        ConnectivityManager mConnMgr = (ConnectivityManager)
-                getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        // Get details on the currently active default data network
-        NetworkInfo mNetworkInfo = mConnMgr.getActiveNetworkInfo();
-
-        // If there is a network connection, fetch data
-        if (mNetworkInfo != null && mNetworkInfo.isConnected()) {
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
-            // Restart the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            // Get the user typed text from the EditText view
-            if (mFirstStart) {
-                mFirstStart = false;
-                loaderManager.initLoader(NEWS_LOADER_ID, null, NewsActivity.this);
+        // Get a reference to the LoaderManager, in order to interact with loaders.
+        LoaderManager loaderManager = getLoaderManager();
+
+        // Show the articles stored for this date range right away, the network request below
+        // replaces them once it completes
+        mStoredNewsShown = false;
+        mNetworkNewsShown = false;
+        mStoredNewsPending = true;
+        loaderManager.restartLoader(STORED_NEWS_LOADER_ID, null, NewsActivity.this);
+
+        // A page of the previous query that failed no longer needs loading
+        mConnectivity.cancel(NEXT_PAGE_FETCH);
+
+        // If there is a network connection, fetch data. Otherwise the fetch waits for one,
+        // replacing the fetch of a range selected earlier while offline.
+        if (!mConnectivity.runWhenConnected(FIRST_PAGE_FETCH, mStartNetworkLoads)) {
+            // No pages can be loaded, only the last result or the stored articles are shown
+            loaderManager.destroyLoader(NEWS_PAGE_LOADER_ID);
+            mPager.reset();
+            mRefreshing = false;
+            if (mShownResultReceivedAtMillis != 0) {
+                mRefreshFailed = true;
+                updateFreshnessView();
             } else {
-                loaderManager.restartLoader(NEWS_LOADER_ID, null, NewsActivity.this);
+                mAdapter.submitList(null);
             }
-        } else {
             //Hide the progress indicator
             View loadingIndicator = findViewById(R.id.loading_indicator);
             loadingIndicator.setVisibility(GONE);
@@ -276,129 +713,301 @@ public class NewsActivity extends AppCompatActivity
         }
     }
 
-    // Method to set default background color for all buttons
-    private void setButtonDefaultColor() {
-
-        // Find a reference to the Today {@link Button} in the layout
-        Button todayButton = (Button) findViewById(R.id.button_today);
-        // Find a reference to the Week {@link Button} in the layout
-        Button weekButton = (Button) findViewById(R.id.button_week);
-        // Find a reference to the Month {@link Button} in the layout
-        Button monthButton = (Button) findViewById(R.id.button_month);
-        // Find a reference to the Year {@link Button} in the layout
-        Button yearButton = (Button) findViewById(R.id.button_year);
-
-        todayButton.setBackgroundColor(NOT_SELECTED_BUTTON_COLOR);
-        weekButton.setBackgroundColor(NOT_SELECTED_BUTTON_COLOR);
-        monthButton.setBackgroundColor(NOT_SELECTED_BUTTON_COLOR);
-        yearButton.setBackgroundColor(NOT_SELECTED_BUTTON_COLOR);
+    /**
+     * Load the first page of the selected date range from the network, right away or once the
+     * network is back.
+     */
+    private void startNetworkLoads() {
+        LoaderManager loaderManager = getLoaderManager();
+        mRefreshing = true;
+        mRefreshFailed = false;
+        updateFreshnessView();
+        if (mAdapter.getItemCount() == 0) {
+            // Nothing to show until the page arrives, e.g. after being offline
+            findViewById(R.id.loading_indicator).setVisibility(View.VISIBLE);
+            mEmptyStateTextView.setText("");
+        }
+        // Start over from the first page, dropping any page still loading for the
+        // previous query. Pages are as large as the current network allows.
+        loaderManager.destroyLoader(NEWS_PAGE_LOADER_ID);
+        int pageSize = mConnectivity.getPolicy().getPageSize();
+        if (pageSize != mPager.getPageSize()) {
+            mPager = new NewsPager(pageSize, MAX_RESIDENT_PAGES);
+        } else {
+            mPager.reset();
+        }
+        mPager.firstPageToLoad();
+        // Restart the loader. Pass in the int ID constant defined above and pass in null for
+        // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
+        // because this activity implements the LoaderCallbacks interface).
+        if (mFirstStart) {
+            mFirstStart = false;
+            loaderManager.initLoader(NEWS_LOADER_ID, null, NewsActivity.this);
+        } else {
+            loaderManager.restartLoader(NEWS_LOADER_ID, null, NewsActivity.this);
+        }
+    }
+
+    /**
+     * Run the given fetch once the network is back, if a request failed because it went away.
+     * Failures while connected were already retried by the loader and aren't retried again.
+     */
+    private void retryWhenConnected(String key, Runnable fetch) {
+        mConnectivity.update();
+        if (!mConnectivity.isConnected()) {
+            mConnectivity.runWhenConnected(key, fetch);
+        }
+    }
+
+    // Method to set the background color of each button based on its selection status, in a
+    // single pass
+    private void updateButtonColors() {
+        Button[] buttons = {mTodayButton, mWeekButton, mMonthButton, mYearButton};
+        for (Button button : buttons) {
+            button.setBackgroundColor(button.getId() == mSelectedButtonResourceIdValue
+                    ? SELECTED_BUTTON_COLOR : NOT_SELECTED_BUTTON_COLOR);
+        }
     }
 
 
     @Override
     public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
 
-        // Create a new loader for the given URL
-        return new NewsLoader(this, mNewsRequestUrl);
+        if (i == STORED_NEWS_LOADER_ID) {
+            return new StoredNewsLoader(this, mRangeStartMillis, STORED_NEWS_LIMIT);
+        }
+
+        // Create a new loader for the URLs of the requested page, one per followed section
+        int page = 1;
+        if (i == NEWS_PAGE_LOADER_ID) {
+            page = bundle.getInt(PAGE_ARGUMENT);
+        }
+        GuardianQuery pageQuery = mPager.pageQuery(mNewsQuery, page);
+        List<String> sectionUrls = NewsLoader.sectionUrls(pageQuery, mFollowedSections);
+
+        NewsLoader loader = new NewsLoader(this, sectionUrls, page);
+        if (i == NEWS_LOADER_ID) {
+            // Show the first sections as soon as they arrive
+            loader.setOnPartialResultListener(this);
+        }
+        // A synced range only fetches what's new, and the following pages come from the store
+        if (i == NEWS_LOADER_ID || mPagesFromStore) {
+            loader.setSyncedRange(mNewsQuery, mFollowedSections, mRangeStartMillis,
+                    mPager.getPageSize());
+        }
+        return loader;
+    }
+
+    @Override
+    public void onPartialResult(NewsLoader loader, List<News> news) {
+        // Only the first page is shown before all of its sections arrived, and only if there
+        // is no previous result shown, which is more complete than the first sections
+        if (loader.getId() != NEWS_LOADER_ID || !mPager.isPending(1)
+                || mShownResultReceivedAtMillis != 0) {
+            return;
+        }
+
+        //Hide the progress indicator
+        View loadingIndicator = findViewById(R.id.loading_indicator);
+        loadingIndicator.setVisibility(GONE);
+
+        mAdapter.submitList(news);
+        mNetworkNewsShown = true;
+    }
+
+    /**
+     * Show the articles read from the local store, unless the network already delivered fresher
+     * ones for the selected date range.
+     */
+    private void onStoredNewsLoaded(List<News> news) {
+        if (mNetworkNewsShown || mShownResultReceivedAtMillis != 0
+                || news == null || news.isEmpty()) {
+            return;
+        }
+
+        //Hide the progress indicator
+        View loadingIndicator = findViewById(R.id.loading_indicator);
+        loadingIndicator.setVisibility(GONE);
+
+        mAdapter.submitList(news);
+        mStoredNewsShown = true;
     }
 
     @Override
     public void onLoadFinished(Loader<List<News>> loader, List<News> news) {
 
+        if (loader.getId() == NEWS_PAGE_LOADER_ID) {
+            onPageLoadFinished(((NewsLoader) loader).getPage(), news);
+            return;
+        }
+        if (loader.getId() == STORED_NEWS_LOADER_ID) {
+            mStoredNewsPending = false;
+            onStoredNewsLoaded(news);
+            return;
+        }
+
         //Hide the progress indicator
         View loadingIndicator = findViewById(R.id.loading_indicator);
         loadingIndicator.setVisibility(GONE);
 
-        // Set empty state text to display "No news found."
-        mEmptyStateTextView.setText(R.string.no_news);
+        // Ignore the first page when it is redelivered, the list may hold more pages by now
+        if (!mPager.isPending(1)) {
+            return;
+        }
+
+        mRefreshing = false;
+        mPagesFromStore = ((NewsLoader) loader).isFromStore();
+        if (news != null) {
+            mPager.onPageLoaded(1, news.size());
+            mShownResultReceivedAtMillis =
+                    mLastResults.put(mNewsQuery.toUrl(), news).getReceivedAtMillis();
+            mRefreshFailed = false;
+            updateFreshnessView();
+        } else {
+            mPager.onPageFailed();
+            retryWhenConnected(FIRST_PAGE_FETCH, mStartNetworkLoads);
+            // Keep showing the last result or the stored articles if the network request
+            // failed
+            if (mShownResultReceivedAtMillis != 0) {
+                mRefreshFailed = true;
+                updateFreshnessView();
+                return;
+            }
+            if (mStoredNewsShown) {
+                return;
+            }
+        }
+
+        // Set empty state text to display "No news found.", or that the news couldn't be
+        // loaded if every request failed even after retrying
+        mEmptyStateTextView.setText(news != null ? R.string.no_news : R.string.news_unavailable);
+
+        // Replace the previous news data with the new list, or an empty one if the request
+        // failed. Only the rows that differ are updated.
+        mAdapter.submitList(news);
+        mNetworkNewsShown = true;
+    }
+
+    /**
+     * Add a page loaded while scrolling to the list, dropping the pages at the other end so
+     * only a bounded window of pages stays in the adapter.
+     */
+    private void onPageLoadFinished(int page, List<News> news) {
+        // Ignore results redelivered by the loader manager or meant for an earlier query
+        if (!mPager.isPending(page)) {
+            return;
+        }
+        if (news == null) {
+            mPager.onPageFailed();
+            retryWhenConnected(NEXT_PAGE_FETCH, mResumePaging);
+            return;
+        }
+
+        // The pipeline merges the page in by publication date, which puts it at the matching
+        // end of the list. The RecyclerView keeps the visible rows in place when rows are
+        // added above them or removed from the top.
+        mPager.onPageLoaded(page, news.size());
+        mAdapter.submitPage(page, news, mPager.getFirstResidentPage(),
+                mPager.getLastResidentPage());
+    }
+
+    /**
+     * Show the last result of the selected date range right away, if there is one that isn't
+     * too old. The list then keeps its rows while the refresh runs, and the refreshed result
+     * only updates the rows that changed.
+     */
+    private void showLastResult() {
+        // Pages of the previous range no longer fit the list
+        getLoaderManager().destroyLoader(NEWS_PAGE_LOADER_ID);
+        mPager.reset();
+
+        LastResultCache.Snapshot snapshot = mLastResults.get(mNewsQuery.toUrl());
+        if (snapshot == null) {
+            mShownResultReceivedAtMillis = 0;
+            updateFreshnessView();
+            return;
+        }
+
+        //Hide the progress indicator
+        View loadingIndicator = findViewById(R.id.loading_indicator);
+        loadingIndicator.setVisibility(GONE);
 
-        // Clear the adapter of previous news data
-        mAdapter.clear();
+        mAdapter.submitList(snapshot.getNews());
+        mShownResultReceivedAtMillis = snapshot.getReceivedAtMillis();
+        // A refresh always follows
+        mRefreshing = true;
+        mRefreshFailed = false;
+        updateFreshnessView();
+    }
 
-        // If there is a valid list of {@link News}, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (news != null && !news.isEmpty()) {
-            mAdapter.addAll(news);
+    /**
+     * Show how long ago the first page shown was received, and whether it is being
+     * refreshed. Hidden while the list shows no complete network result.
+     */
+    private void updateFreshnessView() {
+        mHandler.removeCallbacks(mUpdateFreshness);
+        if (mShownResultReceivedAtMillis == 0) {
+            mFreshnessView.setVisibility(GONE);
+            return;
         }
+
+        long now = System.currentTimeMillis();
+        CharSequence age = now - mShownResultReceivedAtMillis < DateUtils.MINUTE_IN_MILLIS
+                ? getString(R.string.freshness_just_now)
+                : DateUtils.getRelativeTimeSpanString(mShownResultReceivedAtMillis, now,
+                DateUtils.MINUTE_IN_MILLIS);
+        int text = mRefreshFailed ? R.string.freshness_refresh_failed
+                : (mRefreshing ? R.string.freshness_refreshing : R.string.freshness_updated);
+        mFreshnessView.setText(getString(text, age));
+        mFreshnessView.setVisibility(View.VISIBLE);
+
+        // The age is shown in minutes
+        mHandler.postDelayed(mUpdateFreshness, DateUtils.MINUTE_IN_MILLIS);
+    }
+
+    /**
+     * Show the empty view, with its message, only while the list has no items.
+     */
+    private void updateEmptyView() {
+        mEmptyStateTextView.setVisibility(mAdapter.getItemCount() == 0 ? View.VISIBLE : GONE);
     }
 
     @Override
     public void onLoaderReset(Loader<List<News>> loader) {
 
-        // Clear the adapter of previous news data
-        mAdapter.clear();
+        // Pages are only added to the list, the list itself belongs to the first page loader
+        if (loader.getId() == NEWS_LOADER_ID) {
+            // Clear the adapter of previous news data
+            mAdapter.submitList(null);
+        }
     }
 
 
-    // Method to make a final URL combining the different URL parts and the user selected date range
+    // Method to make the news query for the user selected date range
     private void makeServerRequestUrl() {
 
         getDateForUrl(mSelectedStartDateOption);
 
-        StringBuilder urlBuilder = new StringBuilder();
-        urlBuilder = urlBuilder.append(NEWS_REQUEST_URL_START)
-                .append(mDateForUrl);
-
-        // First encode into UTF-8, then back to a form easily processed by the API
-        // This is mainly to avoid issues with spaces and other special characters in the URL
-        String finalUrl = Uri.encode(urlBuilder.toString()).replaceAll("\\+", "%20")
-                .replaceAll("\\%21", "!")
-                .replaceAll("\\%3A", ":")
-                .replaceAll("\\%2F", "/")
-                .replaceAll("\\%3F", "?")
-                .replaceAll("\\%26", "&")
-                .replaceAll("\\%3D", "=")
-                .replaceAll("\\%27", "'")
-                .replaceAll("\\%28", "(")
-                .replaceAll("\\%29", ")")
-                .replaceAll("\\%20", "\\+")
-                .replaceAll("\\%7E", "~");
-
-        mNewsRequestUrl = finalUrl;
+        mNewsQuery = newsQuery(mDateForUrl);
     }
 
     private void getDateForUrl(String selectedDateOption) {
-        // Variable to store range start date
-        long dateSelected = 0;
-
-        // get today and clear time of day
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.HOUR_OF_DAY, 0); // ! clear would not reset the hour of day !
-        cal.clear(Calendar.MINUTE);
-        cal.clear(Calendar.SECOND);
-        cal.clear(Calendar.MILLISECOND);
-
+        int range = NewsDates.RANGE_TODAY;
         switch (selectedDateOption) {
-            case "Today":
-                // get today's date in milliseconds
-                dateSelected = cal.getTimeInMillis() - TimeUnit.DAYS.toMillis(1); // subtraction done to avoid issue if there is no world news for today
-                break;
-
             case "Week":
-                // get start of this week
-                cal.set(Calendar.DAY_OF_WEEK, cal.getFirstDayOfWeek());
-                // This week's start date in milliseconds
-                dateSelected = cal.getTimeInMillis();
+                range = NewsDates.RANGE_WEEK;
                 break;
-
             case "Month":
-                // get start of the month
-                cal.set(Calendar.DAY_OF_MONTH, 1);
-                // This month's start date in milliseconds
-                dateSelected = cal.getTimeInMillis();
+                range = NewsDates.RANGE_MONTH;
                 break;
-
             case "Year":
-                // get start of the year
-                cal.set(Calendar.DAY_OF_YEAR, 1);
-                // This month's start date in milliseconds
-                dateSelected = cal.getTimeInMillis();
+                range = NewsDates.RANGE_YEAR;
                 break;
         }
 
-        Date date = new Date(dateSelected);
-        DateFormat df = new SimpleDateFormat("yyyy-LL-dd");
-        mDateForUrl = df.format(date);
+        // Range start date in the device's time zone
+        mRangeStartMillis = NewsDates.rangeStartMillis(range, Calendar.getInstance());
+        mDateForUrl = NewsDates.formatQueryDate(mRangeStartMillis, TimeZone.getDefault());
     }
 
 }
@@ -1,77 +1,400 @@
 package com.example.android.newsapp;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.TimeZone;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-public class NewsAdapter extends ArrayAdapter<News> {
+/**
+ * {@link RecyclerView.Adapter} showing a list of {@link News}.
+ * <p>
+ * A new list is shown by passing it to {@link #submitList(List)}, or a page of it to
+ * {@link #submitPage}. Lists and pages go through a {@link NewsPipeline}, e.g. to sort them,
+ * and the result is compared with the current list on a background thread, so the
+ * RecyclerView is only notified of the rows that were inserted, removed, moved or changed, see
+ * {@link NewsDiff}.
+ */
+public class NewsAdapter extends RecyclerView.Adapter<NewsAdapter.NewsViewHolder> {
+
+    /**
+     * Receives clicks on the articles in the list.
+     */
+    public interface OnNewsClickListener {
+        void onNewsClick(News news);
+    }
+
+    /**
+     * Computes the diffs of all adapters one at a time, off the main thread
+     */
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "NewsAdapter diff");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * Time a row has to stay on screen before its article body is prefetched. Rows the user
+     * scrolls past are left alone, rows they stop at are the ones likely to be opened.
+     */
+    private static final long BODY_PREFETCH_DWELL_MILLIS = 1500;
+
+    private final LayoutInflater mInflater;
+    private final OnNewsClickListener mClickListener;
+    private final ImageLoader mImageLoader;
+    private final ArticleBodyLoader mBodyLoader;
+
+    /**
+     * Size thumbnails are shown and decoded at, in pixels
+     */
+    private final int mThumbnailWidth;
+    private final int mThumbnailHeight;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Articles currently shown
+     */
+    private List<News> mNews = Collections.emptyList();
+
+    /**
+     * Turns the lists and pages submitted into the list shown. Only used on the diff thread.
+     */
+    private NewsPipeline mPipeline = new NewsPipeline.Builder().build();
+
+    /**
+     * Decides the size of the thumbnails loaded and how much is prefetched
+     */
+    private NetworkPolicy mNetworkPolicy = NetworkPolicy.UNMETERED;
+
+    /**
+     * Last row whose thumbnail was prefetched, -1 if none since the list or policy changed
+     */
+    private int mThumbnailsPrefetchedTo = -1;
+
+    /**
+     * Incremented on each submission, so the diffs of lists replaced in the meantime are dropped
+     */
+    private int mGeneration;
+
+    /**
+     * Generation of the list shown
+     */
+    private int mShownGeneration;
+
+    /**
+     * {@link Metrics#start()} time of the list shown, until its first row is bound
+     */
+    private long mFirstBindStartNanos;
 
     /**
      * Custom Constructor
      *
-     * @param context The current context. Used to inflate the layout file.
-     * @param news    A List of News objects to display in a list
+     * @param context  The current context. Used to inflate the layout file.
+     * @param listener Notified when an article is clicked.
+     */
+    public NewsAdapter(Context context, OnNewsClickListener listener) {
+        mInflater = LayoutInflater.from(context);
+        mClickListener = listener;
+        mImageLoader = ImageLoader.getInstance(context);
+        mBodyLoader = ArticleBodyLoader.getInstance(context);
+        mThumbnailWidth = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_width);
+        mThumbnailHeight =
+                context.getResources().getDimensionPixelSize(R.dimen.thumbnail_height);
+    }
+
+    /**
+     * Set the stages the lists submitted from now on go through, e.g. sorting. Without a
+     * pipeline, lists are shown as they are submitted. Must be called before the first list
+     * is submitted.
+     */
+    public void setPipeline(NewsPipeline pipeline) {
+        mPipeline = pipeline;
+    }
+
+    /**
+     * Load thumbnails and prefetch according to the given policy from now on, e.g. less
+     * once the network became metered. Rows already bound keep their thumbnails.
+     */
+    public void setNetworkPolicy(NetworkPolicy policy) {
+        mNetworkPolicy = policy;
+        mThumbnailsPrefetchedTo = -1;
+    }
+
+    /**
+     * Updates the pipeline with a list or page submitted. Runs on the diff thread.
      */
-    public NewsAdapter(Context context, ArrayList<News> news) {
-        super(context, 0, news);
+    private interface PipelineUpdate {
+        NewsPipeline.Result apply(NewsPipeline pipeline);
+    }
+
+    /**
+     * Caches the views of a list item, so they are only looked up once per item view.
+     */
+    static class NewsViewHolder extends RecyclerView.ViewHolder {
+        final TextView mTitleView;
+        final TextView mSectionView;
+        final TextView mPublishedDateView;
+        final ImageView mThumbnailView;
+
+        /**
+         * Prefetches the body of the article shown once the row stayed on screen long enough
+         */
+        Runnable mBodyPrefetch;
+
+        /**
+         * Article last bound, and the URL its thumbnail was loaded from under
+         * {@link #mBoundPolicy}, so binding the same article again doesn't put the URL
+         * together again
+         */
+        News mBoundNews;
+        NetworkPolicy mBoundPolicy;
+        String mBoundThumbnailUrl;
+
+        NewsViewHolder(View itemView) {
+            super(itemView);
+            mTitleView = (TextView) itemView.findViewById(R.id.news_title);
+            mSectionView = (TextView) itemView.findViewById(R.id.news_section);
+            mPublishedDateView = (TextView) itemView.findViewById(R.id.news_published_date);
+            mThumbnailView = (ImageView) itemView.findViewById(R.id.news_thumbnail);
+        }
     }
 
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        // Check if there is an existing list item view (called convertView) that we can reuse,
-        // otherwise, if convertView is null, then inflate a new list item layout.
-        View listItemView = convertView;
-        if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext()).inflate(
-                    R.layout.news_list_item, parent, false);
+    public NewsViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View itemView = mInflater.inflate(R.layout.news_list_item, parent, false);
+        final NewsViewHolder holder = new NewsViewHolder(itemView);
+        itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                // The holder may be on its way out of the list
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && mClickListener != null) {
+                    mClickListener.onNewsClick(mNews.get(position));
+                }
+            }
+        });
+        holder.mBodyPrefetch = new Runnable() {
+            @Override
+            public void run() {
+                int position = holder.getAdapterPosition();
+                String articleId = position != RecyclerView.NO_POSITION
+                        ? mNews.get(position).getArticleId() : null;
+                if (articleId != null && mNetworkPolicy.isBodyPrefetchEnabled()) {
+                    mBodyLoader.prefetch(articleId);
+                }
+            }
+        };
+        return holder;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(NewsViewHolder holder) {
+        mMainHandler.postDelayed(holder.mBodyPrefetch, BODY_PREFETCH_DWELL_MILLIS);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(NewsViewHolder holder) {
+        // Scrolled off screen before the dwell time passed
+        mMainHandler.removeCallbacks(holder.mBodyPrefetch);
+    }
+
+    @Override
+    public void onBindViewHolder(NewsViewHolder holder, int position) {
+        long bindStart = Metrics.start();
+        if (mFirstBindStartNanos != 0) {
+            Metrics.FIRST_BIND.recordSince(mFirstBindStartNanos);
+            mFirstBindStartNanos = 0;
         }
 
         // Find the news at the given position in the list of news articles
-        News currentNews = getItem(position);
-
-        // Set the news title in the news_title TextView
-        TextView newsTitleView = (TextView) listItemView.findViewById(R.id.news_title);
-        String newsTitle = currentNews.getTitle();
-        newsTitleView.setText(newsTitle);
-
-        // Set the news section in the news_section TextView
-        TextView newsSectionView = (TextView) listItemView.findViewById(R.id.news_section);
-        String newsSection = currentNews.getSection();
-        newsSectionView.setText(newsSection);
-
-        // Set the news publishing date in the news_published_date TextView
-        TextView publishedDateTextView =
-                (TextView) listItemView.findViewById(R.id.news_published_date);
-        String publishedDate = currentNews.getPublicationDate();
-        String formattedPublishedDate = formatDate(publishedDate);
-        publishedDateTextView.setText(formattedPublishedDate);
-
-        // Return the list item view that is now showing the appropriate data
-        return listItemView;
-    }
-
-    private String formatDate(String date) {
-        String finalDate = null;
-        DateFormat originalFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        originalFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-        try {
-            Date dateObject = originalFormat.parse(date);
-            DateFormat finalFormat = new SimpleDateFormat("LLL. dd, yyyy");
-            finalDate = finalFormat.format(dateObject);
-        } catch (java.text.ParseException e) {
-            System.out.println("Error formatting date.");
+        News currentNews = mNews.get(position);
+
+        holder.mTitleView.setText(currentNews.getTitle());
+        holder.mSectionView.setText(currentNews.getSection());
+        // The date was parsed when the article was received and is only formatted once
+        holder.mPublishedDateView.setText(currentNews.getFormattedDate());
+
+        if (currentNews != holder.mBoundNews || mNetworkPolicy != holder.mBoundPolicy) {
+            holder.mBoundThumbnailUrl =
+                    mNetworkPolicy.getThumbnailUrl(currentNews.getThumbnailUrl());
+            holder.mBoundNews = currentNews;
+            holder.mBoundPolicy = mNetworkPolicy;
         }
+        String thumbnailUrl = holder.mBoundThumbnailUrl;
+        if (thumbnailUrl != null) {
+            holder.mThumbnailView.setVisibility(View.VISIBLE);
+            mImageLoader.load(thumbnailUrl, holder.mThumbnailView,
+                    mThumbnailWidth, mThumbnailHeight);
+        } else {
+            mImageLoader.cancel(holder.mThumbnailView);
+            holder.mThumbnailView.setVisibility(View.GONE);
+        }
+        prefetchThumbnails(position);
+
+        Metrics.BIND.recordSince(bindStart);
+    }
+
+    @Override
+    public void onViewRecycled(NewsViewHolder holder) {
+        // The row went off screen, so its thumbnail is no longer needed right away
+        mImageLoader.cancel(holder.mThumbnailView);
+        holder.mThumbnailView.setImageDrawable(null);
+    }
+
+    /**
+     * Start loading the thumbnails of the rows after the given one, so they're ready by the
+     * time the list is scrolled to them. While scrolling down, only the row that came into
+     * reach wasn't prefetched already.
+     */
+    private void prefetchThumbnails(int position) {
+        int end = Math.min(position + mNetworkPolicy.getThumbnailPrefetchDistance(),
+                mNews.size() - 1);
+        int start = position + 1;
+        if (start <= mThumbnailsPrefetchedTo && end >= mThumbnailsPrefetchedTo) {
+            start = mThumbnailsPrefetchedTo + 1;
+        }
+        mThumbnailsPrefetchedTo = end;
+        for (int i = start; i <= end; i++) {
+            String thumbnailUrl =
+                    mNetworkPolicy.getThumbnailUrl(mNews.get(i).getThumbnailUrl());
+            if (thumbnailUrl != null) {
+                mImageLoader.prefetch(thumbnailUrl, mThumbnailWidth, mThumbnailHeight);
+            }
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return mNews.size();
+    }
+
+    public News getItem(int position) {
+        return mNews.get(position);
+    }
+
+    /**
+     * Return true if a list or page was submitted that isn't shown yet.
+     */
+    public boolean hasPendingUpdate() {
+        return mShownGeneration != mGeneration;
+    }
+
+    /**
+     * Show the given list of news instead of the current one, through the pipeline. The list
+     * is page 1 for the pages submitted after it. Must be called on the main thread.
+     */
+    public void submitList(List<News> news) {
+        final List<News> copy = news == null ? null : new ArrayList<News>(news);
+        submit(new PipelineUpdate() {
+            @Override
+            public NewsPipeline.Result apply(NewsPipeline pipeline) {
+                return pipeline.replaceAll(1, copy);
+            }
+        });
+    }
+
+    /**
+     * Add or replace the given page of news, and drop the pages that are no longer resident.
+     * Only the rows of the pages that changed are filtered and sorted again, the other pages
+     * are merged in as they are, see {@link NewsPipeline.Builder#sortWithinSegments(boolean)}
+     * to keep the rows of each page together. Must be called on the main thread.
+     *
+     * @param firstPage is the first page still resident.
+     * @param lastPage  is the last page still resident.
+     */
+    public void submitPage(final int page, List<News> news, final int firstPage,
+                           final int lastPage) {
+        final List<News> copy = new ArrayList<News>(news);
+        submit(new PipelineUpdate() {
+            @Override
+            public NewsPipeline.Result apply(NewsPipeline pipeline) {
+                pipeline.putSegment(page, copy);
+                return pipeline.retainSegments(firstPage, lastPage);
+            }
+        });
+    }
+
+    /**
+     * Run the given update of the pipeline and the diff of its result off the main thread,
+     * then show the result unless a later update was submitted in the meantime.
+     */
+    private void submit(final PipelineUpdate update) {
+        // Later updates replace this one before it's shown, so its diff is against the list
+        // shown now
+        final List<News> oldNews = mNews;
+        final int generation = ++mGeneration;
+        mFirstBindStartNanos = Metrics.start();
 
-        return finalDate;
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<News> newNews = update.apply(mPipeline).getNews();
+                // Nothing to compare when the list is filled or emptied
+                final NewsDiff diff = oldNews.isEmpty() || newNews.isEmpty()
+                        ? null : NewsDiff.calculate(oldNews, newNews);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mShownGeneration = generation;
+                            applyDiff(oldNews, newNews, diff);
+                        }
+                    }
+                });
+            }
+        });
     }
 
+    private void applyDiff(List<News> oldNews, List<News> newNews, NewsDiff diff) {
+        mNews = newNews;
+        mThumbnailsPrefetchedTo = -1;
+        if (newNews.isEmpty()) {
+            mFirstBindStartNanos = 0;
+        }
+        if (diff == null) {
+            if (!oldNews.isEmpty()) {
+                notifyItemRangeRemoved(0, oldNews.size());
+            }
+            if (!newNews.isEmpty()) {
+                notifyItemRangeInserted(0, newNews.size());
+            }
+            return;
+        }
+        diff.dispatchUpdatesTo(new NewsDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                notifyItemRangeChanged(position, count);
+            }
+        });
+    }
 }
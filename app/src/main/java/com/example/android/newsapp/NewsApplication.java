@@ -0,0 +1,57 @@
+package com.example.android.newsapp;
+
+import android.app.Application;
+import android.os.Process;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Starts the timing of cold starts, and warms up what the first screen needs on a background
+ * thread while the main thread creates it.
+ */
+public class NewsApplication extends Application {
+
+    private static final StartupTimer sStartupTimer = new StartupTimer();
+
+    /**
+     * Return the timer of the main screen's starts.
+     */
+    public static StartupTimer getStartupTimer() {
+        return sStartupTimer;
+    }
+
+    @Override
+    public void onCreate() {
+        // As close to the process start as an app gets before API 24
+        sStartupTimer.onProcessStart(System.nanoTime());
+        super.onCreate();
+
+        // Record latencies in debug builds only, release builds skip the instrumentation
+        Metrics.setEnabled(BuildConfig.DEBUG);
+
+        Thread warmUp = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                warmUp();
+            }
+        }, "Startup warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    /**
+     * Compute the default date range and its query once, and format a date for the list. The
+     * results are thrown away: computing them takes microseconds, but the first time it loads
+     * the time zone data, the calendar and the locale's date formats, which takes milliseconds
+     * the main thread would otherwise spend before the first frame.
+     */
+    private static void warmUp() {
+        long rangeStartMillis =
+                NewsDates.rangeStartMillis(NewsDates.RANGE_TODAY, Calendar.getInstance());
+        NewsActivity.newsQuery(NewsDates.formatQueryDate(rangeStartMillis, TimeZone.getDefault()))
+                .toUrl();
+        NewsDates.formatDisplayDate(rangeStartMillis);
+    }
+}
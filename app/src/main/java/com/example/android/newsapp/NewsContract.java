@@ -0,0 +1,117 @@
+package com.example.android.newsapp;
+
+import android.provider.BaseColumns;
+
+/**
+ * API Contract for the local article store.
+ */
+public final class NewsContract {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsContract}
+     * object. This class only holds constants.
+     */
+    private NewsContract() {
+    }
+
+    /**
+     * Inner class that defines constant values for the articles database table.
+     * Each entry in the table represents a single news article.
+     */
+    public static final class ArticleEntry implements BaseColumns {
+
+        /**
+         * Name of database table for articles
+         */
+        public static final String TABLE_NAME = "articles";
+
+        /**
+         * Unique ID number for the article (only for use in the database table).
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String _ID = BaseColumns._ID;
+
+        /**
+         * Website URL of the article, which identifies it across fetches.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_ARTICLE_URL = "url";
+
+        /**
+         * Title of the article.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_TITLE = "title";
+
+        /**
+         * Name of the section the article was published in.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_SECTION = "section";
+
+        /**
+         * Publication date as returned by the API, in ISO 8601 format.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_PUBLICATION_DATE = "publication_date";
+
+        /**
+         * Publication date in milliseconds since the epoch, used for range queries.
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String COLUMN_PUBLISHED_AT = "published_at";
+
+        /**
+         * Time the article was last received from the network, in milliseconds since the epoch.
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * URL of the article's thumbnail image, or null if it has none.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    }
+
+    /**
+     * Inner class that defines constant values for the sync state database table.
+     * Each entry in the table represents the synced windows of a single section.
+     */
+    public static final class SyncEntry implements BaseColumns {
+
+        /**
+         * Name of database table for the sync state
+         */
+        public static final String TABLE_NAME = "sync_state";
+
+        /**
+         * Unique ID number for the entry (only for use in the database table).
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String _ID = BaseColumns._ID;
+
+        /**
+         * Guardian section ID the windows belong to.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_SECTION = "section";
+
+        /**
+         * Synced publication time windows, as encoded by {@link SyncState#encode(String)}.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_WINDOWS = "windows";
+    }
+}
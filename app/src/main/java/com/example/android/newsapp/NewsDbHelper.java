@@ -0,0 +1,85 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.android.newsapp.NewsContract.ArticleEntry;
+import com.example.android.newsapp.NewsContract.SyncEntry;
+
+/**
+ * Database helper for the local article store. Manages database creation and version
+ * management.
+ */
+public class NewsDbHelper extends SQLiteOpenHelper {
+
+    /**
+     * Name of the database file
+     */
+    private static final String DATABASE_NAME = "news.db";
+
+    /**
+     * Database version. If you change the database schema, you must increment the database
+     * version.
+     */
+    private static final int DATABASE_VERSION = 3;
+
+    /**
+     * Constructs a new instance of {@link NewsDbHelper}.
+     *
+     * @param context of the app
+     */
+    public NewsDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * This is called when the database is created for the first time.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        // Create a String that contains the SQL statement to create the articles table
+        String SQL_CREATE_ARTICLES_TABLE = "CREATE TABLE " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleEntry.COLUMN_ARTICLE_URL + " TEXT NOT NULL UNIQUE, "
+                + ArticleEntry.COLUMN_TITLE + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_SECTION + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_PUBLICATION_DATE + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_PUBLISHED_AT + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_THUMBNAIL_URL + " TEXT);";
+        db.execSQL(SQL_CREATE_ARTICLES_TABLE);
+
+        // Date range queries, with or without a section, are answered from these indexes
+        db.execSQL("CREATE INDEX articles_published_at ON " + ArticleEntry.TABLE_NAME
+                + " (" + ArticleEntry.COLUMN_PUBLISHED_AT + ");");
+        db.execSQL("CREATE INDEX articles_section_published_at ON " + ArticleEntry.TABLE_NAME
+                + " (" + ArticleEntry.COLUMN_SECTION + ", "
+                + ArticleEntry.COLUMN_PUBLISHED_AT + ");");
+
+        createSyncStateTable(db);
+    }
+
+    /**
+     * This is called when the database needs to be upgraded.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Articles stored before version 2 have no thumbnail until they are fetched again
+            db.execSQL("ALTER TABLE " + ArticleEntry.TABLE_NAME + " ADD COLUMN "
+                    + ArticleEntry.COLUMN_THUMBNAIL_URL + " TEXT;");
+        }
+        if (oldVersion < 3) {
+            // Nothing is synced yet, the first sync of each section starts from scratch
+            createSyncStateTable(db);
+        }
+    }
+
+    private static void createSyncStateTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + SyncEntry.TABLE_NAME + " ("
+                + SyncEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + SyncEntry.COLUMN_SECTION + " TEXT NOT NULL UNIQUE, "
+                + SyncEntry.COLUMN_WINDOWS + " TEXT NOT NULL);");
+    }
+}
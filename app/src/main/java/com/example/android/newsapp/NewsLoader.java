@@ -2,8 +2,16 @@ package com.example.android.newsapp;
 
 import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NewsLoader extends AsyncTaskLoader<List<News>> {
     /**
@@ -12,19 +20,164 @@ public class NewsLoader extends AsyncTaskLoader<List<News>> {
     private static final String LOG_TAG = NewsLoader.class.getName();
 
     /**
-     * Query URL
+     * Limits for fetching the sections of a query in parallel
      */
-    private String mUrl;
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+    private static final long FETCH_TIMEOUT_MILLIS = 20000;
+
+    /**
+     * Retries of a failed request, which must fit in FETCH_TIMEOUT_MILLIS
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 4000;
+
+    /**
+     * Failed attempts in a row after which the API is left alone for a while
+     */
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = 60000;
+
+    /**
+     * Shared by all loaders, the background prefetch and the article bodies, so they all back
+     * off from the API together
+     */
+    private static final RetryingFetcher sFetcher = new RetryingFetcher(
+            new CircuitBreaker(Clock.SYSTEM, CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS),
+            MAX_ATTEMPTS, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS);
+
+    /**
+     * Shared by all loaders, so the limits apply to the whole app
+     */
+    private static final SectionFetcher sSectionFetcher =
+            new SectionFetcher(MAX_PARALLEL_REQUESTS, MAX_REQUESTS_PER_HOST);
+
+    /**
+     * Articles requested at once when syncing a range. Most syncs receive far fewer.
+     */
+    private static final int SYNC_PAGE_SIZE = 50;
+
+    /**
+     * How far before the high-water mark a sync starts, for articles that show up in the API a
+     * little after their publication time
+     */
+    private static final long SYNC_OVERLAP_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * Shortest time between two saves of the search index by loads. The index is saved as a
+     * whole, so it isn't rewritten for every page scrolled to, see
+     * {@link NewsStore#saveSearchIndex()} for the remaining articles.
+     */
+    private static final long SEARCH_INDEX_SAVE_INTERVAL_MILLIS = 60 * 1000;
+
+    /**
+     * Network requests in flight, shared by all loaders so that loaders asking for the same
+     * URL at the same time only fetch it once
+     */
+    private static final RequestCoalescer<List<News>> sRequests =
+            new RequestCoalescer<List<News>>();
+
+    /**
+     * Receives the results of the sections that finished loading while others are still
+     * running. Called on the main thread.
+     */
+    public interface OnPartialResultListener {
+        void onPartialResult(NewsLoader loader, List<News> news);
+    }
+
+    /**
+     * Query URLs, one per section
+     */
+    private List<String> mUrls;
+
+    /**
+     * Page of the query the URLs point to
+     */
+    private int mPage;
+
+    private OnPartialResultListener mPartialResultListener;
+
+    /**
+     * Range read from the local store once it is synced, null to always use the URLs
+     */
+    private GuardianQuery mSyncQuery;
+    private String[] mSyncSections;
+    private long mSyncFromMillis;
+    private int mStorePageSize;
+
+    /**
+     * Whether the last result was read from the local store rather than the URLs
+     */
+    private volatile boolean mFromStore;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Cancels the requests of the load in progress, null while no load is running
+     */
+    private CancellationToken mCancellation;
+
+    /**
+     * {@link Metrics#start()} time of the last result, taken when it was ready on the
+     * background thread
+     */
+    private volatile long mResultReadyNanos;
 
     /**
      * Constructs a new {@link NewsLoader}.
      *
      * @param context of the activity
-     * @param url     to load data from
+     * @param urls    to load data from, one per section
+     * @param page    of the query the URLs point to
      */
-    public NewsLoader(Context context, String url) {
+    public NewsLoader(Context context, List<String> urls, int page) {
         super(context);
-        mUrl = url;
+        mUrls = urls;
+        mPage = page;
+    }
+
+    /**
+     * Return the fetcher all requests to the API go through.
+     */
+    static RetryingFetcher getFetcher() {
+        return sFetcher;
+    }
+
+    public int getPage() {
+        return mPage;
+    }
+
+    public void setOnPartialResultListener(OnPartialResultListener listener) {
+        mPartialResultListener = listener;
+    }
+
+    /**
+     * Read the page from the local store when the given range is synced, instead of fetching
+     * the URLs. The first page first syncs the articles published since the last sync, one
+     * request per section, in parallel. If the range isn't synced yet, or has gaps, the URLs
+     * are fetched as usual, and {@link PrefetchService} fills in the range in the background.
+     * Ranges starting before {@link NewsStore#RETENTION_MILLIS} are always fetched.
+     *
+     * @param query      is the query of the range, see {@link DeltaSync#sync}.
+     * @param sections   are the sections of the range.
+     * @param fromMillis is the start of the range, in milliseconds since the epoch.
+     * @param pageSize   is the number of stored articles per page.
+     */
+    public void setSyncedRange(GuardianQuery query, String[] sections, long fromMillis,
+                               int pageSize) {
+        mSyncQuery = query;
+        mSyncSections = sections;
+        mSyncFromMillis = fromMillis;
+        mStorePageSize = pageSize;
+    }
+
+    /**
+     * Return true if the last result was read from the local store, so the following pages
+     * have to be read from there too.
+     */
+    public boolean isFromStore() {
+        return mFromStore;
     }
 
     @Override
@@ -37,13 +190,317 @@ public class NewsLoader extends AsyncTaskLoader<List<News>> {
      */
     @Override
     public List<News> loadInBackground() {
-        // Don't perform the request if there are no URLs, or the first URL is null.
-        if (mUrl == null) {
+        // Don't perform the request if there are no URLs.
+        if (mUrls == null || mUrls.isEmpty()) {
             return null;
         }
 
+        final CancellationToken cancellation;
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                return null;
+            }
+            cancellation = new CancellationToken();
+            mCancellation = cancellation;
+        }
+
+        SectionFetcher.Listener listener = new SectionFetcher.Listener() {
+            @Override
+            public void onPartialResult(List<News> news, int completed, int total) {
+                // The complete result is delivered by the loader itself
+                if (completed < total) {
+                    postPartialResult(news);
+                }
+            }
+        };
+
+        try {
+            List<News> news = mSyncQuery != null ? loadSyncedRange(cancellation) : null;
+            mFromStore = news != null;
+            if (news == null) {
+                news = fetchSections(getContext(), mUrls, cancellation, listener);
+            }
+            mResultReadyNanos = Metrics.start();
+            return news;
+        } finally {
+            synchronized (this) {
+                mCancellation = null;
+            }
+        }
+    }
+
+    /**
+     * Records how long the result took to reach the main thread and be handled by the
+     * callbacks. Results delivered again from the loader manager's copy are not counted.
+     */
+    @Override
+    public void deliverResult(List<News> news) {
+        long resultReadyNanos = mResultReadyNanos;
+        mResultReadyNanos = 0;
+        super.deliverResult(news);
+        Metrics.DELIVER.recordSince(resultReadyNanos);
+    }
+
+    /**
+     * Called on the main thread when the loader is restarted or destroyed while loading.
+     * Closes the connections of the requests no other loader is waiting for.
+     */
+    @Override
+    public void cancelLoadInBackground() {
+        synchronized (this) {
+            if (mCancellation != null) {
+                mCancellation.cancel();
+            }
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        // Results of a load still running are no longer needed
+        cancelLoad();
+    }
+
+    /**
+     * Return the page of the synced range from the local store, syncing it first if this is
+     * the first page, or null if the range isn't synced.
+     */
+    private List<News> loadSyncedRange(CancellationToken cancellation) {
+        // Older articles aren't kept, the range would never be complete
+        if (mSyncFromMillis < NewsStore.getRetentionStartMillis(System.currentTimeMillis())) {
+            return null;
+        }
+        Context context = getContext();
+        NewsStore store = NewsStore.getInstance(context);
+        if (mPage == 1) {
+            SyncState state = store.getSyncState();
+            for (String section : mSyncSections) {
+                if (state.getHighWaterMark(section) == NewsDates.UNKNOWN_DATE) {
+                    // Syncing a section from scratch takes longer than fetching the first page
+                    PrefetchService.backfill(context, mSyncFromMillis);
+                    return null;
+                }
+            }
+            syncSections(store, mSyncQuery, mSyncSections, mSyncFromMillis, cancellation);
+            if (!state.isCovered(mSyncSections, mSyncFromMillis)) {
+                // Gaps are only filled in the background, the user waits for a single round
+                // of requests at most
+                if (!cancellation.isCanceled()) {
+                    PrefetchService.backfill(context, mSyncFromMillis);
+                }
+                return null;
+            }
+            Metrics.increment("sync.ranges_from_store");
+        }
+        return store.query(mSyncFromMillis, null, mStorePageSize,
+                (mPage - 1) * mStorePageSize);
+    }
+
+    /**
+     * Fetch the articles published since each section's high-water mark, all sections in
+     * parallel, like the pages of {@link #fetchSections}, and within the same time. Sections
+     * still syncing by then are left for the next sync.
+     */
+    private static void syncSections(NewsStore store, final GuardianQuery query,
+                                     String[] sections, final long fromMillis,
+                                     CancellationToken cancellation) {
+        final DeltaSync sync = newDeltaSync(store, cancellation);
+
+        // The section fetcher is keyed by URL, which also limits the requests per host
+        final Map<String, String> sectionsByUrl = new HashMap<String, String>();
+        for (String section : sections) {
+            sectionsByUrl.put(query.newBuilder().section(section).build().toUrl(), section);
+        }
+        final AtomicInteger synced = new AtomicInteger();
+        SectionFetcher.Source source = new SectionFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                if (!sync.syncSection(query, sectionsByUrl.get(url), fromMillis)) {
+                    return null;
+                }
+                synced.incrementAndGet();
+                return Collections.emptyList();
+            }
+        };
+        sSectionFetcher.fetch(new ArrayList<String>(sectionsByUrl.keySet()), source,
+                FETCH_TIMEOUT_MILLIS, null);
+        boolean success = synced.get() == sectionsByUrl.size();
+
+        store.saveSyncState();
+        store.getSearchIndex().saveIfDue(System.currentTimeMillis(),
+                SEARCH_INDEX_SAVE_INTERVAL_MILLIS);
+        Metrics.increment(success ? "sync.succeeded" : "sync.failed");
+    }
+
+    /**
+     * Sync the given range into the local store: fetch the articles published since each
+     * section's high-water mark, then fill gaps with up to the given number of requests, one
+     * request after the other. Only for the background, must be called on a background
+     * thread.
+     *
+     * @return false if a request failed. Whether the range is complete is up to
+     * {@link SyncState#isCovered}.
+     */
+    static boolean syncRange(Context context, GuardianQuery query, String[] sections,
+                             long fromMillis, int maxBackfillRequests,
+                             CancellationToken cancellation) {
+        NewsStore store = NewsStore.getInstance(context);
+        DeltaSync sync = newDeltaSync(store, cancellation);
+        boolean success = sync.sync(query, sections, fromMillis, cancellation)
+                && sync.backfill(query, sections, fromMillis, maxBackfillRequests,
+                cancellation);
+        store.saveSyncState();
+        store.getSearchIndex().saveIfDue(System.currentTimeMillis(),
+                SEARCH_INDEX_SAVE_INTERVAL_MILLIS);
+        Metrics.increment(success ? "sync.succeeded" : "sync.failed");
+        return success;
+    }
+
+    /**
+     * Return a {@link DeltaSync} storing the windows it fetches in the given store.
+     */
+    private static DeltaSync newDeltaSync(final NewsStore store,
+                                          final CancellationToken cancellation) {
+        return new DeltaSync(new DeltaSync.Source() {
+            @Override
+            public List<News> fetch(GuardianQuery windowQuery) {
+                return fetchIntoStore(store, windowQuery.toUrl(), cancellation);
+            }
+        }, store.getSyncState(), Clock.SYSTEM, SYNC_PAGE_SIZE, SYNC_OVERLAP_MILLIS);
+    }
+
+    /**
+     * Return the URLs of the given page of a query, one per section.
+     */
+    static List<String> sectionUrls(GuardianQuery pageQuery, String[] sections) {
+        List<String> sectionUrls = new ArrayList<String>(sections.length);
+        for (String section : sections) {
+            sectionUrls.add(pageQuery.newBuilder().section(section).build().toUrl());
+        }
+        return sectionUrls;
+    }
+
+    /**
+     * Fetch all the given section URLs in parallel, through the cache, and return their
+     * results merged by publication date, or null if every request failed. Must be called on a
+     * background thread.
+     *
+     * @param listener is notified each time a section completes, may be null.
+     */
+    static List<News> fetchSections(Context context, List<String> urls,
+                                    final CancellationToken cancellation,
+                                    SectionFetcher.Listener listener) {
+        final NewsCache cache = NewsCache.getInstance(context.getCacheDir());
+        final NewsStore store = NewsStore.getInstance(context);
+        SectionFetcher.Source source = new SectionFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                return fetchWithCache(cache, store, url, cancellation);
+            }
+        };
+
+        // Fetch all sections in parallel and merge them by publication date
+        List<News> news = sSectionFetcher.fetch(urls, source, FETCH_TIMEOUT_MILLIS, listener);
+
+        // Save the articles the sections added to the search index in one write, at most once
+        // per interval
+        store.getSearchIndex().saveIfDue(System.currentTimeMillis(),
+                SEARCH_INDEX_SAVE_INTERVAL_MILLIS);
+        return news;
+    }
+
+    /**
+     * Pass partial results on to the listener, unless this loader was stopped or replaced in
+     * the meantime.
+     */
+    private void postPartialResult(final List<News> news) {
+        if (mPartialResultListener == null || news.isEmpty()) {
+            return;
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isStarted() && !isAbandoned() && mPartialResultListener != null) {
+                    mPartialResultListener.onPartialResult(NewsLoader.this, news);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return the news for a single URL, from the cache if it was fetched recently, or null if
+     * the request failed or was cancelled. If another loader is already fetching the same URL,
+     * its result is used instead of making a second request.
+     */
+    private static List<News> fetchWithCache(final NewsCache cache, final NewsStore store,
+                                             final String url,
+                                             CancellationToken cancellation) {
+        // Serve the response from the cache if this URL was fetched recently
+        List<News> news = cache.get(url);
+        if (news != null) {
+            Metrics.increment("cache.hits");
+            return news;
+        }
+        Metrics.increment("cache.misses");
+
+        return sRequests.execute(url, new RequestCoalescer.Request<List<News>>() {
+            @Override
+            public List<News> execute(CancellationToken requestCancellation) {
+                return fetchFromNetwork(cache, store, url, requestCancellation);
+            }
+        }, cancellation);
+    }
+
+    /**
+     * Fetch a single sync window and add its articles to the local store, or return null if
+     * the request failed or was cancelled. The cache is bypassed: windows rarely repeat, and
+     * a stale copy must not count as synced.
+     */
+    private static List<News> fetchIntoStore(final NewsStore store, final String url,
+                                             CancellationToken cancellation) {
+        return sRequests.execute(url, new RequestCoalescer.Request<List<News>>() {
+            @Override
+            public List<News> execute(CancellationToken requestCancellation) {
+                List<News> news = sFetcher.fetch(url, null, null, requestCancellation).getNews();
+                store.upsert(news);
+                return news;
+            }
+        }, cancellation);
+    }
+
+    /**
+     * Fetch a single URL, revalidating the cached copy if there is one, or return null if the
+     * request failed or was cancelled. Failed requests are retried, and if they still fail, an
+     * expired cached copy is returned rather than nothing. Articles received from the network
+     * are added to the local store.
+     */
+    private static List<News> fetchFromNetwork(NewsCache cache, NewsStore store, String url,
+                                               CancellationToken cancellation) {
+        List<News> news;
+
+        // If an expired copy is around, ask the server whether it is still current
+        NewsCache.Entry stale = cache.peek(url);
+        String eTag = stale != null ? stale.getETag() : null;
+        String lastModified = stale != null ? stale.getLastModified() : null;
+
         // Perform the network request, parse the response, and extract a list of news articles.
-        List<News> news = QueryUtils.fetchNewsData(mUrl);
+        NewsResponse response = sFetcher.fetch(url, eTag, lastModified, cancellation);
+        if (response.isNotModified() && stale != null) {
+            cache.revalidated(url, stale, response.getETag(), response.getLastModified());
+            news = stale.getNews();
+        } else {
+            news = response.getNews();
+            if (news != null) {
+                cache.put(url, news, response.getETag(), response.getLastModified());
+                // Keep the local store up to date, so the next start can show these without
+                // waiting for the network
+                store.upsert(news);
+            } else if (stale != null && !cancellation.isCanceled()) {
+                // The API can't be reached, stale news are better than none
+                Log.w(LOG_TAG, "Serving stale news for " + url);
+                Metrics.increment("cache.stale_served");
+                news = stale.getNews();
+            }
+        }
         return news;
     }
 }
@@ -0,0 +1,297 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.android.newsapp.NewsContract.ArticleEntry;
+import com.example.android.newsapp.NewsContract.SyncEntry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local store of the articles received from the network, so date ranges can be shown before
+ * (or without) a network request. Stored articles are also added to a {@link SearchIndex}.
+ * <p>
+ * Only articles published in the last {@link #RETENTION_MILLIS} are kept, see
+ * {@link #prune(long)}, so the store and the index don't grow with every sync.
+ */
+public class NewsStore {
+
+    /**
+     * Statement used to insert an article, or replace the stored copy with the same URL
+     */
+    private static final String SQL_UPSERT_ARTICLE = "INSERT OR REPLACE INTO "
+            + ArticleEntry.TABLE_NAME + " ("
+            + ArticleEntry.COLUMN_ARTICLE_URL + ", "
+            + ArticleEntry.COLUMN_TITLE + ", "
+            + ArticleEntry.COLUMN_SECTION + ", "
+            + ArticleEntry.COLUMN_PUBLICATION_DATE + ", "
+            + ArticleEntry.COLUMN_PUBLISHED_AT + ", "
+            + ArticleEntry.COLUMN_FETCHED_AT + ", "
+            + ArticleEntry.COLUMN_THUMBNAIL_URL + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Statement used to save the synced windows of a section
+     */
+    private static final String SQL_UPSERT_SYNC_STATE = "INSERT OR REPLACE INTO "
+            + SyncEntry.TABLE_NAME + " ("
+            + SyncEntry.COLUMN_SECTION + ", "
+            + SyncEntry.COLUMN_WINDOWS + ") VALUES (?, ?)";
+
+    /**
+     * How long articles are kept after their publication, enough for the longest date range
+     * read from the store, a month. Longer ranges are always fetched from the network.
+     */
+    static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(32);
+
+    /**
+     * Name of the search index file, in the app's files directory
+     */
+    private static final String SEARCH_INDEX_FILE = "search_index";
+
+    private static NewsStore sInstance;
+
+    /**
+     * Return the application wide store, creating it on first use.
+     */
+    public static synchronized NewsStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new NewsStore(new NewsDbHelper(context.getApplicationContext()),
+                    new File(context.getFilesDir(), SEARCH_INDEX_FILE));
+        }
+        return sInstance;
+    }
+
+    private final NewsDbHelper mDbHelper;
+
+    private final File mSearchIndexFile;
+
+    /**
+     * Index over the stored articles, loaded on first use
+     */
+    private SearchIndex mSearchIndex;
+
+    /**
+     * Synced windows of each section, loaded on first use
+     */
+    private SyncState mSyncState;
+
+    private NewsStore(NewsDbHelper dbHelper, File searchIndexFile) {
+        mDbHelper = dbHelper;
+        mSearchIndexFile = searchIndexFile;
+    }
+
+    /**
+     * Return the search index over the stored articles, loading it on first use. The first
+     * time the app runs with an index, it is built from the articles already stored.
+     * Must not be called on the main thread.
+     */
+    public synchronized SearchIndex getSearchIndex() {
+        if (mSearchIndex == null) {
+            SearchIndex index = SearchIndex.load(mSearchIndexFile);
+            if (index.size() == 0) {
+                index.addAll(query(getRetentionStartMillis(System.currentTimeMillis()), null,
+                        Integer.MAX_VALUE));
+                index.saveIfDirty();
+            }
+            mSearchIndex = index;
+        }
+        return mSearchIndex;
+    }
+
+    /**
+     * Save the articles added to the search index since it was last saved, if it was loaded.
+     * Must not be called on the main thread.
+     */
+    public void saveSearchIndex() {
+        SearchIndex index;
+        synchronized (this) {
+            index = mSearchIndex;
+        }
+        if (index != null) {
+            index.saveIfDirty();
+        }
+    }
+
+    /**
+     * Return the publication time of the oldest articles kept at the given time, see
+     * {@link #RETENTION_MILLIS}.
+     */
+    public static long getRetentionStartMillis(long nowMillis) {
+        return nowMillis - RETENTION_MILLIS;
+    }
+
+    /**
+     * Drop the articles published before the retention period, from the store, the search
+     * index and the synced windows, so they are fetched again if they are asked for.
+     * Must not be called on the main thread.
+     *
+     * @param nowMillis is the current time in milliseconds.
+     * @return the number of articles dropped from the store.
+     */
+    public int prune(long nowMillis) {
+        long retentionStart = getRetentionStartMillis(nowMillis);
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        int deleted = db.delete(ArticleEntry.TABLE_NAME,
+                ArticleEntry.COLUMN_PUBLISHED_AT + " < ?",
+                new String[]{String.valueOf(retentionStart)});
+        getSearchIndex().removePublishedBefore(retentionStart);
+        getSyncState().forgetBefore(retentionStart);
+        saveSyncState();
+        return deleted;
+    }
+
+    /**
+     * Return the synced windows of each section, loading them on first use.
+     * Must not be called on the main thread.
+     */
+    public synchronized SyncState getSyncState() {
+        if (mSyncState == null) {
+            SyncState state = new SyncState();
+            SQLiteDatabase db = mDbHelper.getReadableDatabase();
+            Cursor cursor = db.query(SyncEntry.TABLE_NAME,
+                    new String[]{SyncEntry.COLUMN_SECTION, SyncEntry.COLUMN_WINDOWS},
+                    null, null, null, null, null);
+            try {
+                while (cursor.moveToNext()) {
+                    state.restore(cursor.getString(0), cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+            mSyncState = state;
+        }
+        return mSyncState;
+    }
+
+    /**
+     * Save the windows of the sections synced since the last save.
+     * Must not be called on the main thread.
+     */
+    public void saveSyncState() {
+        SyncState state = getSyncState();
+        Set<String> sections = state.takeDirtySections();
+        if (sections.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement statement = db.compileStatement(SQL_UPSERT_SYNC_STATE);
+            for (String section : sections) {
+                statement.bindString(1, section);
+                statement.bindString(2, state.encode(section));
+                statement.executeInsert();
+            }
+            statement.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Insert the given articles, replacing any stored copy of the same article.
+     * Must not be called on the main thread.
+     */
+    public void upsert(List<News> news) {
+        if (news == null || news.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        long now = System.currentTimeMillis();
+
+        // A single transaction with a precompiled statement, so large pages are written at once
+        db.beginTransaction();
+        try {
+            SQLiteStatement statement = db.compileStatement(SQL_UPSERT_ARTICLE);
+            for (News article : news) {
+                statement.bindString(1, article.getArticleUrl());
+                statement.bindString(2, article.getTitle());
+                statement.bindString(3, article.getSection());
+                statement.bindString(4, article.getPublicationDate());
+                statement.bindLong(5, article.getPublishedAtMillis());
+                statement.bindLong(6, now);
+                // Put back together once, the statement needs the string
+                String thumbnailUrl = article.getThumbnailUrl();
+                if (thumbnailUrl != null) {
+                    statement.bindString(7, thumbnailUrl);
+                } else {
+                    statement.bindNull(7);
+                }
+                statement.executeInsert();
+            }
+            statement.close();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        // Saved to disk by the caller once the whole batch is in, see SearchIndex#saveIfDue
+        getSearchIndex().addAll(news);
+    }
+
+    /**
+     * Return the stored articles published at or after the given time, oldest first.
+     * Must not be called on the main thread.
+     *
+     * @param fromMillis is the start of the date range, in milliseconds since the epoch.
+     * @param section    is the name of the section to return articles of, or null for all.
+     * @param limit      is the maximum number of articles to return.
+     */
+    public List<News> query(long fromMillis, String section, int limit) {
+        return query(fromMillis, section, limit, 0);
+    }
+
+    /**
+     * Return the stored articles published at or after the given time, oldest first, skipping
+     * the given number of articles. Must not be called on the main thread.
+     *
+     * @param fromMillis is the start of the date range, in milliseconds since the epoch.
+     * @param section    is the name of the section to return articles of, or null for all.
+     * @param limit      is the maximum number of articles to return.
+     * @param offset     is the number of articles skipped, e.g. the ones on earlier pages.
+     */
+    public List<News> query(long fromMillis, String section, int limit, int offset) {
+        SQLiteDatabase db = mDbHelper.getReadableDatabase();
+
+        String[] projection = {
+                ArticleEntry.COLUMN_TITLE,
+                ArticleEntry.COLUMN_SECTION,
+                ArticleEntry.COLUMN_PUBLICATION_DATE,
+                ArticleEntry.COLUMN_PUBLISHED_AT,
+                ArticleEntry.COLUMN_ARTICLE_URL,
+                ArticleEntry.COLUMN_THUMBNAIL_URL};
+
+        String selection = ArticleEntry.COLUMN_PUBLISHED_AT + " >= ?";
+        String[] selectionArgs = {String.valueOf(fromMillis)};
+        if (section != null) {
+            selection = ArticleEntry.COLUMN_SECTION + " = ? AND " + selection;
+            selectionArgs = new String[]{section, String.valueOf(fromMillis)};
+        }
+
+        Cursor cursor = db.query(ArticleEntry.TABLE_NAME, projection, selection, selectionArgs,
+                null, null, ArticleEntry.COLUMN_PUBLISHED_AT + " ASC, " + ArticleEntry._ID + " ASC",
+                offset + "," + limit);
+
+        List<News> news = new ArrayList<News>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                news.add(new News(cursor.getString(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getLong(3), cursor.getString(4),
+                        cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return news;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.v4.content.WakefulBroadcastReceiver;
+
+/**
+ * Receives the prefetch wake-ups scheduled by {@link PrefetchService}, and the boot completed
+ * broadcast, which clears all alarms. Keeps the device awake until the service is done.
+ */
+public class PrefetchReceiver extends WakefulBroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        // If the process was started for the prefetch, showing the news later isn't a cold start
+        NewsApplication.getStartupTimer().onBackgroundStart();
+        startWakefulService(context, new Intent(context, PrefetchService.class));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.android.newsapp;
+
+import android.app.AlarmManager;
+import android.app.IntentService;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Syncs the default date range of all followed sections into the local store in the
+ * background, so the app can show recent news right away when it is opened.
+ * <p>
+ * {@link PrefetchScheduler} decides when a prefetch runs. Each wake-up syncs the articles
+ * published since the last one, fills in gaps left by earlier syncs, and then schedules the
+ * next wake-up as an inexact alarm, which the system can batch with the wake-ups of other
+ * apps. The service also fills in ranges the user opened before they were synced, see
+ * {@link #backfill(Context, long)}.
+ */
+public class PrefetchService extends IntentService {
+
+    /**
+     * Time between prefetches, and delays after failed or deferred ones
+     */
+    private static final long PREFETCH_INTERVAL_MILLIS = AlarmManager.INTERVAL_HOUR;
+    private static final long MIN_BACKOFF_MILLIS = AlarmManager.INTERVAL_FIFTEEN_MINUTES;
+    private static final long MAX_BACKOFF_MILLIS = 6 * AlarmManager.INTERVAL_HOUR;
+
+    /**
+     * Time window the wake-up may be delivered in
+     */
+    private static final long WAKE_UP_WINDOW_MILLIS = AlarmManager.INTERVAL_FIFTEEN_MINUTES;
+
+    /**
+     * Preferences storing the scheduler state between wake-ups
+     */
+    private static final String PREFERENCES_NAME = "prefetch";
+    private static final String KEY_LAST_SUCCESS = "last_success";
+    private static final String KEY_LAST_ATTEMPT = "last_attempt";
+    private static final String KEY_CONSECUTIVE_FAILURES = "consecutive_failures";
+
+    /**
+     * Action of the intent filling in a date range, and the start of the range in milliseconds
+     * since the epoch
+     */
+    private static final String ACTION_BACKFILL = "com.example.android.newsapp.action.BACKFILL";
+    private static final String EXTRA_FROM_MILLIS = "from_millis";
+
+    public PrefetchService() {
+        super("PrefetchService");
+    }
+
+    /**
+     * Schedule the next wake-up, replacing any scheduled before.
+     */
+    public static void schedule(Context context) {
+        scheduleWakeUp(context, newScheduler(context).getNextCheckMillis());
+    }
+
+    /**
+     * Fill in the given date range of all followed sections in the background. Requests for
+     * the same range while one is running are handled one after the other, the later ones
+     * only fetch what is still missing.
+     */
+    public static void backfill(Context context, long fromMillis) {
+        context.startService(new Intent(context, PrefetchService.class)
+                .setAction(ACTION_BACKFILL)
+                .putExtra(EXTRA_FROM_MILLIS, fromMillis));
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        if (intent != null && ACTION_BACKFILL.equals(intent.getAction())) {
+            // Fewer requests on a metered network, none on a low battery
+            int maxRequests = newScheduler(this).getBackfillRequests();
+            if (maxRequests == 0) {
+                Metrics.increment("prefetch.backfill_skipped");
+                return;
+            }
+            boolean success = sync(intent.getLongExtra(EXTRA_FROM_MILLIS, 0), maxRequests);
+            Metrics.increment(success ? "prefetch.backfill_succeeded" : "prefetch.backfill_failed");
+            return;
+        }
+        try {
+            PrefetchScheduler scheduler = newScheduler(this);
+            int result = scheduler.check();
+            if (result == PrefetchScheduler.RUN) {
+                boolean success = prefetch(scheduler.getBackfillRequests());
+                scheduler.onPrefetchFinished(success);
+                saveState(this, scheduler);
+                Metrics.increment(success ? "prefetch.succeeded" : "prefetch.failed");
+            } else if (result != PrefetchScheduler.NOT_DUE) {
+                Metrics.increment("prefetch.deferred");
+            }
+            scheduleWakeUp(this, scheduler.getNextCheckMillis());
+        } finally {
+            if (intent != null) {
+                PrefetchReceiver.completeWakefulIntent(intent);
+            }
+        }
+    }
+
+    /**
+     * Sync the default date range for all followed sections, filling in gaps with up to the
+     * given number of requests, and return whether all requests succeeded.
+     */
+    private boolean prefetch(int maxBackfillRequests) {
+        return sync(NewsDates.rangeStartMillis(NewsDates.RANGE_TODAY, Calendar.getInstance()),
+                maxBackfillRequests);
+    }
+
+    /**
+     * Sync the date range starting at the given time for all followed sections, with the same
+     * query as {@link NewsActivity}, filling in gaps with up to the given number of requests,
+     * and return whether all requests succeeded.
+     */
+    private boolean sync(long fromMillis, int maxBackfillRequests) {
+        GuardianQuery query = NewsActivity.newsQuery(
+                NewsDates.formatQueryDate(fromMillis, TimeZone.getDefault()));
+        boolean success = NewsLoader.syncRange(this, query,
+                getResources().getStringArray(R.array.followed_sections), fromMillis,
+                maxBackfillRequests, new CancellationToken());
+        NewsStore store = NewsStore.getInstance(this);
+        Metrics.add("store.pruned", store.prune(System.currentTimeMillis()));
+        // The process may be gone before the next load saves the index
+        store.saveSearchIndex();
+        return success;
+    }
+
+    private static PrefetchScheduler newScheduler(Context context) {
+        PrefetchScheduler scheduler = new PrefetchScheduler(Clock.SYSTEM,
+                new SystemConnectivitySource(context), new SystemBatterySource(context),
+                PREFETCH_INTERVAL_MILLIS, MIN_BACKOFF_MILLIS, MAX_BACKOFF_MILLIS);
+        SharedPreferences preferences =
+                context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        scheduler.restore(preferences.getLong(KEY_LAST_SUCCESS, 0),
+                preferences.getLong(KEY_LAST_ATTEMPT, 0),
+                preferences.getInt(KEY_CONSECUTIVE_FAILURES, 0));
+        return scheduler;
+    }
+
+    private static void saveState(Context context, PrefetchScheduler scheduler) {
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(KEY_LAST_SUCCESS, scheduler.getLastSuccessMillis())
+                .putLong(KEY_LAST_ATTEMPT, scheduler.getLastAttemptMillis())
+                .putInt(KEY_CONSECUTIVE_FAILURES, scheduler.getConsecutiveFailures())
+                .apply();
+    }
+
+    private static void scheduleWakeUp(Context context, long atMillis) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(ALARM_SERVICE);
+        PendingIntent wakeUp = PendingIntent.getBroadcast(context, 0,
+                new Intent(context, PrefetchReceiver.class), PendingIntent.FLAG_UPDATE_CURRENT);
+        long start = Math.max(atMillis, System.currentTimeMillis());
+        alarmManager.setWindow(AlarmManager.RTC_WAKEUP, start, WAKE_UP_WINDOW_MILLIS, wakeUp);
+    }
+}
@@ -1,201 +0,0 @@
-package com.example.android.newsapp;
-
-import android.text.TextUtils;
-import android.util.Log;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * Helper methods related to requesting and receiving news data from The Guardian's API.
- */
-public class QueryUtils {
-
-    /**
-     * Tag for the log messages
-     */
-    public static final String LOG_TAG = QueryUtils.class.getSimpleName();
-
-    /**
-     * Create a private constructor because no one should ever create a {@link QueryUtils} object.
-     * This class is only meant to hold static variables and methods, which can be accessed
-     * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
-     */
-    private QueryUtils() {
-    }
-
-
-    /**
-     * Query The Guardian dataset and return a list of {@link News} objects.
-     */
-    public static List<News> fetchNewsData(String requestUrl) {
-
-        // Create URL object
-        URL url = createUrl(requestUrl);
-
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = null;
-        try {
-            jsonResponse = makeHttpRequest(url);
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem making the HTTP request.", e);
-        }
-
-        // Extract relevant fields from the JSON response and create a list of (@link News)
-        List<News> news = extractNewsInfoFromJson(jsonResponse);
-
-        // Return the list of {@link News}s
-        return news;
-    }
-
-    /**
-     * Returns new URL object from the given string URL.
-     */
-    private static URL createUrl(String stringUrl) {
-        URL url = null;
-        try {
-            url = new URL(stringUrl);
-        } catch (MalformedURLException e) {
-            Log.e(LOG_TAG, "Error with creating URL ", e);
-        }
-        return url;
-    }
-
-    /**
-     * Make an HTTP request to the given URL and return a String as the response.
-     */
-    private static String makeHttpRequest(URL url) throws IOException {
-        String jsonResponse = "";
-
-        // If the URL is null, then return early.
-        if (url == null) {
-            return jsonResponse;
-        }
-
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
-        try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setReadTimeout(10000 /* milliseconds */);
-            urlConnection.setConnectTimeout(15000 /* milliseconds */);
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
-
-            // If the request was successful (response code 200),
-            // then read the input stream and parse the response.
-            if (urlConnection.getResponseCode() == 200) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
-            } else {
-                Log.e(LOG_TAG, "Error response code: " + urlConnection.getResponseCode());
-            }
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "Problem retrieving the news JSON results.", e);
-        } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
-            }
-            if (inputStream != null) {
-                inputStream.close();
-            }
-        }
-        return jsonResponse;
-    }
-
-    /**
-     * Convert the {@link InputStream} into a String which contains the
-     * whole JSON response from the server.
-     */
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
-            }
-        }
-        return output.toString();
-    }
-
-    /**
-     * Return an {@link News} object by parsing out information
-     * about the first news from the input news JSON string.
-     */
-    private static List<News> extractNewsInfoFromJson(String newsJSON) {
-
-        // If the JSON string is empty or null, then return early.
-        if (TextUtils.isEmpty(newsJSON)) {
-            return null;
-        }
-
-        // Create an empty ArrayList that we can start adding news to
-        List<News> news = new ArrayList<News>();
-
-        // Try to parse the JSON response string. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
-        try {
-            // Create a JSONObject from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(newsJSON);
-
-            // Look into the JSON object with key "response"
-            JSONObject responseObject = baseJsonResponse.getJSONObject("response");
-
-            // Extract the JSONArray associated with the key called "results",
-            // which represents a list of results (or news articles).
-            JSONArray resultsArray = responseObject.getJSONArray("results");
-
-            // If the results array is not empty
-            if (resultsArray.length() > 0) {
-                // For each news article in the results Array, create a {@link News} object
-                for (int i = 0; i < resultsArray.length(); i++) {
-                    // Get a single news article at position i within the list of news
-                    JSONObject currentNews = resultsArray.getJSONObject(i);
-
-                    // Extract the news article's title
-                    String title = currentNews.optString("webTitle");
-
-                    // Extract the news article's section
-                    String section = currentNews.optString("sectionName");
-
-                    // Extract the news article's publication date
-                    String publicationDate = currentNews.optString("webPublicationDate");
-
-                    // Extract the news article's website URL
-                    String articleUrl = currentNews.optString("webUrl");
-
-                    // Create a new {@link News} object with the title, subtitle, authors,
-                    // publisher, publishedDate and newsPreviewUrl from the JSON response.
-                    News newsArticle = new News(title, section, publicationDate, articleUrl);
-
-                    // Add the new {@link News} to the list of news.
-                    news.add(newsArticle);
-                }
-            }
-
-        } catch (JSONException e) {
-            // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e(LOG_TAG, "Problem parsing the news JSON results", e);
-        }
-
-        // Return the list of news articles
-        return news;
-    }
-}
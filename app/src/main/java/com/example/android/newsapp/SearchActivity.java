@@ -0,0 +1,114 @@
+package com.example.android.newsapp;
+
+import android.app.LoaderManager;
+import android.content.Loader;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * Searches the articles stored on the device as the user types.
+ * <p>
+ * Each change of the query restarts a {@link SearchLoader}, so queries run off the main thread
+ * and only the results of the latest one are shown.
+ */
+public class SearchActivity extends AppCompatActivity
+        implements LoaderManager.LoaderCallbacks<List<News>> {
+
+    /**
+     * Constant value for the search loader ID. We can choose any integer.
+     */
+    private static final int SEARCH_LOADER_ID = 1;
+
+    /**
+     * Key of the query in the loader's arguments
+     */
+    private static final String QUERY_ARGUMENT = "query";
+
+    /**
+     * Number of results shown
+     */
+    private static final int RESULT_LIMIT = 100;
+
+    private NewsAdapter mAdapter;
+
+    private TextView mEmptyStateTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_search);
+
+        RecyclerView resultsView = (RecyclerView) findViewById(R.id.search_results);
+        resultsView.setLayoutManager(new LinearLayoutManager(this));
+        resultsView.setHasFixedSize(true);
+
+        mEmptyStateTextView = (TextView) findViewById(R.id.search_empty_view);
+
+        // Open the clicked article in the reader, like the main list does
+        mAdapter = new NewsAdapter(this, new NewsAdapter.OnNewsClickListener() {
+            @Override
+            public void onNewsClick(News news) {
+                startActivity(ArticleActivity.newIntent(SearchActivity.this, news));
+            }
+        });
+        resultsView.setAdapter(mAdapter);
+
+        EditText queryView = (EditText) findViewById(R.id.search_query);
+        queryView.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                search(s.toString());
+            }
+        });
+
+        // Reconnect to the loader of the last query after a configuration change
+        if (getLoaderManager().getLoader(SEARCH_LOADER_ID) != null) {
+            getLoaderManager().initLoader(SEARCH_LOADER_ID, null, this);
+        }
+    }
+
+    private void search(String query) {
+        if (query.trim().isEmpty()) {
+            getLoaderManager().destroyLoader(SEARCH_LOADER_ID);
+            mAdapter.submitList(null);
+            mEmptyStateTextView.setVisibility(View.GONE);
+            return;
+        }
+        Bundle args = new Bundle();
+        args.putString(QUERY_ARGUMENT, query);
+        getLoaderManager().restartLoader(SEARCH_LOADER_ID, args, this);
+    }
+
+    @Override
+    public Loader<List<News>> onCreateLoader(int id, Bundle args) {
+        return new SearchLoader(this, args.getString(QUERY_ARGUMENT), RESULT_LIMIT);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<List<News>> loader, List<News> news) {
+        mAdapter.submitList(news);
+        mEmptyStateTextView.setVisibility(news.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    @Override
+    public void onLoaderReset(Loader<List<News>> loader) {
+        mAdapter.submitList(null);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.newsapp;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import java.util.List;
+
+/**
+ * Runs a query against the {@link SearchIndex} of the stored articles.
+ */
+public class SearchLoader extends AsyncTaskLoader<List<News>> {
+
+    /**
+     * Query as typed by the user
+     */
+    private String mQuery;
+
+    /**
+     * Maximum number of articles to load
+     */
+    private int mLimit;
+
+    /**
+     * Constructs a new {@link SearchLoader}.
+     *
+     * @param context of the activity
+     * @param query   as typed by the user
+     * @param limit   is the maximum number of articles to load
+     */
+    public SearchLoader(Context context, String query, int limit) {
+        super(context);
+        mQuery = query;
+        mLimit = limit;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        forceLoad();
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public List<News> loadInBackground() {
+        return NewsStore.getInstance(getContext()).getSearchIndex().search(mQuery, mLimit);
+    }
+}
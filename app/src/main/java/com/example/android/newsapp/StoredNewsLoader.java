@@ -0,0 +1,48 @@
+package com.example.android.newsapp;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import java.util.List;
+
+/**
+ * Loads the articles of a date range from the local {@link NewsStore}.
+ */
+public class StoredNewsLoader extends AsyncTaskLoader<List<News>> {
+
+    /**
+     * Start of the date range, in milliseconds since the epoch
+     */
+    private long mFromMillis;
+
+    /**
+     * Maximum number of articles to load
+     */
+    private int mLimit;
+
+    /**
+     * Constructs a new {@link StoredNewsLoader}.
+     *
+     * @param context    of the activity
+     * @param fromMillis is the start of the date range, in milliseconds since the epoch
+     * @param limit      is the maximum number of articles to load
+     */
+    public StoredNewsLoader(Context context, long fromMillis, int limit) {
+        super(context);
+        mFromMillis = fromMillis;
+        mLimit = limit;
+    }
+
+    @Override
+    protected void onStartLoading() {
+        forceLoad();
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public List<News> loadInBackground() {
+        return NewsStore.getInstance(getContext()).query(mFromMillis, null, mLimit);
+    }
+}
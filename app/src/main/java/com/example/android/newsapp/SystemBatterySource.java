@@ -0,0 +1,48 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+
+/**
+ * {@link BatterySource} reading the last battery status broadcast by the system.
+ */
+public class SystemBatterySource implements BatterySource {
+
+    /**
+     * Battery level, in percent, below which it is considered low
+     */
+    private static final int LOW_BATTERY_PERCENT = 15;
+
+    private final Context mContext;
+
+    public SystemBatterySource(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    public boolean isLow() {
+        Intent status = getBatteryStatus();
+        if (status == null) {
+            return false;
+        }
+        int level = status.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = status.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        return level >= 0 && scale > 0 && level * 100 / scale < LOW_BATTERY_PERCENT;
+    }
+
+    @Override
+    public boolean isCharging() {
+        Intent status = getBatteryStatus();
+        return status != null && status.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    /**
+     * Return the sticky battery status broadcast. No receiver is registered, so this doesn't
+     * need to be unregistered.
+     */
+    private Intent getBatteryStatus() {
+        return mContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    }
+}
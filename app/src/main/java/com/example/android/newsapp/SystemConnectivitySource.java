@@ -0,0 +1,30 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+/**
+ * {@link ConnectivitySource} backed by the system's {@link ConnectivityManager}.
+ */
+public class SystemConnectivitySource implements ConnectivitySource {
+
+    private final ConnectivityManager mConnectivityManager;
+
+    public SystemConnectivitySource(Context context) {
+        mConnectivityManager = (ConnectivityManager)
+                context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public boolean isConnected() {
+        // Get details on the currently active default data network
+        NetworkInfo networkInfo = mConnectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    @Override
+    public boolean isMetered() {
+        return mConnectivityManager.isActiveNetworkMetered();
+    }
+}
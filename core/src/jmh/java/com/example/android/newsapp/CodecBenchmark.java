@@ -0,0 +1,47 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding and encoding of {@link NewsCodec} snapshots of recorded Guardian search responses,
+ * to compare with parsing the JSON they were made from, see {@link ParseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    @Param({"guardian_search_10.json", "guardian_search_50.json", "guardian_search_200.json"})
+    public String fixture;
+
+    private List<News> mNews;
+    private byte[] mBinary;
+
+    @Setup
+    public void setUp() throws IOException {
+        mNews = NewsJsonParser.parseNews(new ByteArrayInputStream(Fixtures.load(fixture)));
+        mBinary = NewsCodec.encode(mNews);
+    }
+
+    @Benchmark
+    public List<News> decode() throws IOException {
+        return NewsCodec.decode(mBinary);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return NewsCodec.encode(mNews);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and formatting of publication dates and date range computation, compared with the
+ * {@link SimpleDateFormat} based code they replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateBenchmark {
+
+    private static final String DATE = "2017-01-01T06:00:00Z";
+    private static final long MILLIS = 1483250400000L;
+
+    private final News mBoundNews =
+            new News("Title", "World news", DATE, "https://www.theguardian.com/world/title");
+
+    @Benchmark
+    public long parseIsoDate() {
+        return NewsDates.parseIsoDate(DATE);
+    }
+
+    @Benchmark
+    public String formatIsoDate() {
+        return NewsDates.formatIsoDate(MILLIS);
+    }
+
+    @Benchmark
+    public String formatDisplayDate() {
+        return NewsDates.formatDisplayDate(MILLIS);
+    }
+
+    /**
+     * Show the date of an article bound before, as the adapter does now.
+     */
+    @Benchmark
+    public String formattedDateOfBoundArticle() {
+        return mBoundNews.getFormattedDate();
+    }
+
+    /**
+     * Parse and format a date the way the adapter used to for every row it bound.
+     */
+    @Benchmark
+    public String simpleDateFormat() throws ParseException {
+        DateFormat originalFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        originalFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        DateFormat finalFormat = new SimpleDateFormat("LLL. dd, yyyy");
+        return finalFormat.format(originalFormat.parse(DATE));
+    }
+
+    @Benchmark
+    public String rangeStartQueryDate() {
+        long start = NewsDates.rangeStartMillis(NewsDates.RANGE_WEEK, Calendar.getInstance());
+        return NewsDates.formatQueryDate(start, TimeZone.getDefault());
+    }
+}
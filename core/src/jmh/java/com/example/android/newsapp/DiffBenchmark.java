@@ -0,0 +1,89 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diff of a long list against the same list with a page added, as the adapter calculates it
+ * on every submission. {@link NewsDiff} matches the articles by URL without putting the URLs
+ * back together; the matching it did before, with a map keyed by URL strings, is kept here
+ * for comparison. Run with "-prof gc": gc.alloc.rate.norm is the garbage of each diff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiffBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final String[] SECTIONS = {"world", "uk-news", "sport", "business"};
+
+    @Param({"1000", "10000"})
+    public int articles;
+
+    private List<News> mOldNews;
+    private List<News> mNewNews;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mOldNews = new ArrayList<News>(articles);
+        for (int i = 0; i < articles; i++) {
+            mOldNews.add(article(random, i));
+        }
+        // Copies of the same articles, as received again from the store or the network
+        mNewNews = new ArrayList<News>(articles + PAGE_SIZE);
+        for (News news : mOldNews) {
+            mNewNews.add(new News(news.getTitle(), news.getSection(), null,
+                    news.getPublishedAtMillis(), news.getArticleUrl(), news.getThumbnailUrl()));
+        }
+        for (int i = articles; i < articles + PAGE_SIZE; i++) {
+            mNewNews.add(random.nextInt(mNewNews.size()), article(random, i));
+        }
+    }
+
+    @Benchmark
+    public NewsDiff calculate() {
+        return NewsDiff.calculate(mOldNews, mNewNews);
+    }
+
+    /**
+     * Matching the articles by URL string, and comparing their thumbnails as strings
+     */
+    @Benchmark
+    public int urlStringMatching() {
+        Map<String, Integer> newPositions = new HashMap<String, Integer>(mNewNews.size() * 2);
+        for (int i = mNewNews.size() - 1; i >= 0; i--) {
+            newPositions.put(mNewNews.get(i).getArticleUrl(), i);
+        }
+        int changed = 0;
+        for (News news : mOldNews) {
+            Integer newPosition = newPositions.get(news.getArticleUrl());
+            if (newPosition != null && !news.getThumbnailUrl()
+                    .equals(mNewNews.get(newPosition).getThumbnailUrl())) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static News article(Random random, int i) {
+        String section = SECTIONS[random.nextInt(SECTIONS.length)];
+        return new News("Title " + i, section, null,
+                1483250400000L + random.nextInt(Integer.MAX_VALUE),
+                "https://www.theguardian.com/" + section + "/2017/jan/01/title-" + i,
+                "https://media.guim.co.uk/" + Integer.toHexString(i) + "/0_0_500_300/500.jpg");
+    }
+}
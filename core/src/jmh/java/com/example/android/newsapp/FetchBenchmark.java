@@ -0,0 +1,51 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end fetch through {@link QueryUtils} against a local stub server: request on a pooled
+ * connection, gzip decoding and streaming parse, without the variance of a real network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FetchBenchmark {
+
+    @Param({"guardian_search_10.json", "guardian_search_200.json"})
+    public String fixture;
+
+    private MockGuardianServer mServer;
+    private String mUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        mServer = new MockGuardianServer();
+        mServer.setBody(Fixtures.load(fixture));
+        mUrl = mServer.url("q=" + fixture);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mServer.shutdown();
+    }
+
+    @Benchmark
+    public NewsResponse fetch() {
+        NewsResponse response = QueryUtils.fetchNewsData(mUrl, null, null);
+        if (response.getNews() == null) {
+            throw new IllegalStateException("Fetch failed");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory taken by the articles of a recorded search response, in the compact {@link News}
+ * layout and in the layout before it, where every field was its own string. Run with
+ * "-prof gc": gc.alloc.rate.norm is the number of bytes each layout takes for the articles,
+ * plus the short lived buffers of the compact one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NewsLayoutBenchmark {
+
+    private String[] mTitles;
+    private String[] mSections;
+    private long[] mPublishedAtMillis;
+    private String[] mArticleUrls;
+    private String[] mThumbnailUrls;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<News> news = NewsJsonParser.parseNews(
+                new ByteArrayInputStream(Fixtures.load("guardian_search_200.json")));
+        int count = news.size();
+        mTitles = new String[count];
+        mSections = new String[count];
+        mPublishedAtMillis = new long[count];
+        mArticleUrls = new String[count];
+        mThumbnailUrls = new String[count];
+        for (int i = 0; i < count; i++) {
+            News article = news.get(i);
+            mTitles[i] = article.getTitle();
+            mSections[i] = article.getSection();
+            mPublishedAtMillis[i] = article.getPublishedAtMillis();
+            mArticleUrls[i] = article.getArticleUrl();
+            mThumbnailUrls[i] = article.getThumbnailUrl();
+        }
+    }
+
+    @Benchmark
+    public News[] compact() {
+        News[] news = new News[mTitles.length];
+        for (int i = 0; i < news.length; i++) {
+            news[i] = new News(mTitles[i], mSections[i], null, mPublishedAtMillis[i],
+                    mArticleUrls[i], mThumbnailUrls[i]);
+        }
+        return news;
+    }
+
+    @Benchmark
+    public StringFieldsNews[] separateStrings() {
+        StringFieldsNews[] news = new StringFieldsNews[mTitles.length];
+        for (int i = 0; i < news.length; i++) {
+            news[i] = new StringFieldsNews(mTitles[i], mSections[i], mPublishedAtMillis[i],
+                    mArticleUrls[i], mThumbnailUrls[i]);
+        }
+        return news;
+    }
+
+    /**
+     * The article layout before the compact one: every field its own string, as the parser
+     * returned it, except for the parsed date added later.
+     */
+    public static class StringFieldsNews {
+        final String mTitle;
+        final String mSection;
+        final String mPublicationDate;
+        final long mPublishedAtMillis;
+        final String mArticleUrl;
+        final String mThumbnailUrl;
+        String mFormattedDate;
+
+        StringFieldsNews(String title, String section, long publishedAtMillis,
+                         String articleUrl, String thumbnailUrl) {
+            // Copies, as the parser creates a new string for each value it reads
+            mTitle = new String(title);
+            mSection = new String(section);
+            mPublicationDate = NewsDates.formatIsoDate(publishedAtMillis);
+            mPublishedAtMillis = publishedAtMillis;
+            mArticleUrl = new String(articleUrl);
+            mThumbnailUrl = thumbnailUrl != null ? new String(thumbnailUrl) : null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of recorded Guardian search responses of several sizes, with the streaming parser
+ * used by the app and the JSON tree parser it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBenchmark {
+
+    @Param({"guardian_search_10.json", "guardian_search_50.json", "guardian_search_200.json"})
+    public String fixture;
+
+    private byte[] mJson;
+    private String mJsonString;
+
+    @Setup
+    public void setUp() throws IOException {
+        mJson = Fixtures.load(fixture);
+        mJsonString = new String(mJson, Charset.forName("UTF-8"));
+    }
+
+    @Benchmark
+    public List<News> streaming() throws IOException {
+        return NewsJsonParser.parseNews(new ByteArrayInputStream(mJson));
+    }
+
+    @Benchmark
+    public List<News> tree() {
+        return QueryUtils.extractNewsInfoFromJson(mJsonString);
+    }
+}
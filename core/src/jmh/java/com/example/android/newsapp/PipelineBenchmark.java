@@ -0,0 +1,86 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding a page to a long list with {@link NewsPipeline}, which only sorts the page
+ * and merges it in, against sorting and deduplicating the whole list again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PipelineBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final String[] SECTIONS = {"World news", "UK news", "Sport", "Business"};
+
+    @Param({"1000", "10000"})
+    public int articles;
+
+    private NewsPipeline mPipeline;
+    private List<News> mAll;
+    private List<News> mPage;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        mPipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.NEWEST_FIRST)
+                .dedupeTitles(true)
+                .groupBy(NewsPipeline.BY_SECTION)
+                .build();
+        mAll = new ArrayList<News>(articles);
+        int pages = articles / PAGE_SIZE;
+        for (int page = 0; page <= pages; page++) {
+            List<News> news = new ArrayList<News>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                long millis = 1483250400000L + random.nextInt(Integer.MAX_VALUE);
+                news.add(new News("Title " + page + " " + i,
+                        SECTIONS[random.nextInt(SECTIONS.length)], null, millis,
+                        "https://www.theguardian.com/world/" + page + "/" + i));
+            }
+            if (page < pages) {
+                mPipeline.putSegment(page, news);
+                mAll.addAll(news);
+            } else {
+                mPage = news;
+            }
+        }
+    }
+
+    @Benchmark
+    public NewsPipeline.Result addPage() {
+        return mPipeline.putSegment(Integer.MAX_VALUE, mPage);
+    }
+
+    @Benchmark
+    public List<News> resortAll() {
+        List<News> all = new ArrayList<News>(mAll.size() + mPage.size());
+        all.addAll(mAll);
+        all.addAll(mPage);
+        Collections.sort(all, NewsPipeline.NEWEST_FIRST);
+        List<News> deduped = new ArrayList<News>(all.size());
+        Set<String> titles = new HashSet<String>();
+        for (News news : all) {
+            if (titles.add(NewsPipeline.titleKey(news.getTitle()))) {
+                deduped.add(news);
+            }
+        }
+        return deduped;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of {@link SearchIndex} over tens of thousands of articles, for the queries made
+ * while typing: a short prefix, a complete term, and several terms. Typing should get results
+ * in well under 10 ms.
+ * <p>
+ * Titles are drawn from a synthetic vocabulary with a Zipf-like distribution, like real text:
+ * a few terms are in many articles, most terms in a handful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    private static final int VOCABULARY_SIZE = 20000;
+    private static final int WORDS_PER_TITLE = 10;
+    private static final int RESULT_LIMIT = 50;
+
+    @Param({"10000", "50000"})
+    public int articles;
+
+    @Param({"k", "ko", "kola", "kola reca", "ba reca kol"})
+    public String query;
+
+    private SearchIndex mIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(i);
+        }
+
+        List<News> news = new ArrayList<News>(articles);
+        long millis = 1483250400000L;
+        for (int i = 0; i < articles; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < WORDS_PER_TITLE; w++) {
+                // Cubing a uniform value favours the start of the vocabulary
+                double uniform = random.nextDouble();
+                title.append(vocabulary[(int) (uniform * uniform * uniform * VOCABULARY_SIZE)])
+                        .append(' ');
+            }
+            millis += 60000;
+            news.add(new News(title.toString(), "World news", NewsDates.formatIsoDate(millis),
+                    millis, "https://www.theguardian.com/world/" + i));
+        }
+        mIndex = new SearchIndex(null);
+        mIndex.addAll(news);
+    }
+
+    @Benchmark
+    public List<News> search() {
+        return mIndex.search(query, RESULT_LIMIT);
+    }
+
+    /**
+     * Return a pronounceable word for the given number: "ba", "ca", ... "kaca", ...
+     */
+    private static String word(int number) {
+        String consonants = "bcdfgklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int n = number;
+        do {
+            word.append(consonants.charAt(n % consonants.length()));
+            n /= consonants.length();
+            word.append(vowels.charAt(n % vowels.length()));
+            n /= vowels.length();
+        } while (n > 0);
+        return word.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work between a start of the main screen and its first content that doesn't need the
+ * platform: computing the date range and its query, formatting the first dates shown, and
+ * running the stored articles through the list's pipeline.
+ * <p>
+ * The cold benchmarks run it once in each of many fresh JVMs, so they include loading the
+ * classes, time zone data and date formats on first use, like the first start of a process.
+ * The warm benchmarks run it over and over in the same JVM, like a start in a running process.
+ * Each run gives the numbers to compare with the previous one; on a device, the phases of real
+ * starts are recorded by {@link StartupTimer}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StartupBenchmark {
+
+    /**
+     * Number of stored articles read for the first screen
+     */
+    private static final int STORED_ARTICLES = 100;
+
+    private List<News> mStoredNews;
+
+    @Setup
+    public void setUp() {
+        mStoredNews = new ArrayList<News>(STORED_ARTICLES);
+        long millis = 1483250400000L;
+        for (int i = 0; i < STORED_ARTICLES; i++) {
+            millis += 60000;
+            mStoredNews.add(new News("Article " + i, i % 2 == 0 ? "World news" : "UK news",
+                    null, millis, "https://www.theguardian.com/world/2017/jan/01/article-" + i,
+                    "https://media.guim.co.uk/thumbnails/" + i + "/500.jpg"));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(20)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object coldRangeQuery() {
+        return rangeQuery();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Object warmRangeQuery() {
+        return rangeQuery();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(20)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object coldFirstContent() {
+        return firstContent();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Object warmFirstContent() {
+        return firstContent();
+    }
+
+    /**
+     * Return the query of the default date range, as the main screen builds it.
+     */
+    private static String rangeQuery() {
+        long rangeStartMillis =
+                NewsDates.rangeStartMillis(NewsDates.RANGE_TODAY, Calendar.getInstance());
+        return new GuardianQuery.Builder()
+                .apiKey("test")
+                .orderBy(GuardianQuery.ORDER_BY_OLDEST)
+                .addShowFields("thumbnail")
+                .fromDate(NewsDates.formatQueryDate(rangeStartMillis, TimeZone.getDefault()))
+                .pageSize(20)
+                .page(1)
+                .build()
+                .toUrl();
+    }
+
+    /**
+     * Return the stored articles as the first screen shows them, with the dates of the rows
+     * that fit on it formatted.
+     */
+    private List<News> firstContent() {
+        List<News> news = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .dedupeTitles(true)
+                .build()
+                .replaceAll(1, mStoredNews)
+                .getNews();
+        for (int i = 0; i < 10; i++) {
+            NewsDates.formatDisplayDate(news.get(i).getPublishedAtMillis());
+        }
+        return news;
+    }
+}
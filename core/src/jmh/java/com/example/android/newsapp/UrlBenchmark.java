@@ -0,0 +1,83 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the request URLs of a query, the way the activity and the loaders do for every
+ * date range, page and section. The string concatenation the app used before
+ * {@link GuardianQuery} is kept here for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UrlBenchmark {
+
+    private static final String REQUEST_URL_START =
+            "https://content.guardianapis.com/search?order-by=oldest&format=json&show-fields=thumbnail&api-key=test&from-date=";
+
+    private final NewsPager mPager = new NewsPager(20, 5);
+
+    private final GuardianQuery mQuery = new GuardianQuery.Builder()
+            .apiKey("test")
+            .orderBy(GuardianQuery.ORDER_BY_OLDEST)
+            .addShowFields("thumbnail")
+            .fromDate("2017-01-01")
+            .build();
+
+    @Benchmark
+    public String concatenatedRequestUrl() {
+        return legacyRequestUrl(REQUEST_URL_START, "2017-01-01");
+    }
+
+    @Benchmark
+    public String concatenatedSectionPageUrl() {
+        return legacyRequestUrl(REQUEST_URL_START, "2017-01-01") + "&page-size=20&page=3"
+                + "&section=world";
+    }
+
+    @Benchmark
+    public String queryUrl() {
+        return new GuardianQuery.Builder()
+                .apiKey("test")
+                .orderBy(GuardianQuery.ORDER_BY_OLDEST)
+                .addShowFields("thumbnail")
+                .fromDate("2017-01-01")
+                .build()
+                .toUrl();
+    }
+
+    @Benchmark
+    public String querySectionPageUrl() {
+        return mPager.pageQuery(mQuery, 3).newBuilder().section("world").build().toUrl();
+    }
+
+    /**
+     * The request URL as built before {@link GuardianQuery}: the parts encoded as a whole,
+     * then the characters of the URL structure decoded again one regex at a time.
+     */
+    private static String legacyRequestUrl(String... parts) {
+        StringBuilder urlBuilder = new StringBuilder();
+        for (String part : parts) {
+            urlBuilder.append(part);
+        }
+        return QueryUtils.encode(urlBuilder.toString()).replaceAll("\\+", "%20")
+                .replaceAll("\\%21", "!")
+                .replaceAll("\\%3A", ":")
+                .replaceAll("\\%2F", "/")
+                .replaceAll("\\%3F", "?")
+                .replaceAll("\\%26", "&")
+                .replaceAll("\\%3D", "=")
+                .replaceAll("\\%27", "'")
+                .replaceAll("\\%28", "(")
+                .replaceAll("\\%29", ")")
+                .replaceAll("\\%20", "\\+")
+                .replaceAll("\\%7E", "~");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.android.newsapp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of article bodies by article ID, bounded by the total length of the bodies
+ * it holds. The least recently used body is dropped first.
+ * <p>
+ * Bodies are fetched when an article is opened or predicted to be opened, see
+ * {@link QueryUtils#fetchArticleBodyResponse}, so the list never pays for them.
+ */
+public class ArticleBodyCache {
+
+    private final long mMaxChars;
+    private long mSizeChars;
+
+    /**
+     * Bodies in access order, so the first entry is always the least recently used.
+     */
+    private final LinkedHashMap<String, String> mBodies =
+            new LinkedHashMap<String, String>(16, 0.75f, true);
+
+    /**
+     * Constructs a new {@link ArticleBodyCache}.
+     *
+     * @param maxChars is the total length of the bodies kept, a char takes two bytes.
+     */
+    public ArticleBodyCache(long maxChars) {
+        mMaxChars = maxChars;
+    }
+
+    /**
+     * Return the body of the given article, or null if it isn't cached.
+     */
+    public synchronized String get(String articleId) {
+        String body = mBodies.get(articleId);
+        Metrics.increment(body != null ? "body.cache_hits" : "body.cache_misses");
+        return body;
+    }
+
+    /**
+     * Return true if the body of the given article is cached, without counting it as used.
+     */
+    public synchronized boolean contains(String articleId) {
+        return mBodies.containsKey(articleId);
+    }
+
+    /**
+     * Cache the body of the given article, dropping the least recently used bodies to make
+     * room. A body larger than the whole cache isn't kept.
+     */
+    public synchronized void put(String articleId, String body) {
+        String previous = mBodies.remove(articleId);
+        if (previous != null) {
+            mSizeChars -= previous.length();
+        }
+        if (body.length() > mMaxChars) {
+            return;
+        }
+        mBodies.put(articleId, body);
+        mSizeChars += body.length();
+
+        Iterator<Map.Entry<String, String>> eldest = mBodies.entrySet().iterator();
+        while (mSizeChars > mMaxChars) {
+            mSizeChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    public synchronized long getSizeChars() {
+        return mSizeChars;
+    }
+
+    public synchronized int size() {
+        return mBodies.size();
+    }
+}
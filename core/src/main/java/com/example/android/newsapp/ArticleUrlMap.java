@@ -0,0 +1,126 @@
+package com.example.android.newsapp;
+
+import java.util.Arrays;
+
+/**
+ * Map from articles to int values, e.g. positions in a list, keyed by article URL.
+ * <p>
+ * Articles only keep their URL in pieces, see {@link News}, so a map keyed by URL strings
+ * would put every URL back together to add or look up an article. This one hashes and
+ * compares the pieces instead, with {@link News#hashArticleUrl()} and
+ * {@link News#articleUrlEquals(News)}, so neither allocates. Collisions are resolved by
+ * linear probing in two parallel arrays.
+ */
+final class ArticleUrlMap {
+
+    /**
+     * Value returned for articles that aren't in the map
+     */
+    static final int NOT_FOUND = -1;
+
+    private News[] mKeys;
+    private int[] mValues;
+    private int mSize;
+
+    /**
+     * Constructs a new, empty {@link ArticleUrlMap}.
+     *
+     * @param expectedSize is the number of articles the map holds without growing.
+     */
+    ArticleUrlMap(int expectedSize) {
+        int capacity = 16;
+        // At most half full, so probes stay short
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        mKeys = new News[capacity];
+        mValues = new int[capacity];
+    }
+
+    /**
+     * Return the value of the article with the same URL as the given one, or
+     * {@link #NOT_FOUND}.
+     */
+    int get(News news) {
+        int mask = mKeys.length - 1;
+        for (int i = spread(news.hashArticleUrl()) & mask; mKeys[i] != null;
+             i = (i + 1) & mask) {
+            if (mKeys[i].articleUrlEquals(news)) {
+                return mValues[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Return the value of the article with the given URL, or {@link #NOT_FOUND}.
+     */
+    int get(String articleUrl) {
+        int mask = mKeys.length - 1;
+        for (int i = spread(articleUrl.hashCode()) & mask; mKeys[i] != null;
+             i = (i + 1) & mask) {
+            if (mKeys[i].articleUrlEquals(articleUrl)) {
+                return mValues[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Map the URL of the given article to the given value, replacing the article and value
+     * mapped to the same URL before.
+     */
+    void put(News news, int value) {
+        if ((mSize + 1) * 2 > mKeys.length) {
+            resize(mKeys.length * 2);
+        }
+        int mask = mKeys.length - 1;
+        int i = spread(news.hashArticleUrl()) & mask;
+        while (mKeys[i] != null) {
+            if (mKeys[i].articleUrlEquals(news)) {
+                mKeys[i] = news;
+                mValues[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        mKeys[i] = news;
+        mValues[i] = value;
+        mSize++;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        Arrays.fill(mKeys, null);
+        mSize = 0;
+    }
+
+    private void resize(int capacity) {
+        News[] keys = mKeys;
+        int[] values = mValues;
+        mKeys = new News[capacity];
+        mValues = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < keys.length; j++) {
+            if (keys[j] != null) {
+                int i = spread(keys[j].hashArticleUrl()) & mask;
+                while (mKeys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = keys[j];
+                mValues[i] = values[j];
+            }
+        }
+    }
+
+    /**
+     * Mix the high bits of the hash into the low ones the table uses, as {@link
+     * java.util.HashMap} does.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.android.newsapp;
+
+/**
+ * Reports the state of the device's battery, so battery dependent logic can be tested with a
+ * fake one.
+ */
+public interface BatterySource {
+
+    /**
+     * Return whether the battery level is low.
+     */
+    boolean isLow();
+
+    /**
+     * Return whether the device is plugged in.
+     */
+    boolean isCharging();
+}
@@ -0,0 +1,101 @@
+package com.example.android.newsapp;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets work running on a background thread be cancelled from another thread.
+ * <p>
+ * Work checks {@link #isCanceled()} between steps. Blocking calls, such as reading from a
+ * socket, register an {@link OnCancelListener} that aborts them, e.g. by closing the
+ * connection.
+ */
+public final class CancellationToken {
+
+    /**
+     * Called on the thread that cancels the token.
+     */
+    public interface OnCancelListener {
+        void onCancel();
+    }
+
+    private boolean mCanceled;
+
+    private final List<OnCancelListener> mListeners = new ArrayList<OnCancelListener>();
+
+    /**
+     * Cancel the work and notify the listeners. Does nothing if it was already cancelled.
+     */
+    public void cancel() {
+        List<OnCancelListener> listeners;
+        synchronized (this) {
+            if (mCanceled) {
+                return;
+            }
+            mCanceled = true;
+            listeners = new ArrayList<OnCancelListener>(mListeners);
+            mListeners.clear();
+            // Wake up the threads waiting in sleep()
+            notifyAll();
+        }
+        // Listeners are called without holding the lock, they may block or cancel other work
+        for (OnCancelListener listener : listeners) {
+            listener.onCancel();
+        }
+    }
+
+    public synchronized boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Wait for the given time, or until the token is cancelled, whichever comes first. An
+     * interrupt is treated like a cancellation.
+     *
+     * @return true if the full time passed, false if the token was cancelled.
+     */
+    public synchronized boolean sleep(long millis) {
+        long deadline = System.nanoTime() + millis * 1000000;
+        while (!mCanceled) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1000000;
+            if (remainingMillis <= 0) {
+                return true;
+            }
+            try {
+                wait(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @throws InterruptedIOException if the work was cancelled.
+     */
+    public void throwIfCanceled() throws InterruptedIOException {
+        if (isCanceled()) {
+            throw new InterruptedIOException("Canceled");
+        }
+    }
+
+    /**
+     * Add a listener to call when the token is cancelled. If it already is, the listener is
+     * called right away.
+     */
+    public void addOnCancelListener(OnCancelListener listener) {
+        synchronized (this) {
+            if (!mCanceled) {
+                mListeners.add(listener);
+                return;
+            }
+        }
+        listener.onCancel();
+    }
+
+    public synchronized void removeOnCancelListener(OnCancelListener listener) {
+        mListeners.remove(listener);
+    }
+}
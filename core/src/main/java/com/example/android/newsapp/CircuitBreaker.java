@@ -0,0 +1,108 @@
+package com.example.android.newsapp;
+
+/**
+ * Stops requests to a server that keeps failing, so it isn't hammered while it is down and
+ * callers can fall back to stale data right away instead of waiting for more failures.
+ * <p>
+ * The breaker starts {@link #CLOSED}, letting every request through. After a number of failures
+ * in a row it opens, and turns requests away until the open time has passed (or the server's
+ * Retry-After, if that is later). Then it is {@link #HALF_OPEN}: a single trial request goes
+ * through, which closes the breaker again if it succeeds or reopens it if it fails.
+ */
+public class CircuitBreaker {
+
+    /**
+     * States of the breaker
+     */
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int HALF_OPEN = 2;
+
+    private final Clock mClock;
+    private final int mFailureThreshold;
+    private final long mOpenMillis;
+
+    private int mConsecutiveFailures;
+
+    /**
+     * Time until which requests are turned away, 0 while closed
+     */
+    private long mOpenUntilMillis;
+
+    /**
+     * Whether the trial request of the half-open state is running
+     */
+    private boolean mTrialInFlight;
+
+    /**
+     * Constructs a new {@link CircuitBreaker}.
+     *
+     * @param clock            is the source of the current time.
+     * @param failureThreshold is the number of failures in a row that opens the breaker.
+     * @param openMillis       is the time requests are turned away for once it opens.
+     */
+    public CircuitBreaker(Clock clock, int failureThreshold, long openMillis) {
+        mClock = clock;
+        mFailureThreshold = failureThreshold;
+        mOpenMillis = openMillis;
+    }
+
+    /**
+     * Return whether a request may be sent now. In the half-open state, only the first caller
+     * is let through, and must report its outcome.
+     */
+    public synchronized boolean allowRequest() {
+        switch (getState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (mTrialInFlight) {
+                    return false;
+                }
+                mTrialInFlight = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        mConsecutiveFailures = 0;
+        mOpenUntilMillis = 0;
+        mTrialInFlight = false;
+    }
+
+    /**
+     * Report a failed request.
+     *
+     * @param retryAfterMillis is the delay the server asked for, or -1.
+     */
+    public synchronized void onFailure(long retryAfterMillis) {
+        mConsecutiveFailures++;
+        boolean trialFailed = mTrialInFlight;
+        mTrialInFlight = false;
+        if (trialFailed || mConsecutiveFailures >= mFailureThreshold) {
+            mOpenUntilMillis = mClock.currentTimeMillis()
+                    + Math.max(mOpenMillis, retryAfterMillis);
+        }
+    }
+
+    /**
+     * Report a request that ended without telling anything about the server, e.g. because it
+     * was cancelled, so the trial can be given to another request.
+     */
+    public synchronized void onAbandoned() {
+        mTrialInFlight = false;
+    }
+
+    public synchronized int getState() {
+        if (mOpenUntilMillis == 0) {
+            return CLOSED;
+        }
+        return mClock.currentTimeMillis() < mOpenUntilMillis ? OPEN : HALF_OPEN;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return mConsecutiveFailures;
+    }
+}
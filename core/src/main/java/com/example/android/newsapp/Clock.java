@@ -0,0 +1,22 @@
+package com.example.android.newsapp;
+
+/**
+ * Source of the current time, so time dependent logic can be tested with a fake clock.
+ */
+public interface Clock {
+
+    /**
+     * Clock backed by {@link System#currentTimeMillis()}.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Return the current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+}
@@ -0,0 +1,137 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Follows the state of the network connection, to run fetches that can't run while offline
+ * once a network becomes available, and to adapt requests to the kind of network.
+ * <p>
+ * The platform tells the monitor about changes by calling {@link #update()}, which reads the
+ * {@link ConnectivitySource} again. Fetches asked for while offline are queued by key. A
+ * fetch queued with the key of one already waiting replaces it, so e.g. switching date ranges
+ * several times while offline only loads the last range. Once connected, the fetches waiting
+ * run once each, in the order they were last queued.
+ * <p>
+ * Fetches run, and listeners are called, on the thread calling {@link #update()} or
+ * {@link #runWhenConnected}, never while the monitor holds its lock.
+ */
+public class ConnectivityMonitor {
+
+    /**
+     * Notified when the policy of the network changes, e.g. from Wi-Fi to mobile data.
+     */
+    public interface Listener {
+        void onNetworkPolicyChanged(NetworkPolicy policy);
+    }
+
+    private final ConnectivitySource mSource;
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<Listener>();
+
+    /**
+     * Fetches waiting for a network, by key, in the order they were queued
+     */
+    private final Map<String, Runnable> mPending = new LinkedHashMap<String, Runnable>();
+
+    private boolean mConnected;
+    private NetworkPolicy mPolicy;
+
+    public ConnectivityMonitor(ConnectivitySource source) {
+        mSource = source;
+        mConnected = source.isConnected();
+        mPolicy = NetworkPolicy.forNetwork(mConnected && source.isMetered());
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Return whether a network was available at the last update.
+     */
+    public synchronized boolean isConnected() {
+        return mConnected;
+    }
+
+    /**
+     * Return the policy of the network at the last update. While offline, it's the policy of
+     * the last network, which the next one is likely to be.
+     */
+    public synchronized NetworkPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    /**
+     * Run the given fetch right away if a network is available, or once one is, replacing the
+     * fetch waiting with the same key.
+     *
+     * @return true if the fetch ran right away.
+     */
+    public boolean runWhenConnected(String key, Runnable fetch) {
+        update();
+        synchronized (this) {
+            if (!mConnected) {
+                // Queued again at the end, it's the latest fetch asked for
+                if (mPending.remove(key) != null) {
+                    Metrics.increment("connectivity.coalesced");
+                }
+                mPending.put(key, fetch);
+                Metrics.increment("connectivity.queued");
+                return false;
+            }
+            mPending.remove(key);
+        }
+        fetch.run();
+        return true;
+    }
+
+    /**
+     * Drop the fetch waiting with the given key, if there is one.
+     */
+    public synchronized void cancel(String key) {
+        mPending.remove(key);
+    }
+
+    /**
+     * Read the state of the connection again, notify the listeners if its policy changed, and
+     * run the fetches waiting if a network became available.
+     */
+    public void update() {
+        boolean connected = mSource.isConnected();
+        NetworkPolicy policy = null;
+        List<Runnable> replays = null;
+        synchronized (this) {
+            if (connected) {
+                NetworkPolicy newPolicy = NetworkPolicy.forNetwork(mSource.isMetered());
+                if (newPolicy != mPolicy) {
+                    mPolicy = newPolicy;
+                    policy = newPolicy;
+                }
+                if (!mConnected && !mPending.isEmpty()) {
+                    replays = new ArrayList<Runnable>(mPending.values());
+                    mPending.clear();
+                }
+            }
+            mConnected = connected;
+        }
+
+        if (policy != null) {
+            for (Listener listener : mListeners) {
+                listener.onNetworkPolicyChanged(policy);
+            }
+        }
+        if (replays != null) {
+            Metrics.add("connectivity.replayed", replays.size());
+            for (Runnable replay : replays) {
+                replay.run();
+            }
+        }
+    }
+}
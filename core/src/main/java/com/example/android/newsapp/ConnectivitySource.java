@@ -0,0 +1,18 @@
+package com.example.android.newsapp;
+
+/**
+ * Reports the state of the device's network connection, so network dependent logic can be
+ * tested with a fake one.
+ */
+public interface ConnectivitySource {
+
+    /**
+     * Return whether a network connection is available.
+     */
+    boolean isConnected();
+
+    /**
+     * Return whether the active network is metered, e.g. mobile data.
+     */
+    boolean isMetered();
+}
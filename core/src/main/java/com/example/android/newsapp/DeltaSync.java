@@ -0,0 +1,166 @@
+package com.example.android.newsapp;
+
+import java.util.List;
+
+/**
+ * Keeps the local store of each section up to date by fetching only what it is missing,
+ * instead of every article of a date range.
+ * <p>
+ * {@link #sync} asks for the articles published after each section's high-water mark, newest
+ * first. When there are more of them than fit on a page, only the newest page is received,
+ * which leaves a gap between the old mark and the oldest article received. {@link #backfill}
+ * fills such gaps, and the gaps left by interrupted syncs, one page at a time, newest first.
+ * <p>
+ * The {@link Source} stores what it fetches, so a window is only marked as synced after its
+ * articles were stored. Requests that fail leave the state as it was, to be tried again.
+ */
+public class DeltaSync {
+
+    /**
+     * Performs a single request, and stores the articles received. Returns null if it failed.
+     */
+    public interface Source {
+        List<News> fetch(GuardianQuery query);
+    }
+
+    private final Source mSource;
+    private final SyncState mState;
+    private final Clock mClock;
+    private final int mPageSize;
+    private final long mOverlapMillis;
+
+    /**
+     * Constructs a new {@link DeltaSync}.
+     *
+     * @param source        fetches and stores each request.
+     * @param state         is the synced windows of each section, updated as requests succeed.
+     * @param clock         is the source of the current time.
+     * @param pageSize      is the number of articles requested at once.
+     * @param overlapMillis is how far before the high-water mark a sync starts. Articles can
+     *                      show up in the API a little after their publication time, the
+     *                      overlap catches those.
+     */
+    public DeltaSync(Source source, SyncState state, Clock clock, int pageSize,
+                     long overlapMillis) {
+        mSource = source;
+        mState = state;
+        mClock = clock;
+        mPageSize = pageSize;
+        mOverlapMillis = overlapMillis;
+    }
+
+    /**
+     * Fetch the articles of each section published since its high-water mark, or since the
+     * given time if the section wasn't synced that far.
+     *
+     * @param query        is the query to sync, without section, dates, order or page.
+     * @param sections     are the sections to sync.
+     * @param fromMillis   is the start of the date range shown.
+     * @param cancellation stops the sync between requests.
+     * @return true if the request of every section succeeded.
+     */
+    public boolean sync(GuardianQuery query, String[] sections, long fromMillis,
+                        CancellationToken cancellation) {
+        boolean success = true;
+        for (String section : sections) {
+            if (cancellation.isCanceled()) {
+                return false;
+            }
+            success &= syncSection(query, section, fromMillis);
+        }
+        return success;
+    }
+
+    /**
+     * Fetch the articles of a single section published since its high-water mark, or since
+     * the given time if the section wasn't synced that far. Sections can be synced from
+     * several threads at once.
+     *
+     * @return true if the request succeeded.
+     */
+    public boolean syncSection(GuardianQuery query, String section, long fromMillis) {
+        long mark = mState.getHighWaterMark(section);
+        long start = mark == NewsDates.UNKNOWN_DATE || mark - mOverlapMillis < fromMillis
+                ? fromMillis : mark - mOverlapMillis;
+        return fetchWindow(query, section, start, mClock.currentTimeMillis(), false);
+    }
+
+    /**
+     * Fill the gaps of each section between the given time and its high-water mark, newest
+     * first. Sections that were never synced are left out, {@link #sync} has to run first.
+     *
+     * @param maxRequests  is the number of requests made at most, over all sections.
+     * @param cancellation stops the backfill between requests.
+     * @return false if a request failed. Gaps may be left either way, see
+     * {@link SyncState#isCovered}.
+     */
+    public boolean backfill(GuardianQuery query, String[] sections, long fromMillis,
+                            int maxRequests, CancellationToken cancellation) {
+        int requests = 0;
+        for (String section : sections) {
+            List<SyncState.Window> gaps = mState.getGaps(section, fromMillis);
+            while (!gaps.isEmpty() && requests < maxRequests && !cancellation.isCanceled()) {
+                SyncState.Window gap = gaps.get(gaps.size() - 1);
+                requests++;
+                if (!fetchWindow(query, section, gap.getStart(), gap.getEnd(), true)) {
+                    // Don't keep hitting an API that fails, the next backfill tries again
+                    return false;
+                }
+                List<SyncState.Window> remaining = mState.getGaps(section, fromMillis);
+                if (remaining.equals(gaps)) {
+                    // A full page of articles published at the same time, nothing to gain
+                    // from asking again
+                    break;
+                }
+                gaps = remaining;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fetch the newest page of the given window, and mark as synced the part of the window
+     * it covers.
+     *
+     * @param bounded is true if the window ends before now, so its end is part of the query.
+     * @return true if the request succeeded.
+     */
+    private boolean fetchWindow(GuardianQuery query, String section, long startMillis,
+                                long endMillis, boolean bounded) {
+        GuardianQuery.Builder builder = query.newBuilder()
+                .section(section)
+                .fromDate(NewsDates.formatIsoDate(startMillis))
+                .orderBy(GuardianQuery.ORDER_BY_NEWEST)
+                .page(1)
+                .pageSize(mPageSize);
+        if (bounded) {
+            builder.toDate(NewsDates.formatIsoDate(endMillis));
+        }
+        List<News> news = mSource.fetch(builder.build());
+        Metrics.increment("sync.requests");
+        if (news == null) {
+            return false;
+        }
+        Metrics.add("sync.articles", news.size());
+
+        if (news.size() < mPageSize) {
+            mState.markSynced(section, startMillis, endMillis);
+            return true;
+        }
+
+        // Only the newest part of the window fit on the page, the rest is a gap
+        long oldest = Long.MAX_VALUE;
+        for (News article : news) {
+            long publishedAt = article.getPublishedAtMillis();
+            if (publishedAt != NewsDates.UNKNOWN_DATE && publishedAt < oldest) {
+                oldest = publishedAt;
+            }
+        }
+        if (oldest != Long.MAX_VALUE) {
+            // Articles published at the same time as the oldest one may be on the next page,
+            // the gap includes that time so they're asked for again
+            mState.markSynced(section, Math.max(oldest + 1, startMillis), endMillis);
+        }
+        return true;
+    }
+}
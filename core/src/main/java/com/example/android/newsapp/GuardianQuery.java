@@ -0,0 +1,338 @@
+package com.example.android.newsapp;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable query of The Guardian's search endpoint, built with a {@link Builder}.
+ * <p>
+ * {@link #toUrl()} returns a canonical URL: parameters are in alphabetical order, list values
+ * are sorted and free of duplicates, and values are percent-encoded the same way every time.
+ * Two queries asking for the same thing have the same URL, so it can be used as a cache and
+ * request dedupe key.
+ */
+public final class GuardianQuery {
+
+    /**
+     * Search endpoint of the Content API
+     */
+    public static final String SEARCH_URL = "https://content.guardianapis.com/search";
+
+    /**
+     * Endpoint of a single item, the item's ID is appended
+     */
+    public static final String ITEM_URL = "https://content.guardianapis.com/";
+
+    /**
+     * Values of the order-by parameter
+     */
+    public static final String ORDER_BY_NEWEST = "newest";
+    public static final String ORDER_BY_OLDEST = "oldest";
+    public static final String ORDER_BY_RELEVANCE = "relevance";
+
+    /**
+     * Largest page size the API accepts
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Marks the page and page size as not given, so the API defaults apply
+     */
+    private static final int DEFAULT = 0;
+
+    private final String mBaseUrl;
+    private final String mApiKey;
+    private final String mQuery;
+    private final String mSection;
+    private final Set<String> mTags;
+    private final String mFromDate;
+    private final String mToDate;
+    private final String mOrderBy;
+    private final int mPage;
+    private final int mPageSize;
+    private final Set<String> mShowFields;
+    private final Set<String> mShowTags;
+
+    /**
+     * Built on first use, queries are immutable
+     */
+    private String mUrl;
+
+    private GuardianQuery(Builder builder) {
+        mBaseUrl = builder.mBaseUrl;
+        mApiKey = builder.mApiKey;
+        mQuery = builder.mQuery;
+        mSection = builder.mSection;
+        mTags = Collections.unmodifiableSet(new TreeSet<String>(builder.mTags));
+        mFromDate = builder.mFromDate;
+        mToDate = builder.mToDate;
+        mOrderBy = builder.mOrderBy;
+        mPage = builder.mPage;
+        mPageSize = builder.mPageSize;
+        mShowFields = Collections.unmodifiableSet(new TreeSet<String>(builder.mShowFields));
+        mShowTags = Collections.unmodifiableSet(new TreeSet<String>(builder.mShowTags));
+    }
+
+    /**
+     * Return a builder starting out with the values of this query.
+     */
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    public String getSection() {
+        return mSection;
+    }
+
+    public int getPage() {
+        return mPage;
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Return the canonical URL of this query.
+     */
+    public String toUrl() {
+        String url = mUrl;
+        if (url == null) {
+            url = buildUrl();
+            mUrl = url;
+        }
+        return url;
+    }
+
+    private String buildUrl() {
+        StringBuilder url = new StringBuilder(mBaseUrl.length() + 160).append(mBaseUrl);
+        // Appended in alphabetical order of the parameter names
+        char separator = '?';
+        separator = append(url, separator, "api-key", mApiKey);
+        separator = append(url, separator, "from-date", mFromDate);
+        separator = append(url, separator, "order-by", mOrderBy);
+        separator = append(url, separator, "page", mPage);
+        separator = append(url, separator, "page-size", mPageSize);
+        separator = append(url, separator, "q", mQuery);
+        separator = append(url, separator, "section", mSection);
+        separator = append(url, separator, "show-fields", mShowFields);
+        separator = append(url, separator, "show-tags", mShowTags);
+        separator = append(url, separator, "tag", mTags);
+        append(url, separator, "to-date", mToDate);
+        return url.toString();
+    }
+
+    private static char append(StringBuilder url, char separator, String name, String value) {
+        if (value == null) {
+            return separator;
+        }
+        url.append(separator).append(name).append('=').append(QueryUtils.encode(value));
+        return '&';
+    }
+
+    private static char append(StringBuilder url, char separator, String name, int value) {
+        if (value == DEFAULT) {
+            return separator;
+        }
+        url.append(separator).append(name).append('=').append(value);
+        return '&';
+    }
+
+    /**
+     * Append a list parameter, its values separated by encoded commas.
+     */
+    private static char append(StringBuilder url, char separator, String name,
+                               Set<String> values) {
+        if (values.isEmpty()) {
+            return separator;
+        }
+        url.append(separator).append(name).append('=');
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                url.append("%2C");
+            }
+            url.append(QueryUtils.encode(value));
+            first = false;
+        }
+        return '&';
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof GuardianQuery && toUrl().equals(((GuardianQuery) other).toUrl());
+    }
+
+    @Override
+    public int hashCode() {
+        return toUrl().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toUrl();
+    }
+
+    /**
+     * Builds {@link GuardianQuery} objects. Parameters that are not set are left out of the
+     * URL, so the API defaults apply.
+     */
+    public static final class Builder {
+        private String mBaseUrl = SEARCH_URL;
+        private String mApiKey;
+        private String mQuery;
+        private String mSection;
+        private final Set<String> mTags = new TreeSet<String>();
+        private String mFromDate;
+        private String mToDate;
+        private String mOrderBy;
+        private int mPage = DEFAULT;
+        private int mPageSize = DEFAULT;
+        private final Set<String> mShowFields = new TreeSet<String>();
+        private final Set<String> mShowTags = new TreeSet<String>();
+
+        public Builder() {
+        }
+
+        private Builder(GuardianQuery query) {
+            mBaseUrl = query.mBaseUrl;
+            mApiKey = query.mApiKey;
+            mQuery = query.mQuery;
+            mSection = query.mSection;
+            mTags.addAll(query.mTags);
+            mFromDate = query.mFromDate;
+            mToDate = query.mToDate;
+            mOrderBy = query.mOrderBy;
+            mPage = query.mPage;
+            mPageSize = query.mPageSize;
+            mShowFields.addAll(query.mShowFields);
+            mShowTags.addAll(query.mShowTags);
+        }
+
+        /**
+         * Send the query to another endpoint with the same parameters, e.g. a test server.
+         */
+        public Builder baseUrl(String baseUrl) {
+            mBaseUrl = requireNonNull(baseUrl, "baseUrl");
+            return this;
+        }
+
+        public Builder apiKey(String apiKey) {
+            mApiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Search for the given terms, which may use AND, OR and NOT.
+         */
+        public Builder query(String query) {
+            mQuery = query;
+            return this;
+        }
+
+        /**
+         * Only return articles of the given section ID, e.g. "world", or null for all.
+         */
+        public Builder section(String section) {
+            mSection = section;
+            return this;
+        }
+
+        /**
+         * Only return articles with the given tag, e.g. "world/france". Articles must have all
+         * the tags added.
+         */
+        public Builder addTag(String tag) {
+            mTags.add(requireNonNull(tag, "tag"));
+            return this;
+        }
+
+        /**
+         * Only return articles published on or after the given date, e.g. "2017-01-01".
+         */
+        public Builder fromDate(String fromDate) {
+            mFromDate = fromDate;
+            return this;
+        }
+
+        /**
+         * Only return articles published on or before the given date, e.g. "2017-01-31".
+         */
+        public Builder toDate(String toDate) {
+            mToDate = toDate;
+            return this;
+        }
+
+        /**
+         * Order the results by one of the ORDER_BY constants, or null for the API default.
+         */
+        public Builder orderBy(String orderBy) {
+            if (orderBy != null && !orderBy.equals(ORDER_BY_NEWEST)
+                    && !orderBy.equals(ORDER_BY_OLDEST) && !orderBy.equals(ORDER_BY_RELEVANCE)) {
+                throw new IllegalArgumentException("Unknown order " + orderBy);
+            }
+            mOrderBy = orderBy;
+            return this;
+        }
+
+        /**
+         * Return the given page of the results, starting from 1.
+         */
+        public Builder page(int page) {
+            if (page < 1) {
+                throw new IllegalArgumentException("Page must be at least 1: " + page);
+            }
+            mPage = page;
+            return this;
+        }
+
+        /**
+         * Return the given number of results per page, from 1 to {@link #MAX_PAGE_SIZE}.
+         * Smaller pages are smaller responses.
+         */
+        public Builder pageSize(int pageSize) {
+            if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("Page size out of range: " + pageSize);
+            }
+            mPageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Add the given fields, e.g. "thumbnail", to each result. Each field makes the
+         * response larger, so only the ones shown should be asked for.
+         */
+        public Builder addShowFields(String... fields) {
+            addAll(mShowFields, Arrays.asList(fields), "field");
+            return this;
+        }
+
+        /**
+         * Add the tags of the given types, e.g. "contributor", to each result.
+         */
+        public Builder addShowTags(String... types) {
+            addAll(mShowTags, Arrays.asList(types), "tag type");
+            return this;
+        }
+
+        public GuardianQuery build() {
+            return new GuardianQuery(this);
+        }
+
+        private static void addAll(Set<String> set, Collection<String> values, String name) {
+            for (String value : values) {
+                set.add(requireNonNull(value, name));
+            }
+        }
+
+        private static String requireNonNull(String value, String name) {
+            if (value == null) {
+                throw new IllegalArgumentException(name + " must not be null");
+            }
+            return value;
+        }
+    }
+}
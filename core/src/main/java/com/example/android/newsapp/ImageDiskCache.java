@@ -0,0 +1,204 @@
+package com.example.android.newsapp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.logging.Logger;
+
+/**
+ * Cache of downloaded images in the app's cache directory, keyed by image URL and bounded by
+ * total size on disk.
+ * <p>
+ * Images are stored as the bytes received, one file per URL, and decoded by the caller. Every
+ * hit marks the file as recently used, so trimming deletes the least recently used images
+ * first.
+ */
+public class ImageDiskCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ImageDiskCache.class.getName());
+
+    /**
+     * Size limit used by the application wide instance. Guardian thumbnails are around 20 KB.
+     */
+    private static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+
+    /**
+     * Name of the sub directory of the cache directory holding the images.
+     */
+    private static final String DIRECTORY = "thumbnails";
+
+    /**
+     * Suffix of the files images are written to before they're complete
+     */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private static ImageDiskCache sInstance;
+
+    /**
+     * Return the application wide cache, creating it on first use.
+     *
+     * @param cacheDirectory is the app's cache directory, the images go in a sub directory.
+     */
+    public static synchronized ImageDiskCache getInstance(File cacheDirectory) {
+        if (sInstance == null) {
+            sInstance = new ImageDiskCache(new File(cacheDirectory, DIRECTORY),
+                    DEFAULT_MAX_BYTES);
+        }
+        return sInstance;
+    }
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    /**
+     * Total size of the cached images, or -1 until it is first needed
+     */
+    private long mSizeBytes = -1;
+
+    /**
+     * Constructs a new {@link ImageDiskCache}.
+     *
+     * @param directory holds the images, created if needed.
+     * @param maxBytes  is the total size of the images kept.
+     */
+    ImageDiskCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Return the file holding the image with the given URL, or null if it isn't cached.
+     */
+    public synchronized File get(String url) {
+        File file = fileFor(url);
+        if (!file.isFile()) {
+            return null;
+        }
+        // Keeps the image out of the next trim
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Store the image with the given URL, reading it from the given stream, and return the
+     * file it was stored in. The stream is not closed.
+     * <p>
+     * The image is written to a temporary file first, so a download that fails or is
+     * cancelled halfway never leaves a truncated image behind.
+     */
+    public File put(String url, InputStream in) throws IOException {
+        File file = fileFor(url);
+        // Unique per thread, in case two threads download the same image
+        File temporary = new File(mDirectory, file.getName() + "."
+                + Thread.currentThread().getId() + TEMPORARY_SUFFIX);
+        synchronized (this) {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                throw new IOException("Unable to create cache directory " + mDirectory);
+            }
+        }
+
+        // The download runs without holding the lock, so hits aren't blocked by it
+        OutputStream out = new FileOutputStream(temporary);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            out.close();
+            temporary.delete();
+            throw e;
+        }
+        out.close();
+
+        synchronized (this) {
+            long previousLength = file.length();
+            if (!temporary.renameTo(file)) {
+                temporary.delete();
+                throw new IOException("Unable to rename " + temporary);
+            }
+            if (mSizeBytes >= 0) {
+                mSizeBytes += file.length() - previousLength;
+            }
+            trim();
+        }
+        return file;
+    }
+
+    /**
+     * Return the total size of the cached images.
+     */
+    public synchronized long getSizeBytes() {
+        if (mSizeBytes < 0) {
+            mSizeBytes = 0;
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    mSizeBytes += file.length();
+                }
+            }
+        }
+        return mSizeBytes;
+    }
+
+    /**
+     * Delete the least recently used images until the cache fits in its size limit.
+     */
+    private void trim() {
+        if (getSizeBytes() <= mMaxBytes) {
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long difference = first.lastModified() - second.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+        for (int i = 0; i < files.length && mSizeBytes > mMaxBytes; i++) {
+            // Downloads in progress are left alone, they're not counted yet
+            if (files[i].getName().endsWith(TEMPORARY_SUFFIX)) {
+                continue;
+            }
+            long length = files[i].length();
+            if (files[i].delete()) {
+                mSizeBytes -= length;
+            } else {
+                LOGGER.warning("Unable to delete cached image " + files[i]);
+            }
+        }
+    }
+
+    private File fileFor(String url) {
+        return new File(mDirectory, sha1Hex(url));
+    }
+
+    private static String sha1Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(value.getBytes(Charset.forName("UTF-8")));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.android.newsapp;
+
+/**
+ * Helper methods for decoding images at the size they're shown at.
+ */
+public final class ImageSizing {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link ImageSizing}
+     * object.
+     */
+    private ImageSizing() {
+    }
+
+    /**
+     * Return the largest power of two to divide the image dimensions by when decoding it,
+     * keeping both dimensions at least as large as the requested ones. Decoders only subsample
+     * by powers of two, and a smaller image would look blurry once scaled up.
+     *
+     * @param width     is the width of the encoded image.
+     * @param height    is the height of the encoded image.
+     * @param reqWidth  is the width the image is shown at, or 0 for any.
+     * @param reqHeight is the height the image is shown at, or 0 for any.
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        // Never go below a single pixel, even when any size will do
+        reqWidth = Math.max(reqWidth, 1);
+        reqHeight = Math.max(reqHeight, 1);
+
+        int inSampleSize = 1;
+        while (width / (inSampleSize * 2) >= reqWidth
+                && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.android.newsapp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last complete result of each query, kept in memory so switching back to a query can show
+ * it right away while a refresh runs in the background (stale-while-revalidate).
+ * <p>
+ * Results older than the maximum staleness are never served, the list then waits for the
+ * network as if there were no result at all. Only a few queries are kept, the least recently
+ * used one is dropped first.
+ */
+public class LastResultCache {
+
+    /**
+     * Number of queries kept, one per date range
+     */
+    private static final int MAX_QUERIES = 4;
+
+    private static LastResultCache sInstance;
+
+    /**
+     * Return the application wide cache, creating it on first use.
+     *
+     * @param maxStalenessMillis is the age after which a result is no longer shown, only used
+     *                           when the cache is created.
+     */
+    public static synchronized LastResultCache getInstance(long maxStalenessMillis) {
+        if (sInstance == null) {
+            sInstance = new LastResultCache(MAX_QUERIES, maxStalenessMillis, Clock.SYSTEM);
+        }
+        return sInstance;
+    }
+
+    private final int mMaxQueries;
+    private final Clock mClock;
+    private final long mMaxStalenessMillis;
+
+    /**
+     * Results in access order, so the first entry is always the least recently used.
+     */
+    private final LinkedHashMap<String, Snapshot> mSnapshots =
+            new LinkedHashMap<String, Snapshot>(8, 0.75f, true);
+
+    /**
+     * Constructs a new {@link LastResultCache}.
+     *
+     * @param maxQueries         is the number of queries kept.
+     * @param maxStalenessMillis is the age after which a result is no longer shown.
+     * @param clock              is the source of the current time.
+     */
+    LastResultCache(int maxQueries, long maxStalenessMillis, Clock clock) {
+        mMaxQueries = maxQueries;
+        mMaxStalenessMillis = maxStalenessMillis;
+        mClock = clock;
+    }
+
+    /**
+     * Return the last result of the given query, or null if there is none or it is older than
+     * the maximum staleness.
+     */
+    public synchronized Snapshot get(String query) {
+        Snapshot snapshot = mSnapshots.get(query);
+        if (snapshot == null) {
+            return null;
+        }
+        if (getAgeMillis(snapshot) > mMaxStalenessMillis) {
+            mSnapshots.remove(query);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Store the complete result of the given query, received just now.
+     *
+     * @return the stored snapshot.
+     */
+    public synchronized Snapshot put(String query, List<News> news) {
+        Snapshot snapshot = new Snapshot(news, mClock.currentTimeMillis());
+        mSnapshots.put(query, snapshot);
+        Iterator<Map.Entry<String, Snapshot>> eldest = mSnapshots.entrySet().iterator();
+        while (mSnapshots.size() > mMaxQueries) {
+            eldest.next();
+            eldest.remove();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Return how long ago the given snapshot was received.
+     */
+    public long getAgeMillis(Snapshot snapshot) {
+        return Math.max(0, mClock.currentTimeMillis() - snapshot.mReceivedAtMillis);
+    }
+
+    /**
+     * A result and the time it was received.
+     */
+    public static final class Snapshot {
+        private final List<News> mNews;
+        private final long mReceivedAtMillis;
+
+        private Snapshot(List<News> news, long receivedAtMillis) {
+            mNews = news;
+            mReceivedAtMillis = receivedAtMillis;
+        }
+
+        public List<News> getNews() {
+            return mNews;
+        }
+
+        public long getReceivedAtMillis() {
+            return mReceivedAtMillis;
+        }
+    }
+}
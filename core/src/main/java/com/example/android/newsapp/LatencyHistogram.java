@@ -0,0 +1,156 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies, recorded in microseconds, in the style of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKET_COUNT} microseconds are counted exactly. Above that, each
+ * power of two is split into {@link #SUB_BUCKET_COUNT} / 2 linear buckets, so every value is
+ * counted with a relative error of at most 1/32, about 3%, up to {@link #MAX_VALUE_MICROS}.
+ * The whole histogram is under a thousand counters, and recording is a few shifts and one
+ * atomic increment, with no locks and no allocation, so it can stay on the hot path.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Exact buckets at the bottom of the range, and buckets per power of two above it
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /**
+     * Largest value counted in its own bucket, about an hour. Larger values are clamped.
+     */
+    public static final long MAX_VALUE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final String mName;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(bucketIndex(MAX_VALUE_MICROS) + 1);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mTotalMicros = new AtomicLong();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Record the time passed since the given {@link Metrics#start()} time, unless metrics were
+     * disabled when it was taken.
+     */
+    public void recordSince(long startNanos) {
+        if (startNanos != 0) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE_MICROS));
+        mCounts.incrementAndGet(bucketIndex(value));
+        mTotalCount.incrementAndGet();
+        mTotalMicros.addAndGet(value);
+        long max = mMaxMicros.get();
+        while (value > max && !mMaxMicros.compareAndSet(max, value)) {
+            max = mMaxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    public long getMaxMicros() {
+        return mMaxMicros.get();
+    }
+
+    public long getMeanMicros() {
+        long count = mTotalCount.get();
+        return count == 0 ? 0 : mTotalMicros.get() / count;
+    }
+
+    /**
+     * Return the value at the given percentile, between 0 and 100, as the highest value of the
+     * bucket it falls in, so it is never under-reported. Returns 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = mTotalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < mCounts.length(); i++) {
+            seen += mCounts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueInBucket(i), mMaxMicros.get());
+            }
+        }
+        return mMaxMicros.get();
+    }
+
+    /**
+     * Forget all recorded values. Values recorded at the same time may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < mCounts.length(); i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mTotalMicros.set(0);
+        mMaxMicros.set(0);
+    }
+
+    /**
+     * Return a one line summary, like "parse: n=12 mean=850us p50=812us p90=1.2ms ...".
+     */
+    @Override
+    public String toString() {
+        return mName + ": n=" + getCount()
+                + " mean=" + formatMicros(getMeanMicros())
+                + " p50=" + formatMicros(getValueAtPercentile(50))
+                + " p90=" + formatMicros(getValueAtPercentile(90))
+                + " p99=" + formatMicros(getValueAtPercentile(99))
+                + " max=" + formatMicros(getMaxMicros());
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        // Shift the value down until only its SUB_BUCKET_BITS top bits are left
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKET_HALF_COUNT;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT
+                + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "us";
+        } else if (micros < 1000000) {
+            return (micros / 100) / 10.0 + "ms";
+        }
+        return (micros / 100000) / 10.0 + "s";
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.android.newsapp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and {@link LatencyHistogram}s for each stage of getting news on screen.
+ * <p>
+ * Stages are timed like this:
+ * <pre>
+ *     long start = Metrics.start();
+ *     ...
+ *     Metrics.PARSE.recordSince(start);
+ * </pre>
+ * Metrics are disabled until {@link #setEnabled(boolean)} is called, which the app only does in
+ * debug builds. While disabled, {@link #start()} returns 0 without reading the clock and
+ * recording it is a no-op, so the instrumentation costs one volatile read per stage.
+ */
+public final class Metrics {
+
+    /**
+     * Time from starting a request to receiving the response headers
+     */
+    public static final LatencyHistogram HTTP = new LatencyHistogram("http");
+
+    /**
+     * Time spent waiting for the response body, excluding the parsing done in between
+     */
+    public static final LatencyHistogram READ = new LatencyHistogram("read");
+
+    /**
+     * Time spent parsing the response body, excluding the waits for it to arrive
+     */
+    public static final LatencyHistogram PARSE = new LatencyHistogram("parse");
+
+    /**
+     * Time from a loader's result being ready on its background thread to onLoadFinished
+     * having handled it on the main thread
+     */
+    public static final LatencyHistogram DELIVER = new LatencyHistogram("deliver");
+
+    /**
+     * Time from a new list being submitted to the adapter to its first row being bound
+     */
+    public static final LatencyHistogram FIRST_BIND = new LatencyHistogram("first_bind");
+
+    /**
+     * Time taken to bind a single row
+     */
+    public static final LatencyHistogram BIND = new LatencyHistogram("bind");
+
+    /**
+     * Time from asking for a thumbnail that isn't in memory to it being ready on the main
+     * thread, whether it came from disk or the network
+     */
+    public static final LatencyHistogram IMAGE = new LatencyHistogram("image");
+
+    /**
+     * Histograms of the stages, followed by those of the startup phases, see
+     * {@link StartupTimer}
+     */
+    private static final LatencyHistogram[] HISTOGRAMS = concat(
+            new LatencyHistogram[]{HTTP, READ, PARSE, DELIVER, FIRST_BIND, BIND, IMAGE},
+            StartupTimer.getHistograms());
+
+    private static final ConcurrentMap<String, AtomicLong> sCounters =
+            new ConcurrentHashMap<String, AtomicLong>();
+
+    private static volatile boolean sEnabled;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link Metrics} object.
+     */
+    private Metrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Return the start time of a stage, to pass to {@link LatencyHistogram#recordSince(long)},
+     * or 0 if metrics are disabled.
+     */
+    public static long start() {
+        // nanoTime could in theory be 0 itself, which only drops that one sample
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Add one to the counter with the given name, if metrics are enabled.
+     */
+    public static void increment(String counter) {
+        add(counter, 1);
+    }
+
+    /**
+     * Add the given amount to the counter with the given name, if metrics are enabled.
+     */
+    public static void add(String counter, long amount) {
+        if (!sEnabled) {
+            return;
+        }
+        AtomicLong value = sCounters.get(counter);
+        if (value == null) {
+            AtomicLong newValue = new AtomicLong();
+            value = sCounters.putIfAbsent(counter, newValue);
+            if (value == null) {
+                value = newValue;
+            }
+        }
+        value.addAndGet(amount);
+    }
+
+    /**
+     * Return the value of the counter with the given name, 0 if it was never incremented.
+     */
+    public static long getCount(String counter) {
+        AtomicLong value = sCounters.get(counter);
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * Return the histograms of all stages, in pipeline order, followed by those of the startup
+     * phases.
+     */
+    public static LatencyHistogram[] getHistograms() {
+        return HISTOGRAMS.clone();
+    }
+
+    private static LatencyHistogram[] concat(LatencyHistogram[] first,
+                                             LatencyHistogram[] second) {
+        LatencyHistogram[] histograms = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, histograms, first.length, second.length);
+        return histograms;
+    }
+
+    /**
+     * Reset all counters and histograms.
+     */
+    public static void reset() {
+        sCounters.clear();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Write a plain text report of all histograms and counters to the given writer.
+     */
+    public static void dump(Writer writer) throws IOException {
+        writer.write("Latencies\n");
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            writer.write("  " + histogram + "\n");
+        }
+        writer.write("Counters\n");
+        Map<String, AtomicLong> counters = new TreeMap<String, AtomicLong>(sCounters);
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            writer.write("  " + counter.getKey() + ": " + counter.getValue().get() + "\n");
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.android.newsapp;
+
+/**
+ * How much to request over the current network connection: pages, thumbnails and prefetching
+ * are cut down on metered networks, where the user pays for each byte, and left as they are
+ * on unmetered ones.
+ */
+public final class NetworkPolicy {
+
+    /**
+     * Full pages and thumbnails, the articles and thumbnails likely to be shown next loaded
+     * ahead of time, and long ranges filled in by a single background sync
+     */
+    public static final NetworkPolicy UNMETERED = new NetworkPolicy(20, 5, true, false, 40);
+
+    /**
+     * Half pages, so articles that aren't scrolled to aren't downloaded, small thumbnails,
+     * only the next thumbnail loaded ahead of time, article bodies only loaded when opened,
+     * and background syncs only filling in what a few requests can
+     */
+    public static final NetworkPolicy METERED = new NetworkPolicy(10, 1, false, true, 4);
+
+    /**
+     * Host serving The Guardian's images. Each crop of an image is there in several widths,
+     * the width being the name of the file, e.g. ".../0_0_3500_2100/500.jpg".
+     */
+    private static final String IMAGE_HOST = "https://media.guim.co.uk/";
+
+    /**
+     * Width of the smallest crop, still sharp enough for a thumbnail on most screens
+     */
+    private static final String SMALL_IMAGE_NAME = "140.jpg";
+
+    private final int mPageSize;
+    private final int mThumbnailPrefetchDistance;
+    private final boolean mBodyPrefetchEnabled;
+    private final boolean mSmallThumbnails;
+    private final int mBackfillRequests;
+
+    private NetworkPolicy(int pageSize, int thumbnailPrefetchDistance,
+                          boolean bodyPrefetchEnabled, boolean smallThumbnails,
+                          int backfillRequests) {
+        mPageSize = pageSize;
+        mThumbnailPrefetchDistance = thumbnailPrefetchDistance;
+        mBodyPrefetchEnabled = bodyPrefetchEnabled;
+        mSmallThumbnails = smallThumbnails;
+        mBackfillRequests = backfillRequests;
+    }
+
+    /**
+     * Return the policy of a metered or unmetered network.
+     */
+    public static NetworkPolicy forNetwork(boolean metered) {
+        return metered ? METERED : UNMETERED;
+    }
+
+    /**
+     * Return the number of articles requested per page.
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Return the number of rows past the one being shown whose thumbnails are loaded ahead.
+     */
+    public int getThumbnailPrefetchDistance() {
+        return mThumbnailPrefetchDistance;
+    }
+
+    /**
+     * Return whether the bodies of articles likely to be opened are loaded ahead.
+     */
+    public boolean isBodyPrefetchEnabled() {
+        return mBodyPrefetchEnabled;
+    }
+
+    /**
+     * Return the number of requests a background sync makes at most to fill in gaps of a
+     * range, see {@link DeltaSync#backfill}. The rest is filled in by later syncs.
+     */
+    public int getBackfillRequests() {
+        return mBackfillRequests;
+    }
+
+    /**
+     * Return the URL to load the given thumbnail from: the thumbnail itself, or its smallest
+     * width if thumbnails are cut down and the image host has one.
+     */
+    public String getThumbnailUrl(String url) {
+        // The master image is only there in its full width
+        if (!mSmallThumbnails || url == null || !url.startsWith(IMAGE_HOST)
+                || !url.endsWith(".jpg") || url.contains("/master/")) {
+            return url;
+        }
+        int nameStart = url.lastIndexOf('/') + 1;
+        for (int i = nameStart; i < url.length() - ".jpg".length(); i++) {
+            if (!Character.isDigit(url.charAt(i))) {
+                // Not one of the widths
+                return url;
+            }
+        }
+        return url.substring(0, nameStart) + SMALL_IMAGE_NAME;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.android.newsapp;
+
+/**
+ * Class to define the information related to a particular news article.
+ * <p>
+ * Large result sets hold thousands of articles, so only what is unique to an article is kept
+ * per article: section names and URL prefixes are shared through a {@link StringPool}, and a
+ * parsed publication date is only kept as a long.
+ */
+public class News {
+
+    /**
+     * Canonical section names, a few dozen values shared by every article
+     */
+    private static final StringPool SECTIONS = new StringPool(256);
+
+    /**
+     * Canonical URL prefixes, shared by the articles of a section published on the same day
+     * and by the thumbnails served from the same host
+     */
+    private static final StringPool URL_PREFIXES = new StringPool(4096);
+
+    private String mTitle;
+
+    /**
+     * Section name, interned so all articles of a section share one string
+     */
+    private String mSection;
+
+    /**
+     * Publication date as returned by the API, only kept when it couldn't be parsed. Other
+     * dates are formatted back from {@link #mPublishedAtMillis} when asked for.
+     */
+    private String mUnparsedDate;
+
+    /**
+     * Publication date in milliseconds since the epoch, parsed once when the article is created
+     */
+    private long mPublishedAtMillis;
+
+    /**
+     * Article URL up to its last '/', interned
+     */
+    private String mArticleUrlPrefix;
+
+    /**
+     * Thumbnail URL up to the end of its host, interned, or null if the article has no
+     * thumbnail
+     */
+    private String mThumbnailUrlPrefix;
+
+    /**
+     * Rest of the article URL followed by the rest of the thumbnail URL, in a single string
+     * to save the overhead of a second one
+     */
+    private String mUrlPaths;
+
+    /**
+     * Index of the thumbnail URL in {@link #mUrlPaths}
+     */
+    private int mThumbnailPathStart;
+
+    /**
+     * Publication date as shown in the list, formatted on first use
+     */
+    private String mFormattedDate;
+
+    /**
+     * Constructs a new {@link News} object.
+     *
+     * @param title           is the News article's title.
+     * @param section         is the category section for the news article.
+     * @param publicationDate is the date the article was published on.
+     * @param articleUrl      is the website URL for the news article.
+     */
+    public News(String title, String section, String publicationDate, String articleUrl) {
+        this(title, section, publicationDate, NewsDates.parseIsoDate(publicationDate),
+                articleUrl);
+    }
+
+    /**
+     * Constructs a new {@link News} object whose publication date was already parsed.
+     *
+     * @param title             is the News article's title.
+     * @param section           is the category section for the news article.
+     * @param publicationDate   is the date the article was published on.
+     * @param publishedAtMillis is the same date in milliseconds since the epoch, or
+     *                          {@link NewsDates#UNKNOWN_DATE}.
+     * @param articleUrl        is the website URL for the news article.
+     */
+    public News(String title, String section, String publicationDate, long publishedAtMillis,
+                String articleUrl) {
+        this(title, section, publicationDate, publishedAtMillis, articleUrl, null);
+    }
+
+    /**
+     * Constructs a new {@link News} object with a thumbnail.
+     *
+     * @param title             is the News article's title.
+     * @param section           is the category section for the news article.
+     * @param publicationDate   is the date the article was published on. It may be null if
+     *                          the date in milliseconds is known.
+     * @param publishedAtMillis is the same date in milliseconds since the epoch, or
+     *                          {@link NewsDates#UNKNOWN_DATE}.
+     * @param articleUrl        is the website URL for the news article.
+     * @param thumbnailUrl      is the URL of the article's thumbnail image, or null.
+     */
+    public News(String title, String section, String publicationDate, long publishedAtMillis,
+                String articleUrl, String thumbnailUrl) {
+        mTitle = title;
+        mSection = SECTIONS.intern(section);
+        mPublishedAtMillis = publishedAtMillis;
+        // Dates are parsed strictly, so a parsed date formats back to the same string
+        if (publishedAtMillis == NewsDates.UNKNOWN_DATE) {
+            mUnparsedDate = publicationDate;
+        }
+
+        int articlePathStart = articleUrl.lastIndexOf('/') + 1;
+        mArticleUrlPrefix = URL_PREFIXES.intern(articleUrl.substring(0, articlePathStart));
+        mThumbnailPathStart = articleUrl.length() - articlePathStart;
+        if (thumbnailUrl == null) {
+            // Copied, as older platform versions share a substring's characters with the
+            // whole URL
+            mUrlPaths = new String(articleUrl.substring(articlePathStart));
+        } else {
+            // Thumbnails are in a directory of their own, only the host is shared
+            int hostEnd = thumbnailUrl.indexOf('/', thumbnailUrl.indexOf("//") + 2);
+            int thumbnailPathStart = hostEnd != -1 ? hostEnd + 1 : 0;
+            mThumbnailUrlPrefix =
+                    URL_PREFIXES.intern(thumbnailUrl.substring(0, thumbnailPathStart));
+            mUrlPaths = new StringBuilder(mThumbnailPathStart
+                    + thumbnailUrl.length() - thumbnailPathStart)
+                    .append(articleUrl, articlePathStart, articleUrl.length())
+                    .append(thumbnailUrl, thumbnailPathStart, thumbnailUrl.length())
+                    .toString();
+        }
+    }
+
+    public String getTitle() {
+        return mTitle;
+    }
+
+    public String getSection() {
+        return mSection;
+    }
+
+    /**
+     * Return the publication date in ISO 8601 format, as returned by the API. Unless it
+     * couldn't be parsed, it is formatted on each call, callers which only compare or sort
+     * dates should use {@link #getPublishedAtMillis()} instead.
+     */
+    public String getPublicationDate() {
+        if (mPublishedAtMillis == NewsDates.UNKNOWN_DATE) {
+            return mUnparsedDate;
+        }
+        return NewsDates.formatIsoDate(mPublishedAtMillis);
+    }
+
+    public long getPublishedAtMillis() {
+        return mPublishedAtMillis;
+    }
+
+    /**
+     * Return the publication date in the format shown in the list. It is only formatted the
+     * first time, so binding the same article again doesn't allocate.
+     */
+    public String getFormattedDate() {
+        if (mFormattedDate == null) {
+            mFormattedDate = NewsDates.formatDisplayDate(mPublishedAtMillis);
+        }
+        return mFormattedDate;
+    }
+
+    /**
+     * Return the website URL of the article. It is put back together on each call, see
+     * {@link #articleUrlEquals(News)} and {@link #hashArticleUrl()} for lookups.
+     */
+    public String getArticleUrl() {
+        if (mThumbnailUrlPrefix == null) {
+            return mArticleUrlPrefix.concat(mUrlPaths);
+        }
+        return new StringBuilder(mArticleUrlPrefix.length() + mThumbnailPathStart)
+                .append(mArticleUrlPrefix)
+                .append(mUrlPaths, 0, mThumbnailPathStart)
+                .toString();
+    }
+
+    /**
+     * Return the hash code of the article's website URL, the same as the one of
+     * {@link #getArticleUrl()}, without putting the URL back together.
+     */
+    public int hashArticleUrl() {
+        // The prefix caches its own hash code, only the path is hashed on each call
+        int hash = mArticleUrlPrefix.hashCode();
+        for (int i = 0; i < mThumbnailPathStart; i++) {
+            hash = 31 * hash + mUrlPaths.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Return true if the given article has the same website URL as this one, without putting
+     * either URL back together.
+     */
+    public boolean articleUrlEquals(News other) {
+        return mThumbnailPathStart == other.mThumbnailPathStart
+                && equalPrefixes(mArticleUrlPrefix, other.mArticleUrlPrefix)
+                && mUrlPaths.regionMatches(0, other.mUrlPaths, 0, mThumbnailPathStart);
+    }
+
+    /**
+     * Return true if the given URL is the website URL of this article, without putting it
+     * back together.
+     */
+    public boolean articleUrlEquals(String url) {
+        int prefixLength = mArticleUrlPrefix.length();
+        return url.length() == prefixLength + mThumbnailPathStart
+                && url.startsWith(mArticleUrlPrefix)
+                && url.regionMatches(prefixLength, mUrlPaths, 0, mThumbnailPathStart);
+    }
+
+    /**
+     * Return true if the given article has the same thumbnail URL as this one, or neither has
+     * a thumbnail, without putting either URL back together.
+     */
+    public boolean thumbnailUrlEquals(News other) {
+        if (mThumbnailUrlPrefix == null || other.mThumbnailUrlPrefix == null) {
+            return mThumbnailUrlPrefix == other.mThumbnailUrlPrefix;
+        }
+        int length = mUrlPaths.length() - mThumbnailPathStart;
+        return length == other.mUrlPaths.length() - other.mThumbnailPathStart
+                && equalPrefixes(mThumbnailUrlPrefix, other.mThumbnailUrlPrefix)
+                && mUrlPaths.regionMatches(mThumbnailPathStart, other.mUrlPaths,
+                other.mThumbnailPathStart, length);
+    }
+
+    /**
+     * Return the Content API ID of the article, which is the path of its web URL, e.g.
+     * "world/2017/jan/01/title", or null if the URL has no path.
+     */
+    public String getArticleId() {
+        String url = getArticleUrl();
+        int hostStart = url.indexOf("://");
+        int pathStart = url.indexOf('/', hostStart < 0 ? 0 : hostStart + 3);
+        return pathStart < 0 || pathStart == url.length() - 1 ? null
+                : url.substring(pathStart + 1);
+    }
+
+    /**
+     * Return the URL of the article's thumbnail image, or null if it has none. It is put back
+     * together on each call, see {@link #thumbnailUrlEquals} for comparisons.
+     */
+    public String getThumbnailUrl() {
+        if (mThumbnailUrlPrefix == null) {
+            return null;
+        }
+        return new StringBuilder(mThumbnailUrlPrefix.length() + mUrlPaths.length()
+                - mThumbnailPathStart)
+                .append(mThumbnailUrlPrefix)
+                .append(mUrlPaths, mThumbnailPathStart, mUrlPaths.length())
+                .toString();
+    }
+
+
+    /**
+     * Return true if the given URL prefixes are equal. Interned prefixes are the same string,
+     * unless the pool was full when one of them was created.
+     */
+    private static boolean equalPrefixes(String first, String second) {
+        return first == second || first.equals(second);
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.android.newsapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Two tier cache of parsed news responses, keyed by request URL.
+ * <p>
+ * The first tier is an in-memory LRU of {@link News} lists bounded by the total number of
+ * articles it holds. The second tier stores every response as a small file in the app's cache
+ * directory, bounded by total size on disk. Entries in both tiers expire after a fixed time to
+ * live, after which the request goes back to the network. Expired entries are kept around along
+ * with their ETag and Last-Modified validators, so the request can be a conditional one.
+ */
+public class NewsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(NewsCache.class.getName());
+
+    /**
+     * Default limits used by the application wide instance.
+     */
+    private static final int DEFAULT_MAX_MEMORY_ARTICLES = 1000;
+    private static final long DEFAULT_MAX_DISK_BYTES = 2 * 1024 * 1024;
+    private static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Name of the sub directory of the cache directory holding the disk tier.
+     */
+    private static final String DISK_CACHE_DIRECTORY = "news-responses";
+
+    /**
+     * Marker and version at the start of every disk entry, so stale formats are ignored.
+     */
+    private static final int DISK_ENTRY_MAGIC = 0x4e455753;
+    private static final int DISK_ENTRY_VERSION = 3;
+
+    private static NewsCache sInstance;
+
+    /**
+     * Return the application wide cache, creating it on first use.
+     *
+     * @param cacheDirectory is the app's cache directory, the disk tier uses a sub directory.
+     */
+    public static synchronized NewsCache getInstance(File cacheDirectory) {
+        if (sInstance == null) {
+            File directory = new File(cacheDirectory, DISK_CACHE_DIRECTORY);
+            sInstance = new NewsCache(directory, DEFAULT_MAX_MEMORY_ARTICLES,
+                    DEFAULT_MAX_DISK_BYTES, DEFAULT_TIME_TO_LIVE_MILLIS, Clock.SYSTEM);
+        }
+        return sInstance;
+    }
+
+    private final File mDirectory;
+    private final int mMaxMemoryArticles;
+    private final long mMaxDiskBytes;
+    private final long mTimeToLiveMillis;
+    private final Clock mClock;
+
+    /**
+     * Memory tier in access order, so the first entry is always the least recently used.
+     */
+    private final LinkedHashMap<String, Entry> mMemory =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private int mMemoryArticles;
+
+    /**
+     * Lock guarding reads and writes of the disk tier.
+     */
+    private final Object mDiskLock = new Object();
+
+    private final AtomicLong mMemoryHits = new AtomicLong();
+    private final AtomicLong mDiskHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mRevalidations = new AtomicLong();
+
+    /**
+     * Constructs a new {@link NewsCache}.
+     *
+     * @param directory         holds the disk tier, created if needed.
+     * @param maxMemoryArticles is the total number of articles kept in memory.
+     * @param maxDiskBytes      is the total size of the disk tier.
+     * @param timeToLiveMillis  is how long an entry is served after it was stored.
+     * @param clock             is the source of the current time.
+     */
+    NewsCache(File directory, int maxMemoryArticles, long maxDiskBytes, long timeToLiveMillis,
+              Clock clock) {
+        mDirectory = directory;
+        mMaxMemoryArticles = maxMemoryArticles;
+        mMaxDiskBytes = maxDiskBytes;
+        mTimeToLiveMillis = timeToLiveMillis;
+        mClock = clock;
+    }
+
+    /**
+     * Return the cached list of {@link News} for the given URL, or null if neither tier has a
+     * fresh entry for it.
+     */
+    public List<News> get(String url) {
+        long now = mClock.currentTimeMillis();
+
+        Entry entry = getFromMemory(url);
+        if (entry != null && !isExpired(entry, now)) {
+            mMemoryHits.incrementAndGet();
+            return entry.mNews;
+        }
+
+        if (entry == null) {
+            entry = readFromDisk(url);
+            if (entry != null && !isExpired(entry, now)) {
+                mDiskHits.incrementAndGet();
+                putInMemory(url, entry);
+                return entry.mNews;
+            }
+        }
+
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Return the entry for the given URL whether it expired or not, or null if neither tier
+     * has one. Use the entry's validators to revalidate it with the server.
+     */
+    public Entry peek(String url) {
+        Entry entry = getFromMemory(url);
+        if (entry == null) {
+            entry = readFromDisk(url);
+            if (entry != null) {
+                putInMemory(url, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Store the list of {@link News} fetched from the given URL in both tiers.
+     */
+    public void put(String url, List<News> news) {
+        put(url, news, null, null);
+    }
+
+    /**
+     * Store the list of {@link News} fetched from the given URL in both tiers, along with the
+     * validators the server sent for it.
+     *
+     * @param eTag         is the value of the response's ETag header, or null.
+     * @param lastModified is the value of the response's Last-Modified header, or null.
+     */
+    public void put(String url, List<News> news, String eTag, String lastModified) {
+        store(url, new Entry(Collections.unmodifiableList(new ArrayList<News>(news)),
+                eTag, lastModified, mClock.currentTimeMillis()));
+    }
+
+    /**
+     * Record that the server confirmed the given entry is still current, which restarts its
+     * time to live without having to parse the response again.
+     */
+    public void revalidated(String url, Entry entry, String eTag, String lastModified) {
+        mRevalidations.incrementAndGet();
+        store(url, new Entry(entry.mNews, eTag, lastModified, mClock.currentTimeMillis()));
+    }
+
+    private void store(String url, Entry entry) {
+        putInMemory(url, entry);
+        writeToDisk(url, entry);
+    }
+
+    /**
+     * Drop every entry from both tiers. The hit and miss counters are kept.
+     */
+    public void clear() {
+        synchronized (this) {
+            mMemory.clear();
+            mMemoryArticles = 0;
+        }
+        synchronized (mDiskLock) {
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    public long getMemoryHits() {
+        return mMemoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return mDiskHits.get();
+    }
+
+    /**
+     * Return the number of lookups that found nothing in either tier, i.e. the number of
+     * requests that had to go to the network.
+     */
+    public long getMisses() {
+        return mMisses.get();
+    }
+
+    /**
+     * Return the number of expired entries the server confirmed as still current.
+     */
+    public long getRevalidations() {
+        return mRevalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "NewsCache{memoryHits=" + mMemoryHits.get()
+                + ", diskHits=" + mDiskHits.get()
+                + ", misses=" + mMisses.get()
+                + ", revalidations=" + mRevalidations.get() + "}";
+    }
+
+    private synchronized Entry getFromMemory(String url) {
+        return mMemory.get(url);
+    }
+
+    private synchronized void putInMemory(String url, Entry entry) {
+        Entry previous = mMemory.put(url, entry);
+        if (previous != null) {
+            mMemoryArticles -= previous.mNews.size();
+        }
+        mMemoryArticles += entry.mNews.size();
+
+        // Evict least recently used entries until the articles fit, but always keep the
+        // entry that was just added
+        Iterator<Map.Entry<String, Entry>> iterator = mMemory.entrySet().iterator();
+        while (mMemoryArticles > mMaxMemoryArticles && mMemory.size() > 1) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            mMemoryArticles -= eldest.mNews.size();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.mStoredAtMillis >= mTimeToLiveMillis;
+    }
+
+    private Entry readFromDisk(String url) {
+        synchronized (mDiskLock) {
+            File file = fileFor(url);
+            if (!file.exists()) {
+                return null;
+            }
+
+            Entry entry = null;
+            try {
+                entry = readEntry(file, url);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Problem reading cached news for " + url, e);
+            }
+
+            if (entry == null) {
+                file.delete();
+            }
+            return entry;
+        }
+    }
+
+    private void writeToDisk(String url, Entry entry) {
+        synchronized (mDiskLock) {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                LOGGER.warning("Unable to create cache directory " + mDirectory);
+                return;
+            }
+
+            // Write to a temporary file first so readers never see a half written entry
+            File file = fileFor(url);
+            File temporary = new File(mDirectory, file.getName() + ".tmp");
+            try {
+                writeEntry(temporary, url, entry);
+                if (!temporary.renameTo(file)) {
+                    throw new IOException("Unable to rename " + temporary);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Problem caching news for " + url, e);
+                temporary.delete();
+                return;
+            }
+
+            trimDisk();
+        }
+    }
+
+    /**
+     * Delete the oldest disk entries until the tier fits in its size limit.
+     */
+    private void trimDisk() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= mMaxDiskBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long difference = first.lastModified() - second.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+        for (int i = 0; i < files.length && totalBytes > mMaxDiskBytes; i++) {
+            totalBytes -= files[i].length();
+            files[i].delete();
+        }
+    }
+
+    private File fileFor(String url) {
+        return new File(mDirectory, sha1Hex(url));
+    }
+
+    /**
+     * Read a disk entry, returning null if it was written in another format or for another URL.
+     * The header is followed by the list of news in the {@link NewsCodec} format.
+     */
+    private static Entry readEntry(File file, String url) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != DISK_ENTRY_MAGIC || in.readInt() != DISK_ENTRY_VERSION
+                    || !url.equals(in.readUTF())) {
+                return null;
+            }
+            String eTag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            long storedAtMillis = in.readLong();
+            List<News> news = new NewsCodec.Reader(in).readAll();
+            return new Entry(Collections.unmodifiableList(news), eTag, lastModified,
+                    storedAtMillis);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeEntry(File file, String url, Entry entry) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(DISK_ENTRY_MAGIC);
+            out.writeInt(DISK_ENTRY_VERSION);
+            out.writeUTF(url);
+            out.writeUTF(nullToEmpty(entry.mETag));
+            out.writeUTF(nullToEmpty(entry.mLastModified));
+            out.writeLong(entry.mStoredAtMillis);
+            NewsCodec.Writer writer = new NewsCodec.Writer(out);
+            for (News news : entry.mNews) {
+                writer.write(news);
+            }
+            writer.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String sha1Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(value.getBytes(Charset.forName("UTF-8")));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * A cached list of {@link News}, the validators it was served with and the time it was
+     * stored at.
+     */
+    public static class Entry {
+
+        private final List<News> mNews;
+
+        private final String mETag;
+
+        private final String mLastModified;
+
+        private final long mStoredAtMillis;
+
+        Entry(List<News> news, String eTag, String lastModified, long storedAtMillis) {
+            mNews = news;
+            mETag = eTag;
+            mLastModified = lastModified;
+            mStoredAtMillis = storedAtMillis;
+        }
+
+        public List<News> getNews() {
+            return mNews;
+        }
+
+        public String getETag() {
+            return mETag;
+        }
+
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        public long getStoredAtMillis() {
+            return mStoredAtMillis;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.android.newsapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for lists of {@link News}.
+ * <p>
+ * A stream starts with a magic number and a format version, followed by one record per
+ * article and an end marker, so lists can be written and read one article at a time. Inside a
+ * record:
+ * <ul>
+ * <li>the publication date is stored as the difference in seconds to the previous article's
+ * date, as a zigzag varint. Dates that {@link NewsDates} can't parse are stored as plain
+ * strings instead;</li>
+ * <li>the section name and the article URL up to its last '/' are dictionary encoded, so
+ * values repeated across articles are only written once;</li>
+ * <li>all other strings are written as a varint length followed by UTF-8 bytes. The thumbnail
+ * URL is only written when the record tag says there is one.</li>
+ * </ul>
+ * Version 1 streams, written before articles had thumbnails, can still be read.
+ */
+public final class NewsCodec {
+
+    /**
+     * First bytes of every stream, "NWSB"
+     */
+    private static final int MAGIC = 0x4e575342;
+
+    /**
+     * Current version of the format. Readers reject streams of later versions.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Version without thumbnail URLs, which is otherwise the same as the current one
+     */
+    private static final int VERSION_WITHOUT_THUMBNAIL = 1;
+
+    /**
+     * Record tags
+     */
+    private static final int TAG_END = 0;
+    private static final int TAG_RECORD = 1;
+    private static final int TAG_RECORD_WITH_TEXT_DATE = 2;
+
+    /**
+     * Added to a record tag when the record ends with a thumbnail URL, so articles without one
+     * don't take any extra space
+     */
+    private static final int FLAG_THUMBNAIL = 4;
+
+    /**
+     * Number of distinct values kept in a stream's dictionary. Once it is full, new values are
+     * written as plain strings.
+     */
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsCodec} object.
+     */
+    private NewsCodec() {
+    }
+
+    /**
+     * Return the given list of {@link News} in the binary format.
+     */
+    public static byte[] encode(List<News> news) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            Writer writer = new Writer(bytes);
+            for (News article : news) {
+                writer.write(article);
+            }
+            writer.close();
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Return the list of {@link News} stored in the given bytes.
+     *
+     * @throws IOException if the bytes are not in a supported version of the format.
+     */
+    public static List<News> decode(byte[] bytes) throws IOException {
+        return new Reader(new ByteArrayInputStream(bytes)).readAll();
+    }
+
+    /**
+     * Writes articles to an {@link OutputStream} one at a time.
+     */
+    public static class Writer implements Closeable {
+
+        private final OutputStream mOut;
+        private final Map<String, Integer> mDictionary = new HashMap<String, Integer>();
+        private long mPreviousSeconds;
+
+        /**
+         * Constructs a new {@link Writer} and writes the stream header. The output stream
+         * should be buffered.
+         */
+        public Writer(OutputStream out) throws IOException {
+            mOut = out;
+            writeInt(MAGIC);
+            writeVarint(VERSION);
+        }
+
+        /**
+         * Append an article to the stream.
+         */
+        public void write(News news) throws IOException {
+            // Parsing is strict, so any date it accepts is formatted back to the same string,
+            // which only has whole seconds
+            long millis = news.getPublishedAtMillis();
+
+            String thumbnailUrl = news.getThumbnailUrl();
+            int flags = thumbnailUrl != null ? FLAG_THUMBNAIL : 0;
+            if (millis != NewsDates.UNKNOWN_DATE && millis % 1000 == 0) {
+                long seconds = millis / 1000;
+                mOut.write(TAG_RECORD | flags);
+                writeVarint(zigzag(seconds - mPreviousSeconds));
+                mPreviousSeconds = seconds;
+            } else {
+                mOut.write(TAG_RECORD_WITH_TEXT_DATE | flags);
+                writeString(news.getPublicationDate());
+            }
+
+            String url = news.getArticleUrl();
+            int prefixEnd = url.lastIndexOf('/') + 1;
+            writeString(news.getTitle());
+            writeDictionaryString(news.getSection());
+            writeDictionaryString(url.substring(0, prefixEnd));
+            writeString(url.substring(prefixEnd));
+            if (thumbnailUrl != null) {
+                writeString(thumbnailUrl);
+            }
+        }
+
+        /**
+         * Write the end marker and close the underlying stream.
+         */
+        @Override
+        public void close() throws IOException {
+            mOut.write(TAG_END);
+            mOut.close();
+        }
+
+        /**
+         * Write a reference to a value already in the dictionary (index + 1), or 0 followed by
+         * the value itself.
+         */
+        private void writeDictionaryString(String value) throws IOException {
+            Integer index = mDictionary.get(value);
+            if (index != null) {
+                writeVarint(index + 1);
+                return;
+            }
+            writeVarint(0);
+            writeString(value);
+            if (mDictionary.size() < MAX_DICTIONARY_SIZE) {
+                mDictionary.put(value, mDictionary.size());
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            mOut.write(bytes);
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7fL) != 0) {
+                mOut.write((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            mOut.write((int) value);
+        }
+
+        private void writeInt(int value) throws IOException {
+            mOut.write(value >>> 24);
+            mOut.write(value >>> 16);
+            mOut.write(value >>> 8);
+            mOut.write(value);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * Reads articles from an {@link InputStream} one at a time.
+     */
+    public static class Reader implements Closeable {
+
+        private final InputStream mIn;
+        private final List<String> mDictionary = new ArrayList<String>();
+        private long mPreviousSeconds;
+        private byte[] mBuffer = new byte[128];
+
+        /**
+         * Constructs a new {@link Reader} and checks the stream header. The input stream
+         * should be buffered.
+         *
+         * @throws IOException if the stream is not in a supported version of the format.
+         */
+        public Reader(InputStream in) throws IOException {
+            mIn = in;
+            if (readInt() != MAGIC) {
+                throw new IOException("Not a news stream");
+            }
+            long version = readVarint();
+            if (version != VERSION && version != VERSION_WITHOUT_THUMBNAIL) {
+                throw new IOException("Unsupported news stream version " + version);
+            }
+        }
+
+        /**
+         * Return the next article in the stream, or null at the end of the stream.
+         */
+        public News read() throws IOException {
+            int tag = readByte();
+            boolean hasThumbnail = (tag & FLAG_THUMBNAIL) != 0;
+            tag &= ~FLAG_THUMBNAIL;
+            String date;
+            long millis;
+            switch (tag) {
+                case TAG_END:
+                    return null;
+                case TAG_RECORD:
+                    mPreviousSeconds += unzigzag(readVarint());
+                    millis = mPreviousSeconds * 1000;
+                    // Formatted by News when asked for
+                    date = null;
+                    break;
+                case TAG_RECORD_WITH_TEXT_DATE:
+                    date = readString();
+                    millis = NewsDates.UNKNOWN_DATE;
+                    break;
+                default:
+                    throw new IOException("Unknown record tag " + tag);
+            }
+
+            String title = readString();
+            String section = readDictionaryString();
+            String url = readDictionaryString() + readString();
+            String thumbnailUrl = hasThumbnail ? readString() : null;
+            return new News(title, section, date, millis, url, thumbnailUrl);
+        }
+
+        /**
+         * Read all remaining articles and close the stream.
+         */
+        public List<News> readAll() throws IOException {
+            List<News> news = new ArrayList<News>();
+            try {
+                News article = read();
+                while (article != null) {
+                    news.add(article);
+                    article = read();
+                }
+            } finally {
+                close();
+            }
+            return news;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mIn.close();
+        }
+
+        private String readDictionaryString() throws IOException {
+            long reference = readVarint();
+            if (reference == 0) {
+                String value = readString();
+                if (mDictionary.size() < MAX_DICTIONARY_SIZE) {
+                    mDictionary.add(value);
+                }
+                return value;
+            }
+            if (reference > mDictionary.size()) {
+                throw new IOException("Invalid dictionary reference " + reference);
+            }
+            return mDictionary.get((int) reference - 1);
+        }
+
+        private String readString() throws IOException {
+            long length = readVarint();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid string length " + length);
+            }
+            if (length > mBuffer.length) {
+                mBuffer = new byte[(int) length];
+            }
+            int offset = 0;
+            while (offset < length) {
+                int count = mIn.read(mBuffer, offset, (int) length - offset);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                offset += count;
+            }
+            return new String(mBuffer, 0, (int) length, UTF_8);
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readInt() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        private int readByte() throws IOException {
+            int b = mIn.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.android.newsapp;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper methods for the ISO 8601 publication dates used by The Guardian's API,
+ * e.g. "2017-01-01T06:00:00Z", and for showing them in the list.
+ * <p>
+ * The API always uses the same fixed width format in UTC, so it is parsed and formatted by hand
+ * instead of with a {@link SimpleDateFormat}, which is slow and allocates on every call.
+ */
+public final class NewsDates {
+
+    /**
+     * Value returned for dates that can't be parsed.
+     */
+    public static final long UNKNOWN_DATE = -1;
+
+    /**
+     * Date ranges the news can be filtered by
+     */
+    public static final int RANGE_TODAY = 0;
+    public static final int RANGE_WEEK = 1;
+    public static final int RANGE_MONTH = 2;
+    public static final int RANGE_YEAR = 3;
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    /**
+     * Length of a date in the format used by the API's from-date parameter
+     */
+    private static final int QUERY_DATE_LENGTH = "yyyy-MM-dd".length();
+
+    /**
+     * Length of a date in the API's format
+     */
+    private static final int ISO_DATE_LENGTH = "yyyy-MM-ddTHH:mm:ssZ".length();
+
+    /**
+     * {@link SimpleDateFormat} is not thread safe, so every thread gets its own instance of the
+     * format used for display.
+     */
+    private static final ThreadLocal<DateFormat> DISPLAY_FORMAT = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat("LLL. dd, yyyy");
+        }
+    };
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsDates} object.
+     */
+    private NewsDates() {
+    }
+
+    /**
+     * Return the given ISO 8601 date in milliseconds since the epoch, or {@link #UNKNOWN_DATE}
+     * if it isn't a valid date in the API's format.
+     */
+    public static long parseIsoDate(String date) {
+        if (date == null || date.length() != ISO_DATE_LENGTH
+                || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T'
+                || date.charAt(13) != ':' || date.charAt(16) != ':' || date.charAt(19) != 'Z') {
+            return UNKNOWN_DATE;
+        }
+
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 2);
+        int day = parseDigits(date, 8, 2);
+        int hour = parseDigits(date, 11, 2);
+        int minute = parseDigits(date, 14, 2);
+        int second = parseDigits(date, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59) {
+            return UNKNOWN_DATE;
+        }
+
+        long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute) * 60 + second) * 1000;
+    }
+
+    /**
+     * Return the given time in milliseconds since the epoch as an ISO 8601 date. Milliseconds
+     * are dropped.
+     */
+    public static String formatIsoDate(long millis) {
+        long days = millis / MILLIS_PER_DAY;
+        long millisOfDay = millis % MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
+        }
+        int secondOfDay = (int) (millisOfDay / 1000);
+
+        // Convert days since the epoch to a civil date, see daysFromCivil for the reverse
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] chars = new char[ISO_DATE_LENGTH];
+        writeDigits(chars, 0, 4, year);
+        chars[4] = '-';
+        writeDigits(chars, 5, 2, month);
+        chars[7] = '-';
+        writeDigits(chars, 8, 2, day);
+        chars[10] = 'T';
+        writeDigits(chars, 11, 2, secondOfDay / 3600);
+        chars[13] = ':';
+        writeDigits(chars, 14, 2, secondOfDay / 60 % 60);
+        chars[16] = ':';
+        writeDigits(chars, 17, 2, secondOfDay % 60);
+        chars[19] = 'Z';
+        return new String(chars);
+    }
+
+    /**
+     * Return the given time in milliseconds since the epoch in the format shown in the list,
+     * e.g. "Mar. 21, 2016", in the device's time zone. Returns an empty string for
+     * {@link #UNKNOWN_DATE}.
+     */
+    public static String formatDisplayDate(long millis) {
+        if (millis == UNKNOWN_DATE) {
+            return "";
+        }
+        return DISPLAY_FORMAT.get().format(new Date(millis));
+    }
+
+    /**
+     * Return the start of the given date range in milliseconds since the epoch.
+     *
+     * @param range    is one of the RANGE_ constants.
+     * @param calendar is set to the current time in the device's time zone. It is modified.
+     */
+    public static long rangeStartMillis(int range, Calendar calendar) {
+        // clear time of day
+        calendar.set(Calendar.HOUR_OF_DAY, 0); // ! clear would not reset the hour of day !
+        calendar.clear(Calendar.MINUTE);
+        calendar.clear(Calendar.SECOND);
+        calendar.clear(Calendar.MILLISECOND);
+
+        switch (range) {
+            case RANGE_TODAY:
+                // subtraction done to avoid issue if there is no world news for today
+                return calendar.getTimeInMillis() - TimeUnit.DAYS.toMillis(1);
+            case RANGE_WEEK:
+                // get start of this week
+                calendar.set(Calendar.DAY_OF_WEEK, calendar.getFirstDayOfWeek());
+                return calendar.getTimeInMillis();
+            case RANGE_MONTH:
+                // get start of the month
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                return calendar.getTimeInMillis();
+            case RANGE_YEAR:
+                // get start of the year
+                calendar.set(Calendar.DAY_OF_YEAR, 1);
+                return calendar.getTimeInMillis();
+            default:
+                throw new IllegalArgumentException("Unknown date range " + range);
+        }
+    }
+
+    /**
+     * Return the date of the given time in the given time zone, in the format used by the
+     * API's from-date parameter, e.g. "2017-01-01".
+     */
+    public static String formatQueryDate(long millis, TimeZone timeZone) {
+        return formatIsoDate(millis + timeZone.getOffset(millis)).substring(0, QUERY_DATE_LENGTH);
+    }
+
+    /**
+     * Return the number of days between 1970-01-01 and the given date in the proleptic
+     * Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        // Count years from March, so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Return the decimal number in the given part of the string, or -1 if it contains anything
+     * other than digits.
+     */
+    private static int parseDigits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static void writeDigits(char[] chars, int start, int count, int value) {
+        for (int i = start + count - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
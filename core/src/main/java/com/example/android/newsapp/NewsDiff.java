@@ -0,0 +1,234 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The operations that turn one list of {@link News} into another, matching articles by URL.
+ * <p>
+ * Articles only in the old list are removed and articles only in the new list are inserted.
+ * Of the articles in both lists, the longest run that is already in the right order stays in
+ * place and the others are moved, so the number of moves is as small as possible. Articles
+ * whose title, section or date changed are reported as changed.
+ * <p>
+ * Calculating a diff takes O(n log n) time plus O(n) per move, so it should be done off the
+ * main thread for long lists. The operations are reported in an order that can be applied one
+ * after the other, as RecyclerView's notify methods expect.
+ */
+public final class NewsDiff {
+
+    /**
+     * Receives the operations of a diff. Positions refer to the list as it is after all
+     * previous operations were applied.
+     */
+    public interface Callback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    /**
+     * Operations as (type, position, count or target position) triples
+     */
+    private int[] mOperations = new int[24];
+    private int mSize;
+
+    private NewsDiff() {
+    }
+
+    /**
+     * Return the operations turning the old list into the new one. Neither list is modified.
+     */
+    public static NewsDiff calculate(List<News> oldNews, List<News> newNews) {
+        NewsDiff diff = new NewsDiff();
+        int oldSize = oldNews.size();
+        int newSize = newNews.size();
+
+        // Match articles by URL, without putting the URLs back together. If a URL occurs more
+        // than once, only the first occurrences are matched, the others are removed or
+        // inserted.
+        ArticleUrlMap newPositions = new ArticleUrlMap(newSize);
+        for (int i = newSize - 1; i >= 0; i--) {
+            newPositions.put(newNews.get(i), i);
+        }
+        int[] oldToNew = new int[oldSize];
+        int[] newToOld = new int[newSize];
+        Arrays.fill(newToOld, -1);
+        for (int i = 0; i < oldSize; i++) {
+            int newPosition = newPositions.get(oldNews.get(i));
+            if (newPosition != ArticleUrlMap.NOT_FOUND && newToOld[newPosition] == -1) {
+                oldToNew[i] = newPosition;
+                newToOld[newPosition] = i;
+            } else {
+                oldToNew[i] = -1;
+            }
+        }
+
+        // Remove from the end, so the positions of the articles not yet visited don't change
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (oldToNew[i] == -1) {
+                diff.add(REMOVE, i, 1);
+            }
+        }
+
+        // What is left are the matched articles in their old order, identified by their new
+        // position. The longest increasing run of new positions stays where it is.
+        List<Integer> remaining = new ArrayList<Integer>(oldSize);
+        for (int i = 0; i < oldSize; i++) {
+            if (oldToNew[i] != -1) {
+                remaining.add(oldToNew[i]);
+            }
+        }
+        boolean[] inPlace = longestIncreasingRun(remaining, newSize);
+
+        // Move every other article right after the article preceding it in the new list.
+        // Articles are visited in their new order, so that one is already in the right place.
+        int previous = -1;
+        for (int j = 0; j < newSize; j++) {
+            if (newToOld[j] == -1) {
+                continue;
+            }
+            if (!inPlace[j]) {
+                int from = remaining.indexOf(j);
+                remaining.remove(from);
+                int to = previous == -1 ? 0 : remaining.indexOf(previous) + 1;
+                remaining.add(to, j);
+                if (from != to) {
+                    diff.add(MOVE, from, to);
+                }
+            }
+            previous = j;
+        }
+
+        // The matched articles are in their new order now, insert the others in between
+        for (int j = 0; j < newSize; j++) {
+            if (newToOld[j] == -1) {
+                diff.add(INSERT, j, 1);
+            }
+        }
+
+        for (int j = 0; j < newSize; j++) {
+            if (newToOld[j] != -1 && !sameContents(oldNews.get(newToOld[j]), newNews.get(j))) {
+                diff.add(CHANGE, j, 1);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Report the operations to the given callback, in the order they have to be applied.
+     */
+    public void dispatchUpdatesTo(Callback callback) {
+        for (int i = 0; i < mSize; i += 3) {
+            int position = mOperations[i + 1];
+            int argument = mOperations[i + 2];
+            switch (mOperations[i]) {
+                case INSERT:
+                    callback.onInserted(position, argument);
+                    break;
+                case REMOVE:
+                    callback.onRemoved(position, argument);
+                    break;
+                case MOVE:
+                    callback.onMoved(position, argument);
+                    break;
+                case CHANGE:
+                    callback.onChanged(position, argument);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Return the number of operations, after merging adjacent inserts, removes and changes.
+     */
+    public int getOperationCount() {
+        return mSize / 3;
+    }
+
+    /**
+     * Append an operation, merging it into the previous one when they cover adjacent rows.
+     */
+    private void add(int type, int position, int argument) {
+        if (mSize > 0 && mOperations[mSize - 3] == type) {
+            int last = mSize - 3;
+            // Removes are added from the end, inserts and changes from the start
+            if (type == REMOVE && position + 1 == mOperations[last + 1]) {
+                mOperations[last + 1] = position;
+                mOperations[last + 2]++;
+                return;
+            }
+            if ((type == INSERT || type == CHANGE)
+                    && mOperations[last + 1] + mOperations[last + 2] == position) {
+                mOperations[last + 2]++;
+                return;
+            }
+        }
+        if (mSize + 3 > mOperations.length) {
+            mOperations = Arrays.copyOf(mOperations, mOperations.length * 2);
+        }
+        mOperations[mSize++] = type;
+        mOperations[mSize++] = position;
+        mOperations[mSize++] = argument;
+    }
+
+    /**
+     * Return which of the given distinct values, all below size, form the longest subsequence
+     * in increasing order.
+     */
+    private static boolean[] longestIncreasingRun(List<Integer> values, int size) {
+        int count = values.size();
+        // tails[k] is the index of the smallest value ending an increasing run of length k + 1
+        int[] tails = new int[count];
+        int[] predecessors = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int value = values.get(i);
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values.get(tails[middle]) < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] inRun = new boolean[size];
+        for (int i = length > 0 ? tails[length - 1] : -1; i != -1; i = predecessors[i]) {
+            inRun[values.get(i)] = true;
+        }
+        return inRun;
+    }
+
+    private static boolean sameContents(News first, News second) {
+        return first.getTitle().equals(second.getTitle())
+                && first.getSection().equals(second.getSection())
+                && first.getPublishedAtMillis() == second.getPublishedAtMillis()
+                // Only dates that couldn't be parsed need to be compared as text
+                && (first.getPublishedAtMillis() != NewsDates.UNKNOWN_DATE
+                || equal(first.getPublicationDate(), second.getPublicationDate()))
+                && first.thumbnailUrlEquals(second);
+    }
+
+    private static boolean equal(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
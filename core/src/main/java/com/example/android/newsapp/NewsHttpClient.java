@@ -0,0 +1,241 @@
+package com.example.android.newsapp;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the single HTTP client all requests to The Guardian's API go through.
+ * <p>
+ * Sharing one client means sharing one connection pool: connections are kept alive between
+ * requests, so only the first request to the API pays for the TCP and TLS handshakes. Where the
+ * server supports it, HTTP/2 is negotiated and concurrent requests are multiplexed on a single
+ * connection.
+ * <p>
+ * Every request tagged with a {@link RequestTiming} has its phases recorded into it, see
+ * {@link #setTimingListener(RequestTiming.Listener)}.
+ */
+public class NewsHttpClient {
+
+    /**
+     * Logger for the log messages. On Android, java.util.logging messages end up in logcat.
+     */
+    private static final Logger LOGGER = Logger.getLogger(NewsHttpClient.class.getName());
+
+    /**
+     * Default timeouts of a single request, for the API and the images alike. Connections are
+     * pooled, so most requests don't connect at all, and one that takes this long is better
+     * retried than waited for.
+     */
+    public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Idle connections kept in the pool, and how long they are kept
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static NewsHttpClient sInstance;
+
+    private static volatile RequestTiming.Listener sTimingListener;
+
+    private final OkHttpClient mClient;
+
+    private NewsHttpClient(OkHttpClient client) {
+        mClient = client;
+    }
+
+    /**
+     * Return the shared client, creating it with the default timeouts if needed.
+     */
+    public static synchronized NewsHttpClient getInstance() {
+        if (sInstance == null) {
+            OkHttpClient client = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS,
+                            KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .connectTimeout(DEFAULT_CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .readTimeout(DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .eventListenerFactory(new TimingEventListenerFactory())
+                    .build();
+            sInstance = new NewsHttpClient(client);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Change the timeouts of the requests started from now on. The connection pool is kept.
+     */
+    public static synchronized void setTimeouts(long connectTimeoutMillis,
+                                                long readTimeoutMillis) {
+        OkHttpClient client = getInstance().mClient.newBuilder()
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+        sInstance = new NewsHttpClient(client);
+    }
+
+    /**
+     * Set the listener notified with the timing of each finished request, or null to only log
+     * them at {@link Level#FINE}.
+     */
+    public static void setTimingListener(RequestTiming.Listener listener) {
+        sTimingListener = listener;
+    }
+
+    /**
+     * Return the client to create calls with.
+     */
+    OkHttpClient getClient() {
+        return mClient;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return mClient.connectTimeoutMillis();
+    }
+
+    public long getReadTimeoutMillis() {
+        return mClient.readTimeoutMillis();
+    }
+
+    /**
+     * Return the number of open connections, idle or in use.
+     */
+    public int getConnectionCount() {
+        return mClient.connectionPool().connectionCount();
+    }
+
+    public int getIdleConnectionCount() {
+        return mClient.connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * Creates a {@link TimingEventListener} for each call whose request is tagged with a
+     * {@link RequestTiming}.
+     */
+    private static class TimingEventListenerFactory implements EventListener.Factory {
+        @Override
+        public EventListener create(Call call) {
+            RequestTiming timing = call.request().tag(RequestTiming.class);
+            return timing != null ? new TimingEventListener(timing) : EventListener.NONE;
+        }
+    }
+
+    /**
+     * Records the phases of a call into its {@link RequestTiming}. A call only runs on one
+     * thread at a time, so no synchronization is needed.
+     */
+    private static class TimingEventListener extends EventListener {
+
+        private final RequestTiming mTiming;
+
+        TimingEventListener(RequestTiming timing) {
+            mTiming = timing;
+        }
+
+        @Override
+        public void callStart(Call call) {
+            mTiming.mCallStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            mTiming.mDnsStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            mTiming.mDnsEndNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            // A failed route may be retried, only the last attempt counts
+            mTiming.mConnectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            mTiming.mSecureConnectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            mTiming.mSecureConnectEndNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy,
+                               Protocol protocol) {
+            mTiming.mConnectEndNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            // Pooled connections are handed over without being connected first
+            mTiming.mConnectionReused = mTiming.mConnectStartNanos == 0;
+            mTiming.mProtocol = connection.protocol().toString();
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            mTiming.mRequestStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            // responseHeadersStart is called before waiting for the headers, so the first byte
+            // is only known to have arrived once they are read. The body follows right after.
+            long now = System.nanoTime();
+            mTiming.mResponseHeadersEndNanos = now;
+            mTiming.mResponseBodyStartNanos = now;
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            mTiming.mResponseBodyEndNanos = System.nanoTime();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish();
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            mTiming.mFailed = true;
+            finish();
+        }
+
+        private void finish() {
+            mTiming.mCallEndNanos = System.nanoTime();
+            if (mTiming.mProtocol != null) {
+                Metrics.increment(mTiming.mConnectionReused
+                        ? "http.connections_reused" : "http.connections_opened");
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(mTiming.toString());
+            }
+            RequestTiming.Listener listener = sTimingListener;
+            if (listener != null) {
+                listener.onRequestFinished(mTiming);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.android.newsapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for The Guardian's search API responses.
+ * <p>
+ * The response is pulled token by token straight off the {@link InputStream}, so neither the
+ * whole body nor a JSON object tree is ever held in memory. Only the fields that end up in a
+ * {@link News} object are read, everything else is skipped.
+ */
+public final class NewsJsonParser {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsJsonParser}
+     * object. This class only holds static methods.
+     */
+    private NewsJsonParser() {
+    }
+
+    /**
+     * Read a Guardian search response from the given {@link InputStream} and return the
+     * list of {@link News} found in "response.results". The stream is not closed.
+     *
+     * @throws IOException if the stream can't be read or doesn't contain valid JSON.
+     */
+    public static List<News> parseNews(InputStream inputStream) throws IOException {
+        return parseNews(inputStream, null);
+    }
+
+    /**
+     * Read a Guardian search response like {@link #parseNews(InputStream)}, stopping between
+     * two articles once the given token is cancelled.
+     *
+     * @param cancellation is checked while parsing, may be null.
+     * @throws java.io.InterruptedIOException if the token was cancelled.
+     */
+    public static List<News> parseNews(InputStream inputStream, CancellationToken cancellation)
+            throws IOException {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            return readRoot(reader, cancellation);
+        } catch (IllegalStateException e) {
+            // Thrown by the reader when a token has an unexpected type, e.g. "results" is not
+            // an array. Report it the same way as any other malformed response.
+            throw new IOException("Unexpected JSON structure in news response", e);
+        }
+    }
+
+    /**
+     * Read a Guardian item response, requested with "show-fields=body", from the given
+     * {@link InputStream} and return the HTML body found in "response.content.fields.body",
+     * or an empty string if the article has none. The stream is not closed.
+     *
+     * @throws IOException if the stream can't be read or doesn't contain valid JSON.
+     */
+    public static String parseArticleBody(InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            String body = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("response".equals(reader.nextName())) {
+                    body = readMember(reader, "content", "fields", "body");
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return body;
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected JSON structure in article response", e);
+        }
+    }
+
+    /**
+     * Read the string at the given path of nested objects, skipping everything else, or
+     * return an empty string if it isn't there.
+     */
+    private static String readMember(JsonReader reader, String... path) throws IOException {
+        String value = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (path[0].equals(reader.nextName()) && reader.peek() != JsonToken.NULL) {
+                if (path.length == 1) {
+                    value = reader.nextString();
+                } else {
+                    String[] rest = new String[path.length - 1];
+                    System.arraycopy(path, 1, rest, 0, rest.length);
+                    value = readMember(reader, rest);
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    /**
+     * Read the top level object and descend into the "response" member.
+     */
+    private static List<News> readRoot(JsonReader reader, CancellationToken cancellation)
+            throws IOException {
+        List<News> news = new ArrayList<News>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("response".equals(reader.nextName())) {
+                readResponse(reader, news, cancellation);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return news;
+    }
+
+    /**
+     * Read the "response" object, adding every element of its "results" array to the list.
+     */
+    private static void readResponse(JsonReader reader, List<News> news,
+                                     CancellationToken cancellation) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("results".equals(reader.nextName())) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (cancellation != null) {
+                        cancellation.throwIfCanceled();
+                    }
+                    news.add(readNews(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read a single element of the "results" array into a {@link News} object.
+     * Missing fields are returned as empty strings, the same as {@code JSONObject.optString}.
+     */
+    private static News readNews(JsonReader reader) throws IOException {
+        String title = "";
+        String section = "";
+        String publicationDate = "";
+        String articleUrl = "";
+        String thumbnailUrl = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "webTitle":
+                    title = readString(reader);
+                    break;
+                case "sectionName":
+                    section = readString(reader);
+                    break;
+                case "webPublicationDate":
+                    publicationDate = readString(reader);
+                    break;
+                case "webUrl":
+                    articleUrl = readString(reader);
+                    break;
+                case "fields":
+                    thumbnailUrl = readThumbnailUrl(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return new News(title, section, publicationDate,
+                NewsDates.parseIsoDate(publicationDate), articleUrl, thumbnailUrl);
+    }
+
+    /**
+     * Read the thumbnail URL out of the "fields" object requested with "show-fields", or
+     * return null if there is none. The other fields are skipped without being decoded.
+     */
+    private static String readThumbnailUrl(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String thumbnailUrl = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("thumbnail".equals(reader.nextName())) {
+                String value = readString(reader);
+                thumbnailUrl = value.isEmpty() ? null : value;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return thumbnailUrl;
+    }
+
+    /**
+     * Read a string value, treating a JSON null as an empty string.
+     */
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Keeps track of which pages of a paginated news query are shown in the list.
+ * <p>
+ * Pages are loaded one at a time as the user scrolls towards either end of the list. At most
+ * a fixed number of pages stay resident: loading a page past the window drops the page at the
+ * opposite end, which is loaded again if the user scrolls back to it.
+ */
+public class NewsPager {
+
+    /**
+     * Number of rows from either end of the list at which the next page is requested.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Value returned when there is no page to load.
+     */
+    public static final int NO_PAGE = -1;
+
+    private final int mPageSize;
+    private final int mMaxResidentPages;
+
+    /**
+     * Number of articles in each resident page, from the first to the last page in the list.
+     */
+    private final Deque<Integer> mResidentPageSizes = new ArrayDeque<Integer>();
+    private int mFirstResidentPage = 1;
+
+    /**
+     * Page currently being loaded, or {@link #NO_PAGE}.
+     */
+    private int mPendingPage = NO_PAGE;
+
+    private boolean mEndReached;
+
+    private boolean mFailed;
+
+    /**
+     * Constructs a new {@link NewsPager}.
+     *
+     * @param pageSize         is the number of articles requested per page.
+     * @param maxResidentPages is the number of pages kept in the list at the same time.
+     */
+    public NewsPager(int pageSize, int maxResidentPages) {
+        mPageSize = pageSize;
+        mMaxResidentPages = maxResidentPages;
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Return the first page in the list, only meaningful while there is one.
+     */
+    public int getFirstResidentPage() {
+        return mFirstResidentPage;
+    }
+
+    /**
+     * Return the last page in the list, only meaningful while there is one.
+     */
+    public int getLastResidentPage() {
+        return mFirstResidentPage + mResidentPageSizes.size() - 1;
+    }
+
+    /**
+     * Forget all pages, e.g. because the query changed. The next page to load is the first one.
+     */
+    public void reset() {
+        mResidentPageSizes.clear();
+        mFirstResidentPage = 1;
+        mPendingPage = NO_PAGE;
+        mEndReached = false;
+        mFailed = false;
+    }
+
+    /**
+     * Return the page to load after the last resident one if the given scroll position is close
+     * enough to the end of the list, or {@link #NO_PAGE}. The returned page is marked as pending.
+     *
+     * @param lastVisiblePosition is the position of the last row on screen.
+     * @param itemCount           is the number of rows in the list.
+     */
+    public int nextPageToLoad(int lastVisiblePosition, int itemCount) {
+        if (mPendingPage != NO_PAGE || mFailed || mEndReached || mResidentPageSizes.isEmpty()
+                || lastVisiblePosition < itemCount - PREFETCH_DISTANCE) {
+            return NO_PAGE;
+        }
+        mPendingPage = getLastResidentPage() + 1;
+        return mPendingPage;
+    }
+
+    /**
+     * Return the page to load before the first resident one if the given scroll position is
+     * close enough to the top of the list, or {@link #NO_PAGE}. The returned page is marked as
+     * pending.
+     *
+     * @param firstVisiblePosition is the position of the first row on screen.
+     */
+    public int previousPageToLoad(int firstVisiblePosition) {
+        if (mPendingPage != NO_PAGE || mFailed || mFirstResidentPage <= 1
+                || firstVisiblePosition > PREFETCH_DISTANCE) {
+            return NO_PAGE;
+        }
+        mPendingPage = mFirstResidentPage - 1;
+        return mPendingPage;
+    }
+
+    /**
+     * Mark the first page as pending, to start over after {@link #reset()}.
+     */
+    public int firstPageToLoad() {
+        mPendingPage = 1;
+        return mPendingPage;
+    }
+
+    /**
+     * Return true if the given page comes before the pages in the list, i.e. it has to be
+     * prepended rather than appended once loaded.
+     */
+    public boolean isBeforeResidentPages(int page) {
+        return !mResidentPageSizes.isEmpty() && page < mFirstResidentPage;
+    }
+
+    /**
+     * Return true if the given page is the one being loaded.
+     */
+    public boolean isPending(int page) {
+        return page != NO_PAGE && page == mPendingPage;
+    }
+
+    /**
+     * Record that the pending page was loaded with the given number of articles.
+     *
+     * @return the number of rows to remove from the opposite end of the list to keep the window
+     * bounded. Rows are removed from the top when the page was appended, or from the bottom when
+     * it was prepended.
+     */
+    public int onPageLoaded(int page, int articleCount) {
+        mPendingPage = NO_PAGE;
+
+        int rowsToRemove = 0;
+        if (mResidentPageSizes.isEmpty() || page > getLastResidentPage()) {
+            if (mResidentPageSizes.isEmpty()) {
+                mFirstResidentPage = page;
+            }
+            mResidentPageSizes.addLast(articleCount);
+            // A short page is the last one
+            mEndReached = articleCount < mPageSize;
+            while (mResidentPageSizes.size() > mMaxResidentPages) {
+                rowsToRemove += mResidentPageSizes.removeFirst();
+                mFirstResidentPage++;
+            }
+        } else {
+            mResidentPageSizes.addFirst(articleCount);
+            mFirstResidentPage = page;
+            while (mResidentPageSizes.size() > mMaxResidentPages) {
+                rowsToRemove += mResidentPageSizes.removeLast();
+                // The dropped page can be loaded again
+                mEndReached = false;
+            }
+        }
+        return rowsToRemove;
+    }
+
+    /**
+     * Record that loading the pending page failed. Paging stops until the next reset, so a
+     * failing request isn't retried on every scroll event.
+     */
+    public void onPageFailed() {
+        mPendingPage = NO_PAGE;
+        mFailed = true;
+    }
+
+    /**
+     * Allow paging again after {@link #onPageFailed()}, e.g. once the network is back. The
+     * failed page is the next one returned.
+     */
+    public void resume() {
+        mFailed = false;
+    }
+
+    /**
+     * Return the given page of the given query.
+     */
+    public GuardianQuery pageQuery(GuardianQuery query, int page) {
+        return query.newBuilder().pageSize(mPageSize).page(page).build();
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Turns the articles loaded into the list shown: filtered, sorted, without duplicate titles
+ * and grouped, in stages set up with a {@link Builder}.
+ * <p>
+ * Articles are added in segments, e.g. one per page. Filtering and sorting run per segment,
+ * only when the segment is added or replaced, so a new page costs what it holds rather than
+ * what the list holds. The sorted segments are then merged, deduplicated and grouped, each of
+ * which takes linear time. An update of a list of n articles with a segment of m articles
+ * takes O(n log k + m log m) time for k segments, which is still too slow for the main thread
+ * once n runs into the thousands, so updates should be made on a background thread.
+ * <p>
+ * <p>
+ * A list that is scrolled while pages come and go should use
+ * {@link Builder#sortWithinSegments(boolean)}, see there.
+ * <p>
+ * All methods are synchronized, updates may come from any thread.
+ */
+public final class NewsPipeline {
+
+    /**
+     * Decides which articles are shown.
+     */
+    public interface Filter {
+        boolean accept(News news);
+    }
+
+    /**
+     * Puts articles into groups, e.g. by section.
+     */
+    public interface Grouping {
+        /**
+         * Return the name of the group of the given article.
+         */
+        String getGroup(News news);
+    }
+
+    /**
+     * Orders news by publication date, oldest first, like the API's order-by=oldest.
+     * Articles without a date come first.
+     */
+    public static final Comparator<News> OLDEST_FIRST = new Comparator<News>() {
+        @Override
+        public int compare(News first, News second) {
+            long difference = first.getPublishedAtMillis() - second.getPublishedAtMillis();
+            return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+        }
+    };
+
+    /**
+     * Orders news by publication date, newest first. Articles without a date come last.
+     */
+    public static final Comparator<News> NEWEST_FIRST = Collections.reverseOrder(OLDEST_FIRST);
+
+    /**
+     * Groups articles by section name.
+     */
+    public static final Grouping BY_SECTION = new Grouping() {
+        @Override
+        public String getGroup(News news) {
+            return news.getSection();
+        }
+    };
+
+    /**
+     * Return a grouping of articles by publication day in the given time zone, e.g.
+     * "2017-01-01". Articles without a date are put in a group with an empty name.
+     */
+    public static Grouping byDay(final TimeZone timeZone) {
+        return new Grouping() {
+            @Override
+            public String getGroup(News news) {
+                long millis = news.getPublishedAtMillis();
+                return millis == NewsDates.UNKNOWN_DATE
+                        ? "" : NewsDates.formatQueryDate(millis, timeZone);
+            }
+        };
+    }
+
+    private final List<Filter> mFilters;
+    private final Comparator<News> mOrder;
+    private final boolean mSortWithinSegments;
+    private final boolean mDedupeTitles;
+    private final Grouping mGrouping;
+
+    /**
+     * Segments by key, in the order their articles are shown when there is no order
+     */
+    private final TreeMap<Integer, Segment> mSegments = new TreeMap<Integer, Segment>();
+
+    private Result mResult = new Result(Collections.<News>emptyList(),
+            Collections.<Group>emptyList());
+
+    private NewsPipeline(Builder builder) {
+        mFilters = new ArrayList<Filter>(builder.mFilters);
+        mOrder = builder.mOrder;
+        mSortWithinSegments = builder.mSortWithinSegments;
+        mDedupeTitles = builder.mDedupeTitles;
+        mGrouping = builder.mGrouping;
+    }
+
+    /**
+     * Return the list as of the last update.
+     */
+    public synchronized Result getResult() {
+        return mResult;
+    }
+
+    /**
+     * Add the given articles as the segment with the given key, replacing the articles
+     * previously added with that key. Only these articles are filtered and sorted.
+     *
+     * @return the updated list.
+     */
+    public synchronized Result putSegment(int key, List<News> news) {
+        mSegments.put(key, new Segment(news));
+        return update();
+    }
+
+    /**
+     * Remove the segments whose keys are not between first and last, inclusive, e.g. the pages
+     * that are no longer resident.
+     *
+     * @return the updated list.
+     */
+    public synchronized Result retainSegments(int first, int last) {
+        boolean removed = false;
+        Iterator<Integer> keys = mSegments.keySet().iterator();
+        while (keys.hasNext()) {
+            int key = keys.next();
+            if (key < first || key > last) {
+                keys.remove();
+                removed = true;
+            }
+        }
+        return removed ? update() : mResult;
+    }
+
+    /**
+     * Replace all segments with a single one holding the given articles, or none if null.
+     *
+     * @return the updated list.
+     */
+    public synchronized Result replaceAll(int key, List<News> news) {
+        mSegments.clear();
+        if (news != null) {
+            mSegments.put(key, new Segment(news));
+        }
+        return update();
+    }
+
+    /**
+     * Filter every segment again, e.g. because the articles a filter accepts changed.
+     *
+     * @return the updated list.
+     */
+    public synchronized Result refilter() {
+        for (Map.Entry<Integer, Segment> entry : mSegments.entrySet()) {
+            entry.setValue(new Segment(entry.getValue().mNews));
+        }
+        return update();
+    }
+
+    /**
+     * Merge, deduplicate and group the segments into a new result.
+     */
+    private Result update() {
+        List<Segment> segments = new ArrayList<Segment>(mSegments.values());
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.mShown.size();
+        }
+
+        // Merged positions as (segment, index) pairs, so the keys computed per segment can be
+        // looked up without a map
+        int[] segmentOf = new int[total];
+        int[] indexOf = new int[total];
+        merge(segments, segmentOf, indexOf);
+
+        int count = total;
+        if (mDedupeTitles) {
+            count = dedupe(segments, segmentOf, indexOf, total);
+        }
+
+        List<News> news = new ArrayList<News>(count);
+        List<Group> groups;
+        if (mGrouping == null) {
+            for (int i = 0; i < count; i++) {
+                news.add(segments.get(segmentOf[i]).mShown.get(indexOf[i]));
+            }
+            groups = Collections.emptyList();
+        } else {
+            groups = group(segments, segmentOf, indexOf, count, news);
+        }
+        mResult = new Result(Collections.unmodifiableList(news),
+                Collections.unmodifiableList(groups));
+        return mResult;
+    }
+
+    /**
+     * Fill the given arrays with the articles of all segments in order. Segments are already
+     * sorted, so they only need to be merged, taking from the earlier segment on ties, or
+     * put one after the other if sorted within segments.
+     */
+    private void merge(final List<Segment> segments, int[] segmentOf, int[] indexOf) {
+        int position = 0;
+        if (mOrder == null || mSortWithinSegments || segments.size() == 1) {
+            for (int s = 0; s < segments.size(); s++) {
+                for (int i = 0; i < segments.get(s).mShown.size(); i++) {
+                    segmentOf[position] = s;
+                    indexOf[position++] = i;
+                }
+            }
+            return;
+        }
+
+        // Cursors are the segment index followed by the index in that segment
+        PriorityQueue<int[]> cursors = new PriorityQueue<int[]>(segments.size(),
+                new Comparator<int[]>() {
+                    @Override
+                    public int compare(int[] first, int[] second) {
+                        int order = mOrder.compare(
+                                segments.get(first[0]).mShown.get(first[1]),
+                                segments.get(second[0]).mShown.get(second[1]));
+                        return order != 0 ? order : first[0] - second[0];
+                    }
+                });
+        for (int s = 0; s < segments.size(); s++) {
+            if (!segments.get(s).mShown.isEmpty()) {
+                cursors.add(new int[]{s, 0});
+            }
+        }
+        while (!cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            segmentOf[position] = cursor[0];
+            indexOf[position++] = cursor[1];
+            if (++cursor[1] < segments.get(cursor[0]).mShown.size()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Drop the articles whose title was already seen, keeping the first one in order.
+     *
+     * @return the number of articles left at the start of the arrays.
+     */
+    private static int dedupe(List<Segment> segments, int[] segmentOf, int[] indexOf,
+                              int count) {
+        Set<String> titles = new HashSet<String>(count * 2);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (titles.add(segments.get(segmentOf[i]).mTitleKeys[indexOf[i]])) {
+                segmentOf[kept] = segmentOf[i];
+                indexOf[kept++] = indexOf[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Add the articles to the given list group by group. Groups are in the order of their
+     * first article, and keep their articles in order.
+     *
+     * @return the groups added.
+     */
+    private static List<Group> group(List<Segment> segments, int[] segmentOf, int[] indexOf,
+                                     int count, List<News> news) {
+        Map<String, List<News>> members = new LinkedHashMap<String, List<News>>();
+        for (int i = 0; i < count; i++) {
+            Segment segment = segments.get(segmentOf[i]);
+            String name = segment.mGroups[indexOf[i]];
+            List<News> group = members.get(name);
+            if (group == null) {
+                group = new ArrayList<News>();
+                members.put(name, group);
+            }
+            group.add(segment.mShown.get(indexOf[i]));
+        }
+
+        List<Group> groups = new ArrayList<Group>(members.size());
+        for (Map.Entry<String, List<News>> entry : members.entrySet()) {
+            groups.add(new Group(entry.getKey(), news.size(), entry.getValue().size()));
+            news.addAll(entry.getValue());
+        }
+        return groups;
+    }
+
+    /**
+     * Return the key two titles share if they're the same title syndicated to several
+     * sections: letters and digits only, in lower case.
+     */
+    static String titleKey(String title) {
+        StringBuilder key = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                key.append(Character.toLowerCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * The articles added with the same key, and what the stages computed for them
+     */
+    private final class Segment {
+        /**
+         * Articles as added
+         */
+        final List<News> mNews;
+
+        /**
+         * Articles accepted by the filters, in order
+         */
+        final List<News> mShown;
+
+        /**
+         * Title key and group of each shown article, computed once per segment
+         */
+        final String[] mTitleKeys;
+        final String[] mGroups;
+
+        Segment(List<News> news) {
+            mNews = news;
+            List<News> shown = new ArrayList<News>(news.size());
+            for (News article : news) {
+                if (accept(article)) {
+                    shown.add(article);
+                }
+            }
+            if (mOrder != null) {
+                // Stable, articles that compare equal keep the order they were added in
+                Collections.sort(shown, mOrder);
+            }
+            mShown = shown;
+
+            mTitleKeys = mDedupeTitles ? new String[shown.size()] : null;
+            mGroups = mGrouping != null ? new String[shown.size()] : null;
+            for (int i = 0; i < shown.size(); i++) {
+                if (mTitleKeys != null) {
+                    mTitleKeys[i] = titleKey(shown.get(i).getTitle());
+                }
+                if (mGroups != null) {
+                    mGroups[i] = mGrouping.getGroup(shown.get(i));
+                }
+            }
+        }
+
+        private boolean accept(News news) {
+            for (Filter filter : mFilters) {
+                if (!filter.accept(news)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A group of consecutive articles in a {@link Result}.
+     */
+    public static final class Group {
+        private final String mName;
+        private final int mStart;
+        private final int mCount;
+
+        Group(String name, int start, int count) {
+            mName = name;
+            mStart = start;
+            mCount = count;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Return the position of the first article of the group.
+         */
+        public int getStart() {
+            return mStart;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+    }
+
+    /**
+     * The list shown after an update. Immutable.
+     */
+    public static final class Result {
+        private final List<News> mNews;
+        private final List<Group> mGroups;
+
+        Result(List<News> news, List<Group> groups) {
+            mNews = news;
+            mGroups = groups;
+        }
+
+        public List<News> getNews() {
+            return mNews;
+        }
+
+        /**
+         * Return the groups in the order they're shown, empty if there is no grouping.
+         */
+        public List<Group> getGroups() {
+            return mGroups;
+        }
+    }
+
+    /**
+     * Builds {@link NewsPipeline} objects. Without any stage, the articles are shown as they
+     * were added, segment by segment in the order of their keys.
+     */
+    public static final class Builder {
+        private final List<Filter> mFilters = new ArrayList<Filter>();
+        private Comparator<News> mOrder;
+        private boolean mSortWithinSegments;
+        private boolean mDedupeTitles;
+        private Grouping mGrouping;
+
+        /**
+         * Only show the articles the given filter accepts, as well as those of the filters
+         * added before.
+         */
+        public Builder addFilter(Filter filter) {
+            mFilters.add(filter);
+            return this;
+        }
+
+        /**
+         * Sort the articles in the given order, e.g. {@link #NEWEST_FIRST}, or keep the order
+         * they were added in if null.
+         */
+        public Builder sortBy(Comparator<News> order) {
+            mOrder = order;
+            return this;
+        }
+
+        /**
+         * Only sort the articles of each segment, and show the segments one after the other
+         * in the order of their keys, rather than sorting all articles together.
+         * <p>
+         * Pages of a query that merges several sections overlap: page 2 of one section can
+         * hold articles published before the last ones of page 1 of another. Sorted together,
+         * the rows of a new page would land between rows already on screen, and dropping a
+         * page would take rows out from between the others, so the list would jump while it
+         * is scrolled. Sorted within segments, the rows of a page stay together where its key
+         * puts them. The trade-off is that where pages overlap, the list is out of order at
+         * the page boundary.
+         */
+        public Builder sortWithinSegments(boolean sortWithinSegments) {
+            mSortWithinSegments = sortWithinSegments;
+            return this;
+        }
+
+        /**
+         * Only show the first article of each title, ignoring case, spaces and punctuation.
+         * The same story is often published in several sections.
+         */
+        public Builder dedupeTitles(boolean dedupeTitles) {
+            mDedupeTitles = dedupeTitles;
+            return this;
+        }
+
+        /**
+         * Show the articles group by group, e.g. {@link #BY_SECTION}, or ungrouped if null.
+         */
+        public Builder groupBy(Grouping grouping) {
+            mGrouping = grouping;
+            return this;
+        }
+
+        public NewsPipeline build() {
+            return new NewsPipeline(this);
+        }
+    }
+}
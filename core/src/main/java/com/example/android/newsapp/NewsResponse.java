@@ -0,0 +1,131 @@
+package com.example.android.newsapp;
+
+import java.util.List;
+
+/**
+ * Outcome of a news request: either a freshly parsed list of {@link News}, or confirmation from
+ * the server that the copy the client already holds is still current. Requests for the body of
+ * an article have the body instead.
+ */
+public class NewsResponse {
+
+    private List<News> mNews;
+
+    private String mBody;
+
+    private String mETag;
+
+    private String mLastModified;
+
+    private boolean mNotModified;
+
+    /**
+     * HTTP status code of the response, or {@link #NO_STATUS} if none was received
+     */
+    private int mStatusCode;
+
+    /**
+     * Delay the server asked for before trying again, or -1 if it didn't
+     */
+    private long mRetryAfterMillis;
+
+    /**
+     * Status code of a request that failed without a response, e.g. on a network error
+     */
+    public static final int NO_STATUS = 0;
+
+    /**
+     * Status code of a response telling the client to slow down
+     */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Constructs a new {@link NewsResponse}.
+     *
+     * @param news         is the parsed list of news, or null if nothing was parsed.
+     * @param eTag         is the value of the response's ETag header, or null.
+     * @param lastModified is the value of the response's Last-Modified header, or null.
+     * @param notModified  is true if the server answered 304 Not Modified.
+     */
+    public NewsResponse(List<News> news, String eTag, String lastModified, boolean notModified) {
+        mNews = news;
+        mETag = eTag;
+        mLastModified = lastModified;
+        mNotModified = notModified;
+        mStatusCode = notModified ? 304 : (news != null ? 200 : NO_STATUS);
+        mRetryAfterMillis = -1;
+    }
+
+    /**
+     * Constructs a new {@link NewsResponse} for a request of an article body.
+     *
+     * @param body is the HTML body of the article, or null if the request failed without a
+     *             response.
+     */
+    public NewsResponse(String body) {
+        this(null, null, null, false);
+        mBody = body;
+        mStatusCode = body != null ? 200 : NO_STATUS;
+    }
+
+    /**
+     * Constructs a new {@link NewsResponse} for a request the server answered with an error.
+     *
+     * @param statusCode       is the HTTP status code of the response.
+     * @param retryAfterMillis is the delay asked for by its Retry-After header, or -1.
+     */
+    public NewsResponse(int statusCode, long retryAfterMillis) {
+        this(null, null, null, false);
+        mStatusCode = statusCode;
+        mRetryAfterMillis = retryAfterMillis;
+    }
+
+    public List<News> getNews() {
+        return mNews;
+    }
+
+    /**
+     * Return the HTML body of the article asked for, or null if this isn't a successful body
+     * request.
+     */
+    public String getBody() {
+        return mBody;
+    }
+
+    public String getETag() {
+        return mETag;
+    }
+
+    public String getLastModified() {
+        return mLastModified;
+    }
+
+    public boolean isNotModified() {
+        return mNotModified;
+    }
+
+    public int getStatusCode() {
+        return mStatusCode;
+    }
+
+    public long getRetryAfterMillis() {
+        return mRetryAfterMillis;
+    }
+
+    /**
+     * Return true if the request succeeded, with either a list of news, an article body, or a
+     * confirmation that the client's copy is current.
+     */
+    public boolean isSuccessful() {
+        return mNews != null || mBody != null || mNotModified;
+    }
+
+    /**
+     * Return true if the request failed in a way that may go away by itself: a network error,
+     * a server error, or the rate limit being hit. Other client errors would fail again.
+     */
+    public boolean isRetryable() {
+        return !isSuccessful() && (mStatusCode == NO_STATUS
+                || mStatusCode == TOO_MANY_REQUESTS || mStatusCode >= 500);
+    }
+}
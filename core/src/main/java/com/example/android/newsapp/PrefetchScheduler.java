@@ -0,0 +1,164 @@
+package com.example.android.newsapp;
+
+/**
+ * Decides when news is prefetched in the background.
+ * <p>
+ * A prefetch is due a fixed interval after the last successful one. After a failure, the next
+ * attempt is due after a delay that doubles with every consecutive failure, up to a maximum.
+ * Due prefetches are deferred while there is no network, while the battery is low and the
+ * device isn't charging, and on metered networks unless the last prefetch is more than
+ * {@link #METERED_STALENESS_INTERVALS} intervals old.
+ * <p>
+ * The scheduler only keeps its state, storing it across process restarts is up to the caller.
+ */
+public class PrefetchScheduler {
+
+    /**
+     * Results of {@link #check()}
+     */
+    public static final int RUN = 0;
+    public static final int NOT_DUE = 1;
+    public static final int DEFERRED_NO_NETWORK = 2;
+    public static final int DEFERRED_METERED = 3;
+    public static final int DEFERRED_LOW_BATTERY = 4;
+
+    /**
+     * Number of intervals after which a prefetch may use a metered network
+     */
+    static final int METERED_STALENESS_INTERVALS = 4;
+
+    private final Clock mClock;
+    private final ConnectivitySource mConnectivity;
+    private final BatterySource mBattery;
+    private final long mIntervalMillis;
+    private final long mMinBackoffMillis;
+    private final long mMaxBackoffMillis;
+
+    private long mLastSuccessMillis;
+    private long mLastAttemptMillis;
+    private int mConsecutiveFailures;
+
+    /**
+     * Time before which a deferred prefetch isn't checked again
+     */
+    private long mDeferredUntilMillis;
+
+    /**
+     * Constructs a new {@link PrefetchScheduler} that has never prefetched.
+     *
+     * @param clock            is the source of the current time.
+     * @param connectivity     reports the network state.
+     * @param battery          reports the battery state.
+     * @param intervalMillis   is the time between successful prefetches.
+     * @param minBackoffMillis is the delay after the first failure, and after a deferral.
+     * @param maxBackoffMillis is the longest delay after consecutive failures.
+     */
+    public PrefetchScheduler(Clock clock, ConnectivitySource connectivity, BatterySource battery,
+                             long intervalMillis, long minBackoffMillis,
+                             long maxBackoffMillis) {
+        mClock = clock;
+        mConnectivity = connectivity;
+        mBattery = battery;
+        mIntervalMillis = intervalMillis;
+        mMinBackoffMillis = minBackoffMillis;
+        mMaxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Restore the state stored from an earlier instance.
+     */
+    public void restore(long lastSuccessMillis, long lastAttemptMillis, int consecutiveFailures) {
+        mLastSuccessMillis = lastSuccessMillis;
+        mLastAttemptMillis = lastAttemptMillis;
+        mConsecutiveFailures = consecutiveFailures;
+    }
+
+    public long getLastSuccessMillis() {
+        return mLastSuccessMillis;
+    }
+
+    public long getLastAttemptMillis() {
+        return mLastAttemptMillis;
+    }
+
+    public int getConsecutiveFailures() {
+        return mConsecutiveFailures;
+    }
+
+    /**
+     * Return whether a prefetch should run now: {@link #RUN}, {@link #NOT_DUE}, or the reason
+     * it is deferred. A deferred prefetch is checked again after the minimum backoff delay.
+     */
+    public int check() {
+        long now = mClock.currentTimeMillis();
+        if (now < getDueMillis() || now < mDeferredUntilMillis) {
+            return NOT_DUE;
+        }
+
+        int result = RUN;
+        if (!mConnectivity.isConnected()) {
+            result = DEFERRED_NO_NETWORK;
+        } else if (mBattery.isLow() && !mBattery.isCharging()) {
+            result = DEFERRED_LOW_BATTERY;
+        } else if (mConnectivity.isMetered()
+                && now - mLastSuccessMillis < mIntervalMillis * METERED_STALENESS_INTERVALS) {
+            result = DEFERRED_METERED;
+        }
+
+        if (result != RUN) {
+            mDeferredUntilMillis = now + mMinBackoffMillis;
+        }
+        return result;
+    }
+
+    /**
+     * Return the number of requests a background sync may make now to fill in gaps of a range:
+     * none without a network, or on a low battery that isn't charging, otherwise as many as
+     * the {@link NetworkPolicy} of the network allows. Unlike prefetches, syncs of ranges the
+     * user opened aren't deferred, they're started again the next time the range is opened.
+     */
+    public int getBackfillRequests() {
+        if (!mConnectivity.isConnected() || mBattery.isLow() && !mBattery.isCharging()) {
+            return 0;
+        }
+        return NetworkPolicy.forNetwork(mConnectivity.isMetered()).getBackfillRequests();
+    }
+
+    /**
+     * Record the outcome of a prefetch started after {@link #check()} returned {@link #RUN}.
+     */
+    public void onPrefetchFinished(boolean success) {
+        long now = mClock.currentTimeMillis();
+        mLastAttemptMillis = now;
+        mDeferredUntilMillis = 0;
+        if (success) {
+            mLastSuccessMillis = now;
+            mConsecutiveFailures = 0;
+        } else {
+            mConsecutiveFailures++;
+        }
+    }
+
+    /**
+     * Return the time of the next check, for scheduling the next wake-up.
+     */
+    public long getNextCheckMillis() {
+        return Math.max(getDueMillis(), mDeferredUntilMillis);
+    }
+
+    /**
+     * Return the time the next prefetch is due, ignoring deferrals.
+     */
+    private long getDueMillis() {
+        if (mConsecutiveFailures == 0) {
+            // Due right away if it never ran
+            return mLastSuccessMillis == 0 ? 0 : mLastSuccessMillis + mIntervalMillis;
+        }
+        // Double the delay with every failure after the first, up to the maximum
+        long backoff = mMinBackoffMillis;
+        for (int i = 1; i < mConsecutiveFailures && backoff < mMaxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return mLastAttemptMillis + Math.min(backoff, mMaxBackoffMillis);
+    }
+}
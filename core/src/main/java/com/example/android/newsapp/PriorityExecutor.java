@@ -0,0 +1,139 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs work on a fixed number of background threads, taking waiting work in priority order.
+ * <p>
+ * Work of the same priority runs in the order it was queued. Work that is still waiting can be
+ * cancelled, which takes it out of the queue, or moved up to a higher priority, e.g. when an
+ * image that was only being prefetched is now on screen.
+ */
+public class PriorityExecutor {
+
+    /**
+     * Work needed for what is on screen right now
+     */
+    public static final int PRIORITY_VISIBLE = 0;
+
+    /**
+     * Work that may be needed soon, which only runs when nothing visible is waiting
+     */
+    public static final int PRIORITY_PREFETCH = 1;
+
+    private final ThreadPoolExecutor mExecutor;
+
+    /**
+     * Order of submission, used to keep work of the same priority first in, first out
+     */
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Constructs a new {@link PriorityExecutor}.
+     *
+     * @param threadCount is the number of threads running work at the same time.
+     * @param name        is used to name the threads.
+     */
+    public PriorityExecutor(int threadCount, final String name) {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger mThreadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        name + " " + mThreadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        // The queue is unbounded, so the pool never grows past its core size
+        mExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+    }
+
+    /**
+     * Queue the given work to run with the given priority.
+     *
+     * @return a handle to cancel the work or change its priority while it waits.
+     */
+    public Task execute(Runnable runnable, int priority) {
+        Task task = new Task(runnable, priority, mSequence.getAndIncrement());
+        // Only execute() hands the task over as it is, submit() would wrap it in a
+        // FutureTask which the queue can't order
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Move the given waiting work to a new priority. Does nothing if it already started, or
+     * was cancelled.
+     */
+    public void setPriority(Task task, int priority) {
+        // The queue only orders elements as they are added, so the task is put back in
+        if (task.getPriority() != priority && mExecutor.remove(task)) {
+            task.mPriority = priority;
+            mExecutor.execute(task);
+        }
+    }
+
+    /**
+     * Take the given work out of the queue. Work that already started is left to finish, and
+     * should check {@link Task#isCanceled()} if it can stop early.
+     */
+    public void cancel(Task task) {
+        task.mCanceled = true;
+        mExecutor.remove(task);
+    }
+
+    /**
+     * Return the number of tasks waiting to run.
+     */
+    public int getQueuedCount() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Work queued on a {@link PriorityExecutor}.
+     */
+    public static final class Task implements Runnable, Comparable<Task> {
+
+        private final Runnable mRunnable;
+        private final long mSequence;
+        private volatile int mPriority;
+        private volatile boolean mCanceled;
+
+        private Task(Runnable runnable, int priority, long sequence) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        public int getPriority() {
+            return mPriority;
+        }
+
+        public boolean isCanceled() {
+            return mCanceled;
+        }
+
+        @Override
+        public void run() {
+            if (!mCanceled) {
+                mRunnable.run();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence > other.mSequence ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.example.android.newsapp;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Helper methods related to requesting and receiving news data from The Guardian's API.
+ */
+public class QueryUtils {
+
+    /**
+     * Logger for the log messages. On Android, java.util.logging messages end up in logcat.
+     */
+    private static final Logger LOGGER = Logger.getLogger(QueryUtils.class.getName());
+
+    /**
+     * Create a private constructor because no one should ever create a {@link QueryUtils} object.
+     * This class is only meant to hold static variables and methods, which can be accessed
+     * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
+     */
+    private QueryUtils() {
+    }
+
+
+    /**
+     * Characters left as they are by {@link #encode(String)}, the same as android.net.Uri.encode
+     */
+    private static final String UNRESERVED_CHARACTERS = "_-!.~'()*";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Percent-encode every character of the given string except letters, digits and
+     * {@link #UNRESERVED_CHARACTERS}, like android.net.Uri.encode.
+     */
+    static String encode(String value) {
+        StringBuilder encoded = null;
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (isAllowed(value.charAt(i))) {
+                if (encoded != null) {
+                    encoded.append(value.charAt(i));
+                }
+                i++;
+                continue;
+            }
+
+            if (encoded == null) {
+                encoded = new StringBuilder(length + 16).append(value, 0, i);
+            }
+            // Encode the whole run of other characters at once, so surrogate pairs stay together
+            int end = i + 1;
+            while (end < length && !isAllowed(value.charAt(end))) {
+                end++;
+            }
+            for (byte b : value.substring(i, end).getBytes(UTF_8)) {
+                encoded.append('%').append(HEX_DIGITS[(b >> 4) & 0xf])
+                        .append(HEX_DIGITS[b & 0xf]);
+            }
+            i = end;
+        }
+        return encoded == null ? value : encoded.toString();
+    }
+
+    private static boolean isAllowed(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || UNRESERVED_CHARACTERS.indexOf(c) >= 0;
+    }
+
+    /**
+     * Query The Guardian dataset and return a list of {@link News} objects.
+     */
+    public static List<News> fetchNewsData(String requestUrl) {
+        return fetchNewsData(requestUrl, null, null).getNews();
+    }
+
+    /**
+     * Query The Guardian dataset, revalidating a previously fetched response.
+     *
+     * @param requestUrl   is the URL to query.
+     * @param eTag         is the ETag of the copy the caller already holds, or null.
+     * @param lastModified is the Last-Modified value of the copy the caller holds, or null.
+     * @return the parsed news, or a response marked as not modified if the server confirmed the
+     * caller's copy is still current. The list of news is null if the request failed.
+     */
+    public static NewsResponse fetchNewsData(String requestUrl, String eTag,
+                                             String lastModified) {
+        return fetchNewsData(requestUrl, eTag, lastModified, new CancellationToken());
+    }
+
+    /**
+     * Query The Guardian dataset like {@link #fetchNewsData(String, String, String)}, aborting
+     * the request once the given token is cancelled. Cancelling closes the connection, so a
+     * request blocked on the network returns right away, and stops parsing the response.
+     *
+     * @return the response, which has no list of news if the request failed or was cancelled.
+     */
+    public static NewsResponse fetchNewsData(String requestUrl, String eTag,
+                                             String lastModified,
+                                             CancellationToken cancellation) {
+
+        // Create URL object
+        HttpUrl url = createUrl(requestUrl);
+
+        // Perform HTTP request to the URL and parse the JSON response as it streams in
+        NewsResponse response = makeHttpRequest(url, eTag, lastModified, cancellation);
+
+        // Return the response, or an empty one if the request failed
+        if (response == null) {
+            response = new NewsResponse(null, null, null, false);
+        }
+        return response;
+    }
+
+    /**
+     * Returns new URL object from the given string URL, or null if it isn't an HTTP(S) URL.
+     */
+    private static HttpUrl createUrl(String stringUrl) {
+        HttpUrl url = stringUrl != null ? HttpUrl.parse(stringUrl) : null;
+        if (url == null) {
+            LOGGER.severe("Error with creating URL " + stringUrl);
+        }
+        return url;
+    }
+
+    /**
+     * Make an HTTP request to the given URL and return the parsed response, or null if the
+     * request failed. The validators, if present, turn the request into a conditional one.
+     * <p>
+     * The request goes through the shared {@link NewsHttpClient}, so it reuses a pooled
+     * connection when there is one, and its {@link RequestTiming} is reported when it's done.
+     */
+    private static NewsResponse makeHttpRequest(HttpUrl url, final String eTag,
+                                                final String lastModified,
+                                                final CancellationToken cancellation) {
+        NewsResponse response = null;
+
+        // If the URL is null, or the request is no longer needed, then return early.
+        if (url == null || cancellation.isCanceled()) {
+            return response;
+        }
+
+        // The client asks for gzip and decompresses the response by itself
+        Request.Builder requestBuilder = newRequest(url);
+        if (eTag != null) {
+            requestBuilder.header("If-None-Match", eTag);
+        }
+        if (lastModified != null) {
+            requestBuilder.header("If-Modified-Since", lastModified);
+        }
+
+        try {
+            Metrics.increment("http.requests");
+            final long httpStart = Metrics.start();
+            response = execute(requestBuilder.build(), cancellation,
+                    new ResponseHandler<NewsResponse>() {
+                        @Override
+                        public NewsResponse handle(Response httpResponse) throws IOException {
+                            Metrics.HTTP.recordSince(httpStart);
+                            return readNewsResponse(httpResponse, eTag, lastModified,
+                                    cancellation);
+                        }
+                    });
+        } catch (IOException e) {
+            if (cancellation.isCanceled()) {
+                Metrics.increment("http.canceled");
+                LOGGER.fine("Request canceled: " + url);
+            } else {
+                Metrics.increment("http.errors");
+                LOGGER.log(Level.SEVERE, "Problem retrieving the news JSON results.", e);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Return the response to a news request, parsed straight off the input stream.
+     */
+    private static NewsResponse readNewsResponse(Response httpResponse, String eTag,
+                                                 String lastModified,
+                                                 CancellationToken cancellation)
+            throws IOException {
+        int responseCode = httpResponse.code();
+        if (responseCode == HttpURLConnection.HTTP_OK) {
+            // If the request was successful (response code 200),
+            // then parse the response straight off the input stream.
+            List<News> news = parseBody(httpResponse.body().byteStream(), cancellation);
+            return new NewsResponse(news, httpResponse.header("ETag"),
+                    httpResponse.header("Last-Modified"), false);
+        } else if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            Metrics.increment("http.not_modified");
+            // The caller's copy is still current, keep its validators unless new ones
+            // were sent along
+            String newETag = httpResponse.header("ETag");
+            String newLastModified = httpResponse.header("Last-Modified");
+            return new NewsResponse(null,
+                    newETag != null ? newETag : eTag,
+                    newLastModified != null ? newLastModified : lastModified, true);
+        }
+        Metrics.increment("http.errors");
+        LOGGER.severe("Error response code: " + responseCode);
+        return new NewsResponse(responseCode, retryAfterMillis(httpResponse));
+    }
+
+    /**
+     * Return the file holding the image with the given URL, downloading it into the given
+     * cache if it isn't there yet.
+     *
+     * @throws IOException if the download failed or was cancelled.
+     */
+    public static File fetchImage(final String stringUrl, final ImageDiskCache cache,
+                                  CancellationToken cancellation) throws IOException {
+        File file = cache.get(stringUrl);
+        if (file != null) {
+            Metrics.increment("image.disk_hits");
+            return file;
+        }
+
+        HttpUrl url = createUrl(stringUrl);
+        if (url == null) {
+            throw new IOException("Invalid image URL " + stringUrl);
+        }
+        cancellation.throwIfCanceled();
+
+        Metrics.increment("image.downloads");
+        return execute(newRequest(url).build(), cancellation, new ResponseHandler<File>() {
+            @Override
+            public File handle(Response httpResponse) throws IOException {
+                if (httpResponse.code() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Error response code " + httpResponse.code()
+                            + " for " + stringUrl);
+                }
+                return cache.put(stringUrl, httpResponse.body().byteStream());
+            }
+        });
+    }
+
+    /**
+     * Fetch the HTML body of the article at the given item URL, requested with
+     * "show-fields=body". Only the body field is decoded, see
+     * {@link NewsJsonParser#parseArticleBody}. Called through {@link RetryingFetcher}.
+     *
+     * @return the response, which has no body if the request failed or was cancelled.
+     */
+    public static NewsResponse fetchArticleBodyResponse(String stringUrl,
+                                                        CancellationToken cancellation) {
+        try {
+            return requestArticleBody(stringUrl, cancellation);
+        } catch (IOException e) {
+            if (!cancellation.isCanceled()) {
+                LOGGER.log(Level.SEVERE, "Problem retrieving the article body.", e);
+            }
+            return new NewsResponse((String) null);
+        }
+    }
+
+    /**
+     * Request the body of an article, and return it, or the status of the error response.
+     *
+     * @throws IOException if the request failed without a response or was cancelled.
+     */
+    private static NewsResponse requestArticleBody(String stringUrl,
+                                                   CancellationToken cancellation)
+            throws IOException {
+        HttpUrl url = createUrl(stringUrl);
+        if (url == null) {
+            throw new IOException("Invalid article URL " + stringUrl);
+        }
+        cancellation.throwIfCanceled();
+
+        Metrics.increment("body.downloads");
+        return execute(newRequest(url).build(), cancellation,
+                new ResponseHandler<NewsResponse>() {
+                    @Override
+                    public NewsResponse handle(Response httpResponse) throws IOException {
+                        if (httpResponse.code() != HttpURLConnection.HTTP_OK) {
+                            return new NewsResponse(httpResponse.code(),
+                                    retryAfterMillis(httpResponse));
+                        }
+                        return new NewsResponse(NewsJsonParser.parseArticleBody(
+                                httpResponse.body().byteStream()));
+                    }
+                });
+    }
+
+    /**
+     * Reads the response of a call made by {@link #execute}, which closes it afterwards.
+     */
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    /**
+     * Return a GET request to the given URL, tagged with the {@link RequestTiming} it records
+     * its phases into.
+     */
+    private static Request.Builder newRequest(HttpUrl url) {
+        return new Request.Builder()
+                .url(url)
+                .tag(RequestTiming.class, new RequestTiming(url.toString()));
+    }
+
+    /**
+     * Execute the given request through the shared {@link NewsHttpClient} and return what the
+     * handler reads from the response. The call is cancelled along with the given token.
+     *
+     * @throws IOException if the request failed without a response, was cancelled, or the
+     *                     handler failed.
+     */
+    private static <T> T execute(Request request, CancellationToken cancellation,
+                                 ResponseHandler<T> handler) throws IOException {
+        final Call call = NewsHttpClient.getInstance().getClient().newCall(request);
+
+        // Canceling the call from the cancelling thread makes a blocked connect or read throw
+        CancellationToken.OnCancelListener cancelCall = new CancellationToken.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                call.cancel();
+            }
+        };
+        cancellation.addOnCancelListener(cancelCall);
+        Response httpResponse = null;
+        try {
+            httpResponse = call.execute();
+            return handler.handle(httpResponse);
+        } finally {
+            cancellation.removeOnCancelListener(cancelCall);
+            // Closing the response hands the connection back to the pool instead of
+            // disconnecting it, so the next request can reuse it
+            if (httpResponse != null) {
+                httpResponse.close();
+            }
+        }
+    }
+
+    /**
+     * Return the delay asked for by the Retry-After header of the given response, which holds
+     * either a number of seconds or a date, or -1 if there is none.
+     */
+    static long retryAfterMillis(Response response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * Parse a response body as it streams in. When metrics are enabled, the time spent waiting
+     * for the body and the time spent parsing it are recorded separately.
+     */
+    private static List<News> parseBody(InputStream body, CancellationToken cancellation)
+            throws IOException {
+        long parseStart = Metrics.start();
+        if (parseStart == 0) {
+            return NewsJsonParser.parseNews(body, cancellation);
+        }
+
+        TimedInputStream timedBody = new TimedInputStream(body);
+        List<News> news = NewsJsonParser.parseNews(timedBody, cancellation);
+        long blockedNanos = timedBody.getBlockedNanos();
+        Metrics.READ.recordNanos(blockedNanos);
+        Metrics.PARSE.recordNanos(System.nanoTime() - parseStart - blockedNanos);
+        Metrics.add("http.body_bytes", timedBody.getByteCount());
+        if (news != null) {
+            Metrics.add("parse.articles", news.size());
+        }
+        return news;
+    }
+
+    /**
+     * Convert the {@link InputStream} into a String which contains the
+     * whole JSON response from the server.
+     * <p>
+     * Only used by the tree based parser, which is kept as a reference for
+     * {@link NewsJsonParser} in tests and benchmarks.
+     */
+    static String readFromStream(InputStream inputStream) throws IOException {
+        StringBuilder output = new StringBuilder();
+        if (inputStream != null) {
+            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+            BufferedReader reader = new BufferedReader(inputStreamReader);
+            String line = reader.readLine();
+            while (line != null) {
+                output.append(line);
+                line = reader.readLine();
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Return a list of {@link News} objects by building a JSON tree out of the
+     * input news JSON string.
+     * <p>
+     * Network responses are parsed with {@link NewsJsonParser} instead, this method is kept as a
+     * reference for tests and benchmarks.
+     */
+    static List<News> extractNewsInfoFromJson(String newsJSON) {
+
+        // If the JSON string is empty or null, then return early.
+        if (newsJSON == null || newsJSON.isEmpty()) {
+            return null;
+        }
+
+        // Create an empty ArrayList that we can start adding news to
+        List<News> news = new ArrayList<News>();
+
+        // Try to parse the JSON response string. If there's a problem with the way the JSON
+        // is formatted, a JSONException exception object will be thrown.
+        // Catch the exception so the app doesn't crash, and print the error message to the logs.
+        try {
+            // Create a JSONObject from the JSON response string
+            JSONObject baseJsonResponse = new JSONObject(newsJSON);
+
+            // Look into the JSON object with key "response"
+            JSONObject responseObject = baseJsonResponse.getJSONObject("response");
+
+            // Extract the JSONArray associated with the key called "results",
+            // which represents a list of results (or news articles).
+            JSONArray resultsArray = responseObject.getJSONArray("results");
+
+            // If the results array is not empty
+            if (resultsArray.length() > 0) {
+                // For each news article in the results Array, create a {@link News} object
+                for (int i = 0; i < resultsArray.length(); i++) {
+                    // Get a single news article at position i within the list of news
+                    JSONObject currentNews = resultsArray.getJSONObject(i);
+
+                    // Extract the news article's title
+                    String title = currentNews.optString("webTitle");
+
+                    // Extract the news article's section
+                    String section = currentNews.optString("sectionName");
+
+                    // Extract the news article's publication date
+                    String publicationDate = currentNews.optString("webPublicationDate");
+
+                    // Extract the news article's website URL
+                    String articleUrl = currentNews.optString("webUrl");
+
+                    // Create a new {@link News} object with the title, subtitle, authors,
+                    // publisher, publishedDate and newsPreviewUrl from the JSON response.
+                    News newsArticle = new News(title, section, publicationDate, articleUrl);
+
+                    // Add the new {@link News} to the list of news.
+                    news.add(newsArticle);
+                }
+            }
+
+        } catch (JSONException e) {
+            // If an error is thrown when executing any of the above statements in the "try" block,
+            // catch the exception here, so the app doesn't crash. Print a log message
+            // with the message from the exception.
+            LOGGER.log(Level.SEVERE, "Problem parsing the news JSON results", e);
+        }
+
+        // Return the list of news articles
+        return news;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.android.newsapp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shares the result of a request between all callers asking for the same key while it is
+ * running, so identical requests are only performed once.
+ * <p>
+ * The first caller performs the request on its own thread, the others wait for its result.
+ * Each caller passes its own {@link CancellationToken}. A caller that is cancelled stops
+ * waiting right away, and the request itself is only cancelled once all of its callers were.
+ */
+public class RequestCoalescer<T> {
+
+    /**
+     * Performs the request. It should stop early, and may return anything, once the given
+     * token is cancelled.
+     */
+    public interface Request<T> {
+        T execute(CancellationToken cancellation);
+    }
+
+    /**
+     * A request in flight and the callers waiting for it
+     */
+    private static class Call<T> {
+        final CancellationToken mCancellation = new CancellationToken();
+        int mCallers;
+        boolean mDone;
+        T mResult;
+    }
+
+    /**
+     * Requests in flight by key. Also the lock for all calls and what waiting callers wait on.
+     */
+    private final Map<String, Call<T>> mCalls = new HashMap<String, Call<T>>();
+
+    /**
+     * Perform the request, or wait for the identical one in flight, and return its result.
+     *
+     * @param key          identifies identical requests, e.g. the request URL.
+     * @param request      performs the request if none is in flight for the key.
+     * @param cancellation is the caller's token.
+     * @return the result, or null if the caller was cancelled or interrupted.
+     */
+    public T execute(final String key, Request<T> request, CancellationToken cancellation) {
+        final Call<T> call;
+        boolean first;
+        synchronized (mCalls) {
+            Call<T> inFlight = mCalls.get(key);
+            first = inFlight == null;
+            call = first ? new Call<T>() : inFlight;
+            if (first) {
+                mCalls.put(key, call);
+            }
+            call.mCallers++;
+        }
+
+        // A caller leaves at most once, whether it is cancelled or interrupted
+        final AtomicBoolean left = new AtomicBoolean();
+        CancellationToken.OnCancelListener listener = new CancellationToken.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                if (left.compareAndSet(false, true)) {
+                    leave(key, call);
+                }
+            }
+        };
+        cancellation.addOnCancelListener(listener);
+        try {
+            if (first) {
+                // Keep going even if this caller is cancelled, as long as others still wait
+                T result = null;
+                try {
+                    result = request.execute(call.mCancellation);
+                } finally {
+                    finish(key, call, result);
+                }
+            } else if (!await(call, cancellation)) {
+                listener.onCancel();
+                return null;
+            }
+
+            synchronized (mCalls) {
+                return cancellation.isCanceled() ? null : call.mResult;
+            }
+        } finally {
+            cancellation.removeOnCancelListener(listener);
+        }
+    }
+
+    /**
+     * Return the number of requests in flight.
+     */
+    int getInFlightCount() {
+        synchronized (mCalls) {
+            return mCalls.size();
+        }
+    }
+
+    /**
+     * Wait until the call is done, or the caller was cancelled. Returns false if the thread
+     * was interrupted, leaving the interrupt flag set.
+     */
+    private boolean await(Call<T> call, CancellationToken cancellation) {
+        synchronized (mCalls) {
+            while (!call.mDone && !cancellation.isCanceled()) {
+                try {
+                    mCalls.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void finish(String key, Call<T> call, T result) {
+        synchronized (mCalls) {
+            call.mResult = result;
+            call.mDone = true;
+            if (mCalls.get(key) == call) {
+                mCalls.remove(key);
+            }
+            mCalls.notifyAll();
+        }
+    }
+
+    /**
+     * Called when a caller stops waiting. Cancels the request once nobody waits for it anymore.
+     */
+    private void leave(String key, Call<T> call) {
+        synchronized (mCalls) {
+            if (call.mDone) {
+                return;
+            }
+            call.mCallers--;
+            // Wake up the caller that left
+            mCalls.notifyAll();
+            if (call.mCallers > 0) {
+                return;
+            }
+            // Callers arriving from now on start a new request
+            if (mCalls.get(key) == call) {
+                mCalls.remove(key);
+            }
+        }
+        call.mCancellation.cancel();
+    }
+}
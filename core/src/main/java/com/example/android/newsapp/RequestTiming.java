@@ -0,0 +1,122 @@
+package com.example.android.newsapp;
+
+/**
+ * Breakdown of the time spent on one HTTP request, recorded by {@link NewsHttpClient}.
+ * <p>
+ * Every phase is measured in milliseconds, and is -1 if it didn't happen during the request.
+ * A request on a reused connection has no DNS, connect or TLS phase at all, which makes this
+ * the easiest way to check the connection pool is doing its job.
+ */
+public class RequestTiming {
+
+    /**
+     * Notified each time a request finishes, successfully or not.
+     */
+    public interface Listener {
+        void onRequestFinished(RequestTiming timing);
+    }
+
+    private final String mUrl;
+
+    /**
+     * Start and end of each phase, in {@link System#nanoTime()} units, or 0 if it didn't happen
+     */
+    long mCallStartNanos;
+    long mDnsStartNanos;
+    long mDnsEndNanos;
+    long mConnectStartNanos;
+    long mConnectEndNanos;
+    long mSecureConnectStartNanos;
+    long mSecureConnectEndNanos;
+    long mRequestStartNanos;
+    long mResponseHeadersEndNanos;
+    long mResponseBodyStartNanos;
+    long mResponseBodyEndNanos;
+    long mCallEndNanos;
+
+    /**
+     * Protocol negotiated for the connection, like "http/1.1" or "h2"
+     */
+    String mProtocol;
+
+    boolean mConnectionReused;
+
+    boolean mFailed;
+
+    RequestTiming(String url) {
+        mUrl = url;
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    public long getDnsMillis() {
+        return millisBetween(mDnsStartNanos, mDnsEndNanos);
+    }
+
+    /**
+     * Return the time taken to open the connection, including the TLS handshake if any.
+     */
+    public long getConnectMillis() {
+        return millisBetween(mConnectStartNanos, mConnectEndNanos);
+    }
+
+    public long getTlsMillis() {
+        return millisBetween(mSecureConnectStartNanos, mSecureConnectEndNanos);
+    }
+
+    /**
+     * Return the time between sending the request and receiving the response headers.
+     */
+    public long getTimeToFirstByteMillis() {
+        return millisBetween(mRequestStartNanos, mResponseHeadersEndNanos);
+    }
+
+    /**
+     * Return the time taken to read the response body. The body is parsed as it streams in,
+     * so this includes the parsing.
+     */
+    public long getBodyMillis() {
+        return millisBetween(mResponseBodyStartNanos, mResponseBodyEndNanos);
+    }
+
+    public long getTotalMillis() {
+        return millisBetween(mCallStartNanos, mCallEndNanos);
+    }
+
+    public String getProtocol() {
+        return mProtocol;
+    }
+
+    /**
+     * Return true if the request was sent on a pooled connection opened by an earlier one.
+     */
+    public boolean isConnectionReused() {
+        return mConnectionReused;
+    }
+
+    public boolean isFailed() {
+        return mFailed;
+    }
+
+    private static long millisBetween(long startNanos, long endNanos) {
+        if (startNanos == 0 || endNanos == 0) {
+            return -1;
+        }
+        return (endNanos - startNanos) / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        return mUrl + (mFailed ? " failed" : "")
+                + ": dns " + getDnsMillis()
+                + " ms, connect " + getConnectMillis()
+                + " ms, tls " + getTlsMillis()
+                + " ms, ttfb " + getTimeToFirstByteMillis()
+                + " ms, body " + getBodyMillis()
+                + " ms, total " + getTotalMillis()
+                + " ms, " + (mConnectionReused ? "reused" : "new") + " connection"
+                + (mProtocol != null ? ", " + mProtocol : "");
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.android.newsapp;
+
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Fetches news with {@link QueryUtils#fetchNewsData(String, String, String, CancellationToken)},
+ * and article bodies with {@link QueryUtils#fetchArticleBodyResponse}, retrying requests that
+ * failed in a way that may go away by itself.
+ * <p>
+ * Retries wait with capped exponential backoff and "full jitter": a random delay between 0 and
+ * the base delay doubled on each attempt, so clients that failed together don't retry together.
+ * A Retry-After from the server, as sent with 429 Too Many Requests, is used instead when given.
+ * Requests are only ever GETs, so they are safe to repeat.
+ * <p>
+ * All requests go through a {@link CircuitBreaker}. While it is open, requests fail right away
+ * without touching the network, and the caller serves whatever stale data it has.
+ */
+public class RetryingFetcher {
+
+    /**
+     * Logger for the log messages. On Android, java.util.logging messages end up in logcat.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RetryingFetcher.class.getName());
+
+    /**
+     * Sends a single request. Replaced in tests.
+     */
+    public interface Transport {
+        NewsResponse fetch(String url, String eTag, String lastModified,
+                           CancellationToken cancellation);
+
+        NewsResponse fetchBody(String url, CancellationToken cancellation);
+    }
+
+    private static final Transport QUERY_UTILS_TRANSPORT = new Transport() {
+        @Override
+        public NewsResponse fetch(String url, String eTag, String lastModified,
+                                  CancellationToken cancellation) {
+            return QueryUtils.fetchNewsData(url, eTag, lastModified, cancellation);
+        }
+
+        @Override
+        public NewsResponse fetchBody(String url, CancellationToken cancellation) {
+            return QueryUtils.fetchArticleBodyResponse(url, cancellation);
+        }
+    };
+
+    /**
+     * A single attempt of a request.
+     */
+    private interface Attempt {
+        NewsResponse send();
+    }
+
+    private final Transport mTransport;
+    private final CircuitBreaker mCircuitBreaker;
+    private final Random mRandom;
+    private final int mMaxAttempts;
+    private final long mBaseDelayMillis;
+    private final long mMaxDelayMillis;
+
+    /**
+     * Constructs a new {@link RetryingFetcher} sending requests with {@link QueryUtils}.
+     *
+     * @param circuitBreaker  guards the server the requests go to.
+     * @param maxAttempts     is the number of times a request is sent at most.
+     * @param baseDelayMillis is the backoff before the first retry, doubled for each next one.
+     * @param maxDelayMillis  is the longest wait between attempts. A request the server asks to
+     *                        wait longer for is not retried.
+     */
+    public RetryingFetcher(CircuitBreaker circuitBreaker, int maxAttempts,
+                           long baseDelayMillis, long maxDelayMillis) {
+        this(QUERY_UTILS_TRANSPORT, circuitBreaker, new Random(), maxAttempts,
+                baseDelayMillis, maxDelayMillis);
+    }
+
+    RetryingFetcher(Transport transport, CircuitBreaker circuitBreaker, Random random,
+                    int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        mTransport = transport;
+        mCircuitBreaker = circuitBreaker;
+        mRandom = random;
+        mMaxAttempts = maxAttempts;
+        mBaseDelayMillis = baseDelayMillis;
+        mMaxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Fetch the given URL like {@link QueryUtils#fetchNewsData(String, String, String,
+     * CancellationToken)}, retrying failures until the attempts run out, the request is
+     * cancelled, or the circuit breaker opens.
+     *
+     * @return the last response, which has no news if every attempt failed.
+     */
+    public NewsResponse fetch(final String url, final String eTag, final String lastModified,
+                              final CancellationToken cancellation) {
+        return fetch(url, new Attempt() {
+            @Override
+            public NewsResponse send() {
+                return mTransport.fetch(url, eTag, lastModified, cancellation);
+            }
+        }, cancellation);
+    }
+
+    /**
+     * Fetch the body of an article like {@link QueryUtils#fetchArticleBodyResponse}, retrying
+     * like {@link #fetch(String, String, String, CancellationToken)}.
+     *
+     * @return the last response, which has no body if every attempt failed.
+     */
+    public NewsResponse fetchBody(final String url, final CancellationToken cancellation) {
+        return fetch(url, new Attempt() {
+            @Override
+            public NewsResponse send() {
+                return mTransport.fetchBody(url, cancellation);
+            }
+        }, cancellation);
+    }
+
+    private NewsResponse fetch(String url, Attempt request, CancellationToken cancellation) {
+        NewsResponse response = null;
+        for (int attempt = 0; attempt < mMaxAttempts; attempt++) {
+            if (!mCircuitBreaker.allowRequest()) {
+                Metrics.increment("http.short_circuited");
+                LOGGER.fine("Circuit open, not requesting " + url);
+                return response != null ? response : new NewsResponse(NewsResponse.NO_STATUS, -1);
+            }
+
+            response = request.send();
+            if (response.isSuccessful()) {
+                mCircuitBreaker.onSuccess();
+                return response;
+            }
+            if (cancellation.isCanceled()) {
+                mCircuitBreaker.onAbandoned();
+                return response;
+            }
+            if (!response.isRetryable()) {
+                // The server answered, it just won't serve this request
+                mCircuitBreaker.onSuccess();
+                return response;
+            }
+            mCircuitBreaker.onFailure(response.getRetryAfterMillis());
+
+            if (attempt + 1 < mMaxAttempts) {
+                long delayMillis = retryDelayMillis(attempt, response.getRetryAfterMillis());
+                if (delayMillis > mMaxDelayMillis) {
+                    LOGGER.fine("Not retrying " + url + ", asked to wait " + delayMillis + " ms");
+                    return response;
+                }
+                Metrics.increment("http.retries");
+                if (!cancellation.sleep(delayMillis)) {
+                    return response;
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Return the time to wait before retrying after the given attempt, counted from 0.
+     */
+    long retryDelayMillis(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis >= 0) {
+            return retryAfterMillis;
+        }
+        // Double the base delay for each attempt, without overflowing
+        long ceiling = mBaseDelayMillis;
+        for (int i = 0; i < attempt && ceiling < mMaxDelayMillis; i++) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, mMaxDelayMillis);
+        return (long) (mRandom.nextDouble() * (ceiling + 1));
+    }
+}
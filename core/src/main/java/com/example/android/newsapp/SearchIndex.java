@@ -0,0 +1,795 @@
+package com.example.android.newsapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Full-text inverted index over the articles seen by the app.
+ * <p>
+ * Titles, section names and, when available, body text are split into lower case terms with
+ * accents removed. Each term maps to the list of articles containing it, with a weight that
+ * favours matches in the title over the section and the body. Articles are added as they are
+ * received, and an article received again with new text replaces its previous version.
+ * <p>
+ * A query matches the articles containing all of its terms. The last term also matches as a
+ * prefix, unless the query ends with a space, so results can follow typing. Matches are ranked
+ * by a BM25-like score, rarer terms counting more, and then by publication date.
+ * <p>
+ * The index is safe to use from several threads: queries run in parallel, and adding articles
+ * blocks them. It is saved to a single file, which holds the term lists themselves, so loading
+ * it doesn't tokenize anything again.
+ */
+public class SearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+
+    /**
+     * Marker and version at the start of the index file, so stale formats are ignored
+     */
+    private static final int MAGIC = 0x4e575349;
+    static final int VERSION = 1;
+
+    /**
+     * Weight of each occurrence of a term, by field
+     */
+    private static final int TITLE_WEIGHT = 4;
+    private static final int SECTION_WEIGHT = 2;
+    private static final int BODY_WEIGHT = 1;
+
+    /**
+     * Saturation of the term weight in the score: a term found many times only counts a bit
+     * more than a term found once
+     */
+    private static final float WEIGHT_SATURATION = 1.2f;
+
+    /**
+     * Score factor for terms only matching the last query term as a prefix, so exact matches
+     * rank first
+     */
+    private static final float PREFIX_MATCH_FACTOR = 0.7f;
+
+    /**
+     * Terms shorter than this are not indexed, except as the prefix being typed
+     */
+    private static final int MIN_TERM_LENGTH = 2;
+
+    /**
+     * Articles by document ID. IDs are given out in increasing order, so term lists stay sorted.
+     */
+    private final List<News> mDocuments = new ArrayList<News>();
+
+    /**
+     * Latest document ID of each article, by URL
+     */
+    private final ArticleUrlMap mDocumentIdsByUrl = new ArticleUrlMap(0);
+
+    /**
+     * Documents replaced by a newer version of the same article, dropped when the index is saved
+     */
+    private final BitSet mDeleted = new BitSet();
+
+    /**
+     * Term lists by term, sorted so prefix queries are a range lookup
+     */
+    private final TreeMap<String, Postings> mTerms = new TreeMap<String, Postings>();
+
+    private final ReadWriteLock mLock = new ReentrantReadWriteLock();
+
+    /**
+     * Held while the index is saved or written, so saves run one at a time
+     */
+    private final Object mSaveLock = new Object();
+
+    /**
+     * File the index is saved to, or null if it is only kept in memory
+     */
+    private final File mFile;
+
+    private boolean mDirty;
+
+    /**
+     * Time of the last save started by {@link #saveIfDue}
+     */
+    private long mLastSaveMillis;
+
+    /**
+     * Constructs a new, empty {@link SearchIndex}.
+     *
+     * @param file is the file {@link #saveIfDirty()} writes to, or null.
+     */
+    public SearchIndex(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Return the index saved in the given file, or an empty one if there is none or it can't be
+     * read.
+     */
+    public static SearchIndex load(File file) {
+        SearchIndex index = new SearchIndex(file);
+        if (!file.exists()) {
+            return index;
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            index.readFrom(in);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Discarding unreadable search index " + file, e);
+            index = new SearchIndex(file);
+        } finally {
+            closeQuietly(in);
+        }
+        return index;
+    }
+
+    /**
+     * Add an article to the index, using its title and section.
+     */
+    public void add(News news) {
+        add(news, null);
+    }
+
+    /**
+     * Add an article to the index, replacing the previous version of it if its text changed.
+     *
+     * @param bodyText is the article's body as plain text, or null if it isn't known.
+     */
+    public void add(News news, String bodyText) {
+        mLock.writeLock().lock();
+        try {
+            addLocked(news, bodyText);
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add the body of an article already in the index, e.g. once it was loaded for the reader,
+     * so its text matches too.
+     *
+     * @param articleUrl is the web URL of the article.
+     * @param bodyHtml   is the article's body as HTML.
+     * @return false if the article isn't in the index.
+     */
+    public boolean addBody(String articleUrl, String bodyHtml) {
+        mLock.writeLock().lock();
+        try {
+            int id = mDocumentIdsByUrl.get(articleUrl);
+            if (id == ArticleUrlMap.NOT_FOUND || mDeleted.get(id)) {
+                return false;
+            }
+            addLocked(mDocuments.get(id), htmlToText(bodyHtml));
+            return true;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add all the given articles, using their titles and sections.
+     */
+    public void addAll(List<News> news) {
+        mLock.writeLock().lock();
+        try {
+            for (News article : news) {
+                addLocked(article, null);
+            }
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(News news, String bodyText) {
+        int previousId = mDocumentIdsByUrl.get(news);
+        if (previousId != ArticleUrlMap.NOT_FOUND) {
+            News previous = mDocuments.get(previousId);
+            if (bodyText == null && equal(previous.getTitle(), news.getTitle())
+                    && equal(previous.getSection(), news.getSection())) {
+                return;
+            }
+            mDeleted.set(previousId);
+        }
+
+        // Sum the weights of each term over all fields, then append the document to the term
+        // lists in one go
+        Map<String, Integer> weights = new HashMap<String, Integer>();
+        addTerms(weights, news.getTitle(), TITLE_WEIGHT);
+        addTerms(weights, news.getSection(), SECTION_WEIGHT);
+        addTerms(weights, bodyText, BODY_WEIGHT);
+
+        int id = mDocuments.size();
+        mDocuments.add(news);
+        mDocumentIdsByUrl.put(news, id);
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            Postings postings = mTerms.get(weight.getKey());
+            if (postings == null) {
+                postings = new Postings(1);
+                mTerms.put(weight.getKey(), postings);
+            }
+            postings.add(id, weight.getValue());
+        }
+        mDirty = true;
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int fieldWeight) {
+        for (String term : tokenize(text)) {
+            if (term.length() < MIN_TERM_LENGTH) {
+                continue;
+            }
+            Integer weight = weights.get(term);
+            weights.put(term, weight == null ? fieldWeight : weight + fieldWeight);
+        }
+    }
+
+    /**
+     * Remove the articles published before the given time, e.g. once they were dropped from
+     * the store. Articles with an unknown date are removed too. They are only dropped from the
+     * file by the next save.
+     *
+     * @return the number of articles removed.
+     */
+    public int removePublishedBefore(long millis) {
+        mLock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int id = mDeleted.nextClearBit(0); id < mDocuments.size();
+                 id = mDeleted.nextClearBit(id + 1)) {
+                if (mDocuments.get(id).getPublishedAtMillis() < millis) {
+                    mDeleted.set(id);
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                mDirty = true;
+            }
+            return removed;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return the best matches for the given query, best first.
+     *
+     * @param limit is the maximum number of articles to return.
+     */
+    public List<News> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        // The last term is still being typed unless the query ends with a space
+        boolean lastIsPrefix = !query.isEmpty()
+                && !Character.isWhitespace(query.charAt(query.length() - 1));
+        int lastIndex = terms.size() - 1;
+        for (int i = lastIndex; i >= 0; i--) {
+            if (terms.get(i).length() < MIN_TERM_LENGTH && !(lastIsPrefix && i == lastIndex)) {
+                terms.remove(i);
+                lastIndex--;
+            }
+        }
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        mLock.readLock().lock();
+        try {
+            return searchLocked(terms, lastIsPrefix, limit);
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    private List<News> searchLocked(List<String> terms, boolean lastIsPrefix, int limit) {
+        int documentCount = mDocuments.size();
+        float liveCount = documentCount - mDeleted.cardinality();
+        final float[] scores = new float[documentCount];
+        // Number of query terms each document matched so far. Documents that missed a term
+        // fall behind and are never counted again.
+        int[] matched = new int[documentCount];
+
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            Map<String, Postings> matches;
+            if (lastIsPrefix && i == terms.size() - 1) {
+                matches = mTerms.subMap(term, term + Character.MAX_VALUE);
+            } else {
+                Postings postings = mTerms.get(term);
+                matches = postings != null
+                        ? Collections.singletonMap(term, postings)
+                        : Collections.<String, Postings>emptyMap();
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            for (Map.Entry<String, Postings> match : matches.entrySet()) {
+                Postings postings = match.getValue();
+                float idf = (float) Math.log(1 + liveCount / postings.mSize);
+                if (!match.getKey().equals(term)) {
+                    idf *= PREFIX_MATCH_FACTOR;
+                }
+                for (int j = 0; j < postings.mSize; j++) {
+                    int id = postings.mDocumentIds[j];
+                    if (matched[id] == i) {
+                        matched[id] = i + 1;
+                    } else if (matched[id] != i + 1) {
+                        continue;
+                    }
+                    float weight = postings.mWeights[j];
+                    scores[id] += idf * weight * (WEIGHT_SATURATION + 1)
+                            / (weight + WEIGHT_SATURATION);
+                }
+            }
+        }
+
+        // Keep the best matches in a heap with the worst one on top
+        Comparator<Integer> worstFirst = new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                int byScore = Float.compare(scores[first], scores[second]);
+                if (byScore != 0) {
+                    return byScore;
+                }
+                long firstMillis = mDocuments.get(first).getPublishedAtMillis();
+                long secondMillis = mDocuments.get(second).getPublishedAtMillis();
+                return firstMillis < secondMillis ? -1 : (firstMillis > secondMillis ? 1 : 0);
+            }
+        };
+        PriorityQueue<Integer> best = new PriorityQueue<Integer>(limit + 1, worstFirst);
+        int termCount = terms.size();
+        for (int id = 0; id < documentCount; id++) {
+            if (matched[id] != termCount || mDeleted.get(id)) {
+                continue;
+            }
+            best.add(id);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        News[] results = new News[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = mDocuments.get(best.poll());
+        }
+        List<News> news = new ArrayList<News>(results.length);
+        Collections.addAll(news, results);
+        return news;
+    }
+
+    /**
+     * Return the number of articles in the index.
+     */
+    public int size() {
+        mLock.readLock().lock();
+        try {
+            return mDocuments.size() - mDeleted.cardinality();
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Return the number of distinct terms in the index.
+     */
+    public int getTermCount() {
+        mLock.readLock().lock();
+        try {
+            return mTerms.size();
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Save the index like {@link #saveIfDirty()}, unless the last save by this method was less
+     * than the given time ago. Each save rewrites the whole file, so loads adding a few
+     * articles at a time are saved together; the articles added in between are kept in memory
+     * until the next save.
+     *
+     * @param nowMillis         is the current time in milliseconds.
+     * @param minIntervalMillis is the shortest time between two saves.
+     */
+    public void saveIfDue(long nowMillis, long minIntervalMillis) {
+        synchronized (this) {
+            if (mLastSaveMillis != 0 && nowMillis - mLastSaveMillis < minIntervalMillis) {
+                return;
+            }
+            mLastSaveMillis = nowMillis;
+        }
+        saveIfDirty();
+    }
+
+    /**
+     * Save the index to its file if articles were added or removed since it was loaded or last
+     * saved. Searches and additions only wait while the index is compacted and copied, not
+     * while the copy is written.
+     */
+    public void saveIfDirty() {
+        if (mFile == null) {
+            return;
+        }
+        synchronized (mSaveLock) {
+            Snapshot snapshot = takeSnapshot(true);
+            if (snapshot == null) {
+                return;
+            }
+            // Write to a temporary file first so a crash never leaves a half written index
+            File temporary = new File(mFile.getPath() + ".tmp");
+            OutputStream out = null;
+            try {
+                out = new BufferedOutputStream(new FileOutputStream(temporary));
+                snapshot.writeTo(out);
+                out.close();
+                out = null;
+                if (!temporary.renameTo(mFile)) {
+                    throw new IOException("Unable to rename " + temporary);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Problem saving the search index.", e);
+                temporary.delete();
+                // Saved again by the next save
+                mLock.writeLock().lock();
+                mDirty = true;
+                mLock.writeLock().unlock();
+            } finally {
+                closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * Write the index to the given stream, and close it.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        synchronized (mSaveLock) {
+            takeSnapshot(false).writeTo(out);
+        }
+    }
+
+    /**
+     * Drop the removed documents, then copy what has to be written under the read lock. Must
+     * be called while holding {@link #mSaveLock}, so nothing compacts the index while the
+     * copy is written.
+     *
+     * @param onlyIfDirty is true to return null if nothing changed since the last save.
+     */
+    private Snapshot takeSnapshot(boolean onlyIfDirty) {
+        mLock.writeLock().lock();
+        try {
+            if (onlyIfDirty && !mDirty) {
+                return null;
+            }
+            compactLocked();
+            mDirty = false;
+            // Downgraded to the read lock, so searches run while the copy is made
+            mLock.readLock().lock();
+        } finally {
+            mLock.writeLock().unlock();
+        }
+        try {
+            return new Snapshot(mDocuments, mTerms);
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the contents of this index with those written to the given stream, and close it.
+     * The stream should be buffered.
+     */
+    void readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a search index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported search index version " + version);
+        }
+        int documentCount = data.readInt();
+        int termCount = data.readInt();
+        TreeMap<String, Postings> terms = new TreeMap<String, Postings>();
+        for (int t = 0; t < termCount; t++) {
+            String term = data.readUTF();
+            int size = readVarint(data);
+            Postings postings = new Postings(size);
+            int id = 0;
+            for (int i = 0; i < size; i++) {
+                id += readVarint(data);
+                if (id >= documentCount) {
+                    throw new IOException("Invalid document " + id);
+                }
+                postings.add(id, readVarint(data));
+            }
+            terms.put(term, postings);
+        }
+
+        List<News> documents = new NewsCodec.Reader(in).readAll();
+        if (documents.size() != documentCount) {
+            throw new IOException("Expected " + documentCount + " articles, found "
+                    + documents.size());
+        }
+
+        mLock.writeLock().lock();
+        try {
+            mDocuments.clear();
+            mDocumentIdsByUrl.clear();
+            mDeleted.clear();
+            for (int id = 0; id < documents.size(); id++) {
+                mDocuments.add(documents.get(id));
+                mDocumentIdsByUrl.put(documents.get(id), id);
+            }
+            mTerms.clear();
+            mTerms.putAll(terms);
+            mDirty = false;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the replaced documents, renumbering the others.
+     */
+    private void compactLocked() {
+        if (mDeleted.isEmpty()) {
+            return;
+        }
+        int[] newIds = new int[mDocuments.size()];
+        List<News> documents = new ArrayList<News>(mDocuments.size());
+        for (int id = 0; id < mDocuments.size(); id++) {
+            if (mDeleted.get(id)) {
+                newIds[id] = -1;
+            } else {
+                newIds[id] = documents.size();
+                documents.add(mDocuments.get(id));
+            }
+        }
+
+        List<String> emptyTerms = new ArrayList<String>();
+        for (Map.Entry<String, Postings> term : mTerms.entrySet()) {
+            Postings postings = term.getValue();
+            int size = 0;
+            for (int i = 0; i < postings.mSize; i++) {
+                int newId = newIds[postings.mDocumentIds[i]];
+                if (newId >= 0) {
+                    postings.mDocumentIds[size] = newId;
+                    postings.mWeights[size] = postings.mWeights[i];
+                    size++;
+                }
+            }
+            postings.mSize = size;
+            if (size == 0) {
+                emptyTerms.add(term.getKey());
+            }
+        }
+        for (String term : emptyTerms) {
+            mTerms.remove(term);
+        }
+
+        mDocuments.clear();
+        mDocuments.addAll(documents);
+        mDocumentIdsByUrl.clear();
+        for (int id = 0; id < mDocuments.size(); id++) {
+            mDocumentIdsByUrl.put(mDocuments.get(id), id);
+        }
+        mDeleted.clear();
+    }
+
+    /**
+     * Split the given text into lower case terms made of letters and digits, with accents
+     * removed, so "Café" is found by typing "cafe".
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<String>();
+        if (text == null) {
+            return terms;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7f) {
+                text = Normalizer.normalize(text, Normalizer.Form.NFD);
+                break;
+            }
+        }
+
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    /**
+     * Return the text of the given HTML, with tags and character references replaced by spaces,
+     * which is enough to split it into terms.
+     */
+    static String htmlToText(String html) {
+        StringBuilder text = new StringBuilder(html.length());
+        int i = 0;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+            int end = -1;
+            if (c == '<') {
+                end = html.indexOf('>', i);
+            } else if (c == '&') {
+                end = html.indexOf(';', i);
+                // Only a short reference, e.g. "&amp;" or "&#8217;", not a lone ampersand
+                if (end - i > 10) {
+                    end = -1;
+                }
+            }
+            if (end == -1) {
+                text.append(c);
+                i++;
+            } else {
+                text.append(' ');
+                i = end + 1;
+            }
+        }
+        return text.toString();
+    }
+
+    private static boolean equal(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Nothing left to do
+            }
+        }
+    }
+
+    /**
+     * Copy of the documents and term lists of the index at one point in time, written while
+     * articles are added to the index. Articles added later are only appended to the term
+     * lists, past the sizes copied, and term lists are only rewritten in place by compaction,
+     * which doesn't run until the snapshot was written. So only the references and sizes are
+     * copied, not the lists themselves.
+     */
+    private static class Snapshot {
+        final List<News> mDocuments;
+        final String[] mTerms;
+        final Postings[] mPostings;
+
+        Snapshot(List<News> documents, Map<String, Postings> terms) {
+            mDocuments = new ArrayList<News>(documents);
+            mTerms = new String[terms.size()];
+            mPostings = new Postings[terms.size()];
+            int i = 0;
+            for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                mTerms[i] = term.getKey();
+                mPostings[i] = term.getValue().view();
+                i++;
+            }
+        }
+
+        /**
+         * Write the term lists, and then the articles themselves in the {@link NewsCodec}
+         * format, and close the stream. Document IDs are the positions of the articles in the
+         * list.
+         */
+        void writeTo(OutputStream out) throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(mDocuments.size());
+            data.writeInt(mTerms.length);
+            for (int t = 0; t < mTerms.length; t++) {
+                Postings postings = mPostings[t];
+                data.writeUTF(mTerms[t]);
+                writeVarint(data, postings.mSize);
+                int previousId = 0;
+                for (int i = 0; i < postings.mSize; i++) {
+                    // IDs are increasing, so the differences stay small
+                    writeVarint(data, postings.mDocumentIds[i] - previousId);
+                    writeVarint(data, postings.mWeights[i]);
+                    previousId = postings.mDocumentIds[i];
+                }
+            }
+            data.flush();
+
+            NewsCodec.Writer writer = new NewsCodec.Writer(out);
+            for (News news : mDocuments) {
+                writer.write(news);
+            }
+            writer.close();
+        }
+    }
+
+    /**
+     * Documents containing a term, in increasing ID order, with the term's weight in each.
+     */
+    private static class Postings {
+        int[] mDocumentIds;
+        int[] mWeights;
+        int mSize;
+
+        Postings(int capacity) {
+            mDocumentIds = new int[Math.max(capacity, 1)];
+            mWeights = new int[mDocumentIds.length];
+        }
+
+        private Postings(int[] documentIds, int[] weights, int size) {
+            mDocumentIds = documentIds;
+            mWeights = weights;
+            mSize = size;
+        }
+
+        /**
+         * Return the documents added so far, sharing the arrays of this list. Documents added
+         * later don't show up in the view.
+         */
+        Postings view() {
+            return new Postings(mDocumentIds, mWeights, mSize);
+        }
+
+        void add(int documentId, int weight) {
+            if (mSize == mDocumentIds.length) {
+                int capacity = mSize * 2;
+                int[] documentIds = new int[capacity];
+                int[] weights = new int[capacity];
+                System.arraycopy(mDocumentIds, 0, documentIds, 0, mSize);
+                System.arraycopy(mWeights, 0, weights, 0, mSize);
+                mDocumentIds = documentIds;
+                mWeights = weights;
+            }
+            mDocumentIds[mSize] = documentId;
+            mWeights[mSize] = weight;
+            mSize++;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.android.newsapp;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches several news queries, typically one per section, at the same time and merges their
+ * results into a single list ordered by publication date.
+ * <p>
+ * Requests run on a bounded thread pool, with a limit on how many of them go to the same host
+ * at once. The merged list is reported each time a request completes, so the fastest sections
+ * can be shown while the slower ones are still loading. Requests that haven't completed by the
+ * deadline are cancelled and left out of the result.
+ */
+public class SectionFetcher {
+
+    /**
+     * Performs a single request, returning null if it failed.
+     */
+    public interface Source {
+        List<News> fetch(String url);
+    }
+
+    /**
+     * Receives the merged results as requests complete. Called on a background thread.
+     */
+    public interface Listener {
+        /**
+         * @param news      is the merged list of all results received so far.
+         * @param completed is the number of requests that completed, successfully or not.
+         * @param total     is the number of requests.
+         */
+        void onPartialResult(List<News> news, int completed, int total);
+    }
+
+    /**
+     * Orders news by publication date, oldest first.
+     */
+    private static final Comparator<News> BY_PUBLICATION_DATE = new Comparator<News>() {
+        @Override
+        public int compare(News first, News second) {
+            long difference = first.getPublishedAtMillis() - second.getPublishedAtMillis();
+            return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+        }
+    };
+
+    private final ThreadPoolExecutor mExecutor;
+    private final int mMaxRequestsPerHost;
+
+    /**
+     * Permits for concurrent requests, per host name
+     */
+    private final Map<String, Semaphore> mHostPermits = new HashMap<String, Semaphore>();
+
+    /**
+     * Constructs a new {@link SectionFetcher}.
+     *
+     * @param maxThreads         is the number of requests running at the same time.
+     * @param maxRequestsPerHost is the number of requests running against the same host.
+     */
+    public SectionFetcher(int maxThreads, int maxRequestsPerHost) {
+        mMaxRequestsPerHost = maxRequestsPerHost;
+        mExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        "SectionFetcher #" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetch all the given URLs and return their merged results.
+     *
+     * @param urls          are the queries to fetch, one per section.
+     * @param source        performs each request.
+     * @param timeoutMillis is the time after which requests still running are cancelled.
+     * @param listener      is notified each time a request completes, may be null.
+     * @return the merged results ordered by publication date, or null if every request failed.
+     */
+    public List<News> fetch(List<String> urls, final Source source, long timeoutMillis,
+                            Listener listener) {
+        CompletionService<List<News>> completionService =
+                new ExecutorCompletionService<List<News>>(mExecutor);
+        List<Future<List<News>>> futures = new ArrayList<Future<List<News>>>();
+        for (final String url : urls) {
+            final Semaphore permits = getHostPermits(url);
+            futures.add(completionService.submit(new Callable<List<News>>() {
+                @Override
+                public List<News> call() throws Exception {
+                    permits.acquire();
+                    try {
+                        return source.fetch(url);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<News> merged = new ArrayList<News>();
+        boolean anySucceeded = false;
+        try {
+            for (int completed = 1; completed <= urls.size(); completed++) {
+                long remaining = deadline - System.nanoTime();
+                Future<List<News>> future =
+                        completionService.poll(remaining, TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    // Deadline passed, give up on the requests still running
+                    break;
+                }
+
+                List<News> news = getQuietly(future);
+                if (news != null) {
+                    anySucceeded = true;
+                    merged = mergeByPublicationDate(merged, news);
+                }
+                if (listener != null) {
+                    listener.onPartialResult(Collections.unmodifiableList(merged), completed,
+                            urls.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            // Return what was merged so far, but let the caller know it was interrupted
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<List<News>> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return anySucceeded ? merged : null;
+    }
+
+    /**
+     * Return the result of a completed request, or null if it failed.
+     */
+    private static List<News> getQuietly(Future<List<News>> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private synchronized Semaphore getHostPermits(String url) {
+        String host;
+        try {
+            host = new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            // The request will fail on its own, it doesn't matter which permits it takes
+            host = "";
+        }
+
+        Semaphore permits = mHostPermits.get(host);
+        if (permits == null) {
+            permits = new Semaphore(mMaxRequestsPerHost);
+            mHostPermits.put(host, permits);
+        }
+        return permits;
+    }
+
+    /**
+     * Return a new list with the contents of both lists ordered by publication date. The first
+     * list must already be in order, the second one is sorted first.
+     */
+    static List<News> mergeByPublicationDate(List<News> merged, List<News> news) {
+        List<News> sorted = new ArrayList<News>(news);
+        Collections.sort(sorted, BY_PUBLICATION_DATE);
+
+        List<News> result = new ArrayList<News>(merged.size() + sorted.size());
+        int i = 0;
+        int j = 0;
+        while (i < merged.size() && j < sorted.size()) {
+            if (BY_PUBLICATION_DATE.compare(sorted.get(j), merged.get(i)) < 0) {
+                result.add(sorted.get(j++));
+            } else {
+                result.add(merged.get(i++));
+            }
+        }
+        result.addAll(merged.subList(i, merged.size()));
+        result.addAll(sorted.subList(j, sorted.size()));
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the phases of each start of the main screen, by kind of start, into
+ * {@link LatencyHistogram}s reported with the other {@link Metrics}.
+ * <p>
+ * A cold start creates the process for the screen and is timed from the process start. A warm
+ * start creates the screen in a running process, e.g. after it was closed with back, and is
+ * timed from its creation. A hot start brings back a screen that was only stopped, and is timed
+ * from its restart. Each phase is recorded once per start, the first time it is reached:
+ * <ul>
+ * <li>{@link #PHASE_CREATE}: the screen is created, before anything is drawn</li>
+ * <li>{@link #PHASE_FIRST_FRAME}: the first frame is drawn</li>
+ * <li>{@link #PHASE_CONTENT}: articles are shown, from the store, the last result or the
+ * network</li>
+ * </ul>
+ * A hot start only has a first frame, the screen was already created and had its articles.
+ * Times are passed in as {@link System#nanoTime()} values, taken where each event happens.
+ */
+public class StartupTimer {
+
+    public static final int COLD = 0;
+    public static final int WARM = 1;
+    public static final int HOT = 2;
+
+    public static final int PHASE_CREATE = 0;
+    public static final int PHASE_FIRST_FRAME = 1;
+    public static final int PHASE_CONTENT = 2;
+
+    /**
+     * Start type while no start is being timed
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Histogram of each phase of each kind of start, null for the phases it doesn't have
+     */
+    private static final LatencyHistogram[][] HISTOGRAMS = {
+            {new LatencyHistogram("cold_create"), new LatencyHistogram("cold_first_frame"),
+                    new LatencyHistogram("cold_content")},
+            {new LatencyHistogram("warm_create"), new LatencyHistogram("warm_first_frame"),
+                    new LatencyHistogram("warm_content")},
+            {null, new LatencyHistogram("hot_first_frame"), null}
+    };
+
+    /**
+     * Time the process started, until the first start uses it
+     */
+    private long mProcessStartNanos;
+
+    private int mType = NONE;
+    private long mStartNanos;
+
+    /**
+     * Phases of the current start recorded so far, one bit per phase
+     */
+    private int mRecordedPhases;
+
+    /**
+     * Return the histograms of all kinds of start, cold first, each in phase order.
+     */
+    public static LatencyHistogram[] getHistograms() {
+        List<LatencyHistogram> histograms = new ArrayList<LatencyHistogram>();
+        for (LatencyHistogram[] phases : HISTOGRAMS) {
+            for (LatencyHistogram histogram : phases) {
+                if (histogram != null) {
+                    histograms.add(histogram);
+                }
+            }
+        }
+        return histograms.toArray(new LatencyHistogram[histograms.size()]);
+    }
+
+    /**
+     * Record that the process started, so the next {@link #onCreate} is a cold start.
+     */
+    public synchronized void onProcessStart(long nanos) {
+        mProcessStartNanos = nanos;
+    }
+
+    /**
+     * Record that the process was started for something other than the screen, e.g. a
+     * background prefetch. The screen may be created much later, which isn't a cold start.
+     */
+    public synchronized void onBackgroundStart() {
+        mProcessStartNanos = 0;
+    }
+
+    /**
+     * Start timing a cold start if the process was just started for the screen, or a warm
+     * start otherwise.
+     */
+    public synchronized void onCreate(long nanos) {
+        if (mProcessStartNanos != 0) {
+            begin(COLD, mProcessStartNanos);
+            mProcessStartNanos = 0;
+        } else {
+            begin(WARM, nanos);
+        }
+    }
+
+    /**
+     * Start timing a hot start.
+     */
+    public synchronized void onRestart(long nanos) {
+        mProcessStartNanos = 0;
+        begin(HOT, nanos);
+    }
+
+    /**
+     * Record that the current start reached the given phase, unless it already did or doesn't
+     * have that phase.
+     */
+    public synchronized void mark(int phase, long nanos) {
+        if (mType == NONE || (mRecordedPhases & (1 << phase)) != 0) {
+            return;
+        }
+        mRecordedPhases |= 1 << phase;
+        LatencyHistogram histogram = HISTOGRAMS[mType][phase];
+        if (histogram != null && Metrics.isEnabled()) {
+            histogram.recordNanos(nanos - mStartNanos);
+        }
+    }
+
+    /**
+     * Return the kind of start being timed, or {@link #NONE} before the first one.
+     */
+    public synchronized int getStartType() {
+        return mType;
+    }
+
+    /**
+     * Return true if the current start reached the given phase.
+     */
+    public synchronized boolean isMarked(int phase) {
+        return mType != NONE && (mRecordedPhases & (1 << phase)) != 0;
+    }
+
+    private void begin(int type, long startNanos) {
+        mType = type;
+        mStartNanos = startNanos;
+        mRecordedPhases = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical copies of strings repeated across many articles, such as section names, so each
+ * distinct value is only held in memory once.
+ * <p>
+ * Unlike {@link String#intern()}, the pool is bounded. Once it is full, new values are
+ * returned as they are, so a stream of unique values can't grow it without limit.
+ */
+final class StringPool {
+
+    private final ConcurrentMap<String, String> mValues;
+    private final int mMaxSize;
+
+    /**
+     * Constructs a new {@link StringPool}.
+     *
+     * @param maxSize is the number of distinct values kept.
+     */
+    StringPool(int maxSize) {
+        mValues = new ConcurrentHashMap<String, String>(Math.min(maxSize, 64));
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Return the canonical copy of the given value, or null if it is null.
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = mValues.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (mValues.size() >= mMaxSize) {
+            return value;
+        }
+        // The value may be a substring sharing a much larger string's characters, the copy
+        // makes sure the pool only keeps what it needs
+        String copy = new String(value);
+        canonical = mValues.putIfAbsent(copy, copy);
+        return canonical != null ? canonical : copy;
+    }
+
+    int size() {
+        return mValues.size();
+    }
+}
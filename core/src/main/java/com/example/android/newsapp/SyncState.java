@@ -0,0 +1,208 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publication time windows of each section whose articles are all in the local store.
+ * <p>
+ * The end of a section's newest window is its high-water mark: a refresh only has to ask for
+ * articles published after it. Windows that don't touch each other leave gaps, e.g. when a sync
+ * only received the newest page of a long window, which are filled in later, see
+ * {@link DeltaSync}.
+ */
+public class SyncState {
+
+    /**
+     * Windows of each section, oldest first, never overlapping or touching each other
+     */
+    private final Map<String, List<Window>> mWindows = new HashMap<String, List<Window>>();
+
+    /**
+     * Sections changed since {@link #takeDirtySections()} was last called
+     */
+    private final Set<String> mDirtySections = new HashSet<String>();
+
+    /**
+     * Record that all articles of the given section published from start to end, inclusive,
+     * are stored.
+     */
+    public synchronized void markSynced(String section, long startMillis, long endMillis) {
+        if (endMillis < startMillis) {
+            return;
+        }
+        List<Window> windows = getWindows(section);
+        List<Window> merged = new ArrayList<Window>(windows.size() + 1);
+        long start = startMillis;
+        long end = endMillis;
+        for (Window window : windows) {
+            if (window.mEnd < start - 1 || window.mStart > end + 1) {
+                merged.add(window);
+            } else {
+                start = Math.min(start, window.mStart);
+                end = Math.max(end, window.mEnd);
+            }
+        }
+        int i = 0;
+        while (i < merged.size() && merged.get(i).mStart < start) {
+            i++;
+        }
+        merged.add(i, new Window(start, end));
+        mWindows.put(section, merged);
+        mDirtySections.add(section);
+    }
+
+    /**
+     * Return the end of the newest window of the given section, or
+     * {@link NewsDates#UNKNOWN_DATE} if the section was never synced.
+     */
+    public synchronized long getHighWaterMark(String section) {
+        List<Window> windows = getWindows(section);
+        return windows.isEmpty() ? NewsDates.UNKNOWN_DATE
+                : windows.get(windows.size() - 1).mEnd;
+    }
+
+    /**
+     * Return the windows of the given section between the given time and its high-water mark
+     * that aren't synced, oldest first. Empty if the section was never synced.
+     */
+    public synchronized List<Window> getGaps(String section, long fromMillis) {
+        List<Window> gaps = new ArrayList<Window>();
+        long gapStart = fromMillis;
+        for (Window window : getWindows(section)) {
+            if (window.mEnd < gapStart) {
+                continue;
+            }
+            if (window.mStart > gapStart) {
+                gaps.add(new Window(gapStart, window.mStart - 1));
+            }
+            gapStart = window.mEnd + 1;
+        }
+        return gaps;
+    }
+
+    /**
+     * Return true if all the given sections were synced without gaps from the given time up
+     * to their high-water marks.
+     */
+    public synchronized boolean isCovered(String[] sections, long fromMillis) {
+        for (String section : sections) {
+            if (getHighWaterMark(section) < fromMillis || !getGaps(section, fromMillis).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forget the windows before the given time, e.g. once the articles published before it
+     * were dropped from the store. Windows reaching past it are cut short.
+     */
+    public synchronized void forgetBefore(long millis) {
+        for (Map.Entry<String, List<Window>> section : mWindows.entrySet()) {
+            List<Window> windows = section.getValue();
+            if (windows.isEmpty() || windows.get(0).mStart >= millis) {
+                continue;
+            }
+            List<Window> kept = new ArrayList<Window>(windows.size());
+            for (Window window : windows) {
+                if (window.mEnd >= millis) {
+                    kept.add(window.mStart >= millis ? window
+                            : new Window(millis, window.mEnd));
+                }
+            }
+            section.setValue(kept);
+            mDirtySections.add(section.getKey());
+        }
+    }
+
+    /**
+     * Return the sections changed since the last call, which have to be saved.
+     */
+    public synchronized Set<String> takeDirtySections() {
+        Set<String> dirty = new HashSet<String>(mDirtySections);
+        mDirtySections.clear();
+        return dirty;
+    }
+
+    /**
+     * Return the windows of the given section in the form read by {@link #restore}.
+     */
+    public synchronized String encode(String section) {
+        StringBuilder encoded = new StringBuilder();
+        for (Window window : getWindows(section)) {
+            if (encoded.length() > 0) {
+                encoded.append(',');
+            }
+            encoded.append(window.mStart).append(':').append(window.mEnd);
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Restore the windows of the given section saved with {@link #encode}. Windows that can't
+     * be read are left out, they are synced again.
+     */
+    public synchronized void restore(String section, String encoded) {
+        for (String window : encoded.split(",")) {
+            int separator = window.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                markSynced(section, Long.parseLong(window.substring(0, separator)),
+                        Long.parseLong(window.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                // Skip it, the gap is filled in again
+            }
+        }
+        mDirtySections.remove(section);
+    }
+
+    private List<Window> getWindows(String section) {
+        List<Window> windows = mWindows.get(section);
+        return windows != null ? windows : Collections.<Window>emptyList();
+    }
+
+    /**
+     * Publication times from start to end, inclusive, in milliseconds since the epoch.
+     */
+    public static final class Window {
+        private final long mStart;
+        private final long mEnd;
+
+        public Window(long start, long end) {
+            mStart = start;
+            mEnd = end;
+        }
+
+        public long getStart() {
+            return mStart;
+        }
+
+        public long getEnd() {
+            return mEnd;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Window && ((Window) other).mStart == mStart
+                    && ((Window) other).mEnd == mEnd;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (mStart ^ (mStart >>> 32)) * 31 + (int) (mEnd ^ (mEnd >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return mStart + ":" + mEnd;
+        }
+    }
+}
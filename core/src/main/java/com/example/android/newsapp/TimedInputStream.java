@@ -0,0 +1,61 @@
+package com.example.android.newsapp;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} measuring the time spent blocked in reads, so the time taken to stream in
+ * a response can be told apart from the time taken to parse it as it arrives.
+ */
+class TimedInputStream extends FilterInputStream {
+
+    private long mBlockedNanos;
+    private long mByteCount;
+
+    TimedInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        mBlockedNanos += System.nanoTime() - start;
+        if (b != -1) {
+            mByteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        int count = super.read(buffer, offset, length);
+        mBlockedNanos += System.nanoTime() - start;
+        if (count > 0) {
+            mByteCount += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long start = System.nanoTime();
+        long skipped = super.skip(n);
+        mBlockedNanos += System.nanoTime() - start;
+        mByteCount += skipped;
+        return skipped;
+    }
+
+    /**
+     * Return the total time spent in reads so far, in nanoseconds.
+     */
+    long getBlockedNanos() {
+        return mBlockedNanos;
+    }
+
+    long getByteCount() {
+        return mByteCount;
+    }
+}
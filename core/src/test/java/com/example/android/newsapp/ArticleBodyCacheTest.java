@@ -0,0 +1,39 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArticleBodyCacheTest {
+
+    @Test
+    public void put_dropsLeastRecentlyUsedBodiesOverTheLimit() {
+        ArticleBodyCache cache = new ArticleBodyCache(10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        // Reading "a" makes "b" the least recently used
+        assertEquals("aaaa", cache.get("a"));
+
+        cache.put("c", "cccc");
+
+        assertNull(cache.get("b"));
+        assertTrue(cache.contains("a"));
+        assertTrue(cache.contains("c"));
+        assertEquals(8, cache.getSizeChars());
+    }
+
+    @Test
+    public void put_replacesAndSkipsBodiesLargerThanTheCache() {
+        ArticleBodyCache cache = new ArticleBodyCache(10);
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+        assertEquals(2, cache.getSizeChars());
+
+        cache.put("b", "bbbbbbbbbbb");
+        assertFalse(cache.contains("b"));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectivityMonitorTest {
+
+    private FakeConnectivitySource mSource;
+    private ConnectivityMonitor mMonitor;
+
+    /**
+     * Names of the fetches run, in order
+     */
+    private final List<String> mRuns = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        mSource = new FakeConnectivitySource();
+        mMonitor = new ConnectivityMonitor(mSource);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void runWhenConnected_runsRightAwayWhileConnected() {
+        assertTrue(mMonitor.runWhenConnected("first_page", fetch("today")));
+        assertEquals(Arrays.asList("today"), mRuns);
+        assertEquals(0, Metrics.getCount("connectivity.queued"));
+    }
+
+    @Test
+    public void runWhenConnected_queuesWhileOfflineAndReplaysOnceConnected() {
+        mSource.connected = false;
+        assertFalse(mMonitor.runWhenConnected("first_page", fetch("today")));
+        assertFalse(mMonitor.runWhenConnected("next_page", fetch("page 2")));
+        mMonitor.update();
+        assertTrue(mRuns.isEmpty());
+
+        mSource.connected = true;
+        mMonitor.update();
+        assertEquals(Arrays.asList("today", "page 2"), mRuns);
+        assertEquals(2, Metrics.getCount("connectivity.replayed"));
+
+        // Replayed fetches only run once
+        mMonitor.update();
+        assertEquals(2, mRuns.size());
+    }
+
+    @Test
+    public void runWhenConnected_replacesFetchWaitingWithSameKey() {
+        mSource.connected = false;
+        mMonitor.runWhenConnected("first_page", fetch("today"));
+        mMonitor.runWhenConnected("next_page", fetch("page 2"));
+        mMonitor.runWhenConnected("first_page", fetch("week"));
+
+        mSource.connected = true;
+        mMonitor.update();
+        assertEquals(Arrays.asList("page 2", "week"), mRuns);
+        assertEquals(1, Metrics.getCount("connectivity.coalesced"));
+    }
+
+    @Test
+    public void cancel_dropsFetchWaiting() {
+        mSource.connected = false;
+        mMonitor.runWhenConnected("next_page", fetch("page 2"));
+        mMonitor.cancel("next_page");
+
+        mSource.connected = true;
+        mMonitor.update();
+        assertTrue(mRuns.isEmpty());
+    }
+
+    @Test
+    public void update_notifiesListenersWhenNetworkBecomesMetered() {
+        final List<NetworkPolicy> policies = new ArrayList<NetworkPolicy>();
+        mMonitor.addListener(new ConnectivityMonitor.Listener() {
+            @Override
+            public void onNetworkPolicyChanged(NetworkPolicy policy) {
+                policies.add(policy);
+            }
+        });
+        assertSame(NetworkPolicy.UNMETERED, mMonitor.getPolicy());
+
+        mSource.metered = true;
+        mMonitor.update();
+        mMonitor.update();
+        assertSame(NetworkPolicy.METERED, mMonitor.getPolicy());
+        assertEquals(Arrays.asList(NetworkPolicy.METERED), policies);
+
+        // Offline, the policy of the last network is kept
+        mSource.connected = false;
+        mSource.metered = false;
+        mMonitor.update();
+        assertSame(NetworkPolicy.METERED, mMonitor.getPolicy());
+        assertEquals(1, policies.size());
+    }
+
+    @Test
+    public void networkPolicy_meteredLoadsLess() {
+        NetworkPolicy metered = NetworkPolicy.METERED;
+        NetworkPolicy unmetered = NetworkPolicy.UNMETERED;
+        assertTrue(metered.getPageSize() < unmetered.getPageSize());
+        assertTrue(metered.getThumbnailPrefetchDistance()
+                < unmetered.getThumbnailPrefetchDistance());
+        assertFalse(metered.isBodyPrefetchEnabled());
+        assertTrue(unmetered.isBodyPrefetchEnabled());
+    }
+
+    @Test
+    public void networkPolicy_meteredLoadsSmallThumbnails() {
+        String url = "https://media.guim.co.uk/4f3c/0_0_3500_2100/500.jpg";
+        assertEquals("https://media.guim.co.uk/4f3c/0_0_3500_2100/140.jpg",
+                NetworkPolicy.METERED.getThumbnailUrl(url));
+        assertEquals(url, NetworkPolicy.UNMETERED.getThumbnailUrl(url));
+
+        // Only the widths of the image host can be swapped
+        String master = "https://media.guim.co.uk/4f3c/0_0_3500_2100/master/3500.jpg";
+        assertEquals(master, NetworkPolicy.METERED.getThumbnailUrl(master));
+        String other = "https://example.com/images/500.jpg";
+        assertEquals(other, NetworkPolicy.METERED.getThumbnailUrl(other));
+        assertEquals(null, NetworkPolicy.METERED.getThumbnailUrl(null));
+    }
+
+    /**
+     * Return a fetch recording its name when run.
+     */
+    private Runnable fetch(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mRuns.add(name);
+            }
+        };
+    }
+}
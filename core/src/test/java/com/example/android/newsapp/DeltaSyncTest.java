@@ -0,0 +1,154 @@
+package com.example.android.newsapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaSyncTest {
+
+    private static final int PAGE_SIZE = 3;
+    private static final long OVERLAP = 60 * 1000;
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final long RANGE_START = 1483228800000L; // 2017-01-01T00:00:00Z
+    private static final String[] SECTIONS = {"world"};
+
+    private final GuardianQuery mQuery = new GuardianQuery.Builder().apiKey("test").build();
+    private final FakeClock mClock = new FakeClock();
+    private final FakeSource mSource = new FakeSource();
+    private final SyncState mState = new SyncState();
+    private DeltaSync mSync;
+
+    @Before
+    public void setUp() {
+        mClock.now = RANGE_START + 10 * HOUR;
+        mSync = new DeltaSync(mSource, mState, mClock, PAGE_SIZE, OVERLAP);
+    }
+
+    @Test
+    public void sync_onlyAsksForArticlesAfterTheHighWaterMark() {
+        mSource.respond(article(RANGE_START + HOUR));
+        assertTrue(mSync.sync(mQuery, SECTIONS, RANGE_START, new CancellationToken()));
+
+        assertEquals("https://content.guardianapis.com/search?api-key=test"
+                        + "&from-date=2017-01-01T00%3A00%3A00Z&order-by=newest&page=1"
+                        + "&page-size=3&section=world",
+                mSource.mQueries.get(0).toUrl());
+        assertEquals(mClock.now, mState.getHighWaterMark("world"));
+        assertTrue(mState.isCovered(SECTIONS, RANGE_START));
+
+        long mark = mClock.now;
+        mClock.now += HOUR;
+        mSource.respond();
+        assertTrue(mSync.sync(mQuery, SECTIONS, RANGE_START, new CancellationToken()));
+
+        assertTrue(mSource.mQueries.get(1).toUrl().contains(
+                "from-date=" + QueryUtils.encode(NewsDates.formatIsoDate(mark - OVERLAP))));
+        assertEquals(mClock.now, mState.getHighWaterMark("world"));
+        assertTrue(mState.isCovered(SECTIONS, RANGE_START));
+    }
+
+    @Test
+    public void sync_leavesAGapWhenTheNewestPageIsFull() {
+        long oldest = RANGE_START + 7 * HOUR;
+        mSource.respond(article(RANGE_START + 9 * HOUR), article(RANGE_START + 8 * HOUR),
+                article(oldest));
+        assertTrue(mSync.sync(mQuery, SECTIONS, RANGE_START, new CancellationToken()));
+
+        assertFalse(mState.isCovered(SECTIONS, RANGE_START));
+        assertEquals(1, mState.getGaps("world", RANGE_START).size());
+        assertEquals(oldest, mState.getGaps("world", RANGE_START).get(0).getEnd());
+    }
+
+    @Test
+    public void syncSection_onlyMovesTheMarkOfItsSection() {
+        mState.markSynced("sport", RANGE_START, RANGE_START + HOUR);
+        mSource.respond(article(RANGE_START + HOUR));
+        assertTrue(mSync.syncSection(mQuery, "world", RANGE_START));
+
+        assertTrue(mSource.mQueries.get(0).toUrl().endsWith("&section=world"));
+        assertEquals(mClock.now, mState.getHighWaterMark("world"));
+        assertEquals(RANGE_START + HOUR, mState.getHighWaterMark("sport"));
+    }
+
+    @Test
+    public void backfill_fillsGapsNewestFirst() {
+        mSource.respond(article(RANGE_START + 9 * HOUR), article(RANGE_START + 8 * HOUR),
+                article(RANGE_START + 7 * HOUR));
+        mSync.sync(mQuery, SECTIONS, RANGE_START, new CancellationToken());
+
+        mSource.respond(article(RANGE_START + 7 * HOUR), article(RANGE_START + 6 * HOUR),
+                article(RANGE_START + 5 * HOUR));
+        mSource.respond(article(RANGE_START + HOUR));
+        assertTrue(mSync.backfill(mQuery, SECTIONS, RANGE_START, 10, new CancellationToken()));
+
+        assertEquals(3, mSource.mQueries.size());
+        assertTrue(mSource.mQueries.get(1).toUrl().contains(
+                "to-date=" + QueryUtils.encode(NewsDates.formatIsoDate(RANGE_START + 7 * HOUR))));
+        assertTrue(mSource.mQueries.get(2).toUrl().contains(
+                "to-date=" + QueryUtils.encode(NewsDates.formatIsoDate(RANGE_START + 5 * HOUR))));
+        assertTrue(mState.isCovered(SECTIONS, RANGE_START));
+    }
+
+    @Test
+    public void backfill_stopsAtTheRequestLimit() {
+        mState.markSynced("world", RANGE_START + 2 * HOUR, RANGE_START + 3 * HOUR);
+        mState.markSynced("world", RANGE_START + 5 * HOUR, RANGE_START + 6 * HOUR);
+        mSource.respond();
+
+        assertTrue(mSync.backfill(mQuery, SECTIONS, RANGE_START, 1, new CancellationToken()));
+
+        assertEquals(1, mSource.mQueries.size());
+        assertEquals(1, mState.getGaps("world", RANGE_START).size());
+    }
+
+    @Test
+    public void failedRequestsLeaveTheStateUnchanged() {
+        mState.markSynced("world", RANGE_START, RANGE_START + HOUR);
+        mSource.fail();
+
+        assertFalse(mSync.sync(mQuery, SECTIONS, RANGE_START, new CancellationToken()));
+        assertEquals(RANGE_START + HOUR, mState.getHighWaterMark("world"));
+
+        mState.markSynced("world", RANGE_START + 2 * HOUR, RANGE_START + 3 * HOUR);
+        mSource.fail();
+        assertFalse(mSync.backfill(mQuery, SECTIONS, RANGE_START, 5, new CancellationToken()));
+        assertEquals(1, mState.getGaps("world", RANGE_START).size());
+    }
+
+    private static News article(long publishedAtMillis) {
+        return new News("Title", "World news", null, publishedAtMillis,
+                "https://www.theguardian.com/world/" + publishedAtMillis, null);
+    }
+
+    /**
+     * Returns the queued responses in order, and records the queries asked for.
+     */
+    private static class FakeSource implements DeltaSync.Source {
+        final List<GuardianQuery> mQueries = new ArrayList<GuardianQuery>();
+        final List<List<News>> mResponses = new ArrayList<List<News>>();
+
+        void respond(News... news) {
+            List<News> response = new ArrayList<News>();
+            for (News article : news) {
+                response.add(article);
+            }
+            mResponses.add(response);
+        }
+
+        void fail() {
+            mResponses.add(null);
+        }
+
+        @Override
+        public List<News> fetch(GuardianQuery query) {
+            mQueries.add(query);
+            return mResponses.remove(0);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.android.newsapp;
+
+/**
+ * {@link Clock} whose time only changes when a test sets it.
+ */
+class FakeClock implements Clock {
+    long now = 1000000;
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.android.newsapp;
+
+/**
+ * {@link ConnectivitySource} whose state is set by the test.
+ */
+class FakeConnectivitySource implements ConnectivitySource {
+    boolean connected = true;
+    boolean metered;
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public boolean isMetered() {
+        return metered;
+    }
+}
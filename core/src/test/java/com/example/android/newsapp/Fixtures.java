@@ -0,0 +1,44 @@
+package com.example.android.newsapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the recorded Guardian search responses stored under src/test/resources.
+ */
+final class Fixtures {
+
+    /**
+     * Fixture names, from the default page size up to a large page with "show-fields" turned on.
+     */
+    static final String[] SEARCH_RESPONSES = {
+            "guardian_search_10.json",
+            "guardian_search_50.json",
+            "guardian_search_200.json"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * Return the raw bytes of the fixture with the given name.
+     */
+    static byte[] load(String name) throws IOException {
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Missing fixture " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
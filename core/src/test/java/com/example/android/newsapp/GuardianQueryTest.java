@@ -0,0 +1,90 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class GuardianQueryTest {
+
+    @Test
+    public void toUrl_isTheSameWhateverTheOrderValuesWereSetIn() {
+        GuardianQuery first = new GuardianQuery.Builder()
+                .apiKey("test")
+                .section("world")
+                .fromDate("2017-01-01")
+                .addShowFields("thumbnail", "byline")
+                .addTag("world/france")
+                .addTag("politics/politics")
+                .page(2)
+                .pageSize(10)
+                .build();
+        GuardianQuery second = new GuardianQuery.Builder()
+                .pageSize(10)
+                .addTag("politics/politics")
+                .page(2)
+                .addShowFields("byline")
+                .addShowFields("thumbnail", "byline")
+                .addTag("world/france")
+                .fromDate("2017-01-01")
+                .section("world")
+                .apiKey("test")
+                .build();
+
+        assertEquals("https://content.guardianapis.com/search?api-key=test"
+                + "&from-date=2017-01-01&page=2&page-size=10&section=world"
+                + "&show-fields=byline%2Cthumbnail&tag=politics%2Fpolitics%2Cworld%2Ffrance",
+                first.toUrl());
+        assertEquals(first.toUrl(), second.toUrl());
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void toUrl_leavesOutParametersNotSet() {
+        assertEquals("https://content.guardianapis.com/search",
+                new GuardianQuery.Builder().build().toUrl());
+        assertEquals("https://host/search?order-by=oldest",
+                new GuardianQuery.Builder().baseUrl("https://host/search")
+                        .orderBy(GuardianQuery.ORDER_BY_OLDEST).build().toUrl());
+    }
+
+    @Test
+    public void toUrl_encodesValues() {
+        GuardianQuery query = new GuardianQuery.Builder()
+                .query("café & \"bar\"")
+                .addShowFields("a,b")
+                .build();
+
+        assertEquals("https://content.guardianapis.com/search"
+                + "?q=caf%C3%A9%20%26%20%22bar%22&show-fields=a%2Cb", query.toUrl());
+    }
+
+    @Test
+    public void newBuilder_leavesTheOriginalUnchanged() {
+        GuardianQuery query = new GuardianQuery.Builder().section("world").build();
+        GuardianQuery changed = query.newBuilder().section("sport").page(3).build();
+
+        assertEquals("https://content.guardianapis.com/search?section=world", query.toUrl());
+        assertEquals("sport", changed.getSection());
+        assertEquals(3, changed.getPage());
+        assertNotEquals(query, changed);
+        assertFalse(query.toUrl().equals(changed.toUrl()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSize_rejectsValuesOutOfRange() {
+        new GuardianQuery.Builder().pageSize(GuardianQuery.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void page_rejectsPagesBeforeTheFirst() {
+        new GuardianQuery.Builder().page(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderBy_rejectsUnknownOrders() {
+        new GuardianQuery.Builder().orderBy("popular");
+    }
+}
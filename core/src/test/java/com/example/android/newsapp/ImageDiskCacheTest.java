@@ -0,0 +1,80 @@
+package com.example.android.newsapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ImageDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void get_returnsStoredImage() throws Exception {
+        ImageDiskCache cache = new ImageDiskCache(mFolder.newFolder(), 1024);
+        assertNull(cache.get("https://media.guim.co.uk/a.jpg"));
+
+        cache.put("https://media.guim.co.uk/a.jpg", new ByteArrayInputStream(new byte[100]));
+
+        File file = cache.get("https://media.guim.co.uk/a.jpg");
+        assertNotNull(file);
+        assertEquals(100, file.length());
+        assertEquals(100, cache.getSizeBytes());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedImages() throws Exception {
+        ImageDiskCache cache = new ImageDiskCache(mFolder.newFolder(), 250);
+        File first = cache.put("first", new ByteArrayInputStream(new byte[100]));
+        File second = cache.put("second", new ByteArrayInputStream(new byte[100]));
+        // File times may only have a one second resolution
+        first.setLastModified(System.currentTimeMillis() - 20000);
+        second.setLastModified(System.currentTimeMillis() - 10000);
+        cache.get("first");
+
+        cache.put("third", new ByteArrayInputStream(new byte[100]));
+
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+        assertEquals(200, cache.getSizeBytes());
+    }
+
+    @Test
+    public void put_leavesNothingBehindWhenTheStreamFails() throws Exception {
+        File directory = mFolder.newFolder();
+        ImageDiskCache cache = new ImageDiskCache(directory, 1024);
+        InputStream failing = new InputStream() {
+            private int mRemaining = 10;
+
+            @Override
+            public int read() throws IOException {
+                if (mRemaining-- == 0) {
+                    throw new IOException("Connection reset");
+                }
+                return 0;
+            }
+        };
+
+        try {
+            cache.put("broken", failing);
+            fail("Expected the failure to be passed on");
+        } catch (IOException expected) {
+            // Expected
+        }
+
+        assertNull(cache.get("broken"));
+        assertEquals(0, directory.list().length);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImageSizingTest {
+
+    @Test
+    public void calculateInSampleSize_keepsImageAtLeastAsLargeAsRequested() {
+        // A 500x300 Guardian thumbnail shown at 100x60 or 150x90
+        assertEquals(4, ImageSizing.calculateInSampleSize(500, 300, 100, 60));
+        assertEquals(2, ImageSizing.calculateInSampleSize(500, 300, 150, 90));
+    }
+
+    @Test
+    public void calculateInSampleSize_limitedByEitherDimension() {
+        assertEquals(2, ImageSizing.calculateInSampleSize(1000, 300, 100, 100));
+        assertEquals(2, ImageSizing.calculateInSampleSize(300, 1000, 100, 100));
+    }
+
+    @Test
+    public void calculateInSampleSize_neverScalesUp() {
+        assertEquals(1, ImageSizing.calculateInSampleSize(50, 30, 100, 60));
+        assertEquals(1, ImageSizing.calculateInSampleSize(0, 0, 100, 60));
+    }
+}
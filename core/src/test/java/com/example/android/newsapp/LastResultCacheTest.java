@@ -0,0 +1,69 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LastResultCacheTest {
+
+    private static final long MAX_STALENESS_MILLIS = 60000;
+
+    private final FakeClock mClock = new FakeClock();
+    private final LastResultCache mCache = new LastResultCache(2, MAX_STALENESS_MILLIS, mClock);
+
+    private final List<News> mNews = Arrays.asList(new News("a", "World news",
+            "2017-01-01T06:00:00Z", "https://www.theguardian.com/world/a"));
+
+    @Test
+    public void get_returnsLastResultWithItsAge() {
+        mCache.put("today", mNews);
+        mClock.now += 5000;
+
+        LastResultCache.Snapshot snapshot = mCache.get("today");
+
+        assertSame(mNews, snapshot.getNews());
+        assertEquals(5000, mCache.getAgeMillis(snapshot));
+        assertNull(mCache.get("week"));
+    }
+
+    @Test
+    public void get_dropsResultsPastMaxStaleness() {
+        mCache.put("today", mNews);
+
+        mClock.now += MAX_STALENESS_MILLIS;
+        assertNotNull(mCache.get("today"));
+        mClock.now += 1;
+        assertNull(mCache.get("today"));
+    }
+
+    @Test
+    public void put_replacesResultAndResetsItsAge() {
+        mCache.put("today", Collections.<News>emptyList());
+        mClock.now += 30000;
+
+        mCache.put("today", mNews);
+
+        assertSame(mNews, mCache.get("today").getNews());
+        assertEquals(0, mCache.getAgeMillis(mCache.get("today")));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedQuery() {
+        mCache.put("today", mNews);
+        mCache.put("week", mNews);
+        mCache.get("today");
+
+        mCache.put("month", mNews);
+
+        assertNotNull(mCache.get("today"));
+        assertNull(mCache.get("week"));
+        assertNotNull(mCache.get("month"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram mHistogram = new LatencyHistogram("test");
+
+    @Test
+    public void bucketIndex_isExactForSmallValues() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.highestValueInBucket(
+                    LatencyHistogram.bucketIndex(value)));
+        }
+    }
+
+    @Test
+    public void bucketIndex_keepsRelativeErrorUnderThreePercent() {
+        for (long value = 64; value < LatencyHistogram.MAX_VALUE_MICROS; value = value * 9 / 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long highest = LatencyHistogram.highestValueInBucket(index);
+            assertTrue(value + " reported as " + highest, highest >= value);
+            assertTrue(value + " reported as " + highest, highest - value <= value / 32);
+            // Buckets are contiguous
+            assertEquals(index + 1, LatencyHistogram.bucketIndex(highest + 1));
+        }
+    }
+
+    @Test
+    public void getValueAtPercentile_findsTheRankedValue() {
+        for (int i = 1; i <= 100; i++) {
+            mHistogram.recordMicros(i * 1000);
+        }
+
+        assertEquals(100, mHistogram.getCount());
+        assertEquals(50500, mHistogram.getMeanMicros());
+        assertEquals(100000, mHistogram.getMaxMicros());
+        assertWithinBucket(50000, mHistogram.getValueAtPercentile(50));
+        assertWithinBucket(90000, mHistogram.getValueAtPercentile(90));
+        assertEquals(100000, mHistogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void recordMicros_clampsOutOfRangeValues() {
+        mHistogram.recordMicros(-5);
+        mHistogram.recordMicros(Long.MAX_VALUE);
+
+        assertEquals(2, mHistogram.getCount());
+        assertEquals(0, mHistogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE_MICROS, mHistogram.getMaxMicros());
+    }
+
+    @Test
+    public void reset_forgetsRecordedValues() {
+        mHistogram.recordMicros(1234);
+        mHistogram.reset();
+
+        assertEquals(0, mHistogram.getCount());
+        assertEquals(0, mHistogram.getValueAtPercentile(99));
+        assertEquals(0, mHistogram.getMaxMicros());
+    }
+
+    @Test
+    public void recordSince_skipsSamplesTakenWhileDisabled() {
+        Metrics.setEnabled(false);
+        mHistogram.recordSince(Metrics.start());
+        assertEquals(0, mHistogram.getCount());
+
+        Metrics.setEnabled(true);
+        try {
+            mHistogram.recordSince(Metrics.start());
+            assertEquals(1, mHistogram.getCount());
+        } finally {
+            Metrics.setEnabled(false);
+        }
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(expected + " reported as " + actual,
+                actual >= expected && actual - expected <= expected / 32);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    private MockGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockGuardianServer();
+        mServer.setBody(Fixtures.load("guardian_search_50.json"));
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void fetchNewsData_recordsEachStage() {
+        assertNotNull(QueryUtils.fetchNewsData(mServer.url("q=first"), null, null).getNews());
+        assertNotNull(QueryUtils.fetchNewsData(mServer.url("q=second"), null, null).getNews());
+
+        assertEquals(2, Metrics.HTTP.getCount());
+        assertEquals(2, Metrics.READ.getCount());
+        assertEquals(2, Metrics.PARSE.getCount());
+        assertEquals(2, Metrics.getCount("http.requests"));
+        assertEquals(100, Metrics.getCount("parse.articles"));
+        assertEquals(1, Metrics.getCount("http.connections_opened"));
+        assertEquals(1, Metrics.getCount("http.connections_reused"));
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        Metrics.setEnabled(false);
+
+        QueryUtils.fetchNewsData(mServer.url("q=disabled"), null, null);
+
+        assertEquals(0, Metrics.HTTP.getCount());
+        assertEquals(0, Metrics.PARSE.getCount());
+        assertEquals(0, Metrics.getCount("http.requests"));
+    }
+
+    @Test
+    public void dump_listsHistogramsAndCounters() throws Exception {
+        Metrics.increment("cache.hits");
+        Metrics.PARSE.recordMicros(1500);
+
+        StringWriter report = new StringWriter();
+        Metrics.dump(report);
+
+        assertTrue(report.toString(), report.toString().contains("parse: n=1"));
+        assertTrue(report.toString(), report.toString().contains("cache.hits: 1"));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server standing in for The Guardian's search endpoint in tests.
+ * <p>
+ * Every request is answered with the configured body, honouring gzip and the ETag and
+ * Last-Modified validators the same way the real API does. Faults can be injected to make it
+ * answer with an error status or drop the connection, either for the next requests or for all
+ * of them.
+ */
+class MockGuardianServer {
+
+    private final HttpServer mServer;
+
+    private volatile byte[] mBody = new byte[0];
+    private volatile String mETag;
+    private volatile String mLastModified;
+    private volatile long mDelayMillis;
+
+    private final List<Headers> mRequests = new CopyOnWriteArrayList<Headers>();
+
+    /**
+     * Faults injected into the next requests, one per request
+     */
+    private final Queue<Fault> mFaults = new ConcurrentLinkedQueue<Fault>();
+
+    /**
+     * Fault injected into every request once the queued ones are used up, or null
+     */
+    private volatile Fault mPersistentFault;
+
+    MockGuardianServer() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        mServer.start();
+    }
+
+    /**
+     * Return the URL of the search endpoint with the given query string.
+     */
+    String url(String query) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?" + query;
+    }
+
+    void setBody(byte[] body) {
+        mBody = body;
+    }
+
+    /**
+     * Wait the given time before answering each request, like a slow network.
+     */
+    void setDelayMillis(long delayMillis) {
+        mDelayMillis = delayMillis;
+    }
+
+    void setValidators(String eTag, String lastModified) {
+        mETag = eTag;
+        mLastModified = lastModified;
+    }
+
+    /**
+     * Answer the next request not taken by an earlier fault with the given status code.
+     *
+     * @param retryAfter is the value of the Retry-After header to send along, or null.
+     */
+    void enqueueError(int statusCode, String retryAfter) {
+        mFaults.add(new Fault(statusCode, retryAfter));
+    }
+
+    /**
+     * Close the connection of the next request not taken by an earlier fault without
+     * answering it.
+     */
+    void enqueueDisconnect() {
+        mFaults.add(new Fault(Fault.DISCONNECT, null));
+    }
+
+    /**
+     * Answer every request with the given status code, like a server that is down, until
+     * called with 0.
+     */
+    void setFailing(int statusCode) {
+        mPersistentFault = statusCode != 0 ? new Fault(statusCode, null) : null;
+    }
+
+    /**
+     * Return the request headers of every request received so far.
+     */
+    List<Headers> getRequests() {
+        return mRequests;
+    }
+
+    void shutdown() {
+        mServer.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        com.sun.net.httpserver.Headers requestHeaders = exchange.getRequestHeaders();
+        Headers request = new Headers(
+                requestHeaders.getFirst("Accept-Encoding"),
+                requestHeaders.getFirst("If-None-Match"),
+                requestHeaders.getFirst("If-Modified-Since"));
+        mRequests.add(request);
+
+        if (mDelayMillis > 0) {
+            try {
+                Thread.sleep(mDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        com.sun.net.httpserver.Headers responseHeaders = exchange.getResponseHeaders();
+        Fault fault = mFaults.poll();
+        if (fault == null) {
+            fault = mPersistentFault;
+        }
+        if (fault != null) {
+            if (fault.statusCode != Fault.DISCONNECT) {
+                if (fault.retryAfter != null) {
+                    responseHeaders.set("Retry-After", fault.retryAfter);
+                }
+                exchange.sendResponseHeaders(fault.statusCode, -1);
+            }
+            // Closing the exchange without sending anything drops the connection
+            return;
+        }
+
+        if (mETag != null) {
+            responseHeaders.set("ETag", mETag);
+        }
+        if (mLastModified != null) {
+            responseHeaders.set("Last-Modified", mLastModified);
+        }
+
+        boolean notModified = (mETag != null && mETag.equals(request.ifNoneMatch))
+                || (mETag == null && mLastModified != null
+                && mLastModified.equals(request.ifModifiedSince));
+        if (notModified) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        byte[] body = mBody;
+        if (request.acceptEncoding != null && request.acceptEncoding.contains("gzip")) {
+            body = gzip(body);
+            responseHeaders.set("Content-Encoding", "gzip");
+        }
+        responseHeaders.set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(body);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * An error response, or a dropped connection, injected in place of the normal response.
+     */
+    private static class Fault {
+        static final int DISCONNECT = -1;
+
+        final int statusCode;
+        final String retryAfter;
+
+        Fault(int statusCode, String retryAfter) {
+            this.statusCode = statusCode;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * The request headers the tests care about.
+     */
+    static class Headers {
+        final String acceptEncoding;
+        final String ifNoneMatch;
+        final String ifModifiedSince;
+
+        Headers(String acceptEncoding, String ifNoneMatch, String ifModifiedSince) {
+            this.acceptEncoding = acceptEncoding;
+            this.ifNoneMatch = ifNoneMatch;
+            this.ifModifiedSince = ifModifiedSince;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.android.newsapp;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NewsCacheTest {
+
+    private static final long TIME_TO_LIVE_MILLIS = 60000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final FakeClock mClock = new FakeClock();
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        mDirectory = mFolder.newFolder("cache");
+    }
+
+    @Test
+    public void get_servesMemoryThenDiskThenMisses() {
+        NewsCache cache = newCache(100, 1024 * 1024);
+        assertNull(cache.get("a"));
+
+        cache.put("a", articles("a", 3));
+        assertEquals(3, cache.get("a").size());
+
+        // A new instance only has the disk tier to go on
+        NewsCache reopened = newCache(100, 1024 * 1024);
+        List<News> fromDisk = reopened.get("a");
+        assertEquals("a title 2", fromDisk.get(2).getTitle());
+        assertEquals("https://www.theguardian.com/a/2", fromDisk.get(2).getArticleUrl());
+        reopened.get("a");
+
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, reopened.getDiskHits());
+        assertEquals(1, reopened.getMemoryHits());
+    }
+
+    @Test
+    public void get_expiresEntriesAfterTimeToLive() {
+        NewsCache cache = newCache(100, 1024 * 1024);
+        cache.put("a", articles("a", 1));
+
+        mClock.now += TIME_TO_LIVE_MILLIS - 1;
+        assertEquals(1, cache.get("a").size());
+
+        mClock.now += 1;
+        assertNull(cache.get("a"));
+        assertNull(newCache(100, 1024 * 1024).get("a"));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedArticlesFromMemory() {
+        NewsCache cache = newCache(5, 1024 * 1024);
+        cache.put("a", articles("a", 2));
+        cache.put("b", articles("b", 2));
+        cache.get("a");
+        cache.put("c", articles("c", 2));
+
+        cache.get("a");
+        cache.get("c");
+        cache.get("b");
+
+        // "b" was evicted from memory and came back from disk
+        assertEquals(3, cache.getMemoryHits());
+        assertEquals(1, cache.getDiskHits());
+    }
+
+    @Test
+    public void put_trimsDiskTierToSizeLimit() throws Exception {
+        NewsCache cache = newCache(100, 1024 * 1024);
+        cache.put("a", articles("a", 20));
+        long entryBytes = mDirectory.listFiles()[0].length();
+        cache.clear();
+
+        NewsCache small = newCache(100, entryBytes * 2);
+        small.put("a", articles("a", 20));
+        // Make sure "a" is older on disk, file times may only have second resolution
+        mDirectory.listFiles()[0].setLastModified(mClock.now - 10000);
+        small.put("b", articles("b", 20));
+        small.put("c", articles("c", 20));
+
+        NewsCache reopened = newCache(100, entryBytes * 2);
+        assertNull(reopened.get("a"));
+        assertEquals(20, reopened.get("c").size());
+    }
+
+    @Test
+    public void peek_keepsExpiredEntriesForRevalidation() {
+        NewsCache cache = newCache(100, 1024 * 1024);
+        cache.put("a", articles("a", 2), "\"v1\"", "Sun, 01 Jan 2017 06:00:00 GMT");
+        mClock.now += TIME_TO_LIVE_MILLIS;
+        assertNull(cache.get("a"));
+
+        NewsCache.Entry stale = newCache(100, 1024 * 1024).peek("a");
+        assertEquals("\"v1\"", stale.getETag());
+        assertEquals("Sun, 01 Jan 2017 06:00:00 GMT", stale.getLastModified());
+
+        cache.revalidated("a", stale, stale.getETag(), stale.getLastModified());
+        assertEquals(2, cache.get("a").size());
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    private NewsCache newCache(int maxMemoryArticles, long maxDiskBytes) {
+        return new NewsCache(mDirectory, maxMemoryArticles, maxDiskBytes, TIME_TO_LIVE_MILLIS,
+                mClock);
+    }
+
+    private static List<News> articles(String prefix, int count) {
+        List<News> news = new ArrayList<News>();
+        for (int i = 0; i < count; i++) {
+            news.add(new News(prefix + " title " + i, "World news", "2017-01-01T06:00:00Z",
+                    "https://www.theguardian.com/" + prefix + "/" + i));
+        }
+        return news;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NewsCodecTest {
+
+    @Test
+    public void roundTripsFixtures() throws Exception {
+        for (String name : Fixtures.SEARCH_RESPONSES) {
+            List<News> news = NewsJsonParser.parseNews(
+                    new ByteArrayInputStream(Fixtures.load(name)));
+
+            assertSameNews(news, NewsCodec.decode(NewsCodec.encode(news)));
+        }
+    }
+
+    @Test
+    public void roundTripsUnusualValues() throws Exception {
+        List<News> news = Arrays.asList(
+                new News("", "", "", ""),
+                new News("Ünïcødé – “quotes” 日本", "Culture", "2017-01-01T06:00:00Z",
+                        "no-slash"),
+                new News("Dates out of order", "Culture", "2016-01-01T06:00:00Z",
+                        "https://www.theguardian.com/culture/"),
+                new News("Text date", "World news", "2017-01-01T06:00:00.123Z",
+                        "https://www.theguardian.com/world/a"),
+                new News("Early date", "World news", "1969-12-31T23:59:59Z",
+                        "https://www.theguardian.com/world/b"),
+                new News("Thumbnail", "World news", "2017-01-01T06:00:00Z", 1483250400000L,
+                        "https://www.theguardian.com/world/c",
+                        "https://media.guim.co.uk/c/500.jpg"));
+
+        assertSameNews(news, NewsCodec.decode(NewsCodec.encode(news)));
+    }
+
+    @Test
+    public void readsAndWritesOneArticleAtATime() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NewsCodec.Writer writer = new NewsCodec.Writer(bytes);
+        writer.write(new News("a", "World news", "2017-01-01T06:00:00Z",
+                "https://www.theguardian.com/world/a"));
+        writer.close();
+
+        NewsCodec.Reader reader = new NewsCodec.Reader(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("a", reader.read().getTitle());
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void dictionaryEncodesRepeatedValues() {
+        List<News> news = new ArrayList<News>();
+        for (int i = 0; i < 100; i++) {
+            news.add(new News("t", "World news", "2017-01-01T06:00:00Z",
+                    "https://www.theguardian.com/world/2017/jan/01/" + i));
+        }
+        // Only the first record carries the section and URL prefix
+        assertTrue(NewsCodec.encode(news).length < 100 * 10);
+    }
+
+    @Test
+    public void readsVersion1StreamsWithoutThumbnails() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{0x4e, 0x57, 0x53, 0x42, 1});
+        bytes.write(2); // record with a text date
+        writeString(bytes, "not a date");
+        writeString(bytes, "title");
+        bytes.write(0); // new dictionary entry
+        writeString(bytes, "Culture");
+        bytes.write(0);
+        writeString(bytes, "https://www.theguardian.com/");
+        writeString(bytes, "a");
+        bytes.write(0); // end
+
+        List<News> news = NewsCodec.decode(bytes.toByteArray());
+
+        assertEquals(1, news.size());
+        assertEquals("title", news.get(0).getTitle());
+        assertEquals("https://www.theguardian.com/a", news.get(0).getArticleUrl());
+        assertNull(news.get(0).getThumbnailUrl());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherVersions() throws Exception {
+        byte[] bytes = NewsCodec.encode(new ArrayList<News>());
+        bytes[4] = (byte) (NewsCodec.VERSION + 1);
+        NewsCodec.decode(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedStreams() throws Exception {
+        byte[] bytes = NewsCodec.encode(Arrays.asList(new News("title", "section",
+                "2017-01-01T06:00:00Z", "https://www.theguardian.com/a")));
+        NewsCodec.decode(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    private static void assertSameNews(List<News> expected, List<News> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).getSection(), actual.get(i).getSection());
+            assertEquals(expected.get(i).getPublicationDate(),
+                    actual.get(i).getPublicationDate());
+            assertEquals(expected.get(i).getArticleUrl(), actual.get(i).getArticleUrl());
+            assertEquals(expected.get(i).getThumbnailUrl(), actual.get(i).getThumbnailUrl());
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream bytes, String value)
+            throws IOException {
+        byte[] utf8 = value.getBytes("UTF-8");
+        bytes.write(utf8.length);
+        bytes.write(utf8);
+    }
+}
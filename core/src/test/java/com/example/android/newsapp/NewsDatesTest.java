@@ -0,0 +1,101 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class NewsDatesTest {
+
+    @Test
+    public void parseIsoDate_roundTrips() {
+        long millis = NewsDates.parseIsoDate("2017-01-01T06:00:00Z");
+        assertEquals(1483250400000L, millis);
+        assertEquals("2017-01-01T06:00:00Z", NewsDates.formatIsoDate(millis));
+    }
+
+    @Test
+    public void parseIsoDate_returnsUnknownForInvalidDates() {
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate(null));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate(""));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("yesterday"));
+    }
+
+    @Test
+    public void parseIsoDate_rejectsDatesOutsideTheApiFormat() {
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2017-02-30T00:00:00Z"));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2017-13-01T00:00:00Z"));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2017-01-01T24:00:00Z"));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2017-1-1T6:00:00Z"));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2017-01-01 06:00:00Z"));
+        assertEquals(NewsDates.UNKNOWN_DATE,
+                NewsDates.parseIsoDate("2017-01-01T06:00:00.123Z"));
+    }
+
+    @Test
+    public void parseIsoDate_acceptsLeapDays() {
+        assertEquals("2016-02-29T12:00:00Z",
+                NewsDates.formatIsoDate(NewsDates.parseIsoDate("2016-02-29T12:00:00Z")));
+        assertEquals(NewsDates.UNKNOWN_DATE, NewsDates.parseIsoDate("2100-02-29T12:00:00Z"));
+    }
+
+    @Test
+    public void parseIsoDate_matchesSimpleDateFormat() throws Exception {
+        DateFormat reference = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        reference.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Any second between 1970 and 2100
+            long millis = (random.nextLong() >>> 1) % 4102444800L * 1000;
+            String date = reference.format(new Date(millis));
+            assertEquals(date, millis, NewsDates.parseIsoDate(date));
+            assertEquals(date, NewsDates.formatIsoDate(millis));
+        }
+    }
+
+    @Test
+    public void formatDisplayDate_returnsEmptyStringForUnknownDates() {
+        assertEquals("", NewsDates.formatDisplayDate(NewsDates.UNKNOWN_DATE));
+    }
+
+    @Test
+    public void news_parsesDateOnceAndMemoizesDisplayDate() {
+        News news = new News("Title", "World", "2017-01-01T06:00:00Z", "https://example.com/a");
+        assertEquals(1483250400000L, news.getPublishedAtMillis());
+        String formatted = news.getFormattedDate();
+        assertEquals(NewsDates.formatDisplayDate(1483250400000L), formatted);
+        // The same instance is returned on every bind
+        assertSame(formatted, news.getFormattedDate());
+    }
+
+    @Test
+    public void rangeStartMillis_startsAtLocalMidnight() {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/London");
+        Calendar calendar = Calendar.getInstance(timeZone, Locale.UK);
+        calendar.clear();
+        calendar.set(2017, Calendar.MARCH, 15, 13, 45, 12);
+        long now = calendar.getTimeInMillis();
+
+        calendar.setTimeInMillis(now);
+        assertEquals("2017-03-14", NewsDates.formatQueryDate(
+                NewsDates.rangeStartMillis(NewsDates.RANGE_TODAY, calendar), timeZone));
+        calendar.setTimeInMillis(now);
+        assertEquals("2017-03-13", NewsDates.formatQueryDate(
+                NewsDates.rangeStartMillis(NewsDates.RANGE_WEEK, calendar), timeZone));
+        calendar.setTimeInMillis(now);
+        assertEquals("2017-03-01", NewsDates.formatQueryDate(
+                NewsDates.rangeStartMillis(NewsDates.RANGE_MONTH, calendar), timeZone));
+        calendar.setTimeInMillis(now);
+        long yearStart = NewsDates.rangeStartMillis(NewsDates.RANGE_YEAR, calendar);
+        assertEquals("2017-01-01", NewsDates.formatQueryDate(yearStart, timeZone));
+        assertEquals("2017-01-01T00:00:00Z", NewsDates.formatIsoDate(yearStart));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class NewsDiffTest {
+
+    @Test
+    public void calculate_identicalListsHaveNoOperations() {
+        List<News> news = articles("a", "b", "c");
+        assertEquals(0, NewsDiff.calculate(news, articles("a", "b", "c")).getOperationCount());
+    }
+
+    @Test
+    public void calculate_mergesAdjacentInsertsAndRemoves() {
+        List<News> oldNews = articles("a", "b", "c", "d");
+        List<News> newNews = articles("c", "d", "e", "f");
+
+        NewsDiff diff = NewsDiff.calculate(oldNews, newNews);
+
+        assertEquals(Arrays.asList("remove 0 2", "insert 2 2"), operations(diff));
+        assertApplies(oldNews, newNews, diff);
+    }
+
+    @Test
+    public void calculate_movesOnlyArticlesOutOfOrder() {
+        List<News> oldNews = articles("a", "b", "c", "d", "e");
+        List<News> newNews = articles("b", "c", "d", "e", "a");
+
+        NewsDiff diff = NewsDiff.calculate(oldNews, newNews);
+
+        assertEquals(Collections.singletonList("move 0 4"), operations(diff));
+        assertApplies(oldNews, newNews, diff);
+    }
+
+    @Test
+    public void calculate_reportsChangedContents() {
+        List<News> oldNews = articles("a", "b", "c");
+        List<News> newNews = articles("a", "b", "c");
+        newNews.set(1, new News("New title", "World", "2017-01-01T06:00:00Z", url("b")));
+
+        NewsDiff diff = NewsDiff.calculate(oldNews, newNews);
+
+        assertEquals(Collections.singletonList("change 1 1"), operations(diff));
+        assertApplies(oldNews, newNews, diff);
+    }
+
+    @Test
+    public void calculate_handlesDuplicateUrls() {
+        List<News> oldNews = articles("a", "a", "b");
+        List<News> newNews = articles("b", "a", "b", "b");
+
+        assertApplies(oldNews, newNews, NewsDiff.calculate(oldNews, newNews));
+    }
+
+    @Test
+    public void calculate_appliesToRandomEdits() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            List<News> oldNews = new ArrayList<News>();
+            List<News> newNews = new ArrayList<News>();
+            for (int i = 0; i < 40; i++) {
+                String key = "k" + random.nextInt(60);
+                if (random.nextInt(4) != 0) {
+                    oldNews.add(article(key, "Title"));
+                }
+                if (random.nextInt(4) != 0) {
+                    newNews.add(article(key, random.nextInt(5) == 0 ? "Changed" : "Title"));
+                }
+            }
+            Collections.shuffle(newNews, random);
+
+            assertApplies(oldNews, newNews, NewsDiff.calculate(oldNews, newNews));
+        }
+    }
+
+    /**
+     * Apply the diff to a copy of the old list the way a RecyclerView would, and check the
+     * result has the URLs and contents of the new list.
+     */
+    private static void assertApplies(List<News> oldNews, final List<News> newNews,
+                                      NewsDiff diff) {
+        final List<News> list = new ArrayList<News>(oldNews);
+        diff.dispatchUpdatesTo(new NewsDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                list.addAll(position, newNews.subList(position, position + count));
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                list.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                list.add(toPosition, list.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                for (int i = position; i < position + count; i++) {
+                    list.set(i, newNews.get(i));
+                }
+            }
+        });
+
+        assertEquals(newNews.size(), list.size());
+        for (int i = 0; i < newNews.size(); i++) {
+            assertEquals(newNews.get(i).getArticleUrl(), list.get(i).getArticleUrl());
+            assertEquals(newNews.get(i).getTitle(), list.get(i).getTitle());
+        }
+    }
+
+    private static List<String> operations(NewsDiff diff) {
+        final List<String> operations = new ArrayList<String>();
+        diff.dispatchUpdatesTo(new NewsDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                operations.add("insert " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                operations.add("remove " + position + " " + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                operations.add("move " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                operations.add("change " + position + " " + count);
+            }
+        });
+        return operations;
+    }
+
+    private static List<News> articles(String... keys) {
+        List<News> news = new ArrayList<News>();
+        for (String key : keys) {
+            news.add(article(key, "Title"));
+        }
+        return news;
+    }
+
+    private static News article(String key, String title) {
+        return new News(title, "World", "2017-01-01T06:00:00Z", url(key));
+    }
+
+    private static String url(String key) {
+        return "https://www.theguardian.com/world/" + key;
+    }
+}
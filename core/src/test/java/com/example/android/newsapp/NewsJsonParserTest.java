@@ -0,0 +1,87 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NewsJsonParserTest {
+
+    @Test
+    public void parseNews_matchesTreeParserOnFixtures() throws Exception {
+        for (String name : Fixtures.SEARCH_RESPONSES) {
+            byte[] json = Fixtures.load(name);
+
+            List<News> expected = QueryUtils.extractNewsInfoFromJson(
+                    QueryUtils.readFromStream(new ByteArrayInputStream(json)));
+            List<News> actual = NewsJsonParser.parseNews(new ByteArrayInputStream(json));
+
+            assertEquals(name, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSameNews(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void parseNews_skipsUnknownFieldsAndNulls() throws Exception {
+        String json = "{\"response\":{\"status\":\"ok\",\"results\":[{\"id\":\"a\","
+                + "\"fields\":{\"nested\":[1,2,{\"x\":null}]},\"webTitle\":\"Title\","
+                + "\"sectionName\":null,\"webPublicationDate\":\"2017-01-01T06:00:00Z\","
+                + "\"webUrl\":\"https://www.theguardian.com/a\"}]},\"trailing\":true}";
+
+        List<News> news = NewsJsonParser.parseNews(
+                new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals(1, news.size());
+        assertEquals("Title", news.get(0).getTitle());
+        assertEquals("", news.get(0).getSection());
+        assertEquals("2017-01-01T06:00:00Z", news.get(0).getPublicationDate());
+        assertEquals("https://www.theguardian.com/a", news.get(0).getArticleUrl());
+    }
+
+    @Test
+    public void parseNews_readsThumbnailField() throws Exception {
+        String json = "{\"response\":{\"results\":[{\"webTitle\":\"A\","
+                + "\"fields\":{\"headline\":\"A\","
+                + "\"thumbnail\":\"https://media.guim.co.uk/a.jpg\"}},"
+                + "{\"webTitle\":\"B\",\"fields\":{\"thumbnail\":\"\"}},{\"webTitle\":\"C\"}]}}";
+
+        List<News> news = NewsJsonParser.parseNews(
+                new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals("https://media.guim.co.uk/a.jpg", news.get(0).getThumbnailUrl());
+        assertNull(news.get(1).getThumbnailUrl());
+        assertNull(news.get(2).getThumbnailUrl());
+    }
+
+    @Test
+    public void parseArticleBody_readsOnlyTheBodyField() throws Exception {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"world/a\","
+                + "\"fields\":{\"headline\":\"A\",\"body\":\"<p>Caf\\u00e9</p>\"},"
+                + "\"webTitle\":\"A\"}}}";
+        String missing = "{\"response\":{\"content\":{\"fields\":{\"body\":null}}}}";
+
+        assertEquals("<p>Caf\u00e9</p>", NewsJsonParser.parseArticleBody(
+                new ByteArrayInputStream(json.getBytes("UTF-8"))));
+        assertEquals("", NewsJsonParser.parseArticleBody(
+                new ByteArrayInputStream(missing.getBytes("UTF-8"))));
+    }
+
+    @Test(expected = IOException.class)
+    public void parseNews_rejectsUnexpectedStructure() throws Exception {
+        String json = "{\"response\":{\"results\":\"not an array\"}}";
+        NewsJsonParser.parseNews(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
+    private static void assertSameNews(News expected, News actual) {
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getSection(), actual.getSection());
+        assertEquals(expected.getPublicationDate(), actual.getPublicationDate());
+        assertEquals(expected.getArticleUrl(), actual.getArticleUrl());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NewsPagerTest {
+
+    @Test
+    public void nextPageToLoad_onlyNearTheEndAndOneAtATime() {
+        NewsPager pager = new NewsPager(10, 3);
+        pager.onPageLoaded(pager.firstPageToLoad(), 10);
+
+        assertEquals(NewsPager.NO_PAGE, pager.nextPageToLoad(3, 10));
+        assertEquals(2, pager.nextPageToLoad(7, 10));
+        assertTrue(pager.isPending(2));
+        assertEquals(NewsPager.NO_PAGE, pager.nextPageToLoad(9, 10));
+    }
+
+    @Test
+    public void onPageLoaded_keepsWindowBoundedInBothDirections() {
+        NewsPager pager = new NewsPager(10, 3);
+        pager.onPageLoaded(pager.firstPageToLoad(), 10);
+        pager.onPageLoaded(pager.nextPageToLoad(19, 20), 10);
+        pager.onPageLoaded(pager.nextPageToLoad(29, 30), 10);
+
+        // The fourth page pushes the first one out of the window
+        int page = pager.nextPageToLoad(29, 30);
+        assertEquals(4, page);
+        assertFalse(pager.isBeforeResidentPages(page));
+        assertEquals(10, pager.onPageLoaded(page, 10));
+
+        // Scrolling back to the top brings it back and drops the last one
+        page = pager.previousPageToLoad(2);
+        assertEquals(1, page);
+        assertTrue(pager.isBeforeResidentPages(page));
+        assertEquals(10, pager.onPageLoaded(page, 10));
+        assertEquals(NewsPager.NO_PAGE, pager.previousPageToLoad(0));
+        assertEquals(4, pager.nextPageToLoad(29, 30));
+    }
+
+    @Test
+    public void shortOrFailedPageStopsPaging() {
+        NewsPager pager = new NewsPager(10, 3);
+        pager.onPageLoaded(pager.firstPageToLoad(), 4);
+        assertEquals(NewsPager.NO_PAGE, pager.nextPageToLoad(3, 4));
+
+        pager.reset();
+        pager.onPageLoaded(pager.firstPageToLoad(), 10);
+        pager.nextPageToLoad(9, 10);
+        pager.onPageFailed();
+        assertEquals(NewsPager.NO_PAGE, pager.nextPageToLoad(9, 10));
+    }
+
+    @Test
+    public void resume_retriesFailedPage() {
+        NewsPager pager = new NewsPager(10, 3);
+        pager.onPageLoaded(pager.firstPageToLoad(), 10);
+        assertEquals(2, pager.nextPageToLoad(9, 10));
+        pager.onPageFailed();
+
+        pager.resume();
+        assertEquals(2, pager.nextPageToLoad(9, 10));
+    }
+
+    @Test
+    public void pageQuery_setsPageParameters() {
+        NewsPager pager = new NewsPager(20, 5);
+        GuardianQuery query = new GuardianQuery.Builder().baseUrl("https://host/search")
+                .query("a").build();
+        assertEquals("https://host/search?page=3&page-size=20&q=a",
+                pager.pageQuery(query, 3).toUrl());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NewsPipelineTest {
+
+    private static final long HOUR = 3600000;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    public void putSegment_mergesSortedSegments() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.NEWEST_FIRST)
+                .build();
+
+        pipeline.putSegment(1, Arrays.asList(article("a", "world", 1), article("c", "world", 3)));
+        NewsPipeline.Result result = pipeline.putSegment(2,
+                Arrays.asList(article("d", "world", 4), article("b", "world", 2)));
+
+        assertEquals(Arrays.asList("d", "c", "b", "a"), titles(result));
+    }
+
+    @Test
+    public void putSegment_onlyFiltersTheSegmentAdded() {
+        final int[] filtered = new int[1];
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .addFilter(new NewsPipeline.Filter() {
+                    @Override
+                    public boolean accept(News news) {
+                        filtered[0]++;
+                        return !news.getSection().equals("sport");
+                    }
+                })
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .build();
+
+        pipeline.putSegment(1, Arrays.asList(article("a", "world", 1), article("b", "sport", 2)));
+        pipeline.putSegment(2, Arrays.asList(article("c", "world", 3), article("d", "world", 4)));
+        NewsPipeline.Result result = pipeline.putSegment(3,
+                Collections.singletonList(article("e", "world", 5)));
+
+        assertEquals(Arrays.asList("a", "c", "d", "e"), titles(result));
+        assertEquals(5, filtered[0]);
+
+        // Dropping segments doesn't filter anything either
+        result = pipeline.retainSegments(2, 3);
+        assertEquals(Arrays.asList("c", "d", "e"), titles(result));
+        assertEquals(5, filtered[0]);
+    }
+
+    @Test
+    public void putSegment_replacesSegmentWithTheSameKey() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .build();
+        pipeline.putSegment(1, Arrays.asList(article("a", "world", 1), article("b", "world", 2)));
+        pipeline.putSegment(2, Collections.singletonList(article("c", "world", 3)));
+
+        NewsPipeline.Result result = pipeline.putSegment(1,
+                Collections.singletonList(article("a2", "world", 1)));
+
+        assertEquals(Arrays.asList("a2", "c"), titles(result));
+    }
+
+    @Test
+    public void sortWithinSegments_keepsOverlappingPagesTogether() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .sortWithinSegments(true)
+                .dedupeTitles(true)
+                .build();
+        // Two pages merging two sections each, where page 2 of "sport" is older than the end
+        // of page 1 of "world"
+        pipeline.putSegment(1, Arrays.asList(article("w2", "world", 20),
+                article("s1", "sport", 10), article("w1", "world", 15),
+                article("s2", "sport", 12)));
+        assertEquals(Arrays.asList("s1", "s2", "w1", "w2"), titles(pipeline.getResult()));
+
+        NewsPipeline.Result result = pipeline.putSegment(2, Arrays.asList(
+                article("w3", "world", 25), article("s3", "sport", 13),
+                article("w4", "world", 30), article("s4", "sport", 14)));
+        // The new page is added after the rows already shown, not between them
+        assertEquals(Arrays.asList("s1", "s2", "w1", "w2", "s3", "s4", "w3", "w4"),
+                titles(result));
+
+        // Dropping the first page removes its rows from the start only
+        result = pipeline.retainSegments(2, 2);
+        assertEquals(Arrays.asList("s3", "s4", "w3", "w4"), titles(result));
+
+        // Bringing it back puts its rows before the others again
+        result = pipeline.putSegment(1, Arrays.asList(article("s1", "sport", 10),
+                article("s2", "sport", 12), article("w1", "world", 15),
+                article("w2", "world", 20)));
+        assertEquals(Arrays.asList("s1", "s2", "w1", "w2", "s3", "s4", "w3", "w4"),
+                titles(result));
+    }
+
+    @Test
+    public void dedupeTitles_keepsTheFirstArticleOfEachTitle() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.NEWEST_FIRST)
+                .dedupeTitles(true)
+                .build();
+
+        pipeline.putSegment(1, Arrays.asList(new News("Storm hits coast", "World news",
+                null, 3, "https://www.theguardian.com/world/storm")));
+        NewsPipeline.Result result = pipeline.putSegment(2, Arrays.asList(
+                new News("Storm hits coast!", "UK news", null, 2,
+                        "https://www.theguardian.com/uk-news/storm"),
+                new News("storm  hits COAST", "Weather", null, 4,
+                        "https://www.theguardian.com/weather/storm"),
+                article("other", "world", 1)));
+
+        assertEquals(2, result.getNews().size());
+        assertEquals("Weather", result.getNews().get(0).getSection());
+        assertEquals("other", result.getNews().get(1).getTitle());
+    }
+
+    @Test
+    public void groupBy_ordersGroupsByTheirFirstArticle() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.NEWEST_FIRST)
+                .groupBy(NewsPipeline.BY_SECTION)
+                .build();
+
+        NewsPipeline.Result result = pipeline.replaceAll(1, Arrays.asList(
+                article("a", "world", 1), article("b", "sport", 2),
+                article("c", "world", 3), article("d", "sport", 4), article("e", "uk", 5)));
+
+        assertEquals(Arrays.asList("e", "d", "b", "c", "a"), titles(result));
+        List<NewsPipeline.Group> groups = result.getGroups();
+        assertEquals(3, groups.size());
+        assertEquals("sport", groups.get(1).getName());
+        assertEquals(1, groups.get(1).getStart());
+        assertEquals(2, groups.get(1).getCount());
+        assertEquals(3, groups.get(2).getStart());
+    }
+
+    @Test
+    public void byDay_groupsByDateInTheGivenTimeZone() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .groupBy(NewsPipeline.byDay(TimeZone.getTimeZone("GMT+02:00")))
+                .build();
+        long midnight = 1483228800000L; // 2017-01-01T00:00:00Z
+
+        NewsPipeline.Result result = pipeline.replaceAll(1, Arrays.asList(
+                article("a", "world", midnight - 3 * HOUR),
+                article("b", "world", midnight - HOUR),
+                article("c", "world", midnight + DAY)));
+
+        List<NewsPipeline.Group> groups = result.getGroups();
+        assertEquals(3, groups.size());
+        assertEquals("2016-12-31", groups.get(0).getName());
+        assertEquals("2017-01-01", groups.get(1).getName());
+        assertEquals("2017-01-02", groups.get(2).getName());
+    }
+
+    @Test
+    public void replaceAll_withNullEmptiesTheList() {
+        NewsPipeline pipeline = new NewsPipeline.Builder().build();
+        pipeline.putSegment(1, Collections.singletonList(article("a", "world", 1)));
+
+        assertTrue(pipeline.replaceAll(1, null).getNews().isEmpty());
+    }
+
+    @Test
+    public void putSegment_keepsTenThousandArticlesInOrder() {
+        NewsPipeline pipeline = new NewsPipeline.Builder()
+                .sortBy(NewsPipeline.OLDEST_FIRST)
+                .dedupeTitles(true)
+                .build();
+        // Pages of 100 articles, each page interleaved with the others
+        for (int page = 0; page < 100; page++) {
+            List<News> news = new ArrayList<News>();
+            for (int i = 0; i < 100; i++) {
+                news.add(article("t" + (i * 100 + page), "world", i * 100 + page));
+            }
+            pipeline.putSegment(page, news);
+        }
+
+        List<News> news = pipeline.getResult().getNews();
+        assertEquals(10000, news.size());
+        for (int i = 0; i < news.size(); i++) {
+            assertEquals(i, news.get(i).getPublishedAtMillis());
+        }
+    }
+
+    private static News article(String title, String section, long publishedAtMillis) {
+        return new News(title, section, null, publishedAtMillis,
+                "https://www.theguardian.com/" + section + "/" + title);
+    }
+
+    private static List<String> titles(NewsPipeline.Result result) {
+        List<String> titles = new ArrayList<String>();
+        for (News news : result.getNews()) {
+            titles.add(news.getTitle());
+        }
+        return titles;
+    }
+}
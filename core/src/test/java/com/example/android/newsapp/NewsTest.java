@@ -0,0 +1,86 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NewsTest {
+
+    @Test
+    public void keepsValuesAsGiven() {
+        News news = new News("Title", "World news", "2017-01-01T06:00:00Z", 1483250400000L,
+                "https://www.theguardian.com/world/2017/jan/01/title",
+                "https://media.guim.co.uk/abc/0_0_500_300/500.jpg");
+
+        assertEquals("Title", news.getTitle());
+        assertEquals("World news", news.getSection());
+        assertEquals("2017-01-01T06:00:00Z", news.getPublicationDate());
+        assertEquals("https://www.theguardian.com/world/2017/jan/01/title",
+                news.getArticleUrl());
+        assertEquals("https://media.guim.co.uk/abc/0_0_500_300/500.jpg",
+                news.getThumbnailUrl());
+    }
+
+    @Test
+    public void keepsUnparsedDatesAndOddUrls() {
+        News news = new News("", "", "2017-01-01T06:00:00.123Z", "no-slash");
+
+        assertEquals(NewsDates.UNKNOWN_DATE, news.getPublishedAtMillis());
+        assertEquals("2017-01-01T06:00:00.123Z", news.getPublicationDate());
+        assertEquals("no-slash", news.getArticleUrl());
+        assertNull(news.getThumbnailUrl());
+        assertEquals("x", new News("", "", null, 0, "x", "x").getThumbnailUrl());
+    }
+
+    @Test
+    public void getArticleId_returnsThePathOfTheWebUrl() {
+        assertEquals("world/2017/jan/01/title", new News("", "", null, 0,
+                "https://www.theguardian.com/world/2017/jan/01/title", null).getArticleId());
+        assertNull(new News("", "", null, 0, "https://www.theguardian.com/", null)
+                .getArticleId());
+        assertNull(new News("", "", null, 0, "no-slash", null).getArticleId());
+    }
+
+    @Test
+    public void sharesSectionsAndUrlPrefixes() {
+        News first = new News("a", new String("Politics"), "2017-01-01T06:00:00Z",
+                "https://www.theguardian.com/politics/2017/jan/01/a");
+        News second = new News("b", new String("Politics"), "2017-01-01T07:00:00Z",
+                "https://www.theguardian.com/politics/2017/jan/01/b");
+
+        assertSame(first.getSection(), second.getSection());
+    }
+
+
+    @Test
+    public void comparesAndHashesUrlsWithoutPuttingThemTogether() {
+        String url = "https://www.theguardian.com/world/2017/jan/01/title";
+        String thumbnail = "https://media.guim.co.uk/abc/0_0_500_300/500.jpg";
+        News news = new News("Title", "World news", null, 0, url, thumbnail);
+        News same = new News("Other", "World news", null, 0, new String(url),
+                new String(thumbnail));
+        News other = new News("Title", "World news", null, 0, url + "s",
+                "https://media.guim.co.uk/abc/0_0_500_300/140.jpg");
+        News noThumbnail = new News("Title", "World news", null, 0, url, null);
+
+        assertEquals(url.hashCode(), news.hashArticleUrl());
+        assertEquals("no-slash".hashCode(), new News("", "", null, 0, "no-slash", null)
+                .hashArticleUrl());
+        assertTrue(news.articleUrlEquals(same));
+        assertTrue(news.articleUrlEquals(noThumbnail));
+        assertFalse(news.articleUrlEquals(other));
+        assertTrue(news.articleUrlEquals(url));
+        assertFalse(news.articleUrlEquals(url + "s"));
+        assertFalse(news.articleUrlEquals("https://www.theguardian.com/world/2017/jan/01/"));
+
+        assertTrue(news.thumbnailUrlEquals(same));
+        assertFalse(news.thumbnailUrlEquals(other));
+        assertFalse(news.thumbnailUrlEquals(noThumbnail));
+        assertTrue(noThumbnail.thumbnailUrlEquals(
+                new News("", "", null, 0, "https://www.theguardian.com/a", null)));
+    }
+}
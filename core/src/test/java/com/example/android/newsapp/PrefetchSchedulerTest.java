@@ -0,0 +1,122 @@
+package com.example.android.newsapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrefetchSchedulerTest {
+
+    private static final long INTERVAL = 60 * 60 * 1000;
+    private static final long MIN_BACKOFF = 60 * 1000;
+    private static final long MAX_BACKOFF = 10 * 60 * 1000;
+
+    private final FakeClock mClock = new FakeClock();
+    private final FakeConnectivitySource mConnectivity = new FakeConnectivitySource();
+    private final FakeBattery mBattery = new FakeBattery();
+    private PrefetchScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mScheduler = new PrefetchScheduler(mClock, mConnectivity, mBattery, INTERVAL,
+                MIN_BACKOFF, MAX_BACKOFF);
+    }
+
+    @Test
+    public void check_runsOncePerInterval() {
+        assertEquals(PrefetchScheduler.RUN, mScheduler.check());
+        mScheduler.onPrefetchFinished(true);
+        assertEquals(mClock.now + INTERVAL, mScheduler.getNextCheckMillis());
+
+        mClock.now += INTERVAL - 1;
+        assertEquals(PrefetchScheduler.NOT_DUE, mScheduler.check());
+        mClock.now += 1;
+        assertEquals(PrefetchScheduler.RUN, mScheduler.check());
+    }
+
+    @Test
+    public void onPrefetchFinished_backsOffExponentiallyUpToMaximum() {
+        long[] expectedDelays = {MIN_BACKOFF, 2 * MIN_BACKOFF, 4 * MIN_BACKOFF,
+                8 * MIN_BACKOFF, MAX_BACKOFF, MAX_BACKOFF};
+        for (long delay : expectedDelays) {
+            assertEquals(PrefetchScheduler.RUN, mScheduler.check());
+            mScheduler.onPrefetchFinished(false);
+            assertEquals(mClock.now + delay, mScheduler.getNextCheckMillis());
+
+            mClock.now += delay - 1;
+            assertEquals(PrefetchScheduler.NOT_DUE, mScheduler.check());
+            mClock.now += 1;
+        }
+
+        mScheduler.check();
+        mScheduler.onPrefetchFinished(true);
+        assertEquals(0, mScheduler.getConsecutiveFailures());
+        assertEquals(mClock.now + INTERVAL, mScheduler.getNextCheckMillis());
+    }
+
+    @Test
+    public void check_defersWithoutNetworkOrOnLowBattery() {
+        mConnectivity.connected = false;
+        assertEquals(PrefetchScheduler.DEFERRED_NO_NETWORK, mScheduler.check());
+        assertEquals(mClock.now + MIN_BACKOFF, mScheduler.getNextCheckMillis());
+        assertEquals(PrefetchScheduler.NOT_DUE, mScheduler.check());
+
+        mClock.now += MIN_BACKOFF;
+        mConnectivity.connected = true;
+        mBattery.low = true;
+        assertEquals(PrefetchScheduler.DEFERRED_LOW_BATTERY, mScheduler.check());
+
+        mClock.now += MIN_BACKOFF;
+        mBattery.charging = true;
+        assertEquals(PrefetchScheduler.RUN, mScheduler.check());
+    }
+
+    @Test
+    public void check_usesMeteredNetworkOnlyForStaleContent() {
+        mScheduler.restore(mClock.now, mClock.now, 0);
+        mConnectivity.metered = true;
+
+        mClock.now += INTERVAL;
+        assertEquals(PrefetchScheduler.DEFERRED_METERED, mScheduler.check());
+
+        mClock.now += INTERVAL * (PrefetchScheduler.METERED_STALENESS_INTERVALS - 1);
+        assertEquals(PrefetchScheduler.RUN, mScheduler.check());
+    }
+
+    @Test
+    public void getBackfillRequests_shrinksOnMeteredNetworkAndStopsOnLowBattery() {
+        assertEquals(NetworkPolicy.UNMETERED.getBackfillRequests(),
+                mScheduler.getBackfillRequests());
+
+        mConnectivity.metered = true;
+        assertEquals(NetworkPolicy.METERED.getBackfillRequests(),
+                mScheduler.getBackfillRequests());
+        assertTrue(mScheduler.getBackfillRequests()
+                < NetworkPolicy.UNMETERED.getBackfillRequests());
+
+        mBattery.low = true;
+        assertEquals(0, mScheduler.getBackfillRequests());
+        mBattery.charging = true;
+        assertEquals(NetworkPolicy.METERED.getBackfillRequests(),
+                mScheduler.getBackfillRequests());
+
+        mConnectivity.connected = false;
+        assertEquals(0, mScheduler.getBackfillRequests());
+    }
+
+    private static class FakeBattery implements BatterySource {
+        boolean low;
+        boolean charging;
+
+        @Override
+        public boolean isLow() {
+            return low;
+        }
+
+        @Override
+        public boolean isCharging() {
+            return charging;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityExecutorTest {
+
+    private final PriorityExecutor mExecutor = new PriorityExecutor(1, "test");
+    private final List<String> mOrder = new CopyOnWriteArrayList<String>();
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    @Test
+    public void execute_runsVisibleWorkBeforePrefetches() throws Exception {
+        blockThread();
+        mExecutor.execute(record("prefetch 1"), PriorityExecutor.PRIORITY_PREFETCH);
+        mExecutor.execute(record("visible 1"), PriorityExecutor.PRIORITY_VISIBLE);
+        mExecutor.execute(record("prefetch 2"), PriorityExecutor.PRIORITY_PREFETCH);
+        mExecutor.execute(record("visible 2"), PriorityExecutor.PRIORITY_VISIBLE);
+
+        runAll();
+
+        assertEquals(Arrays.asList("visible 1", "visible 2", "prefetch 1",
+                "prefetch 2"), mOrder);
+    }
+
+    @Test
+    public void setPriority_movesWaitingWorkUp() throws Exception {
+        blockThread();
+        mExecutor.execute(record("visible"), PriorityExecutor.PRIORITY_VISIBLE);
+        PriorityExecutor.Task prefetch =
+                mExecutor.execute(record("now visible"), PriorityExecutor.PRIORITY_PREFETCH);
+        mExecutor.execute(record("prefetch"), PriorityExecutor.PRIORITY_PREFETCH);
+
+        mExecutor.setPriority(prefetch, PriorityExecutor.PRIORITY_VISIBLE);
+        runAll();
+
+        assertEquals(Arrays.asList("visible", "now visible", "prefetch"), mOrder);
+    }
+
+    @Test
+    public void cancel_removesWaitingWork() throws Exception {
+        blockThread();
+        PriorityExecutor.Task canceled =
+                mExecutor.execute(record("canceled"), PriorityExecutor.PRIORITY_VISIBLE);
+        mExecutor.execute(record("kept"), PriorityExecutor.PRIORITY_PREFETCH);
+
+        mExecutor.cancel(canceled);
+        assertEquals(1, mExecutor.getQueuedCount());
+        runAll();
+
+        assertTrue(canceled.isCanceled());
+        assertEquals(Arrays.asList("kept"), mOrder);
+    }
+
+    /**
+     * Keep the only thread busy, so the work queued next waits in the queue
+     */
+    private void blockThread() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    mRelease.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, PriorityExecutor.PRIORITY_VISIBLE);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Release the thread and wait for everything queued so far to run
+     */
+    private void runAll() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        }, Integer.MAX_VALUE);
+        mRelease.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mOrder.add(name);
+            }
+        };
+    }
+}
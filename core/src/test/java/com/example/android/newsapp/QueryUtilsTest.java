@@ -0,0 +1,251 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryUtilsTest {
+
+    private static final String LAST_MODIFIED = "Sun, 01 Jan 2017 06:00:00 GMT";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private MockGuardianServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockGuardianServer();
+        mServer.setBody(Fixtures.load("guardian_search_50.json"));
+    }
+
+    @After
+    public void tearDown() {
+        NewsHttpClient.setTimingListener(null);
+        NewsHttpClient.setTimeouts(NewsHttpClient.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                NewsHttpClient.DEFAULT_READ_TIMEOUT_MILLIS);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void fetchNewsData_requestsAndDecompressesGzip() {
+        NewsResponse response = QueryUtils.fetchNewsData(mServer.url("q=gzip"), null, null);
+
+        assertEquals(50, response.getNews().size());
+        assertFalse(response.isNotModified());
+        assertEquals("gzip", mServer.getRequests().get(0).acceptEncoding);
+    }
+
+    @Test
+    public void fetchNewsData_revalidatesWithETag() {
+        mServer.setValidators("\"v1\"", LAST_MODIFIED);
+        String url = mServer.url("q=etag");
+
+        NewsResponse first = QueryUtils.fetchNewsData(url, null, null);
+        assertEquals("\"v1\"", first.getETag());
+        assertEquals(LAST_MODIFIED, first.getLastModified());
+
+        NewsResponse second = QueryUtils.fetchNewsData(url, first.getETag(),
+                first.getLastModified());
+        assertTrue(second.isNotModified());
+        assertNull(second.getNews());
+        assertEquals("\"v1\"", second.getETag());
+        assertEquals("\"v1\"", mServer.getRequests().get(1).ifNoneMatch);
+        assertEquals(LAST_MODIFIED, mServer.getRequests().get(1).ifModifiedSince);
+    }
+
+    @Test
+    public void fetchNewsData_refetchesWhenETagChanged() {
+        mServer.setValidators("\"v2\"", null);
+
+        NewsResponse response = QueryUtils.fetchNewsData(mServer.url("q=changed"), "\"v1\"",
+                null);
+
+        assertFalse(response.isNotModified());
+        assertEquals(50, response.getNews().size());
+        assertEquals("\"v2\"", response.getETag());
+    }
+
+    @Test
+    public void fetchNewsData_returnsNoNewsWhenServerUnreachable() {
+        String url = mServer.url("q=down");
+        mServer.shutdown();
+
+        NewsResponse response = QueryUtils.fetchNewsData(url, null, null);
+
+        assertNull(response.getNews());
+        assertFalse(response.isNotModified());
+    }
+
+    @Test
+    public void fetchNewsData_cancellationClosesSlowConnection() throws Exception {
+        mServer.setDelayMillis(5000);
+        final CancellationToken cancellation = new CancellationToken();
+        Thread canceller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cancellation.cancel();
+            }
+        });
+        canceller.start();
+
+        long start = System.nanoTime();
+        NewsResponse response =
+                QueryUtils.fetchNewsData(mServer.url("q=slow"), null, null, cancellation);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        canceller.join();
+
+        assertNull(response.getNews());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+    }
+
+    @Test
+    public void fetchNewsData_reusesConnectionForLaterRequests() {
+        List<RequestTiming> timings = recordTimings();
+
+        assertNotNull(QueryUtils.fetchNewsData(mServer.url("q=first"), null, null).getNews());
+        assertNotNull(QueryUtils.fetchNewsData(mServer.url("q=second"), null, null).getNews());
+
+        assertEquals(2, timings.size());
+        RequestTiming first = timings.get(0);
+        assertFalse(first.isConnectionReused());
+        assertTrue(first.getConnectMillis() >= 0);
+        RequestTiming second = timings.get(1);
+        assertTrue(second.isConnectionReused());
+        assertEquals(-1, second.getDnsMillis());
+        assertEquals(-1, second.getConnectMillis());
+        assertEquals("http/1.1", second.getProtocol());
+    }
+
+    @Test
+    public void fetchNewsData_recordsTimingBreakdown() {
+        mServer.setDelayMillis(100);
+        List<RequestTiming> timings = recordTimings();
+
+        QueryUtils.fetchNewsData(mServer.url("q=timing"), null, null);
+
+        assertEquals(1, timings.size());
+        RequestTiming timing = timings.get(0);
+        assertFalse(timing.isFailed());
+        // Plain HTTP, so there is no TLS handshake
+        assertEquals(-1, timing.getTlsMillis());
+        assertTrue(timing.toString(), timing.getTimeToFirstByteMillis() >= 100);
+        assertTrue(timing.toString(), timing.getBodyMillis() >= 0);
+        assertTrue(timing.toString(),
+                timing.getTotalMillis() >= timing.getTimeToFirstByteMillis());
+    }
+
+    @Test
+    public void fetchNewsData_givesUpAfterReadTimeout() {
+        NewsHttpClient.setTimeouts(1000, 200);
+        mServer.setDelayMillis(3000);
+        List<RequestTiming> timings = recordTimings();
+
+        long start = System.nanoTime();
+        NewsResponse response = QueryUtils.fetchNewsData(mServer.url("q=timeout"), null, null);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertNull(response.getNews());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+        assertTrue(timings.get(0).isFailed());
+    }
+
+    @Test
+    public void fetchNewsData_doesNotConnectWhenAlreadyCanceled() {
+        CancellationToken cancellation = new CancellationToken();
+        cancellation.cancel();
+
+        NewsResponse response =
+                QueryUtils.fetchNewsData(mServer.url("q=canceled"), null, null, cancellation);
+
+        assertNull(response.getNews());
+        assertEquals(0, mServer.getRequests().size());
+    }
+
+    @Test
+    public void fetchImage_downloadsOnceIntoDiskCache() throws Exception {
+        byte[] image = new byte[2000];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) i;
+        }
+        mServer.setBody(image);
+        ImageDiskCache cache = new ImageDiskCache(mFolder.newFolder(), 1024 * 1024);
+        String url = mServer.url("image=a");
+
+        File first = QueryUtils.fetchImage(url, cache, new CancellationToken());
+        File second = QueryUtils.fetchImage(url, cache, new CancellationToken());
+
+        assertEquals(image.length, first.length());
+        assertEquals(first, second);
+        assertEquals(1, mServer.getRequests().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void fetchImage_failsOnErrorResponse() throws Exception {
+        mServer.setFailing(404);
+        ImageDiskCache cache = new ImageDiskCache(mFolder.newFolder(), 1024 * 1024);
+
+        QueryUtils.fetchImage(mServer.url("image=missing"), cache, new CancellationToken());
+    }
+
+    @Test
+    public void fetchArticleBodyResponse_returnsTheBodyField() throws Exception {
+        mServer.setBody("{\"response\":{\"content\":{\"fields\":{\"body\":\"<p>Text</p>\"}}}}"
+                .getBytes("UTF-8"));
+
+        NewsResponse response = QueryUtils.fetchArticleBodyResponse(
+                mServer.url("show-fields=body"), new CancellationToken());
+        assertTrue(response.isSuccessful());
+        assertEquals("<p>Text</p>", response.getBody());
+    }
+
+    @Test
+    public void fetchArticleBodyResponse_keepsTheStatusOfErrorResponses() throws Exception {
+        mServer.setFailing(404);
+
+        NewsResponse response = QueryUtils.fetchArticleBodyResponse(
+                mServer.url("show-fields=body"), new CancellationToken());
+        assertFalse(response.isSuccessful());
+        assertFalse(response.isRetryable());
+        assertEquals(404, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void encode_encodesAllButUnreservedCharacters() {
+        assertEquals("a%20b%2Bc%26d%3De_-!.~'()*", QueryUtils.encode("a b+c&d=e_-!.~'()*"));
+        assertEquals("a%C3%A9%F0%9F%93%B0", QueryUtils.encode("a\u00e9\ud83d\udcf0"));
+    }
+
+    /**
+     * Return a list the timing of each request finished from now on is added to.
+     */
+    private static List<RequestTiming> recordTimings() {
+        final List<RequestTiming> timings = new CopyOnWriteArrayList<RequestTiming>();
+        NewsHttpClient.setTimingListener(new RequestTiming.Listener() {
+            @Override
+            public void onRequestFinished(RequestTiming timing) {
+                timings.add(timing);
+            }
+        });
+        return timings;
+    }
+}
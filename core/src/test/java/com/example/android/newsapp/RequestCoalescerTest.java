@@ -0,0 +1,129 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestCoalescerTest {
+
+    private final RequestCoalescer<String> mCoalescer = new RequestCoalescer<String>();
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+    /**
+     * Request that blocks until released or cancelled, counting how often it runs
+     */
+    private final AtomicInteger mExecutions = new AtomicInteger();
+    private final CountDownLatch mStarted = new CountDownLatch(1);
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+    private volatile CancellationToken mRequestCancellation;
+
+    private final RequestCoalescer.Request<String> mRequest =
+            new RequestCoalescer.Request<String>() {
+                @Override
+                public String execute(CancellationToken cancellation) {
+                    mExecutions.incrementAndGet();
+                    mRequestCancellation = cancellation;
+                    mStarted.countDown();
+                    try {
+                        while (!cancellation.isCanceled()
+                                && !mRelease.await(10, TimeUnit.MILLISECONDS)) {
+                            // Wait for the test to release or cancel the request
+                        }
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return cancellation.isCanceled() ? null : "result";
+                }
+            };
+
+    @Test
+    public void execute_sharesRequestBetweenCallers() throws Exception {
+        Future<String> first = submit(new CancellationToken());
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        Future<String> second = submit(new CancellationToken());
+        waitForCallers();
+
+        mRelease.countDown();
+
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, mExecutions.get());
+        assertEquals(0, mCoalescer.getInFlightCount());
+    }
+
+    @Test
+    public void execute_keepsRequestWhileOtherCallersWait() throws Exception {
+        CancellationToken firstCancellation = new CancellationToken();
+        Future<String> first = submit(firstCancellation);
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        CancellationToken secondCancellation = new CancellationToken();
+        Future<String> second = submit(secondCancellation);
+        waitForCallers();
+
+        secondCancellation.cancel();
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertFalse(mRequestCancellation.isCanceled());
+
+        mRelease.countDown();
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute_cancelsRequestOnceAllCallersAreCanceled() throws Exception {
+        CancellationToken firstCancellation = new CancellationToken();
+        Future<String> first = submit(firstCancellation);
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        CancellationToken secondCancellation = new CancellationToken();
+        Future<String> second = submit(secondCancellation);
+        waitForCallers();
+
+        secondCancellation.cancel();
+        firstCancellation.cancel();
+
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertTrue(mRequestCancellation.isCanceled());
+        assertEquals(0, mCoalescer.getInFlightCount());
+    }
+
+    @Test
+    public void execute_startsNewRequestAfterCancellation() throws Exception {
+        CancellationToken cancellation = new CancellationToken();
+        Future<String> first = submit(cancellation);
+        assertTrue(mStarted.await(5, TimeUnit.SECONDS));
+        cancellation.cancel();
+        assertNull(first.get(5, TimeUnit.SECONDS));
+
+        mRelease.countDown();
+        assertEquals("result", submit(new CancellationToken()).get(5, TimeUnit.SECONDS));
+        assertEquals(2, mExecutions.get());
+    }
+
+    private Future<String> submit(final CancellationToken cancellation) {
+        return mExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return mCoalescer.execute("key", mRequest, cancellation);
+            }
+        });
+    }
+
+    /**
+     * The second caller has no visible effect until the request completes, give it a moment
+     * to join.
+     */
+    private static void waitForCallers() throws InterruptedException {
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetryingFetcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_DELAY_MILLIS = 10;
+    private static final long MAX_DELAY_MILLIS = 1500;
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_MILLIS = 30000;
+
+    private MockGuardianServer mServer;
+    private FakeClock mClock;
+    private CircuitBreaker mCircuitBreaker;
+    private RetryingFetcher mFetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockGuardianServer();
+        mServer.setBody(Fixtures.load("guardian_search_10.json"));
+        mClock = new FakeClock();
+        mCircuitBreaker = new CircuitBreaker(mClock, FAILURE_THRESHOLD, OPEN_MILLIS);
+        mFetcher = new RetryingFetcher(mCircuitBreaker, MAX_ATTEMPTS,
+                BASE_DELAY_MILLIS, MAX_DELAY_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void fetch_retriesServerErrorsAndDroppedConnections() {
+        mServer.enqueueError(503, null);
+        mServer.enqueueDisconnect();
+
+        NewsResponse response = fetch("q=flaky");
+
+        assertNotNull(response.getNews());
+        assertEquals(3, mServer.getRequests().size());
+        assertEquals(CircuitBreaker.CLOSED, mCircuitBreaker.getState());
+        assertEquals(0, mCircuitBreaker.getConsecutiveFailures());
+    }
+
+    @Test
+    public void fetch_givesUpAfterMaxAttempts() {
+        mServer.setFailing(500);
+
+        NewsResponse response = fetch("q=down");
+
+        assertNull(response.getNews());
+        assertEquals(500, response.getStatusCode());
+        assertEquals(MAX_ATTEMPTS, mServer.getRequests().size());
+    }
+
+    @Test
+    public void fetch_doesNotRetryClientErrors() {
+        mServer.enqueueError(401, null);
+
+        NewsResponse response = fetch("q=unauthorized");
+
+        assertNull(response.getNews());
+        assertEquals(401, response.getStatusCode());
+        assertEquals(1, mServer.getRequests().size());
+        assertEquals(0, mCircuitBreaker.getConsecutiveFailures());
+    }
+
+    @Test
+    public void fetch_waitsForRetryAfterOnTooManyRequests() {
+        mServer.enqueueError(429, "1");
+
+        long start = System.nanoTime();
+        NewsResponse response = fetch("q=limited");
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertNotNull(response.getNews());
+        assertEquals(2, mServer.getRequests().size());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis >= 1000);
+    }
+
+    @Test
+    public void fetch_doesNotWaitLongerThanMaxDelay() {
+        mServer.enqueueError(429, "120");
+
+        NewsResponse response = fetch("q=limited");
+
+        assertEquals(429, response.getStatusCode());
+        assertEquals(120000, response.getRetryAfterMillis());
+        assertEquals(1, mServer.getRequests().size());
+    }
+
+    @Test
+    public void fetch_stopsRequestingWhileCircuitIsOpen() {
+        mServer.setFailing(503);
+        fetch("q=down");
+        fetch("q=down");
+        assertEquals(CircuitBreaker.OPEN, mCircuitBreaker.getState());
+        int requests = mServer.getRequests().size();
+
+        NewsResponse response = fetch("q=down");
+
+        assertNull(response.getNews());
+        assertEquals(requests, mServer.getRequests().size());
+    }
+
+    @Test
+    public void fetch_closesCircuitWhenTrialRequestSucceeds() {
+        mServer.setFailing(503);
+        fetch("q=down");
+        fetch("q=down");
+        mServer.setFailing(0);
+
+        mClock.now += OPEN_MILLIS;
+        assertEquals(CircuitBreaker.HALF_OPEN, mCircuitBreaker.getState());
+        NewsResponse response = fetch("q=up");
+
+        assertNotNull(response.getNews());
+        assertEquals(CircuitBreaker.CLOSED, mCircuitBreaker.getState());
+    }
+
+    @Test
+    public void fetchBody_retriesAndSharesCircuitWithNewsRequests() throws Exception {
+        mServer.setBody("{\"response\":{\"content\":{\"fields\":{\"body\":\"<p>Text</p>\"}}}}"
+                .getBytes("UTF-8"));
+        mServer.enqueueError(503, null);
+        NewsResponse response =
+                mFetcher.fetchBody(mServer.url("show-fields=body"), new CancellationToken());
+        assertEquals("<p>Text</p>", response.getBody());
+        assertEquals(2, mServer.getRequests().size());
+
+        mServer.setFailing(503);
+        fetch("q=down");
+        fetch("q=down");
+        assertEquals(CircuitBreaker.OPEN, mCircuitBreaker.getState());
+        int requests = mServer.getRequests().size();
+
+        response = mFetcher.fetchBody(mServer.url("show-fields=body"), new CancellationToken());
+        assertNull(response.getBody());
+        assertEquals(requests, mServer.getRequests().size());
+    }
+
+    @Test
+    public void fetch_stopsWaitingWhenCanceled() throws Exception {
+        mServer.setFailing(503);
+        RetryingFetcher fetcher = new RetryingFetcher(mCircuitBreaker, MAX_ATTEMPTS,
+                5000, 5000);
+        final CancellationToken cancellation = new CancellationToken();
+        Thread canceller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                cancellation.cancel();
+            }
+        });
+        canceller.start();
+
+        long start = System.nanoTime();
+        fetcher.fetch(mServer.url("q=down"), null, null, cancellation);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        canceller.join();
+
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 2000);
+    }
+
+    @Test
+    public void retryDelayMillis_isJitteredUnderCappedExponentialCeiling() {
+        RetryingFetcher fetcher = new RetryingFetcher(null, mCircuitBreaker, new Random(42),
+                10, 100, 1000);
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long ceiling = Math.min(100L << attempt, 1000);
+            for (int i = 0; i < 100; i++) {
+                long delay = fetcher.retryDelayMillis(attempt, -1);
+                assertTrue(attempt + ": " + delay, delay >= 0 && delay <= ceiling);
+            }
+        }
+        assertEquals(2500, fetcher.retryDelayMillis(0, 2500));
+    }
+
+    private NewsResponse fetch(String query) {
+        return mFetcher.fetch(mServer.url(query), null, null, new CancellationToken());
+    }
+}
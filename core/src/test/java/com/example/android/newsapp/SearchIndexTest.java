@@ -0,0 +1,255 @@
+package com.example.android.newsapp;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchIndexTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final SearchIndex mIndex = new SearchIndex(null);
+
+    @Test
+    public void tokenize_lowerCasesAndRemovesAccents() {
+        assertEquals(Arrays.asList("cafe", "au", "lait", "2017"),
+                SearchIndex.tokenize("Café-au-LAIT, 2017!"));
+        assertEquals(Arrays.asList("zurich", "s", "ubermensch"),
+                SearchIndex.tokenize("Zürich's  Übermensch"));
+    }
+
+    @Test
+    public void search_matchesAllTerms() {
+        mIndex.addAll(Arrays.asList(
+                news("Storm hits the coast", "World news", 1),
+                news("Storm clouds over the economy", "Business", 2),
+                news("Coast guard rescue", "UK news", 3)));
+
+        assertEquals(titles("Storm hits the coast"), titles(mIndex.search("coast storm ", 10)));
+        assertEquals(0, mIndex.search("storm rescue ", 10).size());
+        assertEquals(0, mIndex.search("hurricane ", 10).size());
+    }
+
+    @Test
+    public void search_matchesLastTermAsPrefixWhileTyping() {
+        mIndex.addAll(Arrays.asList(
+                news("Elections in France", "World news", 1),
+                news("Electric cars sell well", "Business", 2),
+                news("Election results", "Politics", 3)));
+
+        assertEquals(3, mIndex.search("elect", 10).size());
+        assertEquals(titles("Election results"), titles(mIndex.search("election ", 10)));
+        // Exact matches rank above prefix matches
+        assertEquals("Election results", mIndex.search("election", 10).get(0).getTitle());
+        assertEquals(titles("Elections in France"), titles(mIndex.search("f", 10)));
+    }
+
+    @Test
+    public void search_ranksTitleMatchesAboveSectionMatches() {
+        mIndex.addAll(Arrays.asList(
+                news("Markets rally", "Business", 2),
+                news("Business rates to rise", "UK news", 1)));
+
+        List<News> results = mIndex.search("business ", 10);
+
+        assertEquals(titles("Business rates to rise", "Markets rally"), titles(results));
+    }
+
+    @Test
+    public void search_breaksTiesByNewestFirstAndHonoursLimit() {
+        mIndex.addAll(Arrays.asList(
+                news("Weather today", "World news", 1),
+                news("Weather today", "World news", 3),
+                news("Weather today", "World news", 2)));
+
+        List<News> results = mIndex.search("weather ", 2);
+
+        assertEquals(2, results.size());
+        assertEquals(3, results.get(0).getPublishedAtMillis() / 1000);
+        assertEquals(2, results.get(1).getPublishedAtMillis() / 1000);
+    }
+
+    @Test
+    public void add_replacesArticleWhoseTextChanged() {
+        mIndex.add(news("Original headline", "World news", 1));
+        mIndex.add(news("Original headline", "World news", 1));
+        assertEquals(1, mIndex.size());
+
+        mIndex.add(news("Updated headline", "World news", 1));
+
+        assertEquals(1, mIndex.size());
+        assertEquals(0, mIndex.search("original ", 10).size());
+        assertEquals(1, mIndex.search("updated ", 10).size());
+    }
+
+    @Test
+    public void add_indexesBodyText() {
+        mIndex.add(news("Headline", "World news", 1), "The body mentions volcanoes.");
+
+        assertEquals(1, mIndex.search("volcano", 10).size());
+    }
+
+    @Test
+    public void writeTo_roundTripsWithoutReplacedArticles() throws Exception {
+        mIndex.addAll(Arrays.asList(
+                news("First story", "World news", 1),
+                news("Second story", "Business", 2)));
+        mIndex.add(news("First story, updated", "World news", 1));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        mIndex.writeTo(bytes);
+        SearchIndex copy = new SearchIndex(null);
+        copy.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(2, copy.size());
+        assertEquals(mIndex.getTermCount(), copy.getTermCount());
+        assertEquals(titles("Second story", "First story, updated"),
+                titles(copy.search("story ", 10)));
+        assertEquals(titles("First story, updated"), titles(copy.search("upd", 10)));
+    }
+
+    @Test
+    public void saveIfDirty_persistsIndexForNextLaunch() throws Exception {
+        File file = new File(mFolder.getRoot(), "search_index");
+        SearchIndex index = SearchIndex.load(file);
+        index.addAll(parseFixture("guardian_search_200.json"));
+        index.saveIfDirty();
+
+        SearchIndex loaded = SearchIndex.load(file);
+
+        assertEquals(index.size(), loaded.size());
+        assertTrue(loaded.size() > 0);
+        String title = loaded.search("elect", 1).get(0).getTitle();
+        assertEquals(index.search("elect", 1).get(0).getTitle(), title);
+    }
+
+    @Test
+    public void saveIfDue_savesAtMostOncePerInterval() throws Exception {
+        File file = new File(mFolder.getRoot(), "search_index");
+        List<News> news = parseFixture("guardian_search_200.json");
+        SearchIndex index = SearchIndex.load(file);
+        index.addAll(news.subList(0, 1));
+        index.saveIfDue(1000, 60000);
+        assertEquals(1, SearchIndex.load(file).size());
+
+        index.addAll(news.subList(1, 2));
+        index.saveIfDue(60999, 60000);
+        assertEquals(1, SearchIndex.load(file).size());
+
+        index.saveIfDue(61000, 60000);
+        assertEquals(2, SearchIndex.load(file).size());
+    }
+
+    @Test
+    public void addBody_makesBodyTextSearchable() {
+        News news = new News("Budget day", "Politics", null, 1000,
+                "https://www.theguardian.com/politics/2017/jan/01/budget", null);
+        mIndex.add(news);
+        assertTrue(mIndex.search("chancellor", 10).isEmpty());
+
+        assertTrue(mIndex.addBody(news.getArticleUrl(),
+                "<p>The <a href=\"x\">chancellor</a>&rsquo;s plan &amp; more</p>"));
+        assertEquals(titles("Budget day"), titles(mIndex.search("chancellor", 10)));
+        assertTrue(mIndex.search("rsquo", 10).isEmpty());
+        assertTrue(mIndex.search("href", 10).isEmpty());
+        assertEquals(1, mIndex.size());
+
+        assertFalse(mIndex.addBody("https://www.theguardian.com/missing", "<p>Text</p>"));
+    }
+
+    @Test
+    public void removePublishedBefore_dropsOldArticlesFromResultsAndFile() throws Exception {
+        File file = new File(mFolder.getRoot(), "search_index");
+        SearchIndex index = SearchIndex.load(file);
+        index.addAll(Arrays.asList(
+                news("Old storm", "World news", 1),
+                news("New storm", "World news", 3)));
+        index.saveIfDirty();
+
+        assertEquals(1, index.removePublishedBefore(2000));
+        assertEquals(0, index.removePublishedBefore(2000));
+        assertEquals(titles("New storm"), titles(index.search("storm", 10)));
+        assertEquals(1, index.size());
+
+        index.saveIfDirty();
+        SearchIndex loaded = SearchIndex.load(file);
+        assertEquals(titles("New storm"), titles(loaded.search("storm", 10)));
+        assertEquals(titles(), titles(loaded.search("old", 10)));
+
+        // Received again, a removed article is added back
+        index.add(news("Old storm", "World news", 1));
+        assertEquals(2, index.search("storm", 10).size());
+    }
+
+    @Test
+    public void saveIfDirty_keepsArticlesAddedWhileSaving() throws Exception {
+        final File file = new File(mFolder.getRoot(), "search_index");
+        final SearchIndex index = SearchIndex.load(file);
+        final List<News> news = parseFixture("guardian_search_200.json");
+        index.addAll(news.subList(0, news.size() / 2));
+
+        Thread adding = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (News article : news.subList(news.size() / 2, news.size())) {
+                    index.add(article);
+                }
+            }
+        });
+        adding.start();
+        index.saveIfDirty();
+        adding.join();
+        index.saveIfDirty();
+
+        SearchIndex loaded = SearchIndex.load(file);
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.getTermCount(), loaded.getTermCount());
+    }
+
+    @Test
+    public void load_discardsCorruptFile() throws Exception {
+        File file = new File(mFolder.getRoot(), "search_index");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[]{1, 2, 3});
+        out.close();
+
+        assertEquals(0, SearchIndex.load(file).size());
+    }
+
+    static List<News> parseFixture(String name) throws Exception {
+        return NewsJsonParser.parseNews(new ByteArrayInputStream(Fixtures.load(name)),
+                new CancellationToken());
+    }
+
+    private static News news(String title, String section, long publishedAtSeconds) {
+        long millis = publishedAtSeconds * 1000;
+        return new News(title, section, NewsDates.formatIsoDate(millis), millis,
+                "https://www.theguardian.com/" + section.replace(' ', '-') + "/"
+                        + publishedAtSeconds);
+    }
+
+    private static List<String> titles(String... titles) {
+        return Arrays.asList(titles);
+    }
+
+    private static List<String> titles(List<News> news) {
+        List<String> titles = new ArrayList<String>();
+        for (News article : news) {
+            titles.add(article.getTitle());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SectionFetcherTest {
+
+    @Test
+    public void fetch_mergesSectionsByPublicationDateAsTheyComplete() {
+        // The slow section only completes once the fast one was reported
+        final CountDownLatch fastReported = new CountDownLatch(1);
+        final List<Integer> partialSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        SectionFetcher fetcher = new SectionFetcher(4, 4);
+
+        List<News> news = fetcher.fetch(
+                Arrays.asList("http://host/slow", "http://host/fast"),
+                new SectionFetcher.Source() {
+                    @Override
+                    public List<News> fetch(String url) {
+                        if (url.endsWith("slow")) {
+                            await(fastReported);
+                            return Arrays.asList(news("slow", "2017-01-01T08:00:00Z"),
+                                    news("slow", "2017-01-01T06:00:00Z"));
+                        }
+                        return Arrays.asList(news("fast", "2017-01-01T07:00:00Z"));
+                    }
+                }, 5000, new SectionFetcher.Listener() {
+                    @Override
+                    public void onPartialResult(List<News> news, int completed, int total) {
+                        partialSizes.add(news.size());
+                        fastReported.countDown();
+                    }
+                });
+
+        assertEquals(Arrays.asList(1, 3), partialSizes);
+        assertEquals("2017-01-01T06:00:00Z", news.get(0).getPublicationDate());
+        assertEquals("2017-01-01T07:00:00Z", news.get(1).getPublicationDate());
+        assertEquals("2017-01-01T08:00:00Z", news.get(2).getPublicationDate());
+    }
+
+    @Test
+    public void fetch_dropsSectionsMissingTheDeadline() {
+        final CountDownLatch never = new CountDownLatch(1);
+        SectionFetcher fetcher = new SectionFetcher(4, 4);
+
+        List<News> news = fetcher.fetch(
+                Arrays.asList("http://host/hangs", "http://host/ok", "http://host/fails"),
+                new SectionFetcher.Source() {
+                    @Override
+                    public List<News> fetch(String url) {
+                        if (url.endsWith("hangs")) {
+                            await(never);
+                        } else if (url.endsWith("fails")) {
+                            throw new IllegalStateException("boom");
+                        }
+                        return Arrays.asList(news("ok", "2017-01-01T07:00:00Z"));
+                    }
+                }, 200, null);
+
+        assertEquals(1, news.size());
+    }
+
+    @Test
+    public void fetch_returnsNullWhenEverySectionFails() {
+        SectionFetcher fetcher = new SectionFetcher(2, 2);
+        assertNull(fetcher.fetch(Arrays.asList("http://host/a", "http://host/b"),
+                new SectionFetcher.Source() {
+                    @Override
+                    public List<News> fetch(String url) {
+                        return null;
+                    }
+                }, 1000, null));
+    }
+
+    @Test
+    public void fetch_limitsConcurrentRequestsPerHost() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        SectionFetcher fetcher = new SectionFetcher(6, 2);
+
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < 8; i++) {
+            urls.add("http://same-host/section" + i);
+        }
+        fetcher.fetch(urls, new SectionFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return new ArrayList<News>();
+            }
+        }, 5000, null);
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    private static News news(String title, String publicationDate) {
+        return new News(title, "Section", publicationDate, "https://www.theguardian.com/" + title);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTimerTest {
+
+    private static final long MILLI = 1000000;
+
+    private StartupTimer mTimer;
+
+    @Before
+    public void setUp() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        mTimer = new StartupTimer();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void onCreate_afterProcessStartIsColdAndTimedFromTheProcessStart() {
+        mTimer.onProcessStart(100 * MILLI);
+        mTimer.onCreate(150 * MILLI);
+        mTimer.mark(StartupTimer.PHASE_CREATE, 200 * MILLI);
+        mTimer.mark(StartupTimer.PHASE_FIRST_FRAME, 300 * MILLI);
+        // Only the first time a phase is reached counts
+        mTimer.mark(StartupTimer.PHASE_FIRST_FRAME, 400 * MILLI);
+
+        assertEquals(StartupTimer.COLD, mTimer.getStartType());
+        assertEquals(1, histogram("cold_create").getCount());
+        assertEquals(100000, histogram("cold_create").getMaxMicros(), 3000);
+        assertEquals(1, histogram("cold_first_frame").getCount());
+        assertEquals(200000, histogram("cold_first_frame").getMaxMicros(), 6000);
+        assertFalse(mTimer.isMarked(StartupTimer.PHASE_CONTENT));
+    }
+
+    @Test
+    public void onCreate_laterIsWarm() {
+        mTimer.onProcessStart(100 * MILLI);
+        mTimer.onCreate(150 * MILLI);
+        mTimer.onCreate(1000 * MILLI);
+        mTimer.mark(StartupTimer.PHASE_CONTENT, 1010 * MILLI);
+
+        assertEquals(StartupTimer.WARM, mTimer.getStartType());
+        assertEquals(1, histogram("warm_content").getCount());
+        assertEquals(10000, histogram("warm_content").getMaxMicros(), 300);
+        assertEquals(0, histogram("cold_content").getCount());
+    }
+
+    @Test
+    public void onBackgroundStart_makesTheFirstCreateWarm() {
+        mTimer.onProcessStart(100 * MILLI);
+        mTimer.onBackgroundStart();
+        mTimer.onCreate(60000 * MILLI);
+
+        assertEquals(StartupTimer.WARM, mTimer.getStartType());
+    }
+
+    @Test
+    public void onRestart_onlyTimesTheFirstFrame() {
+        mTimer.onCreate(0);
+        mTimer.onRestart(500 * MILLI);
+        mTimer.mark(StartupTimer.PHASE_FIRST_FRAME, 520 * MILLI);
+        mTimer.mark(StartupTimer.PHASE_CONTENT, 520 * MILLI);
+
+        assertEquals(StartupTimer.HOT, mTimer.getStartType());
+        assertEquals(1, histogram("hot_first_frame").getCount());
+        assertEquals(20000, histogram("hot_first_frame").getMaxMicros(), 600);
+        assertTrue(mTimer.isMarked(StartupTimer.PHASE_CONTENT));
+    }
+
+    private static LatencyHistogram histogram(String name) {
+        for (LatencyHistogram histogram : Metrics.getHistograms()) {
+            if (histogram.getName().equals(name)) {
+                return histogram;
+            }
+        }
+        throw new AssertionError("No histogram " + name);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SyncStateTest {
+
+    private static final String[] SECTIONS = {"world"};
+
+    @Test
+    public void markSynced_mergesOverlappingAndTouchingWindows() {
+        SyncState state = new SyncState();
+        state.markSynced("world", 100, 200);
+        state.markSynced("world", 400, 500);
+        state.markSynced("world", 201, 250);
+        state.markSynced("world", 450, 600);
+
+        assertEquals("100:250,400:600", state.encode("world"));
+        assertEquals(600, state.getHighWaterMark("world"));
+        assertEquals(NewsDates.UNKNOWN_DATE, state.getHighWaterMark("sport"));
+
+        state.markSynced("world", 150, 450);
+        assertEquals("100:600", state.encode("world"));
+    }
+
+    @Test
+    public void getGaps_listsUnsyncedWindowsUpToTheMark() {
+        SyncState state = new SyncState();
+        state.markSynced("world", 100, 200);
+        state.markSynced("world", 300, 400);
+
+        assertEquals(Arrays.asList(new SyncState.Window(50, 99),
+                new SyncState.Window(201, 299)), state.getGaps("world", 50));
+        assertEquals(Collections.singletonList(new SyncState.Window(201, 299)),
+                state.getGaps("world", 150));
+        assertTrue(state.getGaps("sport", 0).isEmpty());
+    }
+
+    @Test
+    public void isCovered_requiresEverySectionWithoutGaps() {
+        SyncState state = new SyncState();
+        state.markSynced("world", 100, 200);
+        state.markSynced("world", 300, 400);
+
+        assertTrue(state.isCovered(SECTIONS, 300));
+        assertFalse(state.isCovered(SECTIONS, 150));
+        assertFalse(state.isCovered(new String[]{"world", "sport"}, 300));
+        assertFalse(state.isCovered(SECTIONS, 500));
+    }
+
+    @Test
+    public void forgetBefore_dropsAndCutsShortOlderWindows() {
+        SyncState state = new SyncState();
+        state.markSynced("world", 100, 200);
+        state.markSynced("world", 300, 400);
+        state.markSynced("sport", 100, 200);
+        state.markSynced("uk-news", 350, 400);
+        state.takeDirtySections();
+
+        state.forgetBefore(350);
+
+        assertEquals("350:400", state.encode("world"));
+        assertEquals(NewsDates.UNKNOWN_DATE, state.getHighWaterMark("sport"));
+        assertEquals("350:400", state.encode("uk-news"));
+        assertEquals(new HashSet<String>(Arrays.asList("world", "sport")),
+                state.takeDirtySections());
+        assertTrue(state.isCovered(SECTIONS, 350));
+    }
+
+    @Test
+    public void restore_readsEncodedWindowsAndSkipsBrokenOnes() {
+        SyncState saved = new SyncState();
+        saved.markSynced("world", 100, 200);
+        saved.markSynced("world", 300, 400);
+        assertEquals(Collections.singleton("world"), saved.takeDirtySections());
+        assertTrue(saved.takeDirtySections().isEmpty());
+
+        SyncState restored = new SyncState();
+        restored.restore("world", saved.encode("world") + ",x:1,7");
+
+        assertEquals("100:200,300:400", restored.encode("world"));
+        assertTrue(restored.takeDirtySections().isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+#!/bin/sh
+# Launches the app repeatedly on the connected device and prints the launch times reported by
+# the activity manager for cold, warm and hot starts, so runs before and after a change can be
+# compared. The phases of each start are also recorded in the metrics screen of debug builds.
+#
+# usage: scripts/startup_benchmark.sh [runs per kind of start, default 10]
+
+set -e
+
+RUNS=${1:-10}
+PACKAGE=com.example.android.newsapp
+ACTIVITY=$PACKAGE/.NewsActivity
+
+# Print the TotalTime of a launch, in milliseconds
+launch() {
+    adb shell am start -W -n "$ACTIVITY" | tr -d '\r' | sed -n 's/^TotalTime: //p'
+}
+
+# Print the count, minimum, median and maximum of the numbers read from stdin
+summarize() {
+    sort -n | awk '{ v[NR] = $1 } END {
+        if (NR == 0) { print "no launches"; exit }
+        printf "n=%d min=%d median=%d max=%d ms\n", NR, v[1], v[int((NR + 1) / 2)], v[NR]
+    }'
+}
+
+adb shell am force-stop "$PACKAGE"
+
+printf "cold: "
+i=0
+while [ $i -lt "$RUNS" ]; do
+    adb shell am force-stop "$PACKAGE"
+    sleep 1
+    launch
+    i=$((i + 1))
+done | summarize
+
+printf "warm: "
+i=0
+while [ $i -lt "$RUNS" ]; do
+    # Back finishes the activity but keeps the process
+    adb shell input keyevent KEYCODE_BACK
+    sleep 1
+    launch
+    i=$((i + 1))
+done | summarize
+
+printf "hot:  "
+i=0
+while [ $i -lt "$RUNS" ]; do
+    # Home only stops the activity
+    adb shell input keyevent KEYCODE_HOME
+    sleep 1
+    launch
+    i=$((i + 1))
+done | summarize